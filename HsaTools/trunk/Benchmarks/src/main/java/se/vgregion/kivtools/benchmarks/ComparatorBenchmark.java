@@ -0,0 +1,97 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.vgregion.kivtools.search.domain.Person;
+import se.vgregion.kivtools.search.domain.Unit;
+import se.vgregion.kivtools.search.svc.comparators.PersonNameWeightedComparator;
+import se.vgregion.kivtools.search.svc.comparators.UnitNameComparator;
+
+/**
+ * Measures sorting of search results using the comparators used by the unit and person searches. Each invocation sorts
+ * a fresh copy of the search result so the time includes copying the list.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ComparatorBenchmark {
+  @Param({ "100", "2000" })
+  private int resultSize;
+
+  private List<Unit> units;
+  private List<Person> persons;
+  private UnitNameComparator unitNameComparator;
+  private PersonNameWeightedComparator personNameWeightedComparator;
+
+  /**
+   * Creates the search results to sort.
+   */
+  @Setup
+  public void setUp() {
+    this.units = DirectoryFixtures.units(this.resultSize);
+    this.persons = DirectoryFixtures.persons(this.resultSize);
+    this.unitNameComparator = new UnitNameComparator();
+    this.personNameWeightedComparator = new PersonNameWeightedComparator("Karin", "Andersson");
+  }
+
+  /**
+   * Sorts units by name.
+   *
+   * @return The sorted units.
+   */
+  @Benchmark
+  public List<Unit> unitNameComparator() {
+    List<Unit> result = new ArrayList<Unit>(this.units);
+    Collections.sort(result, this.unitNameComparator);
+    return result;
+  }
+
+  /**
+   * Sorts persons by how well their names match the searched names.
+   *
+   * @return The sorted persons.
+   */
+  @Benchmark
+  public List<Person> personNameWeightedComparator() {
+    List<Person> result = new ArrayList<Person>(this.persons);
+    Collections.sort(result, this.personNameWeightedComparator);
+    return result;
+  }
+}
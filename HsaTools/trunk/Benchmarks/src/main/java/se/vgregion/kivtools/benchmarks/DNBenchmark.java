@@ -0,0 +1,106 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import se.vgregion.kivtools.search.domain.values.DN;
+
+/**
+ * Measures parsing of DN-strings and the operations performed on the parsed DN's when the unit cache is built.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DNBenchmark {
+  private static final int DNS = 256;
+
+  private List<String> dnStrings;
+  private DN[] dns;
+
+  /**
+   * Creates the DN-strings and DN's to use.
+   */
+  @Setup
+  public void setUp() {
+    this.dnStrings = DirectoryFixtures.unitDnStrings(DNS);
+    this.dns = new DN[DNS];
+    for (int i = 0; i < DNS; i++) {
+      this.dns[i] = DN.createDNFromString(this.dnStrings.get(i));
+    }
+  }
+
+  /**
+   * Parses DN-strings.
+   *
+   * @param blackhole Consumes the parsed DN's.
+   */
+  @Benchmark
+  @OperationsPerInvocation(DNS)
+  public void createDNFromString(Blackhole blackhole) {
+    for (String dnString : this.dnStrings) {
+      blackhole.consume(DN.createDNFromString(dnString));
+    }
+  }
+
+  /**
+   * Parses and escapes DN-strings the way the unit mappers do.
+   *
+   * @param blackhole Consumes the escaped DN's.
+   */
+  @Benchmark
+  @OperationsPerInvocation(DNS)
+  public void createAndEscape(Blackhole blackhole) {
+    for (String dnString : this.dnStrings) {
+      blackhole.consume(DN.createDNFromString(dnString).escape());
+    }
+  }
+
+  /**
+   * Looks up the parent of parsed DN's and converts it to a string the way the unit cache does.
+   *
+   * @param blackhole Consumes the DN-strings of the parents.
+   */
+  @Benchmark
+  @OperationsPerInvocation(DNS)
+  public void parentDnString(Blackhole blackhole) {
+    for (DN dn : this.dns) {
+      DN parentDn = dn.getParentDN();
+      blackhole.consume(parentDn != null ? parentDn.toString() : null);
+    }
+  }
+}
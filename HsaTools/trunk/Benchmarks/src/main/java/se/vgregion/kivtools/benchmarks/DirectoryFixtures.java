@@ -0,0 +1,341 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.springframework.ldap.core.DistinguishedName;
+
+import se.vgregion.kivtools.mocks.ldap.DirContextOperationsMock;
+import se.vgregion.kivtools.search.domain.Person;
+import se.vgregion.kivtools.search.domain.Unit;
+import se.vgregion.kivtools.search.domain.values.CodeTableNameInterface;
+import se.vgregion.kivtools.search.domain.values.DN;
+import se.vgregion.kivtools.search.domain.values.HealthcareTypeConditionHelper;
+import se.vgregion.kivtools.search.svc.codetables.CodeTablesService;
+import se.vgregion.kivtools.search.svc.impl.kiv.ldap.UnitLdapAttributes;
+import se.vgregion.kivtools.search.svc.impl.kiv.ws.KivwsAttributes;
+import se.vgregion.kivtools.search.svc.ws.domain.kivws.ArrayOfAnyType;
+import se.vgregion.kivtools.search.svc.ws.domain.kivws.ObjectFactory;
+import se.vgregion.kivtools.search.svc.ws.domain.kivws.String2ArrayOfAnyTypeMap;
+import se.vgregion.kivtools.search.util.DisplayValueTranslator;
+
+/**
+ * Builds the in-memory test data used by the benchmarks. All data is generated from a fixed seed so that every run of a
+ * benchmark works on exactly the same data.
+ */
+final class DirectoryFixtures {
+  static final String HEALTHCARE_TYPE_CONDITIONS = "se.vgregion.kivtools.search.svc.impl.kiv.ldap.search-composite-svc-healthcare-type-conditions";
+
+  private static final long SEED = 4711L;
+  private static final ObjectFactory OBJECT_FACTORY = new ObjectFactory();
+  private static final String[] GIVEN_NAMES = { "Anna", "Anders", "Birgitta", "Björn", "Cecilia", "Carl", "Eva", "Erik", "Karin", "Karl", "Kerstin", "Lars", "Maria",
+      "Mikael", "Margareta", "Nils", "Elisabeth", "Per", "Ingrid", "Johan", "Åsa", "Örjan" };
+  private static final String[] SURNAMES = { "Andersson", "Johansson", "Karlsson", "Nilsson", "Eriksson", "Larsson", "Olsson", "Persson", "Svensson", "Gustafsson",
+      "Pettersson", "Jonsson", "Jansson", "Hansson", "Bengtsson", "Jönsson", "Lindberg", "Jakobsson", "Magnusson", "Öberg", "Åberg" };
+  private static final String[] UNIT_NAMES = { "Vårdcentralen", "Folktandvården", "Barnmorskemottagningen", "Ungdomsmottagningen", "Rehabenheten", "Akutmottagning",
+      "Öron-näsa-hals", "Distriktssköterskemottagning" };
+  private static final String[] MUNICIPALITIES = { "Göteborg", "Borås", "Trollhättan", "Skövde", "Uddevalla", "Alingsås", "Mölndal", "Kungälv", "Lidköping", "Åmål" };
+  private static final String[] ADMINISTRATIONS = { "Primärvården Göteborg", "Folktandvården Västra Götaland", "Sahlgrenska Universitetssjukhuset",
+      "Södra Älvsborgs Sjukhus" };
+  private static final String[] TIMES = { "1-5#08:00#17:00", "1-4#07:30#16:30", "5-5#08:00#15:00", "6-7#10:00#14:00", "1-1#08:00#12:00", "3-3#13:00#18:30" };
+
+  private DirectoryFixtures() {
+    // Utility class, no instances.
+  }
+
+  /**
+   * Creates a new random generator using the fixed seed of the fixtures.
+   *
+   * @return A new random generator.
+   */
+  static Random random() {
+    return new Random(SEED);
+  }
+
+  /**
+   * Initializes the healthcare type conditions used by the unit mappers.
+   */
+  static void initializeHealthcareTypeConditions() {
+    new HealthcareTypeConditionHelper().setImplResourcePath(HEALTHCARE_TYPE_CONDITIONS);
+  }
+
+  /**
+   * Creates a DisplayValueTranslator without any translations.
+   *
+   * @return A new DisplayValueTranslator.
+   */
+  static DisplayValueTranslator displayValueTranslator() {
+    DisplayValueTranslator displayValueTranslator = new DisplayValueTranslator();
+    displayValueTranslator.setTranslationMap(new HashMap<String, String>());
+    return displayValueTranslator;
+  }
+
+  /**
+   * Creates a CodeTablesService that answers every lookup without touching a directory.
+   *
+   * @return A new CodeTablesService.
+   */
+  static CodeTablesService codeTablesService() {
+    return new StaticCodeTablesService();
+  }
+
+  /**
+   * Creates DN-strings for units on different levels in the organization.
+   *
+   * @param count The number of DN-strings to create.
+   * @return A list of DN-strings.
+   */
+  static List<String> unitDnStrings(int count) {
+    Random random = random();
+    List<String> result = new ArrayList<String>(count);
+    for (int i = 0; i < count; i++) {
+      result.add(unitDnString(random, i));
+    }
+    return result;
+  }
+
+  /**
+   * Creates the LDAP representation of a number of units.
+   *
+   * @param count The number of units to create.
+   * @return An array of LDAP contexts.
+   */
+  static DirContextOperationsMock[] ldapUnits(int count) {
+    Random random = random();
+    DirContextOperationsMock[] result = new DirContextOperationsMock[count];
+    for (int i = 0; i < count; i++) {
+      DirContextOperationsMock context = new DirContextOperationsMock();
+      context.setDn(new DistinguishedName(unitDnString(random, i)));
+      String name = unitName(random, i);
+      String municipality = pick(random, MUNICIPALITIES);
+      context.addAttributeValue(UnitLdapAttributes.OU, name);
+      context.addAttributeValue(UnitLdapAttributes.HSA_IDENTITY, hsaIdentity(i));
+      context.addAttributeValue(UnitLdapAttributes.DESCRIPTION, new String[] { "Mottagning för " + name, "Hit kan du vända dig med de flesta sjukdomar." });
+      context.addAttributeValue(UnitLdapAttributes.MAIL, "unit" + i + "@vgregion.se");
+      context.addAttributeValue(UnitLdapAttributes.LABELED_URI, "http://www.vgregion.se/unit" + i);
+      context.addAttributeValue(UnitLdapAttributes.VGR_CARE_TYPE, "01");
+      context.addAttributeValue(UnitLdapAttributes.VGR_AO3_KOD, "0" + (i % 9 + 1));
+      context.addAttributeValue(UnitLdapAttributes.HSA_BUSINESS_CLASSIFICATION_CODE, new String[] { "1500", "1100" });
+      context.addAttributeValue(UnitLdapAttributes.HSA_PUBLIC_TELEPHONE_NUMBER, new String[] { phoneNumber(random), phoneNumber(random) });
+      context.addAttributeValue(UnitLdapAttributes.HSA_TELEPHONE_NUMBER, phoneNumber(random));
+      context.addAttributeValue(UnitLdapAttributes.FACSIMILE_TELEPHONE_NUMBER, phoneNumber(random));
+      context.addAttributeValue(UnitLdapAttributes.HSA_TELEPHONE_TIME, weekdayTimes(random, 3).toArray(new String[0]));
+      context.addAttributeValue(UnitLdapAttributes.HSA_SURGERY_HOURS, weekdayTimes(random, 3).toArray(new String[0]));
+      context.addAttributeValue(UnitLdapAttributes.HSA_DROPIN_HOURS, weekdayTimes(random, 2).toArray(new String[0]));
+      context.addAttributeValue(UnitLdapAttributes.HSA_STREET_ADDRESS, new String[] { "Storgatan " + (i % 100 + 1), "412 " + (10 + i % 90) + " " + municipality });
+      context.addAttributeValue(UnitLdapAttributes.HSA_POSTAL_ADDRESS, new String[] { "Box " + (i + 100), "412 " + (10 + i % 90) + " " + municipality });
+      context.addAttributeValue(UnitLdapAttributes.HSA_MUNICIPALITY_CODE, "14" + (80 + i % 20));
+      context.addAttributeValue(UnitLdapAttributes.HSA_MUNICIPALITY_SECTION_NAME, municipality);
+      context.addAttributeValue(UnitLdapAttributes.HSA_GEOGRAPHICAL_COORDINATES, "X: " + (6400000 + random.nextInt(200000)) + ", Y: " + (1270000 + random.nextInt(100000)));
+      context.addAttributeValue(UnitLdapAttributes.HSA_ROUTE, "Buss 16 till Centrum");
+      context.addAttributeValue(UnitLdapAttributes.VGR_MODIFY_TIMESTAMP, "20100101120102");
+      context.addAttributeValue(UnitLdapAttributes.CREATE_TIMESTAMP, "20090101120102");
+      context.addAttributeValue(UnitLdapAttributes.VGR_AVTALSKOD, "AV" + i);
+      result[i] = context;
+    }
+    return result;
+  }
+
+  /**
+   * Creates the KIV web service representation of a number of units.
+   *
+   * @param count The number of units to create.
+   * @return An array of web service units.
+   */
+  static se.vgregion.kivtools.search.svc.ws.domain.kivws.Unit[] kivwsUnits(int count) {
+    Random random = random();
+    se.vgregion.kivtools.search.svc.ws.domain.kivws.Unit[] result = new se.vgregion.kivtools.search.svc.ws.domain.kivws.Unit[count];
+    for (int i = 0; i < count; i++) {
+      String name = unitName(random, i);
+      String municipality = pick(random, MUNICIPALITIES);
+      String2ArrayOfAnyTypeMap attributes = OBJECT_FACTORY.createString2ArrayOfAnyTypeMap();
+      addEntry(attributes, KivwsAttributes.OU, name);
+      addEntry(attributes, KivwsAttributes.HSA_IDENTITY, hsaIdentity(i));
+      addEntry(attributes, KivwsAttributes.DESCRIPTION, "Mottagning för " + name, "Hit kan du vända dig med de flesta sjukdomar.");
+      addEntry(attributes, KivwsAttributes.MAIL, "unit" + i + "@vgregion.se");
+      addEntry(attributes, KivwsAttributes.LABELED_URI, "http://www.vgregion.se/unit" + i);
+      addEntry(attributes, KivwsAttributes.VGR_CARE_TYPE, "01");
+      addEntry(attributes, KivwsAttributes.HSA_BUSINESS_CLASSIFICATION_CODE, "1500", "1100");
+      addEntry(attributes, KivwsAttributes.HSA_PUBLIC_TELEPHONE_NUMBER, phoneNumber(random), phoneNumber(random));
+      addEntry(attributes, KivwsAttributes.HSA_TELEPHONE_NUMBER, phoneNumber(random));
+      addEntry(attributes, KivwsAttributes.FACSIMILE_TELEPHONE_NUMBER, phoneNumber(random));
+      addEntry(attributes, KivwsAttributes.HSA_TELEPHONE_TIME, weekdayTimes(random, 3).toArray(new String[0]));
+      addEntry(attributes, KivwsAttributes.HSA_SURGERY_HOURS, weekdayTimes(random, 3).toArray(new String[0]));
+      addEntry(attributes, KivwsAttributes.HSA_DROPIN_HOURS, weekdayTimes(random, 2).toArray(new String[0]));
+      addEntry(attributes, KivwsAttributes.HSA_STREET_ADDRESS, "Storgatan " + (i % 100 + 1), "412 " + (10 + i % 90) + " " + municipality);
+      addEntry(attributes, KivwsAttributes.HSA_POSTAL_ADDRESS, "Box " + (i + 100), "412 " + (10 + i % 90) + " " + municipality);
+      addEntry(attributes, KivwsAttributes.HSA_MUNICIPALITY_CODE, "14" + (80 + i % 20));
+      addEntry(attributes, KivwsAttributes.HSA_MUNICIPALITY_SECTION_NAME, municipality);
+      addEntry(attributes, KivwsAttributes.HSA_GEOGRAPHICAL_COORDINATES, "X: " + (6400000 + random.nextInt(200000)) + ", Y: " + (1270000 + random.nextInt(100000)));
+      addEntry(attributes, KivwsAttributes.HSA_ROUTE, "Buss 16 till Centrum");
+      addEntry(attributes, KivwsAttributes.VGR_MODIFY_TIMESTAMP, "20100101120102");
+      addEntry(attributes, KivwsAttributes.CREATE_TIMESTAMP, "20090101120102");
+      addEntry(attributes, KivwsAttributes.VGR_AVTALSKOD, "AV" + i);
+
+      se.vgregion.kivtools.search.svc.ws.domain.kivws.Unit unit = new se.vgregion.kivtools.search.svc.ws.domain.kivws.Unit();
+      unit.setDn(OBJECT_FACTORY.createUnitDn(unitDnString(random, i)));
+      unit.setAttributes(OBJECT_FACTORY.createServerAttributes(attributes));
+      result[i] = unit;
+    }
+    return result;
+  }
+
+  /**
+   * Creates a number of units with names, municipalities and DN's.
+   *
+   * @param count The number of units to create.
+   * @return A list of units.
+   */
+  static List<Unit> units(int count) {
+    Random random = random();
+    List<Unit> result = new ArrayList<Unit>(count);
+    for (int i = 0; i < count; i++) {
+      Unit unit = new Unit();
+      unit.setName(unitName(random, i));
+      unit.setOu(unit.getName());
+      unit.setHsaIdentity(hsaIdentity(i));
+      unit.setHsaMunicipalityName(pick(random, MUNICIPALITIES));
+      unit.setDn(DN.createDNFromString(unitDnString(random, i)));
+      result.add(unit);
+    }
+    return result;
+  }
+
+  /**
+   * Creates a number of persons with common swedish names.
+   *
+   * @param count The number of persons to create.
+   * @return A list of persons.
+   */
+  static List<Person> persons(int count) {
+    Random random = random();
+    List<Person> result = new ArrayList<Person>(count);
+    for (int i = 0; i < count; i++) {
+      Person person = new Person();
+      person.setGivenName(pick(random, GIVEN_NAMES));
+      person.setSn(pick(random, SURNAMES));
+      result.add(person);
+    }
+    return result;
+  }
+
+  /**
+   * Creates given name/surname pairs for a number of persons. Element 0 of each pair is the given name and element 1 is
+   * the surname.
+   *
+   * @param count The number of name pairs to create.
+   * @return A list of name pairs.
+   */
+  static List<String[]> personNames(int count) {
+    Random random = random();
+    List<String[]> result = new ArrayList<String[]>(count);
+    for (int i = 0; i < count; i++) {
+      String givenName = pick(random, GIVEN_NAMES);
+      // Make the names unique enough to give the cache a realistic size.
+      if (random.nextInt(4) == 0) {
+        givenName = givenName + " " + pick(random, GIVEN_NAMES);
+      }
+      String surname = pick(random, SURNAMES) + (i % 50 == 0 ? "" : "-" + pick(random, SURNAMES).substring(0, 3) + i % 97);
+      result.add(new String[] { givenName, surname });
+    }
+    return result;
+  }
+
+  /**
+   * Creates the save values (LDAP representation) of a number of weekday times.
+   *
+   * @param random The random generator to use.
+   * @param count The number of save values to create.
+   * @return A list of save values.
+   */
+  static List<String> weekdayTimes(Random random, int count) {
+    List<String> result = new ArrayList<String>(count);
+    for (int i = 0; i < count; i++) {
+      result.add(pick(random, TIMES));
+    }
+    return result;
+  }
+
+  private static void addEntry(String2ArrayOfAnyTypeMap attributes, String key, String... values) {
+    ArrayOfAnyType arrayOfAnyType = OBJECT_FACTORY.createArrayOfAnyType();
+    arrayOfAnyType.getAnyType().addAll(Arrays.asList(values));
+    String2ArrayOfAnyTypeMap.Entry entry = new String2ArrayOfAnyTypeMap.Entry();
+    entry.setKey(key);
+    entry.setValue(arrayOfAnyType);
+    attributes.getEntry().add(entry);
+  }
+
+  private static String unitDnString(Random random, int index) {
+    StringBuilder dn = new StringBuilder();
+    dn.append("ou=").append(unitName(random, index));
+    int depth = random.nextInt(3);
+    for (int i = 0; i < depth; i++) {
+      dn.append(",ou=").append(pick(random, UNIT_NAMES)).append(" ").append(pick(random, MUNICIPALITIES));
+    }
+    dn.append(",ou=").append(pick(random, ADMINISTRATIONS)).append(",ou=Org,o=vgr");
+    return dn.toString();
+  }
+
+  private static String unitName(Random random, int index) {
+    return pick(random, UNIT_NAMES) + " " + pick(random, MUNICIPALITIES) + " " + index;
+  }
+
+  private static String hsaIdentity(int index) {
+    return "SE2321000131-E" + (100000000000L + index);
+  }
+
+  private static String phoneNumber(Random random) {
+    return "031-" + (1000000 + random.nextInt(8999999));
+  }
+
+  private static String pick(Random random, String[] values) {
+    return values[random.nextInt(values.length)];
+  }
+
+  /**
+   * CodeTablesService returning a fixed code for every text value.
+   */
+  private static final class StaticCodeTablesService implements CodeTablesService {
+    @Override
+    public String getValueFromCode(CodeTableNameInterface codeTableName, String code) {
+      return "Text for " + code;
+    }
+
+    @Override
+    public List<String> getCodeFromTextValue(CodeTableNameInterface codeTableName, String textValue) {
+      return Arrays.asList("1500", "1100");
+    }
+
+    @Override
+    public List<String> getValuesFromTextValue(CodeTableNameInterface codeTableName, String textValue) {
+      return Arrays.asList(textValue);
+    }
+
+    @Override
+    public List<String> getAllValuesItemsFromCodeTable(String codeTableName) {
+      return new ArrayList<String>();
+    }
+  }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.vgregion.kivtools.search.svc.cache.PersonNameCache;
+
+/**
+ * Measures the name suggestions given while the user types in the person search, and the time it takes to index the
+ * names when the cache is reloaded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersonNameCacheBenchmark {
+  private static final int PERSONS = 50000;
+
+  @Param({ "k", "kar", "karin" })
+  private String givenName;
+
+  @Param({ "", "and" })
+  private String surname;
+
+  private List<String[]> names;
+  private PersonNameCache personNameCache;
+
+  /**
+   * Creates and indexes the cache to query.
+   */
+  @Setup
+  public void setUp() {
+    this.names = DirectoryFixtures.personNames(PERSONS);
+    this.personNameCache = createCache();
+    this.personNameCache.buildIndex();
+  }
+
+  /**
+   * Suggests given names.
+   *
+   * @return The matching given names.
+   */
+  @Benchmark
+  public List<String> matchingGivenNames() {
+    return this.personNameCache.getMatchingGivenNames(this.givenName, this.surname);
+  }
+
+  /**
+   * Suggests surnames.
+   *
+   * @return The matching surnames.
+   */
+  @Benchmark
+  public List<String> matchingSurnames() {
+    return this.personNameCache.getMatchingSurnames(this.givenName, this.surname);
+  }
+
+  /**
+   * Populates and indexes a new cache.
+   *
+   * @return The indexed cache.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 3)
+  @Measurement(iterations = 10)
+  public PersonNameCache buildIndex() {
+    PersonNameCache cache = createCache();
+    cache.buildIndex();
+    return cache;
+  }
+
+  private PersonNameCache createCache() {
+    PersonNameCache cache = new PersonNameCache();
+    for (String[] name : this.names) {
+      cache.add(name[0], name[1]);
+    }
+    return cache;
+  }
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import se.vgregion.kivtools.search.domain.Unit;
+import se.vgregion.kivtools.util.reflection.ReflectionUtil;
+
+/**
+ * Measures reading every property of a unit by name, comparing ReflectionUtil with a lookup that scans the declared
+ * methods of the class on every call the way ReflectionUtil did before the methods were cached.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReflectionUtilBenchmark {
+  private Unit unit;
+  private List<String> propertyNames;
+
+  /**
+   * Creates the unit and collects the names of all its properties.
+   */
+  @Setup
+  public void setUp() {
+    this.unit = DirectoryFixtures.units(1).get(0);
+    this.propertyNames = new ArrayList<String>();
+    for (Method method : Unit.class.getDeclaredMethods()) {
+      if (method.getName().startsWith("get") && method.getName().length() > 3 && method.getParameterTypes().length == 0) {
+        this.propertyNames.add(method.getName().substring(3).toLowerCase());
+      }
+    }
+  }
+
+  /**
+   * Reads all properties of the unit using ReflectionUtil.
+   *
+   * @param blackhole Consumes the property values.
+   */
+  @Benchmark
+  public void getPropertyCached(Blackhole blackhole) {
+    for (String propertyName : this.propertyNames) {
+      blackhole.consume(ReflectionUtil.getProperty(this.unit, propertyName, true));
+    }
+  }
+
+  /**
+   * Reads all properties of the unit by scanning the declared methods for each property.
+   *
+   * @param blackhole Consumes the property values.
+   */
+  @Benchmark
+  public void getPropertyUncached(Blackhole blackhole) {
+    for (String propertyName : this.propertyNames) {
+      blackhole.consume(getPropertyByScanning(this.unit, "get" + propertyName));
+    }
+  }
+
+  private static Object getPropertyByScanning(Object object, String methodName) {
+    Object result = null;
+    for (Method method : object.getClass().getDeclaredMethods()) {
+      if (method.getName().equalsIgnoreCase(methodName)) {
+        try {
+          result = method.invoke(object);
+        } catch (IllegalAccessException e) {
+          result = null;
+        } catch (InvocationTargetException e) {
+          result = null;
+        }
+        break;
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import se.vgregion.kivtools.mocks.ldap.DirContextOperationsMock;
+import se.vgregion.kivtools.search.svc.impl.kiv.ldap.UnitMapper;
+import se.vgregion.kivtools.search.svc.impl.kiv.ws.KivwsUnitMapper;
+
+/**
+ * Measures the time it takes to map a single unit from its LDAP and KIV web service representations. The unit mappers
+ * are run for every unit read during a cache reload so they dominate the reload time together with the network.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UnitMapperBenchmark {
+  private static final int UNITS = 256;
+
+  private UnitMapper unitMapper;
+  private KivwsUnitMapper kivwsUnitMapper;
+  private DirContextOperationsMock[] ldapUnits;
+  private se.vgregion.kivtools.search.svc.ws.domain.kivws.Unit[] kivwsUnits;
+
+  /**
+   * Creates the mappers and the units to map.
+   */
+  @Setup
+  public void setUp() {
+    DirectoryFixtures.initializeHealthcareTypeConditions();
+    this.unitMapper = new UnitMapper(DirectoryFixtures.codeTablesService(), DirectoryFixtures.displayValueTranslator());
+    // Delivery points are looked up using a separate web service call so they are not part of this benchmark.
+    this.kivwsUnitMapper = new KivwsUnitMapper(DirectoryFixtures.codeTablesService(), DirectoryFixtures.displayValueTranslator(), null);
+    this.ldapUnits = DirectoryFixtures.ldapUnits(UNITS);
+    this.kivwsUnits = DirectoryFixtures.kivwsUnits(UNITS);
+  }
+
+  /**
+   * Maps units read from LDAP.
+   *
+   * @param blackhole Consumes the mapped units.
+   */
+  @Benchmark
+  @OperationsPerInvocation(UNITS)
+  public void ldapUnitMapper(Blackhole blackhole) {
+    for (DirContextOperationsMock ldapUnit : this.ldapUnits) {
+      blackhole.consume(this.unitMapper.mapFromContext(ldapUnit));
+    }
+  }
+
+  /**
+   * Maps units read from the KIV web service.
+   *
+   * @param blackhole Consumes the mapped units.
+   */
+  @Benchmark
+  @OperationsPerInvocation(UNITS)
+  public void kivwsUnitMapper(Blackhole blackhole) {
+    for (se.vgregion.kivtools.search.svc.ws.domain.kivws.Unit kivwsUnit : this.kivwsUnits) {
+      blackhole.consume(this.kivwsUnitMapper.mapFromContext(kivwsUnit, false));
+    }
+  }
+}
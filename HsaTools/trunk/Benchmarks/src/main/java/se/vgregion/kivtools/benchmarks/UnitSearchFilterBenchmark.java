@@ -0,0 +1,105 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.vgregion.kivtools.search.domain.Unit;
+import se.vgregion.kivtools.search.svc.impl.kiv.ldap.UnitRepositoryFTV;
+import se.vgregion.kivtools.search.svc.ldap.criterions.SearchUnitCriterions;
+
+/**
+ * Measures construction of the LDAP filters used when searching for units. No search is performed, only the filter
+ * strings are built.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UnitSearchFilterBenchmark {
+  private FilterUnitRepository unitRepository;
+  private SearchUnitCriterions searchUnitCriterions;
+  private Unit advancedSearchUnit;
+
+  /**
+   * Creates the repository and the search criterions.
+   */
+  @Setup
+  public void setUp() {
+    this.unitRepository = new FilterUnitRepository();
+    this.unitRepository.setCodeTablesService(DirectoryFixtures.codeTablesService());
+
+    this.searchUnitCriterions = new SearchUnitCriterions();
+    this.searchUnitCriterions.setUnitName("Vårdcentralen Majorna");
+    this.searchUnitCriterions.setBusinessClassificationName("Allmänmedicin");
+    this.searchUnitCriterions.setCareTypeName("Öppenvård");
+    this.searchUnitCriterions.setLocation("Göteborg");
+
+    this.advancedSearchUnit = new Unit();
+    this.advancedSearchUnit.setName("Vårdcentralen");
+    this.advancedSearchUnit.setHsaMunicipalityName("Göteborg");
+  }
+
+  /**
+   * Builds the filter used by the simple unit search.
+   *
+   * @return The filter.
+   */
+  @Benchmark
+  public String unitSearchFilter() {
+    return this.unitRepository.unitSearchFilter(this.searchUnitCriterions);
+  }
+
+  /**
+   * Builds the filter used by the advanced unit search.
+   *
+   * @return The filter.
+   */
+  @Benchmark
+  public String advancedUnitSearchFilter() {
+    return this.unitRepository.advancedUnitSearchFilter(this.advancedSearchUnit);
+  }
+
+  /**
+   * Makes the filter construction of the repository available to the benchmark.
+   */
+  private static final class FilterUnitRepository extends UnitRepositoryFTV {
+    private String unitSearchFilter(SearchUnitCriterions criterions) {
+      return this.createUnitSearchFilter(criterions);
+    }
+
+    private String advancedUnitSearchFilter(Unit unit) {
+      return this.createAdvancedUnitSearchFilter(unit);
+    }
+  }
+}
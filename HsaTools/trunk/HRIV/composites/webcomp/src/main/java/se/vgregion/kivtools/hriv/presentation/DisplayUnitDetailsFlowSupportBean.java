@@ -32,7 +32,7 @@ import se.vgregion.kivtools.search.exceptions.KivException;
 import se.vgregion.kivtools.search.exceptions.KivNoDataFoundException;
 import se.vgregion.kivtools.search.exceptions.NoConnectionToServerException;
 import se.vgregion.kivtools.search.svc.SearchService;
-import se.vgregion.kivtools.search.util.MvkClient;
+import se.vgregion.kivtools.search.util.MvkCaseTypeService;
 
 /**
  * Support bean for the display unit details flow.
@@ -46,7 +46,7 @@ public class DisplayUnitDetailsFlowSupportBean implements Serializable {
 
   private final Log logger = LogFactory.getLog(this.getClass());
   private SearchService searchService;
-  private MvkClient mvkClient;
+  private MvkCaseTypeService mvkCaseTypeService;
   private String useMvkIntegration;
 
   public String getUseMvkIntegration() {
@@ -61,8 +61,8 @@ public class DisplayUnitDetailsFlowSupportBean implements Serializable {
     this.searchService = searchService;
   }
 
-  public void setMvkClient(MvkClient mvkClient) {
-    this.mvkClient = mvkClient;
+  public void setMvkCaseTypeService(MvkCaseTypeService mvkCaseTypeService) {
+    this.mvkCaseTypeService = mvkCaseTypeService;
   }
 
   /**
@@ -90,7 +90,7 @@ public class DisplayUnitDetailsFlowSupportBean implements Serializable {
     }
 
     if ("true".equals(this.useMvkIntegration)) {
-      u.setMvkCaseTypes(this.mvkClient.getCaseTypesForUnit(u.getHsaIdentity()));
+      u.setMvkCaseTypes(this.mvkCaseTypeService.getCaseTypesForUnit(u.getHsaIdentity()));
     }
 
     return u;
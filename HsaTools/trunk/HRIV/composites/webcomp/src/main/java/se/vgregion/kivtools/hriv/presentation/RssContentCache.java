@@ -93,8 +93,10 @@ public class RssContentCache {
    * Loads the RSS content from the configured URL and stores it in memory.
    */
   private void loadRssContent() {
+    // Fetch all feeds in one batch so that the fetcher can fetch them concurrently.
+    Map<String, String> contents = this.httpFetcher.fetchUrls(nameToUrlMap.values());
     for (String name : nameToUrlMap.keySet()) {
-      String content = this.httpFetcher.fetchUrl(nameToUrlMap.get(name));
+      String content = contents.get(nameToUrlMap.get(name));
       if (!StringUtil.isEmpty(content)) {
         rssContentReference.put(name, content);
       } else if (StringUtil.isEmpty(rssContentReference.get(name))) {
@@ -38,11 +38,12 @@ import se.vgregion.kivtools.search.presentation.types.PagedSearchMetaData;
 import se.vgregion.kivtools.search.svc.SearchService;
 import se.vgregion.kivtools.search.svc.SikSearchResultList;
 import se.vgregion.kivtools.search.svc.TimeMeasurement;
+import se.vgregion.kivtools.search.svc.cache.UnitCache;
 import se.vgregion.kivtools.search.svc.comparators.UnitNameComparator;
 import se.vgregion.kivtools.search.svc.impl.cache.UnitCacheServiceImpl;
 import se.vgregion.kivtools.search.util.LogUtils;
 import se.vgregion.kivtools.search.util.PagedSearchMetaDataHelper;
-import se.vgregion.kivtools.search.util.geo.GeoUtil;
+import se.vgregion.kivtools.search.util.geo.GaussKrugerProjection;
 import se.vgregion.kivtools.util.StringUtil;
 
 /**
@@ -287,32 +288,34 @@ public class SearchUnitFlowSupportBean implements Serializable {
         this.pageSize = temp;
       }
     }
-    return PagedSearchMetaDataHelper.buildPagedSearchMetaData(unitHsaIdList, this.pageSize);
+    return PagedSearchMetaDataHelper.buildPagedSearchMetaData(unitHsaIdList.size(), this.pageSize);
   }
 
   /**
-   * Gets a list of units which are considered to be close to the address in the provided form.
+   * Gets a list of units which are considered to be close to the position in the provided form. The units are looked up
+   * in the proximity index of the unit cache so no external geocoding service is used.
    * 
-   * @param form The form with the address to get close units for.
-   * @return A list of Units that is within the distance of the address in the provided form.
+   * @param form The form with the position to get close units for.
+   * @return A list of Units that is within the distance of the position in the provided form, closest first.
    */
- 
-  //geoGoogle has deprecated
-  /* public SikSearchResultList<Unit> getCloseUnits(DisplayCloseUnitsSimpleForm form) {
+  public SikSearchResultList<Unit> getCloseUnits(DisplayCloseUnitsSimpleForm form) {
     SikSearchResultList<Unit> result = new SikSearchResultList<Unit>();
-    List<Unit> units = this.unitCacheService.getCache().getUnits();
-    if (units.isEmpty()) {
+    UnitCache unitCache = this.unitCacheService.getCache();
+    if (unitCache.isEmpty()) {
       // Units are not set, probably because the unit population is not finished yet.
       return result;
     }
 
-    GeoUtil geoUtil = new GeoUtil();
-    ArrayList<Unit> closeUnits = geoUtil.getCloseUnits(form.getAddress(), units, this.meters, this.googleMapsKey);
+    if (!form.hasPosition()) {
+      return result;
+    }
+
+    int[] rt90 = new GaussKrugerProjection("2.5V").getRT90(form.getLatitude().doubleValue(), form.getLongitude().doubleValue());
+    int maxResults = this.maxSearchResult > 0 ? this.maxSearchResult : Integer.MAX_VALUE;
+    List<Unit> closeUnits = unitCache.getProximityIndex().getNearestUnits(rt90[0], rt90[1], maxResults, this.meters);
     result.addAll(closeUnits);
     result.setTotalNumberOfFoundItems(closeUnits.size());
 
     return result;
   }
-  
-  */
 }
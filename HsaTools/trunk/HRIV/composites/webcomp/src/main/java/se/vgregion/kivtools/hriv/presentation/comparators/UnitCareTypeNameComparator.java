@@ -19,10 +19,11 @@
 
 package se.vgregion.kivtools.hriv.presentation.comparators;
 
-import java.text.Collator;
 import java.util.Comparator;
 
 import se.vgregion.kivtools.search.domain.Unit;
+import se.vgregion.kivtools.search.domain.util.SortKeys;
+import se.vgregion.kivtools.search.domain.values.HealthcareType;
 import se.vgregion.kivtools.util.StringUtil;
 
 /**
@@ -42,38 +43,36 @@ public class UnitCareTypeNameComparator implements Comparator<Unit> {
    * @return Returns an integer less than, equal to or greater than zero depending on whether the unit1 String is less than, equal to or greater than the unit2.
    */
   public int compare(Unit unit1, Unit unit2) {
-    String unit1HealthcareTypeDisplayName = null;
-    String unit2HealthcareTypeDisplayName = null;
-
-    unit1HealthcareTypeDisplayName = getFirstHealthcareTypeDisplayName(unit1);
-    unit2HealthcareTypeDisplayName = getFirstHealthcareTypeDisplayName(unit2);
+    HealthcareType unit1HealthcareType = getFirstHealthcareType(unit1);
+    HealthcareType unit2HealthcareType = getFirstHealthcareType(unit2);
+    String unit1HealthcareTypeDisplayName = unit1HealthcareType != null ? unit1HealthcareType.getDisplayName() : null;
+    String unit2HealthcareTypeDisplayName = unit2HealthcareType != null ? unit2HealthcareType.getDisplayName() : null;
 
     // If both units have valid classification codes, compare the BusinessClassificationName.
     // If unit1 lacks valid getHsaBusinessClassificationCode, put it last.
     // Same is true for unit2. If both unit1 and unit2 are missing a valid
     // getHsaBusinessClassificationCode, sort by unit name.
 
-    Collator myCollator = Collator.getInstance();
     int compareResult;
     if (!StringUtil.isEmpty(unit1HealthcareTypeDisplayName) && !StringUtil.isEmpty(unit2HealthcareTypeDisplayName)) {
-      compareResult = myCollator.compare(unit1HealthcareTypeDisplayName.toLowerCase(), unit2HealthcareTypeDisplayName.toLowerCase());
+      compareResult = SortKeys.compare(unit1HealthcareType.getDisplayNameSortKey(), unit2HealthcareType.getDisplayNameSortKey());
     } else if (!StringUtil.isEmpty(unit1HealthcareTypeDisplayName) && StringUtil.isEmpty(unit2HealthcareTypeDisplayName)) {
       compareResult = -1;
     } else if (StringUtil.isEmpty(unit1HealthcareTypeDisplayName) && !StringUtil.isEmpty(unit2HealthcareTypeDisplayName)) {
       compareResult = 1;
     } else {
-      compareResult = myCollator.compare(unit1.getName().toLowerCase(), unit2.getName().toLowerCase());
+      compareResult = unit1.getNameSortKey().compareTo(unit2.getNameSortKey());
     }
     return compareResult;
   }
 
-  private String getFirstHealthcareTypeDisplayName(Unit unit) {
-    String displayName = null;
+  private HealthcareType getFirstHealthcareType(Unit unit) {
+    HealthcareType healthcareType = null;
 
     if (unit.getHealthcareTypes() != null && unit.getHealthcareTypes().size() > 0) {
-      displayName = unit.getHealthcareTypes().get(0).getDisplayName();
+      healthcareType = unit.getHealthcareTypes().get(0);
     }
 
-    return displayName;
+    return healthcareType;
   }
 }
@@ -30,6 +30,8 @@ public class DisplayCloseUnitsSimpleForm implements Serializable {
 
   private static final long serialVersionUID = 5237982284800930275L;
   private String address = "Gata, ort";
+  private Double latitude;
+  private Double longitude;
   private boolean searchFlag;
 
   public boolean getSearchFlag() {
@@ -44,6 +46,31 @@ public class DisplayCloseUnitsSimpleForm implements Serializable {
     this.address = address;
   }
 
+  public Double getLatitude() {
+    return latitude;
+  }
+
+  public void setLatitude(Double latitude) {
+    this.latitude = latitude;
+  }
+
+  public Double getLongitude() {
+    return longitude;
+  }
+
+  public void setLongitude(Double longitude) {
+    this.longitude = longitude;
+  }
+
+  /**
+   * Checks if the form contains a WGS84 position to display close units for.
+   * 
+   * @return True if both latitude and longitude are set, otherwise false.
+   */
+  public boolean hasPosition() {
+    return latitude != null && longitude != null;
+  }
+
   /**
    * Sets the search flag to true.
    */
@@ -50,6 +50,7 @@ import se.vgregion.kivtools.search.svc.cache.CacheLoader;
 import se.vgregion.kivtools.search.svc.cache.UnitCache;
 import se.vgregion.kivtools.search.svc.comparators.UnitNameComparator;
 import se.vgregion.kivtools.search.svc.impl.cache.UnitCacheServiceImpl;
+import se.vgregion.kivtools.search.util.geo.GaussKrugerProjection;
 
 public class SearchUnitFlowSupportBeanTest {
   private final SearchServiceMock searchService = new SearchServiceMock();
@@ -314,15 +315,9 @@ public class SearchUnitFlowSupportBeanTest {
     assertEquals("DEF-234", this.bean.getGoogleMapsKey());
   }
 
-  
-  //@Test
-  
-  /* 
-   * 
-   * deprecated 
-   *
+  @Test
   public void testGetCloseUnits() {
-    ArrayList<Unit> closeUnits = this.bean.getCloseUnits(null);
+    List<Unit> closeUnits = this.bean.getCloseUnits(null);
     assertNotNull(closeUnits);
     assertEquals(0, closeUnits.size());
 
@@ -339,7 +334,39 @@ public class SearchUnitFlowSupportBeanTest {
     assertNotNull(closeUnits);
     assertEquals(0, closeUnits.size());
   }
- */ 
+
+  @Test
+  public void closeUnitsAreLookedUpFromPositionClosestFirst() {
+    Unit close = createPositionedUnit("close", 6399000, 1271000);
+    Unit closer = createPositionedUnit("closer", 6398900, 1270900);
+    Unit farAway = createPositionedUnit("farAway", 6490000, 1371000);
+    this.unitCacheService.setCache(new UnitCache.Builder().add(farAway).add(close).add(closer).build());
+    this.bean.setMeters(5000);
+
+    int[] rt90 = { 6398850, 1270850 };
+    double[] wgs84 = new GaussKrugerProjection("2.5V").getWGS84(rt90[0], rt90[1]);
+    this.displayCloseUnitsSimpleForm.setLatitude(wgs84[0]);
+    this.displayCloseUnitsSimpleForm.setLongitude(wgs84[1]);
+    SikSearchResultList<Unit> closeUnits = this.bean.getCloseUnits(this.displayCloseUnitsSimpleForm);
+    assertEquals(2, closeUnits.size());
+    assertSame(closer, closeUnits.get(0));
+    assertSame(close, closeUnits.get(1));
+    assertEquals(2, closeUnits.getTotalNumberOfFoundItems());
+
+    this.bean.setMaxSearchResult(1);
+    closeUnits = this.bean.getCloseUnits(this.displayCloseUnitsSimpleForm);
+    assertEquals(1, closeUnits.size());
+    assertSame(closer, closeUnits.get(0));
+  }
+
+  private static Unit createPositionedUnit(String hsaIdentity, int rt90X, int rt90Y) {
+    Unit unit = new Unit();
+    unit.setHsaIdentity(hsaIdentity);
+    unit.setRt90X(rt90X);
+    unit.setRt90Y(rt90Y);
+    return unit;
+  }
+
   private static class UnitSearchStrategyMock implements UnitSearchStrategy {
     private UnitSearchSimpleForm form;
     private int effectiveMaxSearchResult;
@@ -375,11 +402,9 @@ public class SearchUnitFlowSupportBeanTest {
 
     @Override
     public UnitCache loadCache() {
-      UnitCache unitCache = new UnitCache();
       Unit unit = new Unit();
       unit.setHsaIdentity("abc-123");
-      unitCache.add(unit);
-      return unitCache;
+      return new UnitCache.Builder().add(unit).build();
     }
   }
 }
@@ -0,0 +1,76 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.hriv.presentation;
+
+import org.springframework.webflow.config.FlowDefinitionResource;
+import org.springframework.webflow.config.FlowDefinitionResourceFactory;
+import org.springframework.webflow.core.collection.LocalAttributeMap;
+import org.springframework.webflow.core.collection.MutableAttributeMap;
+import org.springframework.webflow.test.MockExternalContext;
+import org.springframework.webflow.test.MockFlowBuilderContext;
+import org.springframework.webflow.test.execution.AbstractXmlFlowExecutionTests;
+
+import se.vgregion.kivtools.hriv.presentation.forms.UnitSearchSimpleForm;
+import se.vgregion.kivtools.search.domain.Unit;
+import se.vgregion.kivtools.search.exceptions.KivException;
+import se.vgregion.kivtools.search.exceptions.KivNoDataFoundException;
+import se.vgregion.kivtools.search.svc.SikSearchResultList;
+
+public class SearchUnitFlowTest extends AbstractXmlFlowExecutionTests {
+  @Override
+  protected FlowDefinitionResource getResource(FlowDefinitionResourceFactory resourceFactory) {
+    return resourceFactory.createClassPathResource("/flows/HRIV.Search.searchunit-flow.xml", getClass());
+  }
+
+  @Override
+  protected void configureFlowBuilderContext(MockFlowBuilderContext builderContext) {
+    builderContext.registerBean("Search_SearchUnitFlowSupportBean", new SearchUnitFlowSupportBean() {
+      @Override
+      public SikSearchResultList<Unit> doSearch(UnitSearchSimpleForm theForm) throws KivException {
+        throw new KivNoDataFoundException();
+      }
+    });
+  }
+
+  public void testEmptyFormShowsSearchResultWithoutMoreResults() {
+    startFlow(new MockExternalContext());
+
+    assertCurrentStateEquals("Search.displayUnitSearchResult");
+    assertNoMoreResultsAvailable();
+  }
+
+  public void testNoHitShowsResultListWithoutMoreResults() {
+    MutableAttributeMap input = new LocalAttributeMap();
+    input.put("unitName", "Vårdcentral");
+    MockExternalContext context = new MockExternalContext();
+    context.getMockRequestParameterMap().put("resultOnly", "1");
+    startFlow(input, context);
+
+    assertCurrentStateEquals("Search.displayUnitSearchResultResultOnly");
+    assertNoMoreResultsAvailable();
+  }
+
+  // The result views ask the list if the search was cut off, which only a SikSearchResultList can answer.
+  private void assertNoMoreResultsAvailable() {
+    SikSearchResultList<?> units = (SikSearchResultList<?>) getRequiredFlowAttribute("units", SikSearchResultList.class);
+    assertTrue(units.isEmpty());
+    assertFalse(units.isMoreResultsAvailable());
+  }
+}
@@ -136,13 +136,13 @@ public class SuggestionsSupportBeanTest {
 
     @Override
     public UnitCache loadCache() {
-      UnitCache unitCache = new UnitCache();
+      UnitCache.Builder builder = new UnitCache.Builder();
 
-      unitCache.add(createUnit("ABC-123", "Mölndals ABC & åäöÅÄÖé", "Mölndal", "http://www.test.com"));
-      unitCache.add(createUnit("XYZ-987", "Angereds vårdcentral", "Angered", ""));
-      unitCache.add(createUnit("JKL-654", "Slottsskogens vårdcentral", null, "https://secure.test.com"));
+      builder.add(createUnit("ABC-123", "Mölndals ABC & åäöÅÄÖé", "Mölndal", "http://www.test.com"));
+      builder.add(createUnit("XYZ-987", "Angereds vårdcentral", "Angered", ""));
+      builder.add(createUnit("JKL-654", "Slottsskogens vårdcentral", null, "https://secure.test.com"));
 
-      return unitCache;
+      return builder.build();
     }
 
     private Unit createUnit(String hsaIdentity, String name, String locality, String labeledUri) {
@@ -19,7 +19,10 @@
 
 package se.vgregion.kivtools.hriv.intsvc.utils;
 
+import java.io.OutputStream;
 import java.io.StringWriter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -31,6 +34,9 @@ import javax.xml.bind.Marshaller;
  * 
  */
 public final class XmlMarshaller {
+  // JAXBContext is thread safe and expensive to create so one context is kept for each marshalled class.
+  private static final ConcurrentMap<Class<?>, JAXBContext> CONTEXTS = new ConcurrentHashMap<Class<?>, JAXBContext>();
+
   /**
    * Generate xml content of current object, by using jaxb marshaller.
    * @param <T> type of the objectToMarshaller object.
@@ -40,8 +46,7 @@ public final class XmlMarshaller {
   public static <T> String generateXmlContentOfObject(T objectToMarshaller) {
     StringWriter fileContent = new StringWriter();
     try {
-      JAXBContext context = JAXBContext.newInstance(objectToMarshaller.getClass());
-      Marshaller marshaller = context.createMarshaller();
+      Marshaller marshaller = getContext(objectToMarshaller.getClass()).createMarshaller();
       marshaller.marshal(objectToMarshaller, fileContent);
     } catch (JAXBException e) {
       throw new RuntimeException(e);
@@ -49,4 +54,31 @@ public final class XmlMarshaller {
     return fileContent.toString();
   }
 
+  /**
+   * Writes the xml content of current object as UTF-8 to the provided stream, by using jaxb marshaller.
+   * @param <T> type of the objectToMarshaller object.
+   * @param objectToMarshaller the object to generate xml content of.
+   * @param outputStream the stream to write the xml content to. The stream is not closed.
+   */
+  public static <T> void writeXmlContentOfObject(T objectToMarshaller, OutputStream outputStream) {
+    try {
+      Marshaller marshaller = getContext(objectToMarshaller.getClass()).createMarshaller();
+      marshaller.marshal(objectToMarshaller, outputStream);
+    } catch (JAXBException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static JAXBContext getContext(Class<?> type) throws JAXBException {
+    JAXBContext context = CONTEXTS.get(type);
+    if (context == null) {
+      context = JAXBContext.newInstance(type);
+      JAXBContext existing = CONTEXTS.putIfAbsent(type, context);
+      if (existing != null) {
+        context = existing;
+      }
+    }
+    return context;
+  }
+
 }
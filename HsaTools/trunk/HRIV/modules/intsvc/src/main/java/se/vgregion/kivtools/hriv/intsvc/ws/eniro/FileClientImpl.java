@@ -22,8 +22,9 @@ package se.vgregion.kivtools.hriv.intsvc.ws.eniro;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.OutputStream;
 
+import se.vgregion.kivtools.util.StringUtil;
 import se.vgregion.kivtools.util.time.TimeUtil;
 import se.vgregion.kivtools.util.time.TimeUtil.DateTimeFormat;
 
@@ -36,13 +37,28 @@ public class FileClientImpl implements FtpClient {
 
   @Override
   public boolean sendFile(String fileContent, String basename, String suffix) {
+    final byte[] bytes = StringUtil.getBytes(fileContent, "UTF-8");
+    return this.streamFile(new FileContent() {
+      @Override
+      public void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(bytes);
+      }
+    }, basename, suffix);
+  }
+
+  @Override
+  public boolean streamFile(FileContent fileContent, String basename, String suffix) {
     try {
       String filename = this.directory + File.separator + basename + "-" + TimeUtil.getCurrentTimeFormatted(DateTimeFormat.SCIENTIFIC_TIME) + "." + suffix;
-      OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(filename), "UTF-8");
-      writer.write(fileContent);
-      writer.close();
+      OutputStream outputStream = new FileOutputStream(filename);
+      try {
+        fileContent.writeTo(outputStream);
+      } finally {
+        outputStream.close();
+      }
     } catch (IOException e) {
       e.printStackTrace();
+      return false;
     }
     return true;
   }
@@ -0,0 +1,36 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.hriv.intsvc.ws.eniro;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * File content that is written straight to the destination stream instead of being built as a string in memory first.
+ */
+public interface FileContent {
+  /**
+   * Writes the file content to the provided stream. The stream is closed by the caller.
+   * 
+   * @param outputStream The stream to write the file content to.
+   * @throws IOException If the content could not be written.
+   */
+  void writeTo(OutputStream outputStream) throws IOException;
+}
@@ -45,4 +45,14 @@ public interface FtpClient {
    * @return True if sending was successful, otherwise false.
    */
   boolean sendFile(String fileContent, String basename, String suffix);
+
+  /**
+   * Streams the provided file content to the configured server without building the whole content in memory first.
+   * 
+   * @param fileContent The file content to send.
+   * @param basename The base of the filename.
+   * @param suffix The filename suffix.
+   * @return True if sending was successful, otherwise false.
+   */
+  boolean streamFile(FileContent fileContent, String basename, String suffix);
 }
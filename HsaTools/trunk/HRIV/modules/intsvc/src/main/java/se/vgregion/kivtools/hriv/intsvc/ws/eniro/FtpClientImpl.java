@@ -22,6 +22,7 @@ package se.vgregion.kivtools.hriv.intsvc.ws.eniro;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -70,9 +71,44 @@ public class FtpClientImpl implements FtpClient {
     if (fileContent == null) {
       throw new IllegalArgumentException("Input string \"fileContent\" is null.");
     }
+    final InputStream inputStream = new ByteArrayInputStream(StringUtil.getBytes(fileContent, "UTF-8"));
+    return upload(new Upload() {
+      @Override
+      public boolean store(String filename) throws IOException {
+        boolean stored = ftpclient.storeFile(filename, inputStream);
+        inputStream.close();
+        return stored;
+      }
+    }, basename, suffix);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean streamFile(final FileContent fileContent, String basename, String suffix) {
+    if (fileContent == null) {
+      throw new IllegalArgumentException("Input \"fileContent\" is null.");
+    }
+    return upload(new Upload() {
+      @Override
+      public boolean store(String filename) throws IOException {
+        OutputStream outputStream = ftpclient.storeFileStream(filename);
+        if (outputStream == null) {
+          return false;
+        }
+        try {
+          fileContent.writeTo(outputStream);
+        } finally {
+          outputStream.close();
+        }
+        return ftpclient.completePendingCommand();
+      }
+    }, basename, suffix);
+  }
+
+  private boolean upload(Upload upload, String basename, String suffix) {
     boolean success;
     try {
-      InputStream inputStream = new ByteArrayInputStream(StringUtil.getBytes(fileContent, "UTF-8"));
       ftpclient.connect(hostname, port);
       ftpclient.enterLocalPassiveMode();
       boolean loginSuccess = ftpclient.login(username, password);
@@ -85,13 +121,12 @@ public class FtpClientImpl implements FtpClient {
       if (deleteSuccess) {
         logger.debug("Unit details pusher: Deleted " + basename + " on server.");
       }
-      success = ftpclient.storeFile(temporaryFilename, inputStream);
+      success = upload.store(temporaryFilename);
       logger.debug("Send file. Server reply: " + ftpclient.getReplyString());
       if (success) {
         success = ftpclient.rename(temporaryFilename, finalFilename);
         logger.debug("Rename file. Server reply: " + ftpclient.getReplyString());
       }
-      inputStream.close();
       // Logout from the FTP Server and disconnect
       ftpclient.logout();
       ftpclient.disconnect();
@@ -101,4 +136,11 @@ public class FtpClientImpl implements FtpClient {
     }
     return false;
   }
+
+  /**
+   * Stores the file content on the server using the connection that has been set up.
+   */
+  private interface Upload {
+    boolean store(String filename) throws IOException;
+  }
 }
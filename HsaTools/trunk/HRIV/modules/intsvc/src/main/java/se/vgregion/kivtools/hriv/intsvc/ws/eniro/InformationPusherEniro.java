@@ -19,7 +19,16 @@
 
 package se.vgregion.kivtools.hriv.intsvc.ws.eniro;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -34,11 +43,13 @@ import se.vgregion.kivtools.hriv.intsvc.ws.domain.eniro.Organization;
  * 
  */
 public class InformationPusherEniro implements InformationPusher {
+  private static final int DEFAULT_MAX_CONCURRENT_EXPORTS = 4;
   private UnitFetcher unitFetcher;
   private EniroConfiguration eniroConfiguration;
   private final Log logger = LogFactory.getLog(this.getClass());
   private FtpClient ftpClient;
   private EniroOrganisationBuilder eniroOrganisationBuilder;
+  private int maxConcurrentExports = DEFAULT_MAX_CONCURRENT_EXPORTS;
 
   public void setUnitFetcher(UnitFetcher unitFetcher) {
     this.unitFetcher = unitFetcher;
@@ -57,6 +68,18 @@ public class InformationPusherEniro implements InformationPusher {
     this.eniroOrganisationBuilder = eniroOrganisationBuilder;
   }
 
+  /**
+   * Sets the maximum number of organisations to build at the same time. Defaults to 4.
+   * 
+   * @param maxConcurrentExports The maximum number of organisations to build at the same time.
+   */
+  public void setMaxConcurrentExports(int maxConcurrentExports) {
+    if (maxConcurrentExports < 1) {
+      throw new IllegalArgumentException("maxConcurrentExports must be at least 1");
+    }
+    this.maxConcurrentExports = maxConcurrentExports;
+  }
+
   /**
    * Trigger service for generate unit tree xml file and push it to chosen ftp server.
    */
@@ -64,8 +87,11 @@ public class InformationPusherEniro implements InformationPusher {
   public void doService() {
     boolean success = true;
 
-    for (AreaConfig config : this.eniroConfiguration.getConfiguration()) {
-      success &= this.handleLocality(config);
+    List<AreaConfig> areas = this.eniroConfiguration.getConfiguration();
+    if (!areas.isEmpty()) {
+      // Get units for all areas at once instead of fetching all units once per area.
+      Map<AreaConfig, List<UnitComposition>> unitsByArea = this.unitFetcher.fetchUnitsForAreas(areas);
+      success = this.handleLocalities(unitsByArea);
     }
 
     if (success) {
@@ -75,27 +101,62 @@ public class InformationPusherEniro implements InformationPusher {
     }
   }
 
-  private boolean handleLocality(final AreaConfig config) {
+  private boolean handleLocalities(Map<AreaConfig, List<UnitComposition>> unitsByArea) {
+    boolean success = true;
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.maxConcurrentExports, unitsByArea.size()));
+    try {
+      List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+      for (final Map.Entry<AreaConfig, List<UnitComposition>> entry : unitsByArea.entrySet()) {
+        results.add(executor.submit(new Callable<Boolean>() {
+          @Override
+          public Boolean call() {
+            return Boolean.valueOf(handleLocality(entry.getKey(), entry.getValue()));
+          }
+        }));
+      }
+
+      for (Future<Boolean> result : results) {
+        try {
+          success &= result.get().booleanValue();
+        } catch (ExecutionException e) {
+          this.logger.error("Unit details pusher: Unable to push units.", e.getCause());
+          success = false;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      success = false;
+    } finally {
+      executor.shutdownNow();
+    }
+    return success;
+  }
+
+  private boolean handleLocality(final AreaConfig config, final List<UnitComposition> units) {
     boolean success = true;
 
-    // Get units that belongs to the organization.
-    List<UnitComposition> units = this.unitFetcher.fetchUnits(config.getMunicipalities(), config.getLocality());
     if (!units.isEmpty()) {
       // Generate organization tree object.
-      Organization organization = this.eniroOrganisationBuilder.generateOrganisation(units, config.getLocality());
+      final Organization organization = this.eniroOrganisationBuilder.generateOrganisation(units, config.getLocality());
       organization.setId(config.getOrganizationid());
       organization.setName(config.getOrganizationName());
 
-      // create XML presentation of organization tree object.
-      String generatedUnitDetailsXmlFile = XmlMarshaller.generateXmlContentOfObject(organization);
-
-      success = this.sendFileToFtpServer(generatedUnitDetailsXmlFile, config.getBasename(), "xml");
+      // Write XML presentation of organization tree object straight to the server.
+      success = this.sendFileToFtpServer(new FileContent() {
+        @Override
+        public void writeTo(OutputStream outputStream) throws IOException {
+          XmlMarshaller.writeXmlContentOfObject(organization, outputStream);
+        }
+      }, config.getBasename(), "xml");
     }
 
     return success;
   }
 
-  private boolean sendFileToFtpServer(String generatedUnitDetailsXmlFile, final String basename, final String suffix) {
-    return this.ftpClient.sendFile(generatedUnitDetailsXmlFile, basename, suffix);
+  private boolean sendFileToFtpServer(FileContent fileContent, final String basename, final String suffix) {
+    // The ftp clients are not thread safe so only one file is sent at a time.
+    synchronized (this.ftpClient) {
+      return this.ftpClient.streamFile(fileContent, basename, suffix);
+    }
   }
 }
@@ -20,7 +20,9 @@
 package se.vgregion.kivtools.hriv.intsvc.ws.eniro;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -69,15 +71,41 @@ public class SftpClientImpl implements FtpClient {
    * {@inheritDoc}
    */
   public boolean sendFile(String fileContent, String basename, String suffix) {
+    final InputStream inputStream = new ByteArrayInputStream(StringUtil.getBytes(fileContent, "UTF-8"));
+    return upload(new Upload() {
+      @Override
+      public void store(ChannelSftp channelSftp, String filename) throws SftpException {
+        channelSftp.put(inputStream, filename);
+      }
+    }, basename, suffix);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean streamFile(final FileContent fileContent, String basename, String suffix) {
+    return upload(new Upload() {
+      @Override
+      public void store(ChannelSftp channelSftp, String filename) throws SftpException, IOException {
+        OutputStream outputStream = channelSftp.put(filename);
+        try {
+          fileContent.writeTo(outputStream);
+        } finally {
+          outputStream.close();
+        }
+      }
+    }, basename, suffix);
+  }
+
+  private boolean upload(Upload upload, String basename, String suffix) {
     try {
-      InputStream inputStream = new ByteArrayInputStream(StringUtil.getBytes(fileContent, "UTF-8"));
       Session session = jsch.getSession(username, hostname, port);
       session.setPassword(password);
       session.setConfig("StrictHostKeyChecking", "no");
       session.connect();
       ChannelSftp channelSftp = (ChannelSftp) session.openChannel("sftp");
       channelSftp.connect();
-      channelSftp.put(inputStream, basename + "." + suffix);
+      upload.store(channelSftp, basename + "." + suffix);
       channelSftp.disconnect();
       session.disconnect();
       return true;
@@ -85,7 +113,16 @@ public class SftpClientImpl implements FtpClient {
       logger.error("Error in SftpClient", e);
     } catch (SftpException e) {
       logger.error("Error in SftpClient", e);
+    } catch (IOException e) {
+      logger.error("Error in SftpClient", e);
     }
     return false;
   }
+
+  /**
+   * Stores the file content on the server using the channel that has been set up.
+   */
+  private interface Upload {
+    void store(ChannelSftp channelSftp, String filename) throws SftpException, IOException;
+  }
 }
@@ -20,8 +20,17 @@
 package se.vgregion.kivtools.hriv.intsvc.ws.eniro;
 
 import java.util.List;
-
+import java.util.Map;
 
 public interface UnitFetcher {
   List<UnitComposition> fetchUnits(List<String> municipalities, String locality);
+
+  /**
+   * Fetches the units for all the provided areas in one go.
+   * 
+   * @param areas The areas to fetch units for.
+   * @return A map with the units of each area, iterated in the same order as the provided areas. Areas without any units
+   *         are mapped to an empty list.
+   */
+  Map<AreaConfig, List<UnitComposition>> fetchUnitsForAreas(List<AreaConfig> areas);
 }
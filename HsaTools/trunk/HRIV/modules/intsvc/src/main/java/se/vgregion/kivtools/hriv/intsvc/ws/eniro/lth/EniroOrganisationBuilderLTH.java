@@ -14,8 +14,6 @@ import se.vgregion.kivtools.hriv.intsvc.ws.eniro.UnitComposition.UnitType;
 public class EniroOrganisationBuilderLTH extends EniroOrganisationBuilder {
   private final String careCenter;
   private final String otherCare;
-  private Unit otherCareUnit;
-  private Unit careCenterUnit;
 
   public EniroOrganisationBuilderLTH(final String careCenter, final String otherCare) {
     this.careCenter = careCenter;
@@ -37,10 +35,10 @@ public class EniroOrganisationBuilderLTH extends EniroOrganisationBuilder {
     rootUnit.setOperation("create");
     organization.getUnit().add(rootUnit);
 
-    this.otherCareUnit = this.createUnit(this.otherCare, locality);
-    rootUnit.getUnit().add(this.otherCareUnit);
-    this.careCenterUnit = this.createUnit(this.careCenter, locality);
-    rootUnit.getUnit().add(this.careCenterUnit);
+    Unit otherCareUnit = this.createUnit(this.otherCare, locality);
+    rootUnit.getUnit().add(otherCareUnit);
+    Unit careCenterUnit = this.createUnit(this.careCenter, locality);
+    rootUnit.getUnit().add(careCenterUnit);
 
     for (UnitComposition unitComposition : unitCompositions) {
       String unitParentDn = unitComposition.getParentDn();
@@ -52,7 +50,7 @@ public class EniroOrganisationBuilderLTH extends EniroOrganisationBuilder {
         list.add(unitComposition.getEniroUnit());
       } else if (unitComposition.getCareType() == UnitType.OTHER_CARE) {
         // Current unit is a leaf to unit of typ "otherCare".
-        this.otherCareUnit.getUnit().add(unitComposition.getEniroUnit());
+        otherCareUnit.getUnit().add(unitComposition.getEniroUnit());
       }
     }
 
@@ -64,7 +62,7 @@ public class EniroOrganisationBuilderLTH extends EniroOrganisationBuilder {
       unit.setId(cleanedDnString);
       unit.setLocality(units.getValue().get(0).getLocality());
       unit.getUnit().addAll(units.getValue());
-      this.careCenterUnit.getUnit().add(unit);
+      careCenterUnit.getUnit().add(unit);
     }
 
     return organization;
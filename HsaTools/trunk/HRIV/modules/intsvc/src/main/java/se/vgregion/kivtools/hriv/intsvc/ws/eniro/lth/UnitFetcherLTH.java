@@ -20,6 +20,7 @@
 package se.vgregion.kivtools.hriv.intsvc.ws.eniro.lth;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -33,6 +34,7 @@ import org.springframework.ldap.filter.EqualsFilter;
 import org.springframework.ldap.filter.Filter;
 import org.springframework.ldap.filter.OrFilter;
 
+import se.vgregion.kivtools.hriv.intsvc.ws.eniro.AreaConfig;
 import se.vgregion.kivtools.hriv.intsvc.ws.eniro.KivLdapFilterHelper;
 import se.vgregion.kivtools.hriv.intsvc.ws.eniro.UnitComposition;
 import se.vgregion.kivtools.hriv.intsvc.ws.eniro.UnitFetcher;
@@ -69,6 +71,22 @@ public class UnitFetcherLTH implements UnitFetcher {
     return unitsList;
   }
 
+  /**
+   * Fetches the units for each area using a separate search since the directory already filters the units on
+   * municipality.
+   * 
+   * @param areas The areas to fetch units for.
+   * @return A map with the units of each area.
+   */
+  @Override
+  public Map<AreaConfig, List<UnitComposition>> fetchUnitsForAreas(List<AreaConfig> areas) {
+    Map<AreaConfig, List<UnitComposition>> unitsByArea = new LinkedHashMap<AreaConfig, List<UnitComposition>>();
+    for (AreaConfig area : areas) {
+      unitsByArea.put(area, this.fetchUnits(area.getMunicipalities(), area.getLocality()));
+    }
+    return unitsByArea;
+  }
+
   private Filter createMunicipalityFilter(List<String> municipalityCodes) {
     OrFilter filter = new OrFilter();
 
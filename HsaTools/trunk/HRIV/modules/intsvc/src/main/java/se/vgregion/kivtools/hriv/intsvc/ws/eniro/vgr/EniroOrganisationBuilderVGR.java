@@ -40,8 +40,6 @@ public class EniroOrganisationBuilderVGR extends EniroOrganisationBuilder {
   private List<String> rootUnitDns;
   private String careCenter;
   private String otherCare;
-  private Unit otherCareUnit;
-  private Unit careCenterUnit;
 
   public void setCareCenter(String careCenter) {
     this.careCenter = careCenter;
@@ -78,10 +76,10 @@ public class EniroOrganisationBuilderVGR extends EniroOrganisationBuilder {
     organization.setCountry("SE");
     organization.setSwapCoordinates(true);
 
-    this.otherCareUnit = this.createUnit(this.otherCare, locality);
-    organization.getUnit().add(this.otherCareUnit);
-    this.careCenterUnit = this.createUnit(this.careCenter, locality);
-    organization.getUnit().add(this.careCenterUnit);
+    Unit otherCareUnit = this.createUnit(this.otherCare, locality);
+    organization.getUnit().add(otherCareUnit);
+    Unit careCenterUnit = this.createUnit(this.careCenter, locality);
+    organization.getUnit().add(careCenterUnit);
 
     for (UnitComposition unitComposition : unitCompositions) {
       String unitParentDn = unitComposition.getParentDn();
@@ -102,7 +100,7 @@ public class EniroOrganisationBuilderVGR extends EniroOrganisationBuilder {
           list.add(unitComposition.getEniroUnit());
         } else if (unitComposition.getCareType() == UnitType.OTHER_CARE) {
           // Current unit is a leaf to unit of typ "otherCare".
-          this.otherCareUnit.getUnit().add(unitComposition.getEniroUnit());
+          otherCareUnit.getUnit().add(unitComposition.getEniroUnit());
         }
         // else {
         // // Current unit couldn't be put under any unit type.
@@ -119,7 +117,7 @@ public class EniroOrganisationBuilderVGR extends EniroOrganisationBuilder {
       unit.setId(cleanedDnString);
       unit.setLocality(units.getValue().get(0).getLocality());
       unit.getUnit().addAll(units.getValue());
-      this.careCenterUnit.getUnit().add(unit);
+      careCenterUnit.getUnit().add(unit);
     }
 
     // Go through all root children units and add them to their root unit.
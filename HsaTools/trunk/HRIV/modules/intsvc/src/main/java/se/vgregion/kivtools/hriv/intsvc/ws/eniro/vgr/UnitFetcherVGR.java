@@ -22,6 +22,7 @@ package se.vgregion.kivtools.hriv.intsvc.ws.eniro.vgr;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -29,6 +30,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.ldap.BadLdapGrammarException;
 
+import se.vgregion.kivtools.hriv.intsvc.ws.eniro.AreaConfig;
 import se.vgregion.kivtools.hriv.intsvc.ws.eniro.UnitComposition;
 import se.vgregion.kivtools.hriv.intsvc.ws.eniro.UnitFetcher;
 import se.vgregion.kivtools.search.domain.Unit;
@@ -61,6 +63,54 @@ public class UnitFetcherVGR implements UnitFetcher {
     }
   }
 
+  /**
+   * Fetches all units once and partitions them by municipality to the areas they belong to.
+   * 
+   * @param areas The areas to fetch units for.
+   * @return A map with the units of each area.
+   */
+  @Override
+  public Map<AreaConfig, List<UnitComposition>> fetchUnitsForAreas(List<AreaConfig> areas) {
+    try {
+      List<Unit> allUnits = this.searchService.getAllUnits(true);
+
+      Map<AreaConfig, List<Unit>> unitsByArea = new LinkedHashMap<AreaConfig, List<Unit>>();
+      Map<String, List<AreaConfig>> areasByMunicipality = new HashMap<String, List<AreaConfig>>();
+      for (AreaConfig area : areas) {
+        unitsByArea.put(area, new ArrayList<Unit>());
+        for (String municipality : area.getMunicipalities()) {
+          List<AreaConfig> municipalityAreas = areasByMunicipality.get(municipality);
+          if (municipalityAreas == null) {
+            municipalityAreas = new ArrayList<AreaConfig>();
+            areasByMunicipality.put(municipality, municipalityAreas);
+          }
+          if (!municipalityAreas.contains(area)) {
+            municipalityAreas.add(area);
+          }
+        }
+      }
+
+      for (Unit unit : allUnits) {
+        List<AreaConfig> municipalityAreas = areasByMunicipality.get(unit.getHsaMunicipalityCode());
+        if (municipalityAreas != null) {
+          for (AreaConfig area : municipalityAreas) {
+            unitsByArea.get(area).add(unit);
+          }
+        }
+      }
+
+      Map<AreaConfig, List<UnitComposition>> compositionsByArea = new LinkedHashMap<AreaConfig, List<UnitComposition>>();
+      for (Map.Entry<AreaConfig, List<Unit>> entry : unitsByArea.entrySet()) {
+        List<UnitComposition> unitsList = this.mapUnits(entry.getValue(), entry.getKey().getLocality());
+        this.setParentIdsForUnits(unitsList);
+        compositionsByArea.put(entry.getKey(), unitsList);
+      }
+      return compositionsByArea;
+    } catch (KivException e) {
+      throw new RuntimeException("Unable to fetch units", e);
+    }
+  }
+
   private List<UnitComposition> mapUnits(List<Unit> filteredUnits, String locality) {
     EniroUnitMapperVGR eniroUnitMapper = new EniroUnitMapperVGR(locality, Arrays.asList(this.otherCareTypeBusinessCodes));
     List<UnitComposition> mappedUnits = new ArrayList<UnitComposition>();
@@ -47,7 +47,7 @@ import se.vgregion.kivtools.search.domain.values.PhoneNumber;
 import se.vgregion.kivtools.search.domain.values.WeekdayTime;
 import se.vgregion.kivtools.search.exceptions.KivException;
 import se.vgregion.kivtools.search.svc.SearchService;
-import se.vgregion.kivtools.search.util.MvkClient;
+import se.vgregion.kivtools.search.util.MvkCaseTypeService;
 import se.vgregion.kivtools.util.StringUtil;
 
 /**
@@ -58,15 +58,15 @@ import se.vgregion.kivtools.util.StringUtil;
 public class UnitDetailsServiceImpl implements UnitDetailsService<Organization> {
   private final Log log = LogFactory.getLog(this.getClass());
   private SearchService searchService;
-  private MvkClient mvkClient;
+  private MvkCaseTypeService mvkCaseTypeService;
   private final ObjectFactory objectFactory = new ObjectFactory();
 
   public void setSearchService(SearchService searchService) {
     this.searchService = searchService;
   }
 
-  public void setMvkClient(MvkClient mvkClient) {
-    this.mvkClient = mvkClient;
+  public void setMvkCaseTypeService(MvkCaseTypeService mvkCaseTypeService) {
+    this.mvkCaseTypeService = mvkCaseTypeService;
   }
 
   /**
@@ -83,7 +83,7 @@ public class UnitDetailsServiceImpl implements UnitDetailsService<Organization>
         this.log.error("Unable to retrieve unit details.", e);
       }
       if (!StringUtil.isEmpty(unit.getHsaIdentity())) {
-        unit.setMvkCaseTypes(this.mvkClient.getCaseTypesForUnit(unit.getHsaIdentity()));
+        unit.setMvkCaseTypes(this.mvkCaseTypeService.getCaseTypesForUnit(unit.getHsaIdentity()));
         organization.getUnit().add(this.generateWebServiceUnit(unit));
       }
     }
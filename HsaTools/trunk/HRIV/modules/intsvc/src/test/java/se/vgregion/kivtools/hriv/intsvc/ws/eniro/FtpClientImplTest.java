@@ -21,8 +21,10 @@ package se.vgregion.kivtools.hriv.intsvc.ws.eniro;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.SocketException;
 
 import org.apache.commons.net.ftp.FTPClient;
@@ -96,7 +98,34 @@ public class FtpClientImplTest {
     assertEquals("Error in FtpClient", logFactoryMock.getError(true));
   }
 
+  @Test
+  public void streamedFileContentIsUploadedAndRenamed() {
+    boolean result = ftpClientImpl.streamFile(new FileContent() {
+      @Override
+      public void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(FILE_CONTENT.getBytes("UTF-8"));
+      }
+    }, FTPDESTINATIONFILENAME, "xml");
+
+    assertTrue(result);
+    assertEquals(FILE_CONTENT, mockFtpClient.storedContent.toString());
+    assertEquals(FTPDESTINATIONFILENAME + "-uploading.xml", mockFtpClient.oldFilename);
+    assertTrue(mockFtpClient.newFilename.matches(FTPDESTINATIONFILENAME + "-[0-9]{14}\\.xml"));
+  }
+
+  @Test
+  public void streamFileWithIOException() {
+    mockFtpClient.throwIOException = true;
+    assertFalse(ftpClientImpl.streamFile(new FileContent() {
+      @Override
+      public void writeTo(OutputStream outputStream) throws IOException {
+      }
+    }, null, null));
+    assertEquals("Error in FtpClient", logFactoryMock.getError(true));
+  }
+
   class FtpClientMock extends FTPClient {
+    ByteArrayOutputStream storedContent = new ByteArrayOutputStream();
     String hostname, username, password, oldFilename, newFilename;
     int port;
     boolean throwIOException;
@@ -137,6 +166,20 @@ public class FtpClientImplTest {
       return true;
     }
 
+    @Override
+    public OutputStream storeFileStream(String remote) throws IOException {
+      if (throwIOException) {
+        throw new IOException();
+      }
+      oldFilename = remote;
+      return storedContent;
+    }
+
+    @Override
+    public boolean completePendingCommand() throws IOException {
+      return true;
+    }
+
     @Override
     public boolean rename(String from, String to) throws IOException {
       oldFilename = from;
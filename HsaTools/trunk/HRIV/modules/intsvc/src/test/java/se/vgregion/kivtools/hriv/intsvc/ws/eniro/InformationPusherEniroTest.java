@@ -20,11 +20,15 @@
 package se.vgregion.kivtools.hriv.intsvc.ws.eniro;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -165,6 +169,26 @@ public class InformationPusherEniroTest {
     assertEquals(1, nodes.getLength());
   }
 
+  @Test
+  public void unitsAreFetchedOnceForAllAreas() {
+    this.informationPusher.doService();
+    assertEquals(1, this.unitFetcher.fetchCount);
+    assertEquals(4, this.mockFtpClient.fileContent.size());
+  }
+
+  @Test
+  public void allAreasAreSentWhenOrganisationsAreBuiltOneAtATime() {
+    this.informationPusher.setMaxConcurrentExports(1);
+    this.informationPusher.doService();
+    assertEquals(4, this.mockFtpClient.fileContent.size());
+    assertNotNull(this.mockFtpClient.getFileContent("Vastra Gotalandsregionen Skovde"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void maxConcurrentExportsMustBePositive() {
+    this.informationPusher.setMaxConcurrentExports(0);
+  }
+
   @Test
   public void noFileIsSentIfNoUnitsAreFound() {
     this.unitFetcher.units = new ArrayList<UnitComposition>();
@@ -201,6 +225,17 @@ public class InformationPusherEniroTest {
       return this.returnValue;
     }
 
+    @Override
+    public boolean streamFile(FileContent fileContent, String basename, String suffix) {
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      try {
+        fileContent.writeTo(outputStream);
+        return this.sendFile(outputStream.toString("UTF-8"), basename, suffix);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
     public String getFileContent(final String basename) {
       return this.fileContent.get(basename);
     }
@@ -208,10 +243,22 @@ public class InformationPusherEniroTest {
 
   private static class UnitFetcherMock implements UnitFetcher {
     private List<UnitComposition> units = new ArrayList<UnitComposition>();
+    private int fetchCount;
 
     @Override
     public List<UnitComposition> fetchUnits(List<String> municipalities, String locality) {
+      this.fetchCount++;
       return this.units;
     }
+
+    @Override
+    public Map<AreaConfig, List<UnitComposition>> fetchUnitsForAreas(List<AreaConfig> areas) {
+      this.fetchCount++;
+      Map<AreaConfig, List<UnitComposition>> unitsByArea = new LinkedHashMap<AreaConfig, List<UnitComposition>>();
+      for (AreaConfig area : areas) {
+        unitsByArea.put(area, this.units);
+      }
+      return unitsByArea;
+    }
   }
 }
@@ -57,6 +57,11 @@ public class LdapEniroIntergrationTest {
       return true;
     }
 
+    @Override
+    public boolean streamFile(FileContent fileContent, String basename, String suffix) {
+      return true;
+    }
+
   }
 
   @Test
@@ -19,12 +19,14 @@ package se.vgregion.kivtools.hriv.intsvc.ws.sahlgrenska;
 
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 
 import se.vgregion.kivtools.search.domain.Deliverypoint;
 import se.vgregion.kivtools.search.domain.Employment;
 import se.vgregion.kivtools.search.domain.Person;
 import se.vgregion.kivtools.search.domain.Unit;
 import se.vgregion.kivtools.search.exceptions.KivException;
+import se.vgregion.kivtools.search.svc.PageConsumer;
 import se.vgregion.kivtools.search.svc.SearchService;
 import se.vgregion.kivtools.search.svc.SikSearchResultList;
 import se.vgregion.kivtools.search.svc.ldap.criterions.SearchPersonCriterions;
@@ -85,6 +87,11 @@ public class SearchServiceMockBase implements SearchService {
     return null;
   }
 
+  @Override
+  public Map<String, List<Employment>> getEmploymentsByPersonDn(List<String> personDns) throws KivException {
+    return null;
+  }
+
   @Override
   public List<String> getAllUnitsHsaIdentity() throws KivException {
     return null;
@@ -100,6 +107,10 @@ public class SearchServiceMockBase implements SearchService {
     return null;
   }
 
+  @Override
+  public void getAllUnits(boolean onlyPublicUnits, PageConsumer<Unit> consumer) throws KivException {
+  }
+
   @Override
   public List<String> getAllPersonsId() throws KivException {
     return null;
@@ -110,6 +121,10 @@ public class SearchServiceMockBase implements SearchService {
     return null;
   }
 
+  @Override
+  public void getAllPersons(PageConsumer<Person> consumer) throws KivException {
+  }
+
   @Override
   public List<Employment> getEmploymentsForPerson(Person person) throws KivException {
     return null;
@@ -45,6 +45,7 @@ import se.vgregion.kivtools.search.domain.values.WeekdayTime;
 import se.vgregion.kivtools.search.domain.values.ZipCode;
 import se.vgregion.kivtools.search.exceptions.InvalidFormatException;
 import se.vgregion.kivtools.search.exceptions.KivException;
+import se.vgregion.kivtools.search.util.MvkCaseTypeService;
 import se.vgregion.kivtools.search.util.MvkClient;
 import se.vgregion.kivtools.util.time.TimeSource;
 import se.vgregion.kivtools.util.time.TimeUtil;
@@ -65,7 +66,7 @@ public class UnitDetailsServiceImplTest {
 
     this.unitDetailsService = new UnitDetailsServiceImpl();
     this.unitDetailsService.setSearchService(this.searchService);
-    this.unitDetailsService.setMvkClient(mvkClient);
+    this.unitDetailsService.setMvkCaseTypeService(new MvkCaseTypeService(mvkClient));
   }
 
   private void setupTimeSource() {
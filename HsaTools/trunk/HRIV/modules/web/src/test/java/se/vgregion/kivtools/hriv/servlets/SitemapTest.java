@@ -23,19 +23,21 @@ import static org.easymock.EasyMock.*;
 import static org.easymock.classextension.EasyMock.*;
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.util.zip.GZIPInputStream;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
-import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.log4j.BasicConfigurator;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.web.context.WebApplicationContext;
 
 import se.vgregion.kivtools.search.svc.InternalSitemapGenerator;
@@ -48,10 +50,6 @@ import se.vgregion.kivtools.search.svc.SitemapSupportBean;
 
 public class SitemapTest {
   private static final String RESULT = "<?xml version=\"1.0\" encoding=\"iso-8859-1\" standalone=\"yes\"?><urlset xmlns:ns2=\"http://www.vgregion.se/schemas/hsa\" xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\"><url><loc>http://externalurl/visaenhet?hsaidentity=abc-123</loc><lastmod>2010-02-12T01:00:00+01:00</lastmod><changefreq>weekly</changefreq><priority>0.5</priority></url></urlset>";
-  private static final String SCHEME = "http";
-  private static final String SERVERNAME = "localhost";
-  private static final int SERVER_PORT = 8080;
-  private static final String CONTEXTPATH = "test";
 
   private SitemapCacheServiceImpl sitemapCacheService = new SitemapCacheServiceImpl(new SitemapCacheLoaderMock());
   private SitemapSupportBean sitemapSupportBean = new SitemapSupportBean(sitemapCacheService, new InternalSitemapGenerator());
@@ -92,23 +90,68 @@ public class SitemapTest {
   public void testDoGet() throws ServletException, IOException {
     BasicConfigurator.configure();
 
-    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-    PrintWriter printWriter = new PrintWriter(byteArrayOutputStream);
-    final HttpServletResponse mockHttpServletResponse = createMock(HttpServletResponse.class);
-    final HttpServletRequest mockHttpServletRequest = createMock(HttpServletRequest.class);
-    makeThreadSafe(mockHttpServletRequest, true);
-    makeThreadSafe(mockHttpServletResponse, true);
-    expect(mockHttpServletRequest.getScheme()).andReturn(SCHEME);
-    expect(mockHttpServletRequest.getServerName()).andReturn(SERVERNAME);
-    expect(mockHttpServletRequest.getServerPort()).andReturn(SERVER_PORT);
-    expect(mockHttpServletRequest.getContextPath()).andReturn(CONTEXTPATH);
-    expect(mockHttpServletResponse.getWriter()).andReturn(printWriter);
-    replay(mockHttpServletRequest, mockHttpServletResponse);
-    sitemap.doGet(mockHttpServletRequest, mockHttpServletResponse);
-    String result = byteArrayOutputStream.toString();
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/test/sitemap");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    sitemap.doGet(request, response);
+
+    assertEquals("iso-8859-1", response.getCharacterEncoding());
+    assertEquals("text/xml", response.getContentType());
+    assertNotNull(response.getHeader("ETag"));
+    assertNotNull(response.getHeader("Last-Modified"));
+    assertNull(response.getHeader("Content-Encoding"));
+    String result = response.getContentAsString();
+    assertTrue(result.contains("<loc>http://externalurl/visaenhet?hsaidentity=abc-123</loc>"));
+    assertEquals(result.length(), response.getContentLength());
  //   assertEquals(RESULT, result);
   }
 
+  @Test
+  public void sitemapIsGzippedForClientsAcceptingGzip() throws IOException {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/test/sitemap");
+    request.addHeader("Accept-Encoding", "gzip, deflate");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    sitemap.doGet(request, response);
+
+    assertEquals("gzip", response.getHeader("Content-Encoding"));
+    assertEquals("Accept-Encoding", response.getHeader("Vary"));
+    GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()));
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    for (int read = in.read(buffer); read > 0; read = in.read(buffer)) {
+      content.write(buffer, 0, read);
+    }
+    assertTrue(content.toString("iso-8859-1").contains("<loc>http://externalurl/visaenhet?hsaidentity=abc-123</loc>"));
+  }
+
+  @Test
+  public void notModifiedIsReturnedForUnchangedSitemap() throws IOException {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    sitemap.doGet(new MockHttpServletRequest("GET", "/test/sitemap"), response);
+
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/test/sitemap");
+    request.addHeader("If-None-Match", response.getHeader("ETag"));
+    MockHttpServletResponse notModifiedResponse = new MockHttpServletResponse();
+    sitemap.doGet(request, notModifiedResponse);
+    assertEquals(HttpServletResponse.SC_NOT_MODIFIED, notModifiedResponse.getStatus());
+    assertEquals(0, notModifiedResponse.getContentAsByteArray().length);
+
+    request = new MockHttpServletRequest("GET", "/test/sitemap");
+    request.addHeader("If-Modified-Since", response.getHeader("Last-Modified"));
+    notModifiedResponse = new MockHttpServletResponse();
+    sitemap.doGet(request, notModifiedResponse);
+    assertEquals(HttpServletResponse.SC_NOT_MODIFIED, notModifiedResponse.getStatus());
+  }
+
+  @Test
+  public void unknownPartIsNotFound() throws IOException {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/test/sitemap");
+    request.addParameter("part", "2");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    sitemap.doGet(request, response);
+
+    assertEquals(HttpServletResponse.SC_NOT_FOUND, response.getStatus());
+  }
+
   private static class SitemapCacheLoaderMock implements CacheLoader<SitemapCache> {
     @Override
     public SitemapCache createEmptyCache() {
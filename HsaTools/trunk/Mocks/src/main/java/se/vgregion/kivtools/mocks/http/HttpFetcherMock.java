@@ -22,7 +22,9 @@ package se.vgregion.kivtools.mocks.http;
 import static org.junit.Assert.*;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -68,4 +70,13 @@ public class HttpFetcherMock implements HttpFetcher {
     this.urlsFetched.add(urlToFetch);
     return this.content.get(urlToFetch);
   }
+
+  @Override
+  public Map<String, String> fetchUrls(Collection<String> urlsToFetch) {
+    Map<String, String> result = new LinkedHashMap<String, String>();
+    for (String url : urlsToFetch) {
+      result.put(url, this.fetchUrl(url));
+    }
+    return result;
+  }
 }
@@ -20,6 +20,7 @@ package se.vgregion.kivtools.mocks.ldap;
 import static org.junit.Assert.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -56,6 +57,8 @@ public class LdapTemplateMock extends LdapTemplate {
   private String searchBase = "";
   private Map<Name, DirContextOperations> boundDNs = new HashMap<Name, DirContextOperations>();
   private List<DirContextOperations> dirContextOperationsForSearch = new ArrayList<DirContextOperations>();
+  private List<List<DirContextOperations>> pagesForSearch = new ArrayList<List<DirContextOperations>>();
+  private int pagedSearchCount;
   private Map<String, List<BasicAttributes>> attributesMap = new HashMap<String, List<BasicAttributes>>();
   private NamingException exceptionToThrow;
   private String distinguishedName;
@@ -112,6 +115,20 @@ public class LdapTemplateMock extends LdapTemplate {
     this.dirContextOperationsForSearch.add(dirContextOperations);
   }
 
+  /**
+   * Adds a page of DirContextOperations objects for paged searches. When pages have been added each paged search returns
+   * the next page and a cookie which signals if there are more pages to fetch.
+   * 
+   * @param dirContextOperations the DirContextOperations that makes up the page.
+   */
+  public void addPageForSearch(DirContextOperations... dirContextOperations) {
+    this.pagesForSearch.add(Arrays.asList(dirContextOperations));
+  }
+
+  public int getPagedSearchCount() {
+    return this.pagedSearchCount;
+  }
+
   public void setExceptionToThrow(NamingException exceptionToThrow) {
     this.exceptionToThrow = exceptionToThrow;
   }
@@ -159,12 +176,33 @@ public class LdapTemplateMock extends LdapTemplate {
 
     this.searchFilter = filter;
     this.searchBase = base;
-    List result = search(base.toString(), filter, mapper);
+    List result;
+    byte[] cookie = null;
+    if (this.pagesForSearch.isEmpty()) {
+      result = search(base.toString(), filter, mapper);
+    } else {
+      result = new ArrayList();
+      if (this.pagedSearchCount < this.pagesForSearch.size()) {
+        for (DirContextOperations dirContextOperations : this.pagesForSearch.get(this.pagedSearchCount)) {
+          result.add(mapper.mapFromContext(dirContextOperations));
+        }
+      }
+      if (this.pagedSearchCount < this.pagesForSearch.size() - 1) {
+        cookie = new byte[] { (byte) this.pagedSearchCount };
+      }
+    }
+    this.pagedSearchCount++;
     // Use ReflectionUtil since there is no set-method for cookie.
-    ReflectionUtil.setField(dirContextProcessor, "cookie", new PagedResultsCookie(null));
+    ReflectionUtil.setField(dirContextProcessor, "cookie", new PagedResultsCookie(cookie));
     return result;
   }
 
+  @Override
+  @SuppressWarnings("unchecked")
+  public List search(Name base, String filter, SearchControls searchControls, ContextMapper mapper, DirContextProcessor dirContextProcessor) {
+    return search(base.toString(), filter, searchControls, mapper, dirContextProcessor);
+  }
+
   @Override
   @SuppressWarnings("unchecked")
   public List search(Name base, String filter, int searchScope, ContextMapper mapper) {
@@ -516,12 +554,6 @@ public class LdapTemplateMock extends LdapTemplate {
     throw new UnsupportedOperationException("Method not implemented in mock");
   }
 
-  @Override
-  @SuppressWarnings("unchecked")
-  public List search(Name base, String filter, SearchControls controls, ContextMapper mapper, DirContextProcessor processor) {
-    throw new UnsupportedOperationException("Method not implemented in mock");
-  }
-
   @Override
   @SuppressWarnings("unchecked")
   public List search(Name base, String filter, SearchControls controls, ContextMapper mapper) {
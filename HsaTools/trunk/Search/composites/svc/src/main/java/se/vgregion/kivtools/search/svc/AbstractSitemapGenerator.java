@@ -0,0 +1,158 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.svc;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.List;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Base class for SitemapGenerators which streams the sitemap XML entry by entry using StAX. Nothing but the entry being
+ * written is kept in memory, regardless of the number of entries in the sitemap.
+ */
+public abstract class AbstractSitemapGenerator implements SitemapGenerator {
+  /** The namespace of the sitemap.org tags. */
+  protected static final String SITEMAP_NAMESPACE = "http://www.sitemaps.org/schemas/sitemap/0.9";
+  private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+  private static final String PRIORITY = "0.5";
+
+  private final String encoding;
+
+  /**
+   * Constructs a new AbstractSitemapGenerator.
+   * 
+   * @param encoding The encoding to declare in the generated XML.
+   */
+  protected AbstractSitemapGenerator(String encoding) {
+    this.encoding = encoding;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getEncoding() {
+    return encoding;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String generate(List<SitemapEntry> sitemapEntries) {
+    StringWriter writer = new StringWriter();
+    try {
+      generate(sitemapEntries, writer);
+    } catch (IOException e) {
+      // Should not happen when writing to a StringWriter. Re-throwing as RuntimeException.
+      throw new RuntimeException(e);
+    }
+    return writer.toString();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void generate(List<SitemapEntry> sitemapEntries, Writer writer) throws IOException {
+    try {
+      XMLStreamWriter xmlWriter = OUTPUT_FACTORY.createXMLStreamWriter(writer);
+      xmlWriter.writeStartDocument(encoding, "1.0");
+      xmlWriter.setDefaultNamespace(SITEMAP_NAMESPACE);
+      xmlWriter.writeStartElement(SITEMAP_NAMESPACE, "urlset");
+      xmlWriter.writeDefaultNamespace(SITEMAP_NAMESPACE);
+
+      for (SitemapEntry entry : sitemapEntries) {
+        xmlWriter.writeStartElement(SITEMAP_NAMESPACE, "url");
+        writeElement(xmlWriter, "loc", entry.getLocation());
+        writeElement(xmlWriter, "lastmod", entry.getLastModified());
+        if (entry.getChangeFrequency() != null) {
+          // Written as configured, a change frequency which is not defined by sitemaps.org should not fail the sitemap.
+          writeElement(xmlWriter, "changefreq", entry.getChangeFrequency());
+        }
+        writeElement(xmlWriter, "priority", PRIORITY);
+        writeExtraInformation(xmlWriter, entry);
+        xmlWriter.writeEndElement();
+      }
+
+      xmlWriter.writeEndElement();
+      xmlWriter.writeEndDocument();
+      // Only flush the XMLStreamWriter since closing it is up to the owner of the underlying writer.
+      xmlWriter.flush();
+    } catch (XMLStreamException e) {
+      if (e.getNestedException() instanceof IOException) {
+        throw (IOException) e.getNestedException();
+      }
+      throw new RuntimeException("Unable to create XML from provided content", e);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void generateIndex(List<SitemapEntry> sitemaps, Writer writer) throws IOException {
+    try {
+      XMLStreamWriter xmlWriter = OUTPUT_FACTORY.createXMLStreamWriter(writer);
+      xmlWriter.writeStartDocument(encoding, "1.0");
+      xmlWriter.setDefaultNamespace(SITEMAP_NAMESPACE);
+      xmlWriter.writeStartElement(SITEMAP_NAMESPACE, "sitemapindex");
+      xmlWriter.writeDefaultNamespace(SITEMAP_NAMESPACE);
+
+      for (SitemapEntry sitemap : sitemaps) {
+        xmlWriter.writeStartElement(SITEMAP_NAMESPACE, "sitemap");
+        writeElement(xmlWriter, "loc", sitemap.getLocation());
+        writeElement(xmlWriter, "lastmod", sitemap.getLastModified());
+        xmlWriter.writeEndElement();
+      }
+
+      xmlWriter.writeEndElement();
+      xmlWriter.writeEndDocument();
+      xmlWriter.flush();
+    } catch (XMLStreamException e) {
+      if (e.getNestedException() instanceof IOException) {
+        throw (IOException) e.getNestedException();
+      }
+      throw new RuntimeException("Unable to create XML from provided content", e);
+    }
+  }
+
+  /**
+   * Writes the extra information of an entry as children of the entry's url-tag.
+   * 
+   * @param xmlWriter The XMLStreamWriter to write to.
+   * @param entry The entry to write the extra information for.
+   * @throws XMLStreamException If the extra information could not be written.
+   */
+  protected abstract void writeExtraInformation(XMLStreamWriter xmlWriter, SitemapEntry entry) throws XMLStreamException;
+
+  private void writeElement(XMLStreamWriter xmlWriter, String localName, String value) throws XMLStreamException {
+    if (value != null) {
+      xmlWriter.writeStartElement(SITEMAP_NAMESPACE, localName);
+      xmlWriter.writeCharacters(value);
+      xmlWriter.writeEndElement();
+    }
+  }
+}
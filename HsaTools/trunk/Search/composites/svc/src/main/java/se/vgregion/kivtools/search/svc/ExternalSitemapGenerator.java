@@ -17,27 +17,21 @@
  */
 package se.vgregion.kivtools.search.svc;
 
-import java.util.List;
+import javax.xml.stream.XMLStreamWriter;
 
 /**
  * Implementation of SitemapGenerator for external use. The generated XML contains only the base tags from sitemap.org.
  */
-public class ExternalSitemapGenerator implements SitemapGenerator {
-  @Override
-  public String generate(List<SitemapEntry> sitemapEntries) {
-    StringBuilder output = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">\n");
-
-    for (SitemapEntry entry : sitemapEntries) {
-      output.append("<url>\n");
-      output.append("<loc>").append(entry.getLocation()).append("</loc>\n");
-      output.append("<lastmod>").append(entry.getLastModified()).append("</lastmod>\n");
-      output.append("<changefreq>").append(entry.getChangeFrequency()).append("</changefreq>\n");
-      output.append("<priority>0.5</priority>\n");
-      output.append("</url>\n");
-    }
-
-    output.append("</urlset>");
+public class ExternalSitemapGenerator extends AbstractSitemapGenerator {
+  /**
+   * Constructs a new ExternalSitemapGenerator.
+   */
+  public ExternalSitemapGenerator() {
+    super("UTF-8");
+  }
 
-    return output.toString();
+  @Override
+  protected void writeExtraInformation(XMLStreamWriter xmlWriter, SitemapEntry entry) {
+    // Extra information is not part of the external sitemap.
   }
 }
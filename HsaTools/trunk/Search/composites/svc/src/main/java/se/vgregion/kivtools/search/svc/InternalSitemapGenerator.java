@@ -17,50 +17,53 @@
  */
 package se.vgregion.kivtools.search.svc;
 
-import java.io.StringWriter;
-import java.math.BigDecimal;
-import java.util.List;
-
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
-
-import org.sitemap.TChangeFreq;
-import org.sitemap.TUrl;
-import org.sitemap.Urlset;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 /**
  * Implementation of SitemapGenerator for internal use. The generated XML contains a private namespace where additional attributes can be added.
  */
-public class InternalSitemapGenerator implements SitemapGenerator {
-  @Override
-  public String generate(List<SitemapEntry> sitemapEntries) {
-    try {
-      JAXBContext jaxbContext = JAXBContext.newInstance("org.sitemap:se.vgregion.kivtools.svc.sitemap");
-      Marshaller marshaller = jaxbContext.createMarshaller();
-      marshaller.setProperty(Marshaller.JAXB_ENCODING, "iso-8859-1");
-      StringWriter writer = new StringWriter();
-      Urlset urlset = new Urlset();
-
-      for (SitemapEntry entry : sitemapEntries) {
-        TUrl url = new TUrl();
-        url.setLoc(entry.getLocation());
-        url.setLastmod(entry.getLastModified());
-        url.setChangefreq(TChangeFreq.fromValue(entry.getChangeFrequency()));
-        url.setPriority(BigDecimal.valueOf(0.5));
+public class InternalSitemapGenerator extends AbstractSitemapGenerator {
+  /**
+   * Constructs a new InternalSitemapGenerator.
+   */
+  public InternalSitemapGenerator() {
+    super("iso-8859-1");
+  }
 
-        for (Object extraInformation : entry) {
-          url.getAny().add(extraInformation);
-        }
+  @Override
+  protected void writeExtraInformation(XMLStreamWriter xmlWriter, SitemapEntry entry) throws XMLStreamException {
+    if (!entry.iterator().hasNext()) {
+      return;
+    }
 
-        urlset.getUrl().add(url);
+    try {
+      // Marshallers are not thread safe but cheap to create compared to the JAXBContext.
+      Marshaller marshaller = JaxbContextHolder.CONTEXT.createMarshaller();
+      marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+      for (Object extraInformation : entry) {
+        marshaller.marshal(extraInformation, xmlWriter);
       }
-
-      marshaller.marshal(urlset, writer);
-
-      return writer.toString();
     } catch (JAXBException e) {
       throw new RuntimeException("Unable to create XML from provided content", e);
     }
   }
+
+  /**
+   * Holds the JAXBContext which is created once, when it is first used.
+   */
+  private static final class JaxbContextHolder {
+    private static final JAXBContext CONTEXT = createContext();
+
+    private static JAXBContext createContext() {
+      try {
+        return JAXBContext.newInstance("org.sitemap:se.vgregion.kivtools.svc.sitemap");
+      } catch (JAXBException e) {
+        throw new RuntimeException("Unable to create JAXBContext for the sitemap", e);
+      }
+    }
+  }
 }
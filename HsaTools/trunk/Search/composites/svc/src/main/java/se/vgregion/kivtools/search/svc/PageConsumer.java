@@ -0,0 +1,41 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.svc;
+
+import java.util.List;
+
+import se.vgregion.kivtools.search.exceptions.KivException;
+
+/**
+ * Callback which receives the result of a search one page at a time. The next page is not fetched until the consumer
+ * has returned from handling the current page.
+ * 
+ * @param <T> The type of objects in the pages.
+ */
+public interface PageConsumer<T> {
+  /**
+   * Handles a page of search results.
+   * 
+   * @param page The page of search results. Never null.
+   * @return True if the search should continue with the next page, false if the search should be aborted.
+   * @throws KivException If the page could not be handled. The search is aborted.
+   */
+  boolean consume(List<T> page) throws KivException;
+}
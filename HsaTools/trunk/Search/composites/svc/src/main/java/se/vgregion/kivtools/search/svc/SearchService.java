@@ -21,6 +21,7 @@ package se.vgregion.kivtools.search.svc;
 
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 
 import se.vgregion.kivtools.search.domain.Deliverypoint;
 import se.vgregion.kivtools.search.domain.Employment;
@@ -117,6 +118,16 @@ public interface SearchService {
    */
   public SikSearchResultList<Employment> getEmployments(String personDn) throws KivException;
 
+  /**
+   * Gets the employments for several persons using as few searches as possible.
+   * 
+   * @param personDns Distinguished names for the persons to get employments for.
+   * @return A map with the employments for each person keyed on the provided distinguished names. Persons without
+   *         employments are mapped to an empty list.
+   * @throws KivException If something goes wrong doing search.
+   */
+  public Map<String, List<Employment>> getEmploymentsByPersonDn(List<String> personDns) throws KivException;
+
   
   
   public List<Deliverypoint> getAllDeliverypoints() throws KivException;
@@ -147,6 +158,16 @@ public interface SearchService {
    */
   public List<Unit> getAllUnits(boolean onlyPublicUnits) throws KivException;
 
+  /**
+   * Retrieves all Units and functions filtered based on if only units for public display should be retrieved. The units
+   * are handed to the provided consumer one page at a time instead of being collected in a single list.
+   * 
+   * @param onlyPublicUnits Only select units from search that should be displayed to the public.
+   * @param consumer The consumer to hand each page of units to.
+   * @throws KivException If something goes wrong doing search.
+   */
+  public void getAllUnits(boolean onlyPublicUnits, PageConsumer<Unit> consumer) throws KivException;
+
   /**
    * Returns a list of unique identifiers for all persons. E.g. vgrId in case of VGR
    * 
@@ -163,6 +184,15 @@ public interface SearchService {
    */
   public List<Person> getAllPersons() throws KivException;
 
+  /**
+   * Retrieves all persons. The persons are handed to the provided consumer one page at a time instead of being collected
+   * in a single list.
+   * 
+   * @param consumer The consumer to hand each page of persons to.
+   * @throws KivException If something goes wrong doing search.
+   */
+  public void getAllPersons(PageConsumer<Person> consumer) throws KivException;
+
   /**
    * Gets a list of employments for the provided person.
    * 
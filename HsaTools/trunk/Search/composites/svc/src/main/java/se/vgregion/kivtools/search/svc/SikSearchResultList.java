@@ -100,4 +100,14 @@ public class SikSearchResultList<T> extends ArrayList<T> implements List<T>, Ser
   public void setTotalNumberOfFoundItems(int totalNumberOfFoundItems) {
     this.totalNumberOfFoundItems = totalNumberOfFoundItems;
   }
+
+  /**
+   * Checks if the search found more items than the list holds, i.e. if the result was cut off at the maximum number of
+   * results.
+   * 
+   * @return True if the total number of found items is larger than the size of the list.
+   */
+  public boolean isMoreResultsAvailable() {
+    return totalNumberOfFoundItems > size();
+  }
 }
@@ -0,0 +1,155 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.svc;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A sitemap or sitemap index which has been rendered once and is kept gzipped in memory. Clients that do not accept
+ * gzip are served by inflating the content while it is written.
+ */
+public final class SitemapDocument {
+  private final byte[] gzippedContent;
+  private final int contentLength;
+  private final String digest;
+  private final long lastModified;
+  private final String characterEncoding;
+
+  /**
+   * Constructs a new SitemapDocument.
+   * 
+   * @param gzippedContent The gzipped content of the document.
+   * @param contentLength The length of the content before it was gzipped.
+   * @param digest A hex encoded digest of the content before it was gzipped.
+   * @param lastModified The time the document was rendered in milliseconds.
+   * @param characterEncoding The character encoding of the content.
+   */
+  SitemapDocument(byte[] gzippedContent, int contentLength, String digest, long lastModified, String characterEncoding) {
+    this.gzippedContent = gzippedContent;
+    this.contentLength = contentLength;
+    this.digest = digest;
+    // HTTP dates only have a precision of seconds.
+    this.lastModified = lastModified - lastModified % 1000L;
+    this.characterEncoding = characterEncoding;
+  }
+
+  public long getLastModified() {
+    return lastModified;
+  }
+
+  public String getCharacterEncoding() {
+    return characterEncoding;
+  }
+
+  /**
+   * Retrieves the length of the content as it is written by {@link #writeTo(OutputStream, boolean)}.
+   * 
+   * @param gzipped True if the gzipped length should be retrieved.
+   * @return The length of the content in bytes.
+   */
+  public int getContentLength(boolean gzipped) {
+    return gzipped ? gzippedContent.length : contentLength;
+  }
+
+  /**
+   * Retrieves a strong entity tag for the document. The gzipped and plain representations have different tags since
+   * their bytes differ.
+   * 
+   * @param gzipped True if the tag of the gzipped representation should be retrieved.
+   * @return The quoted entity tag.
+   */
+  public String getETag(boolean gzipped) {
+    return "\"" + digest + (gzipped ? "-gz" : "") + "\"";
+  }
+
+  /**
+   * Checks if a client already has the current version of the document. If-None-Match takes precedence over
+   * If-Modified-Since when both are provided.
+   * 
+   * @param ifNoneMatch The value of the If-None-Match header or null if not provided.
+   * @param ifModifiedSince The value of the If-Modified-Since header in milliseconds or -1 if not provided.
+   * @param gzipped True if the gzipped representation is requested.
+   * @return True if the client has the current version of the document.
+   */
+  public boolean isNotModified(String ifNoneMatch, long ifModifiedSince, boolean gzipped) {
+    boolean notModified;
+    if (ifNoneMatch != null) {
+      notModified = false;
+      String etag = getETag(gzipped);
+      for (String tag : ifNoneMatch.split(",")) {
+        tag = tag.trim();
+        // If-None-Match uses the weak comparison.
+        if (tag.startsWith("W/")) {
+          tag = tag.substring(2);
+        }
+        if ("*".equals(tag) || etag.equals(tag)) {
+          notModified = true;
+        }
+      }
+    } else {
+      notModified = ifModifiedSince >= lastModified;
+    }
+    return notModified;
+  }
+
+  /**
+   * Writes the content of the document to the provided stream.
+   * 
+   * @param out The stream to write to. The stream is not closed.
+   * @param gzipped True if the content should be written gzipped.
+   * @throws IOException If the content could not be written.
+   */
+  public void writeTo(OutputStream out, boolean gzipped) throws IOException {
+    if (gzipped) {
+      out.write(gzippedContent);
+    } else {
+      InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzippedContent));
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = in.read(buffer)) > 0) {
+        out.write(buffer, 0, read);
+      }
+    }
+  }
+
+  /**
+   * Checks if a client accepts gzipped content.
+   * 
+   * @param acceptEncoding The value of the Accept-Encoding header or null if not provided.
+   * @return True if gzip is accepted.
+   */
+  public static boolean isGzipAccepted(String acceptEncoding) {
+    boolean accepted = false;
+    if (acceptEncoding != null) {
+      for (String coding : acceptEncoding.split(",")) {
+        String[] parts = coding.trim().split(";");
+        String name = parts[0].trim();
+        if ("gzip".equalsIgnoreCase(name) || "x-gzip".equalsIgnoreCase(name)) {
+          accepted = parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+        }
+      }
+    }
+    return accepted;
+  }
+}
@@ -17,6 +17,8 @@
  */
 package se.vgregion.kivtools.search.svc;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 
 /**
@@ -30,4 +32,31 @@ public interface SitemapGenerator {
    * @return an XML-string in sitemap.orgs format.
    */
   String generate(List<SitemapEntry> sitemapEntries);
+
+  /**
+   * Generates an XML in sitemap.orgs format based on the provided list of SitemapEntrys and streams it to the provided
+   * writer.
+   * 
+   * @param sitemapEntries The list of SitemapEntrys to generate the XML for.
+   * @param writer The writer to write the XML to. The writer is flushed but not closed.
+   * @throws IOException If the XML could not be written to the writer.
+   */
+  void generate(List<SitemapEntry> sitemapEntries, Writer writer) throws IOException;
+
+  /**
+   * Generates a sitemap index in sitemap.orgs format which refers to the provided sitemaps and streams it to the provided
+   * writer. Only the location and last modified time of the provided entries are used.
+   * 
+   * @param sitemaps The sitemaps to refer to from the index.
+   * @param writer The writer to write the XML to. The writer is flushed but not closed.
+   * @throws IOException If the XML could not be written to the writer.
+   */
+  void generateIndex(List<SitemapEntry> sitemaps, Writer writer) throws IOException;
+
+  /**
+   * Retrieves the encoding declared in the generated XML. Writers passed to the generator should use the same encoding.
+   * 
+   * @return The encoding declared in the generated XML.
+   */
+  String getEncoding();
 }
@@ -0,0 +1,218 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.svc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import se.vgregion.kivtools.search.svc.cache.SitemapCache;
+import se.vgregion.kivtools.search.svc.cache.SitemapCache.EntryType;
+import se.vgregion.kivtools.util.time.TimeUtil;
+
+/**
+ * The rendered sitemaps of one {@link SitemapCache} snapshot. The entries of each requested type are partitioned into
+ * sitemaps that stay within the limits of the sitemap protocol, and each sitemap is rendered and gzipped only once. If
+ * more than one sitemap is needed, a sitemap index which refers to them is served in place of a single sitemap.
+ */
+final class SitemapPublication {
+  /** The maximum number of URL's in a sitemap according to the sitemap protocol. */
+  static final int MAX_ENTRIES_PER_SITEMAP = 50000;
+  /** The maximum size of an uncompressed sitemap according to the sitemap protocol. */
+  static final int MAX_SITEMAP_BYTES = 50 * 1024 * 1024;
+  // The index depends on the URL it is requested by, only keep the index for a few URL's.
+  private static final int MAX_INDEX_URLS = 8;
+
+  private final SitemapCache cache;
+  private final SitemapGenerator sitemapGenerator;
+  private final int maxEntriesPerSitemap;
+  private final int maxSitemapBytes;
+  private final long published;
+  private final Map<EntryType, RenderedSitemaps> renderedSitemaps = new HashMap<EntryType, RenderedSitemaps>();
+
+  /**
+   * Constructs a new SitemapPublication.
+   * 
+   * @param cache The snapshot to publish.
+   * @param sitemapGenerator The SitemapGenerator to render the sitemaps with.
+   * @param maxEntriesPerSitemap The maximum number of entries in each sitemap.
+   * @param maxSitemapBytes The maximum size of each uncompressed sitemap.
+   */
+  SitemapPublication(SitemapCache cache, SitemapGenerator sitemapGenerator, int maxEntriesPerSitemap, int maxSitemapBytes) {
+    this.cache = cache;
+    this.sitemapGenerator = sitemapGenerator;
+    this.maxEntriesPerSitemap = maxEntriesPerSitemap;
+    this.maxSitemapBytes = maxSitemapBytes;
+    this.published = TimeUtil.asMillis();
+  }
+
+  SitemapCache getCache() {
+    return cache;
+  }
+
+  /**
+   * Retrieves a document of this publication.
+   * 
+   * @param entryType The type of entries to retrieve the document for or null for all entries.
+   * @param sitemapUrl The URL the sitemap is requested by, used for the locations in the sitemap index.
+   * @param part The number of the sitemap to retrieve, starting at 1, or 0 for the sitemap or sitemap index.
+   * @return The requested document or null if there is no such part.
+   */
+  synchronized SitemapDocument getDocument(EntryType entryType, String sitemapUrl, int part) {
+    RenderedSitemaps rendered = renderedSitemaps.get(entryType);
+    if (rendered == null) {
+      rendered = new RenderedSitemaps(renderSitemaps(cache.getEntries(entryType)));
+      renderedSitemaps.put(entryType, rendered);
+    }
+
+    SitemapDocument document = null;
+    if (part == 0 && rendered.sitemaps.size() == 1) {
+      document = rendered.sitemaps.get(0);
+    } else if (part == 0) {
+      document = rendered.indexes.get(sitemapUrl);
+      if (document == null) {
+        document = renderIndex(entryType, sitemapUrl, rendered.sitemaps.size());
+        if (rendered.indexes.size() < MAX_INDEX_URLS) {
+          rendered.indexes.put(sitemapUrl, document);
+        }
+      }
+    } else if (part <= rendered.sitemaps.size()) {
+      document = rendered.sitemaps.get(part - 1);
+    }
+    return document;
+  }
+
+  private List<SitemapDocument> renderSitemaps(List<SitemapEntry> entries) {
+    List<SitemapDocument> sitemaps = new ArrayList<SitemapDocument>();
+    if (entries.isEmpty()) {
+      sitemaps.add(render(entries, false));
+    }
+    for (int from = 0; from < entries.size(); from += maxEntriesPerSitemap) {
+      renderSitemaps(entries.subList(from, Math.min(entries.size(), from + maxEntriesPerSitemap)), sitemaps);
+    }
+    return sitemaps;
+  }
+
+  private void renderSitemaps(List<SitemapEntry> entries, List<SitemapDocument> sitemaps) {
+    SitemapDocument sitemap = render(entries, false);
+    if (sitemap.getContentLength(false) > maxSitemapBytes && entries.size() > 1) {
+      // Too large, split the entries in two sitemaps of about the same size.
+      int middle = entries.size() / 2;
+      renderSitemaps(entries.subList(0, middle), sitemaps);
+      renderSitemaps(entries.subList(middle, entries.size()), sitemaps);
+    } else {
+      sitemaps.add(sitemap);
+    }
+  }
+
+  private SitemapDocument renderIndex(EntryType entryType, String sitemapUrl, int numberOfSitemaps) {
+    String lastModified = TimeUtil.formatDateW3C(new Date(published));
+    String partUrl = sitemapUrl + getQuery(entryType) + "part=";
+    List<SitemapEntry> sitemaps = new ArrayList<SitemapEntry>(numberOfSitemaps);
+    for (int part = 1; part <= numberOfSitemaps; part++) {
+      sitemaps.add(new SitemapEntry(partUrl + part, lastModified, null));
+    }
+    return render(sitemaps, true);
+  }
+
+  private String getQuery(EntryType entryType) {
+    String query;
+    if (entryType == EntryType.PERSON) {
+      query = "?persons=true&units=false&";
+    } else if (entryType == EntryType.UNIT) {
+      query = "?persons=false&units=true&";
+    } else {
+      query = "?";
+    }
+    return query;
+  }
+
+  private SitemapDocument render(List<SitemapEntry> entries, boolean index) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("MD5");
+      ByteArrayOutputStream gzippedContent = new ByteArrayOutputStream();
+      CountingOutputStream content = new CountingOutputStream(new DigestOutputStream(new GZIPOutputStream(gzippedContent), digest));
+      Writer writer = new OutputStreamWriter(content, sitemapGenerator.getEncoding());
+      if (index) {
+        sitemapGenerator.generateIndex(entries, writer);
+      } else {
+        sitemapGenerator.generate(entries, writer);
+      }
+      writer.close();
+      return new SitemapDocument(gzippedContent.toByteArray(), content.count, toHex(digest.digest()), published, sitemapGenerator.getEncoding());
+    } catch (IOException e) {
+      // Should not happen when writing to memory. Re-throwing as RuntimeException.
+      throw new RuntimeException(e);
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xf, 16));
+      hex.append(Character.forDigit(b & 0xf, 16));
+    }
+    return hex.toString();
+  }
+
+  private static final class RenderedSitemaps {
+    private final List<SitemapDocument> sitemaps;
+    private final Map<String, SitemapDocument> indexes = new HashMap<String, SitemapDocument>();
+
+    private RenderedSitemaps(List<SitemapDocument> sitemaps) {
+      this.sitemaps = Collections.unmodifiableList(sitemaps);
+    }
+  }
+
+  private static final class CountingOutputStream extends FilterOutputStream {
+    private int count;
+
+    private CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
+    }
+  }
+}
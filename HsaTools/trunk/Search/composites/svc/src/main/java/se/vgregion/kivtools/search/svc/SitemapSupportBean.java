@@ -19,8 +19,9 @@
 
 package se.vgregion.kivtools.search.svc;
 
-import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
+import se.vgregion.kivtools.search.svc.cache.SitemapCache;
 import se.vgregion.kivtools.search.svc.cache.SitemapCache.EntryType;
 import se.vgregion.kivtools.search.svc.impl.cache.SitemapCacheServiceImpl;
 
@@ -30,6 +31,8 @@ import se.vgregion.kivtools.search.svc.impl.cache.SitemapCacheServiceImpl;
 public class SitemapSupportBean {
   private final SitemapCacheServiceImpl sitemapCacheService;
   private final SitemapGenerator sitemapGenerator;
+  private final AtomicReference<SitemapPublication> publication = new AtomicReference<SitemapPublication>();
+  private int maxEntriesPerSitemap = SitemapPublication.MAX_ENTRIES_PER_SITEMAP;
 
   /**
    * Constructs a new {@link SitemapSupportBean}.
@@ -43,24 +46,70 @@ public class SitemapSupportBean {
   }
 
   /**
-   * Retrieves the content for the sitemap based on the units from the cache. The values of the persons and units parameters decide which information should be generated. If none or both are set to
-   * true, all information regarding both persons and units are generated, otherwise only the selected kind of information is generated.
+   * Sets the maximum number of entries in each sitemap. Defaults to 50000 which is the maximum allowed by the sitemap
+   * protocol.
    * 
+   * @param maxEntriesPerSitemap The maximum number of entries in each sitemap.
+   */
+  public void setMaxEntriesPerSitemap(int maxEntriesPerSitemap) {
+    if (maxEntriesPerSitemap < 1 || maxEntriesPerSitemap > SitemapPublication.MAX_ENTRIES_PER_SITEMAP) {
+      throw new IllegalArgumentException("maxEntriesPerSitemap must be between 1 and " + SitemapPublication.MAX_ENTRIES_PER_SITEMAP);
+    }
+    this.maxEntriesPerSitemap = maxEntriesPerSitemap;
+  }
+
+  /**
+   * Retrieves the pre-rendered sitemap document to serve for a request. The documents are rendered once for each
+   * snapshot of the sitemap cache. If the entries do not fit in one sitemap, the document without a part is a sitemap
+   * index which refers to each part. The values of the persons and units parameters decide which entries the sitemap
+   * contains. If none or both are set to true, both persons and units are included, otherwise only the selected kind of
+   * entries.
+   * 
+   * @param sitemapUrl The URL of the sitemap without query, used for the locations in the sitemap index.
    * @param persons value of persons parameter to Sitemap-servlet.
    * @param units value of units parameter to Sitemap-servlet.
-   * @return The content for the sitemap.
+   * @param part value of part parameter to Sitemap-servlet.
+   * @return The sitemap document or null if there is no such part.
    */
-  public String getSitemapContent(final String persons, final String units) {
-    EntryType entryType = getTypeOfEntriesToGenerate(persons, units);
+  public SitemapDocument getSitemapDocument(String sitemapUrl, String persons, String units, String part) {
+    int partNumber = getPartNumber(part);
+    if (partNumber < 0) {
+      return null;
+    }
 
-    List<SitemapEntry> entries = sitemapCacheService.getCache().getEntries(entryType);
-    // Check if list of entries is populated, otherwise we fill it up!
-    if (entries.size() < 1) {
+    EntryType entryType = getTypeOfEntriesToGenerate(persons, units);
+    SitemapCache cache = sitemapCacheService.getCache();
+    // Check if the cache is populated, otherwise we fill it up!
+    if (!cache.hasEntries(entryType)) {
       sitemapCacheService.reloadCache();
-      entries = sitemapCacheService.getCache().getEntries(entryType);
+      cache = sitemapCacheService.getCache();
+    }
+
+    SitemapPublication current = publication.get();
+    if (current == null || current.getCache() != cache) {
+      SitemapPublication published = new SitemapPublication(cache, sitemapGenerator, maxEntriesPerSitemap, SitemapPublication.MAX_SITEMAP_BYTES);
+      if (!publication.compareAndSet(current, published) && publication.get().getCache() == cache) {
+        // Another request published the same snapshot first, use its rendered documents.
+        published = publication.get();
+      }
+      current = published;
     }
+    return current.getDocument(entryType, sitemapUrl, partNumber);
+  }
 
-    return sitemapGenerator.generate(entries);
+  private int getPartNumber(String part) {
+    int partNumber = 0;
+    if (part != null && part.length() > 0) {
+      try {
+        partNumber = Integer.parseInt(part);
+        if (partNumber < 1) {
+          partNumber = -1;
+        }
+      } catch (NumberFormatException e) {
+        partNumber = -1;
+      }
+    }
+    return partNumber;
   }
 
   private EntryType getTypeOfEntriesToGenerate(String persons, String units) {
@@ -30,6 +30,8 @@ public interface CacheLoader<T> {
 	 * Loads the cache from the LDAP directory.
 	 * 
 	 * @return A fully populated cache instance.
+	 * @throws CacheLoadingException
+	 *             If the cache could not be loaded completely.
 	 */
 	T loadCache();
 
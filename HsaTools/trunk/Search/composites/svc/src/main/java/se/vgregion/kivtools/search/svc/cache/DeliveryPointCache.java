@@ -23,10 +23,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
 import se.vgregion.kivtools.search.domain.Deliverypoint;
@@ -79,26 +77,16 @@ public class DeliveryPointCache {
 	 * 
 	 */
 	public void createUnitHsaIdentityMatchOnDeliverPoint() {
-		if (this.deliverypointByHsaId.size() > 0) {
-			Iterator<Entry<String, Deliverypoint>> it = this.deliverypointByHsaId
-					.entrySet().iterator();
-			while (it.hasNext()) {
-				@SuppressWarnings("rawtypes")
-				Map.Entry pairs = (Map.Entry) it.next();
-				for (String pVgrOrgRel : this.deliverypointByHsaId.get(
-						pairs.getKey()).getVgrOrgRel()) {
-					if (this.unitAndDeliveryPoint.containsKey(pVgrOrgRel)) {
-						this.unitAndDeliveryPoint.get(pVgrOrgRel).add(
-								this.deliverypointByHsaId.get(pairs.getKey()));
-					} else {
-						Set<Deliverypoint> pNewUnitPut = new HashSet<Deliverypoint>();
-						pNewUnitPut.add(this.deliverypointByHsaId.get(pairs
-								.getKey()));
-						this.unitAndDeliveryPoint.put(pVgrOrgRel, pNewUnitPut);
-						pNewUnitPut = null;
-					}
+		// Deliverypoints are left in deliverypointByHsaId so that they can still be looked up by hsaIdentity.
+		this.unitAndDeliveryPoint.clear();
+		for (Deliverypoint deliverypoint : this.deliverypointByHsaId.values()) {
+			for (String pVgrOrgRel : deliverypoint.getVgrOrgRel()) {
+				Set<Deliverypoint> unitDeliverypoints = this.unitAndDeliveryPoint.get(pVgrOrgRel);
+				if (unitDeliverypoints == null) {
+					unitDeliverypoints = new HashSet<Deliverypoint>();
+					this.unitAndDeliveryPoint.put(pVgrOrgRel, unitDeliverypoints);
 				}
-				it.remove(); // avoids a ConcurrentModificationException
+				unitDeliverypoints.add(deliverypoint);
 			}
 		}
 	}
@@ -0,0 +1,244 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.svc.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import se.vgregion.kivtools.search.domain.Unit;
+import se.vgregion.kivtools.search.domain.values.DN;
+
+/**
+ * An immutable index over the organisation tree formed by the DN's of a set of units. The parent of a unit in the tree
+ * is its closest ancestor in the set, units without an ancestor in the set are roots.
+ * 
+ * The ids used by the index are the pre-order numbers of the units. All descendants of a unit therefore have
+ * consecutive ids directly after the unit itself, which makes "all descendants" a sub-list and "is descendant of" a
+ * range check. The post-order number and depth of a unit give the end of the range since the id of the last descendant
+ * is always post-order number + depth.
+ */
+public final class OrganisationTreeIndex {
+  private static final int[] NO_CHILDREN = new int[0];
+
+  private final List<Unit> units;
+  private final Map<DN, Integer> idsByDn;
+  private final int[] parents;
+  private final int[] depths;
+  private final int[] postOrder;
+  private final int[][] children;
+
+  /**
+   * Constructs a new index over the provided units. Units without a DN are not indexed and only the first unit for each
+   * DN is indexed.
+   * 
+   * @param units The units to index.
+   */
+  public OrganisationTreeIndex(List<Unit> units) {
+    List<Unit> indexed = new ArrayList<Unit>(units.size());
+    Map<DN, Integer> positions = new HashMap<DN, Integer>(units.size() * 2);
+    for (Unit unit : units) {
+      if (unit.getDn() != null && !positions.containsKey(unit.getDn())) {
+        positions.put(unit.getDn(), Integer.valueOf(indexed.size()));
+        indexed.add(unit);
+      }
+    }
+
+    int size = indexed.size();
+    List<List<Integer>> childPositions = new ArrayList<List<Integer>>(size);
+    for (int i = 0; i < size; i++) {
+      childPositions.add(null);
+    }
+    List<Integer> roots = new ArrayList<Integer>();
+    for (int position = 0; position < size; position++) {
+      Integer parent = null;
+      for (DN ancestor = indexed.get(position).getDn().getParentDN(); ancestor != null && parent == null; ancestor = ancestor.getParentDN()) {
+        parent = positions.get(ancestor);
+      }
+      if (parent == null) {
+        roots.add(Integer.valueOf(position));
+      } else {
+        List<Integer> siblings = childPositions.get(parent.intValue());
+        if (siblings == null) {
+          siblings = new ArrayList<Integer>();
+          childPositions.set(parent.intValue(), siblings);
+        }
+        siblings.add(Integer.valueOf(position));
+      }
+    }
+
+    Unit[] unitsByPreOrder = new Unit[size];
+    this.parents = new int[size];
+    this.depths = new int[size];
+    this.postOrder = new int[size];
+    this.children = new int[size][];
+    this.idsByDn = new HashMap<DN, Integer>(size * 2);
+
+    // Depth first traversal without recursion. The stack holds the positions of the units being visited and, for each
+    // of them, the number of children visited so far.
+    int[] stack = new int[size];
+    int[] visitedChildren = new int[size];
+    int[] idByPosition = new int[size];
+    int nextPreOrder = 0;
+    int nextPostOrder = 0;
+    for (Integer root : roots) {
+      int top = 0;
+      stack[0] = root.intValue();
+      visitedChildren[0] = 0;
+      idByPosition[root.intValue()] = this.enter(root.intValue(), nextPreOrder++, -1, 0, indexed, unitsByPreOrder);
+      while (top >= 0) {
+        int position = stack[top];
+        List<Integer> positionChildren = childPositions.get(position);
+        if (positionChildren != null && visitedChildren[top] < positionChildren.size()) {
+          int child = positionChildren.get(visitedChildren[top]++).intValue();
+          idByPosition[child] = this.enter(child, nextPreOrder++, idByPosition[position], top + 1, indexed, unitsByPreOrder);
+          stack[++top] = child;
+          visitedChildren[top] = 0;
+        } else {
+          int id = idByPosition[position];
+          this.postOrder[id] = nextPostOrder++;
+          if (positionChildren == null) {
+            this.children[id] = NO_CHILDREN;
+          } else {
+            this.children[id] = new int[positionChildren.size()];
+            for (int i = 0; i < positionChildren.size(); i++) {
+              this.children[id][i] = idByPosition[positionChildren.get(i).intValue()];
+            }
+          }
+          top--;
+        }
+      }
+    }
+
+    this.units = Collections.unmodifiableList(Arrays.asList(unitsByPreOrder));
+  }
+
+  private int enter(int position, int id, int parent, int depth, List<Unit> indexed, Unit[] unitsByPreOrder) {
+    Unit unit = indexed.get(position);
+    unitsByPreOrder[id] = unit;
+    this.idsByDn.put(unit.getDn(), Integer.valueOf(id));
+    this.parents[id] = parent;
+    this.depths[id] = depth;
+    return id;
+  }
+
+  /**
+   * Getter for the number of units in the index.
+   * 
+   * @return The number of indexed units.
+   */
+  public int size() {
+    return this.units.size();
+  }
+
+  /**
+   * Looks up the id of the unit with the provided DN.
+   * 
+   * @param dn The DN of the unit.
+   * @return The id of the unit or -1 if no unit with the DN is indexed.
+   */
+  public int getId(DN dn) {
+    Integer id = this.idsByDn.get(dn);
+    return id != null ? id.intValue() : -1;
+  }
+
+  /**
+   * Retrieves the unit with the provided id.
+   * 
+   * @param id The id of the unit.
+   * @return The unit.
+   */
+  public Unit getUnit(int id) {
+    return this.units.get(id);
+  }
+
+  /**
+   * Retrieves the id of the parent of a unit.
+   * 
+   * @param id The id of the unit.
+   * @return The id of the parent or -1 if the unit is a root.
+   */
+  public int getParent(int id) {
+    return this.parents[id];
+  }
+
+  /**
+   * Retrieves the depth of a unit in the tree.
+   * 
+   * @param id The id of the unit.
+   * @return The number of ancestors of the unit in the index, zero for roots.
+   */
+  public int getDepth(int id) {
+    return this.depths[id];
+  }
+
+  /**
+   * Retrieves the post-order number of a unit. The pre-order number of a unit is its id.
+   * 
+   * @param id The id of the unit.
+   * @return The post-order number of the unit.
+   */
+  public int getPostOrder(int id) {
+    return this.postOrder[id];
+  }
+
+  /**
+   * Checks if a unit is located below another unit in the tree.
+   * 
+   * @param ancestorId The id of the possible ancestor.
+   * @param id The id of the unit to check.
+   * @return True if the unit is a descendant of the ancestor. A unit is not its own descendant.
+   */
+  public boolean isDescendant(int ancestorId, int id) {
+    return id > ancestorId && id <= this.getLastDescendant(ancestorId);
+  }
+
+  /**
+   * Retrieves all units below a unit in the tree.
+   * 
+   * @param id The id of the unit.
+   * @return An unmodifiable list of the descendants in pre-order, never null.
+   */
+  public List<Unit> getDescendants(int id) {
+    return this.units.subList(id + 1, this.getLastDescendant(id) + 1);
+  }
+
+  /**
+   * Retrieves the units directly below a unit in the tree.
+   * 
+   * @param id The id of the unit.
+   * @return A new list of the children, never null.
+   */
+  public List<Unit> getChildren(int id) {
+    int[] childIds = this.children[id];
+    List<Unit> result = new ArrayList<Unit>(childIds.length);
+    for (int childId : childIds) {
+      result.add(this.units.get(childId));
+    }
+    return result;
+  }
+
+  private int getLastDescendant(int id) {
+    return this.postOrder[id] + this.depths[id];
+  }
+}
@@ -19,23 +19,27 @@
 
 package se.vgregion.kivtools.search.svc.cache;
 
-import java.text.Collator;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import se.vgregion.kivtools.util.Arguments;
 
 /**
- * A cache for person names which keeps track of combinations of given name and surname.
+ * A cache for person names which keeps track of combinations of given name and surname. Lookups are made using a
+ * {@link SuggestionIndex} for given names and one for surnames which are built when the cache is first queried after a
+ * name has been added, or when {@link #buildIndex()} is called.
  * 
  * @author Joakim Olsson
  */
 public class PersonNameCache {
-  private final Map<String, List<String>> givenNameMap = new HashMap<String, List<String>>();
-  private final Map<String, List<String>> surnameMap = new HashMap<String, List<String>>();
+  private final Map<String, Set<String>> givenNameMap = new HashMap<String, Set<String>>();
+  private final Map<String, Set<String>> surnameMap = new HashMap<String, Set<String>>();
+  private volatile Index index;
 
   /**
    * Retrieves a list of all given names matching the provided given name and surname.
@@ -48,7 +52,9 @@ public class PersonNameCache {
     Arguments.notNull("givenName", givenName);
     Arguments.notNull("surname", surname);
 
-    List<String> result = getMatchingNames(surname.trim().toLowerCase(), givenName.trim().toLowerCase(), surnameMap);
+    Index currentIndex = getIndex();
+    List<String> result = getMatchingNames(SuggestionIndex.normalize(surname), SuggestionIndex.normalize(givenName), currentIndex.surnames, currentIndex.givenNames,
+        currentIndex.givenNameRanksBySurname);
 
     return result;
   }
@@ -64,7 +70,9 @@ public class PersonNameCache {
     Arguments.notNull("givenName", givenName);
     Arguments.notNull("surname", surname);
 
-    List<String> result = getMatchingNames(givenName.trim().toLowerCase(), surname.trim().toLowerCase(), givenNameMap);
+    Index currentIndex = getIndex();
+    List<String> result = getMatchingNames(SuggestionIndex.normalize(givenName), SuggestionIndex.normalize(surname), currentIndex.givenNames, currentIndex.surnames,
+        currentIndex.surnameRanksByGivenName);
     return result;
   }
 
@@ -74,80 +82,137 @@ public class PersonNameCache {
    * @param givenName The given name to add.
    * @param surname The surname to add.
    */
-  public void add(String givenName, String surname) {
+  public synchronized void add(String givenName, String surname) {
     Arguments.notNull("givenName", givenName);
     Arguments.notNull("surname", surname);
 
-    addNameToList(givenName.trim(), surname.trim(), givenNameMap);
-    addNameToList(surname.trim(), givenName.trim(), surnameMap);
+    boolean added = addNameToSet(givenName.trim(), surname.trim(), givenNameMap);
+    addNameToSet(surname.trim(), givenName.trim(), surnameMap);
+    if (added) {
+      this.index = null;
+    }
   }
 
   /**
-   * Helper-method for adding a name to the correct list of the map. If no list exists for the provided key, a new list is created and added to the map.
-   * 
-   * @param key The key to use to find the correct list.
-   * @param value The value to put in the list.
-   * @param map The map to find the correct list in.
+   * Builds the indexes for the names added so far unless they are already built.
    */
-  private void addNameToList(String key, String value, Map<String, List<String>> map) {
-    List<String> list = map.get(key);
-    if (list == null) {
-      list = new ArrayList<String>();
-      map.put(key, list);
-    }
-    if (!list.contains(value)) {
-      list.add(value);
+  public void buildIndex() {
+    getIndex();
+  }
+
+  private Index getIndex() {
+    Index currentIndex = this.index;
+    if (currentIndex == null) {
+      synchronized (this) {
+        if (this.index == null) {
+          this.index = new Index(givenNameMap, surnameMap);
+        }
+        currentIndex = this.index;
+      }
     }
+    return currentIndex;
   }
 
   /**
-   * Helper-method for retrieving all matching records in the provided map using the provided key and value.
+   * Helper-method for adding a name to the correct set of the map. If no set exists for the provided key, a new set is created and added to the map.
    * 
-   * @param key The key used to find the lists to search through.
-   * @param value The value to lookup in the matching lists.
-   * @param map The map containing the lists.
-   * @return A list containing the matching strings. Returns an empty list if no matches are found.
+   * @param key The key to use to find the correct set.
+   * @param value The value to put in the set.
+   * @param map The map to find the correct set in.
+   * @return True if the value was not already in the set.
    */
-  private List<String> getMatchingNames(String key, String value, Map<String, List<String>> map) {
-    List<String> matchingNames = new ArrayList<String>();
-
-    List<String> matchingKeys = new ArrayList<String>();
-    for (String currentKey : map.keySet()) {
-      if (currentKey.toLowerCase().contains(key)) {
-        matchingKeys.add(currentKey);
-      }
+  private boolean addNameToSet(String key, String value, Map<String, Set<String>> map) {
+    Set<String> set = map.get(key);
+    if (set == null) {
+      set = new LinkedHashSet<String>();
+      map.put(key, set);
     }
+    return set.add(value);
+  }
 
-    for (String matchingKey : matchingKeys) {
-      List<String> matchingValues = getMatchingValues(map.get(matchingKey), value);
-      for (String matchingValue : matchingValues) {
-        if (!matchingNames.contains(matchingValue)) {
-          matchingNames.add(matchingValue);
+  /**
+   * Helper-method for retrieving all values which match the provided value and are combined with a key matching the provided key.
+   * 
+   * @param key The normalized key to match.
+   * @param value The normalized value to match.
+   * @param keyIndex The index of the keys.
+   * @param valueIndex The index of the values.
+   * @param valueRanksByKey The ranks of the values combined with each key, indexed on the rank of the key.
+   * @return A list containing the matching strings in collation order. Returns an empty list if no matches are found.
+   */
+  private List<String> getMatchingNames(String key, String value, SuggestionIndex keyIndex, SuggestionIndex valueIndex, int[][] valueRanksByKey) {
+    int[] matchingValueRanks = valueIndex.getMatchingRanks(value, Integer.MAX_VALUE);
+
+    // Every value is combined with at least one key so an empty key does not restrict the values.
+    if (key.length() > 0) {
+      int[] matchingKeyRanks = keyIndex.getMatchingRanks(key, Integer.MAX_VALUE);
+      int[] combinedValueRanks = new int[Math.min(matchingValueRanks.length, 16)];
+      int count = 0;
+      for (int keyRank : matchingKeyRanks) {
+        for (int valueRank : valueRanksByKey[keyRank]) {
+          if (Arrays.binarySearch(matchingValueRanks, valueRank) >= 0) {
+            if (count == combinedValueRanks.length) {
+              combinedValueRanks = Arrays.copyOf(combinedValueRanks, count * 2 + 1);
+            }
+            combinedValueRanks[count++] = valueRank;
+          }
         }
       }
+      matchingValueRanks = distinctSorted(Arrays.copyOf(combinedValueRanks, count));
     }
 
-    Collections.sort(matchingNames, Collator.getInstance());
-
+    List<String> matchingNames = new ArrayList<String>(matchingValueRanks.length);
+    for (int rank : matchingValueRanks) {
+      matchingNames.add(valueIndex.getValue(rank));
+    }
     return matchingNames;
   }
 
+  private static int[] distinctSorted(int[] ranks) {
+    Arrays.sort(ranks);
+    int count = 0;
+    for (int i = 0; i < ranks.length; i++) {
+      if (i == 0 || ranks[i] != ranks[i - 1]) {
+        ranks[count++] = ranks[i];
+      }
+    }
+    return Arrays.copyOf(ranks, count);
+  }
+
   /**
-   * Helper-method for retrieving all matching values from a list of strings.
-   * 
-   * @param list The list to retrieve matching values from.
-   * @param value The value to match.
-   * @return A list of matching strings or an empty list if no matches were found.
+   * The indexes of the given names and surnames together with the combinations of them, expressed as ranks in the indexes.
    */
-  private List<String> getMatchingValues(List<String> list, String value) {
-    List<String> matchingValues = new ArrayList<String>();
+  private static final class Index {
+    private final SuggestionIndex givenNames;
+    private final SuggestionIndex surnames;
+    private final int[][] givenNameRanksBySurname;
+    private final int[][] surnameRanksByGivenName;
+
+    private Index(Map<String, Set<String>> givenNameMap, Map<String, Set<String>> surnameMap) {
+      this.givenNames = new SuggestionIndex(givenNameMap.keySet());
+      this.surnames = new SuggestionIndex(surnameMap.keySet());
+      this.givenNameRanksBySurname = combinations(this.surnames, surnameMap, this.givenNames);
+      this.surnameRanksByGivenName = combinations(this.givenNames, givenNameMap, this.surnames);
+    }
 
-    for (String string : list) {
-      if (string.toLowerCase().contains(value)) {
-        matchingValues.add(string);
+    private static int[][] combinations(SuggestionIndex keyIndex, Map<String, Set<String>> map, SuggestionIndex valueIndex) {
+      Map<String, Integer> valueRanks = new HashMap<String, Integer>(valueIndex.size() * 2);
+      for (int rank = 0; rank < valueIndex.size(); rank++) {
+        valueRanks.put(valueIndex.getValue(rank), Integer.valueOf(rank));
       }
-    }
 
-    return matchingValues;
+      int[][] result = new int[keyIndex.size()][];
+      for (int keyRank = 0; keyRank < keyIndex.size(); keyRank++) {
+        Set<String> values = map.get(keyIndex.getValue(keyRank));
+        int[] ranks = new int[values.size()];
+        int i = 0;
+        for (String value : values) {
+          ranks[i++] = valueRanks.get(value).intValue();
+        }
+        Arrays.sort(ranks);
+        result[keyRank] = ranks;
+      }
+      return result;
+    }
   }
 }
@@ -61,6 +61,22 @@ public class SitemapCache {
     return Collections.unmodifiableList(entries);
   }
 
+  /**
+   * Checks if the cache contains any entries of the specified type or any entries at all if no entry type is provided.
+   * 
+   * @param entryType The type of entries to check for.
+   * @return True if the cache contains entries of the specified type.
+   */
+  public boolean hasEntries(EntryType entryType) {
+    boolean hasEntries;
+    if (entryType != null) {
+      hasEntries = !getEntryList(entryType).isEmpty();
+    } else {
+      hasEntries = !getEntryList(EntryType.UNIT).isEmpty() || !getEntryList(EntryType.PERSON).isEmpty();
+    }
+    return hasEntries;
+  }
+
   /**
    * Adds a new sitemap entry to the cache.
    * 
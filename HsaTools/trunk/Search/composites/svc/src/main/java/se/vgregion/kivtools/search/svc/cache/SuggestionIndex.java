@@ -0,0 +1,204 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.svc.cache;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An immutable index used to find suggestions containing a typed string. The values are kept in Swedish collation order
+ * and each value is identified by its rank in that order. All substrings of up to {@link #GRAM_LENGTH} characters of the
+ * lower case values are mapped to the ranks of the values containing them, which means that a lookup only has to look at
+ * the values sharing the rarest n-gram of the query instead of scanning all values.
+ */
+public final class SuggestionIndex {
+  /** The locale used for collation and case conversion. */
+  public static final Locale SWEDISH = new Locale("sv", "SE");
+  private static final int GRAM_LENGTH = 3;
+  private static final int[] NO_RANKS = new int[0];
+
+  private final String[] values;
+  private final String[] lowerCaseValues;
+  private final Map<String, int[]> ranksByGram;
+
+  /**
+   * Constructs a new index for the provided values. Duplicate values are only indexed once.
+   * 
+   * @param values The values to index.
+   */
+  public SuggestionIndex(Collection<String> values) {
+    Collator collator = Collator.getInstance(SWEDISH);
+    List<CollationKey> keys = new ArrayList<CollationKey>(values.size());
+    for (String value : new LinkedHashSet<String>(values)) {
+      keys.add(collator.getCollationKey(value));
+    }
+    CollationKey[] sortedKeys = keys.toArray(new CollationKey[keys.size()]);
+    Arrays.sort(sortedKeys);
+
+    this.values = new String[sortedKeys.length];
+    this.lowerCaseValues = new String[sortedKeys.length];
+    Map<String, List<Integer>> postings = new HashMap<String, List<Integer>>();
+    for (int rank = 0; rank < sortedKeys.length; rank++) {
+      this.values[rank] = sortedKeys[rank].getSourceString();
+      this.lowerCaseValues[rank] = this.values[rank].toLowerCase(SWEDISH);
+      addGrams(this.lowerCaseValues[rank], rank, postings);
+    }
+
+    this.ranksByGram = new HashMap<String, int[]>(postings.size() * 2);
+    for (Map.Entry<String, List<Integer>> entry : postings.entrySet()) {
+      List<Integer> ranks = entry.getValue();
+      int[] rankArray = new int[ranks.size()];
+      for (int i = 0; i < rankArray.length; i++) {
+        rankArray[i] = ranks.get(i).intValue();
+      }
+      this.ranksByGram.put(entry.getKey(), rankArray);
+    }
+  }
+
+  /**
+   * Adds all n-grams of the provided value to the posting lists. Since values are added in rank order each posting list
+   * stays sorted and a rank only has to be compared with the last rank of the list to avoid duplicates.
+   */
+  private static void addGrams(String lowerCaseValue, int rank, Map<String, List<Integer>> postings) {
+    for (int start = 0; start < lowerCaseValue.length(); start++) {
+      for (int end = start + 1; end <= Math.min(start + GRAM_LENGTH, lowerCaseValue.length()); end++) {
+        String gram = lowerCaseValue.substring(start, end);
+        List<Integer> ranks = postings.get(gram);
+        if (ranks == null) {
+          ranks = new ArrayList<Integer>();
+          postings.put(gram, ranks);
+        }
+        if (ranks.isEmpty() || ranks.get(ranks.size() - 1).intValue() != rank) {
+          ranks.add(Integer.valueOf(rank));
+        }
+      }
+    }
+  }
+
+  /**
+   * Normalizes a query the same way as the indexed values are normalized.
+   * 
+   * @param query The query to normalize.
+   * @return The trimmed, lower case query.
+   */
+  public static String normalize(String query) {
+    return query.trim().toLowerCase(SWEDISH);
+  }
+
+  /**
+   * Retrieves the number of values in the index.
+   * 
+   * @return The number of values in the index.
+   */
+  public int size() {
+    return this.values.length;
+  }
+
+  /**
+   * Retrieves the value with the provided rank.
+   * 
+   * @param rank The rank of the value to retrieve.
+   * @return The value with the provided rank.
+   */
+  public String getValue(int rank) {
+    return this.values[rank];
+  }
+
+  /**
+   * Retrieves the values containing the provided query, ignoring case.
+   * 
+   * @param query The normalized query to match.
+   * @param maxResults The maximum number of values to return.
+   * @return The matching values in collation order.
+   */
+  public List<String> getMatchingValues(String query, int maxResults) {
+    int[] ranks = this.getMatchingRanks(query, maxResults);
+    List<String> result = new ArrayList<String>(ranks.length);
+    for (int rank : ranks) {
+      result.add(this.values[rank]);
+    }
+    return result;
+  }
+
+  /**
+   * Retrieves the ranks of the values containing the provided query, ignoring case.
+   * 
+   * @param query The normalized query to match.
+   * @param maxResults The maximum number of ranks to return.
+   * @return The ranks of the matching values in ascending order.
+   */
+  public int[] getMatchingRanks(String query, int maxResults) {
+    int[] result;
+    if (query.length() == 0) {
+      result = new int[Math.min(maxResults, this.values.length)];
+      for (int rank = 0; rank < result.length; rank++) {
+        result[rank] = rank;
+      }
+    } else if (query.length() <= GRAM_LENGTH) {
+      // All substrings of this length are indexed so the posting list is the exact answer.
+      int[] ranks = this.getRanks(query);
+      result = ranks.length > maxResults ? Arrays.copyOf(ranks, maxResults) : ranks.clone();
+    } else {
+      result = this.verifyCandidates(query, this.getRarestGramRanks(query), maxResults);
+    }
+    return result;
+  }
+
+  private int[] getRanks(String gram) {
+    int[] ranks = this.ranksByGram.get(gram);
+    if (ranks == null) {
+      ranks = NO_RANKS;
+    }
+    return ranks;
+  }
+
+  private int[] getRarestGramRanks(String query) {
+    int[] rarest = null;
+    for (int start = 0; start + GRAM_LENGTH <= query.length(); start++) {
+      int[] ranks = this.getRanks(query.substring(start, start + GRAM_LENGTH));
+      if (rarest == null || ranks.length < rarest.length) {
+        rarest = ranks;
+      }
+      if (rarest.length == 0) {
+        break;
+      }
+    }
+    return rarest;
+  }
+
+  private int[] verifyCandidates(String query, int[] candidates, int maxResults) {
+    int[] matches = new int[Math.min(maxResults, candidates.length)];
+    int count = 0;
+    for (int i = 0; i < candidates.length && count < matches.length; i++) {
+      if (this.lowerCaseValues[candidates[i]].contains(query)) {
+        matches[count++] = candidates[i];
+      }
+    }
+    return count == matches.length ? matches : Arrays.copyOf(matches, count);
+  }
+}
@@ -19,20 +19,21 @@
 
 package se.vgregion.kivtools.search.svc.cache;
 
-import java.text.Collator;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import se.vgregion.kivtools.util.Arguments;
 
 /**
- * A cache for titles.
+ * A cache for titles. Lookups are made using a {@link SuggestionIndex} which is built when the cache is first queried
+ * after a title has been added, or when {@link #buildIndex()} is called.
  * 
  * @author Joakim Olsson
  */
 public class TitleCache {
-  private final List<String> titles = new ArrayList<String>();
+  private final Set<String> titles = new LinkedHashSet<String>();
+  private volatile SuggestionIndex index;
 
   /**
    * Retrieves a list of all matching titles from the cache.
@@ -42,18 +43,8 @@ public class TitleCache {
    */
   public List<String> getMatchingTitles(String title) {
     Arguments.notNull("title", title);
-    String searchString = title.trim().toLowerCase();
-    List<String> result = new ArrayList<String>();
 
-    for (String currentTitle : titles) {
-      if (currentTitle.toLowerCase().contains(searchString)) {
-        result.add(currentTitle);
-      }
-    }
-
-    Collections.sort(result, Collator.getInstance());
-
-    return result;
+    return getIndex().getMatchingValues(SuggestionIndex.normalize(title), Integer.MAX_VALUE);
   }
 
   /**
@@ -61,12 +52,31 @@ public class TitleCache {
    * 
    * @param title The title to add to the cache.
    */
-  public void add(String title) {
+  public synchronized void add(String title) {
     Arguments.notNull("title", title);
 
-    String trimmedTitle = title.trim();
-    if (!this.titles.contains(trimmedTitle)) {
-      this.titles.add(trimmedTitle);
+    if (this.titles.add(title.trim())) {
+      this.index = null;
+    }
+  }
+
+  /**
+   * Builds the index for the titles added so far unless it is already built.
+   */
+  public void buildIndex() {
+    getIndex();
+  }
+
+  private SuggestionIndex getIndex() {
+    SuggestionIndex currentIndex = this.index;
+    if (currentIndex == null) {
+      synchronized (this) {
+        if (this.index == null) {
+          this.index = new SuggestionIndex(this.titles);
+        }
+        currentIndex = this.index;
+      }
     }
+    return currentIndex;
   }
 }
@@ -22,45 +22,104 @@ package se.vgregion.kivtools.search.svc.cache;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import se.vgregion.kivtools.search.domain.Unit;
+import se.vgregion.kivtools.search.domain.values.DN;
 import se.vgregion.kivtools.util.Arguments;
 
 /**
- * A cache for units.
- * 
+ * An immutable, indexed snapshot of all units. A snapshot is populated using a {@link Builder} and is never modified
+ * after it has been built, which makes it safe to publish to concurrent readers.
+ *
  * @author Joakim Olsson
  */
-public class UnitCache {
-	private final List<Unit> units = new ArrayList<Unit>();
-	private final Map<String, Unit> unitsByDn = new HashMap<String, Unit>();
-
-	public List<Unit> getUnits() {
-		return Collections.unmodifiableList(units);
-	}
+public final class UnitCache {
+	private final List<Unit> units;
+	private final Map<String, Unit> unitsByHsaIdentity;
+	private final Map<String, Unit> unitsByDn;
+	private final Map<String, List<Unit>> childrenByParentDn;
+	private final UnitProximityIndex proximityIndex;
+	private final UnitSearchIndex searchIndex;
+	private final OrganisationTreeIndex organisationTree;
+	private final boolean complete;
 
 	/**
-	 * Adds a new unit to the cache.
-	 * 
-	 * @param unit
-	 *            The unit to add to the cache.
+	 * Constructs a new empty UnitCache.
 	 */
-	public void add(Unit unit) {
-		Arguments.notNull("unit", unit);
+	public UnitCache() {
+		this.units = Collections.emptyList();
+		this.unitsByHsaIdentity = Collections.emptyMap();
+		this.unitsByDn = Collections.emptyMap();
+		this.childrenByParentDn = Collections.emptyMap();
+		this.proximityIndex = new UnitProximityIndex(this.units);
+		this.searchIndex = new UnitSearchIndex(this.units);
+		this.organisationTree = new OrganisationTreeIndex(this.units);
+		this.complete = false;
+	}
 
-		if (!this.units.contains(unit)) {
-			this.units.add(unit);
+	private UnitCache(Builder builder) {
+		List<Unit> unitList = new ArrayList<Unit>(builder.units);
+		Map<String, Unit> byHsaIdentity = new HashMap<String, Unit>(unitList.size() * 2);
+		Map<String, Unit> byDn = new HashMap<String, Unit>(unitList.size() * 2);
+		Map<String, List<Unit>> children = new HashMap<String, List<Unit>>();
+
+		for (Unit unit : unitList) {
+			// Create the sort key while loading so that it is not created by the first search that sorts the unit.
+			unit.getNameSortKey();
+			if (unit.getHsaIdentity() != null) {
+				byHsaIdentity.put(unit.getHsaIdentity(), unit);
+			}
 			if (unit.getDn() != null) {
-				this.unitsByDn.put(unit.getDn().toString(), unit);
+				byDn.put(unit.getDn().toString(), unit);
+				DN parentDn = unit.getDn().getParentDN();
+				if (parentDn != null) {
+					String parentDnString = parentDn.toString();
+					List<Unit> siblings = children.get(parentDnString);
+					if (siblings == null) {
+						siblings = new ArrayList<Unit>();
+						children.put(parentDnString, siblings);
+					}
+					siblings.add(unit);
+				}
 			}
 		}
+
+		for (Map.Entry<String, List<Unit>> entry : children.entrySet()) {
+			entry.setValue(Collections.unmodifiableList(entry.getValue()));
+		}
+
+		this.units = Collections.unmodifiableList(unitList);
+		this.unitsByHsaIdentity = byHsaIdentity;
+		this.unitsByDn = byDn;
+		this.childrenByParentDn = children;
+		this.proximityIndex = new UnitProximityIndex(unitList);
+		this.searchIndex = new UnitSearchIndex(this.units);
+		this.organisationTree = new OrganisationTreeIndex(this.units);
+		this.complete = builder.complete;
+	}
+
+	public List<Unit> getUnits() {
+		return units;
+	}
+
+	/**
+	 * Retrieves a unit from the cache using it's hsaIdentity.
+	 *
+	 * @param hsaIdentity
+	 *            The hsaIdentity to use to retrieve a unit.
+	 * @return the found unit or null if no unit was found.
+	 */
+	public Unit getUnitByHsaIdentity(String hsaIdentity) {
+		return unitsByHsaIdentity.get(hsaIdentity);
 	}
 
 	/**
 	 * Retrieves a unit from the cache using it's DN-string.
-	 * 
+	 *
 	 * @param dnString
 	 *            The DN-string to use to retrieve a unit.
 	 * @return the found unit or null if no unit was found.
@@ -68,4 +127,127 @@ public class UnitCache {
 	public Unit getUnitByDnString(String dnString) {
 		return unitsByDn.get(dnString);
 	}
+
+	/**
+	 * Retrieves the units that are located directly below the provided DN-string.
+	 *
+	 * @param parentDnString
+	 *            The DN-string of the parent to retrieve child units for.
+	 * @return An unmodifiable list of child units, never null.
+	 */
+	public List<Unit> getChildUnits(String parentDnString) {
+		List<Unit> children = childrenByParentDn.get(parentDnString);
+		if (children == null) {
+			children = Collections.emptyList();
+		}
+		return children;
+	}
+
+	/**
+	 * Retrieves the index used to find units close to a position. The index is built together with the cache and
+	 * is therefore rebuilt each time the cache is reloaded.
+	 *
+	 * @return The proximity index of the units in the cache.
+	 */
+	public UnitProximityIndex getProximityIndex() {
+		return proximityIndex;
+	}
+
+	/**
+	 * Retrieves the index used to search for units matching a set of criteria. The ids used by the index are the
+	 * positions of the units in {@link #getUnits()}.
+	 *
+	 * @return The search index of the units in the cache.
+	 */
+	public UnitSearchIndex getSearchIndex() {
+		return searchIndex;
+	}
+
+	/**
+	 * Retrieves the index of the organisation tree formed by the units in the cache. The index is built together with
+	 * the cache and is therefore rebuilt each time the cache is reloaded.
+	 *
+	 * @return The organisation tree of the units in the cache.
+	 */
+	public OrganisationTreeIndex getOrganisationTree() {
+		return organisationTree;
+	}
+
+	/**
+	 * Checks if the cache contains any units.
+	 *
+	 * @return True if the cache does not contain any units.
+	 */
+	public boolean isEmpty() {
+		return units.isEmpty();
+	}
+
+	/**
+	 * Checks if the cache holds every unit and function of the organisation and not only a filtered selection of
+	 * them. Only a complete cache can answer searches and sub unit lookups in place of the directory server.
+	 *
+	 * @return True if the cache holds all units of the organisation.
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * Builder used to populate a new {@link UnitCache}. A builder is not thread safe and is only meant to be used by the
+	 * thread that loads the cache.
+	 */
+	public static class Builder {
+		private final Set<Unit> units = new LinkedHashSet<Unit>();
+		private boolean complete;
+
+		/**
+		 * Adds a new unit to the cache being built. Units that are equal to an already added unit are ignored.
+		 *
+		 * @param unit
+		 *            The unit to add to the cache.
+		 * @return This builder.
+		 */
+		public Builder add(Unit unit) {
+			Arguments.notNull("unit", unit);
+
+			this.units.add(unit);
+			return this;
+		}
+
+		/**
+		 * Adds all the provided units to the cache being built.
+		 *
+		 * @param unitsToAdd
+		 *            The units to add to the cache.
+		 * @return This builder.
+		 */
+		public Builder addAll(List<Unit> unitsToAdd) {
+			for (Unit unit : unitsToAdd) {
+				add(unit);
+			}
+			return this;
+		}
+
+		/**
+		 * Sets whether the units added to the builder are all the units and functions of the organisation. See
+		 * {@link UnitCache#isComplete()}.
+		 *
+		 * @param complete
+		 *            True if every unit of the organisation is added to the builder.
+		 * @return This builder.
+		 */
+		public Builder setComplete(boolean complete) {
+			this.complete = complete;
+			return this;
+		}
+
+		/**
+		 * Creates a new indexed snapshot of the units added so far.
+		 *
+		 * @return A new UnitCache.
+		 */
+		public UnitCache build() {
+			return new UnitCache(this);
+		}
+	}
 }
@@ -19,20 +19,21 @@
 
 package se.vgregion.kivtools.search.svc.cache;
 
-import java.text.Collator;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import se.vgregion.kivtools.util.Arguments;
 
 /**
- * A cache for unit names.
+ * A cache for unit names. Lookups are made using a {@link SuggestionIndex} which is built when the cache is first
+ * queried after a unit name has been added, or when {@link #buildIndex()} is called.
  * 
  * @author Joakim Olsson
  */
 public class UnitNameCache {
-  private final List<String> unitNames = new ArrayList<String>();
+  private final Set<String> unitNames = new LinkedHashSet<String>();
+  private volatile SuggestionIndex index;
 
   /**
    * Retrieves a list of all matching unit names from the cache.
@@ -41,19 +42,20 @@ public class UnitNameCache {
    * @return A list of all matching unit names in the cache or an empty list if no matches were found.
    */
   public List<String> getMatchingUnitNames(String unitName) {
-    Arguments.notNull("unitName", unitName);
-    String searchString = unitName.trim().toLowerCase();
-    List<String> result = new ArrayList<String>();
-
-    for (String currentUnitName : unitNames) {
-      if (currentUnitName.toLowerCase().contains(searchString)) {
-        result.add(currentUnitName);
-      }
-    }
+    return getMatchingUnitNames(unitName, Integer.MAX_VALUE);
+  }
 
-    Collections.sort(result, Collator.getInstance());
+  /**
+   * Retrieves a list of the first matching unit names from the cache.
+   * 
+   * @param unitName The unit name to match against the cache.
+   * @param maxResults The maximum number of unit names to return.
+   * @return A list of matching unit names in collation order or an empty list if no matches were found.
+   */
+  public List<String> getMatchingUnitNames(String unitName, int maxResults) {
+    Arguments.notNull("unitName", unitName);
 
-    return result;
+    return getIndex().getMatchingValues(SuggestionIndex.normalize(unitName), maxResults);
   }
 
   /**
@@ -61,12 +63,31 @@ public class UnitNameCache {
    * 
    * @param unitName The unit name to add to the cache.
    */
-  public void add(String unitName) {
+  public synchronized void add(String unitName) {
     Arguments.notNull("unitName", unitName);
 
-    String trimmedUnitName = unitName.trim();
-    if (!this.unitNames.contains(trimmedUnitName)) {
-      this.unitNames.add(trimmedUnitName);
+    if (this.unitNames.add(unitName.trim())) {
+      this.index = null;
+    }
+  }
+
+  /**
+   * Builds the index for the unit names added so far unless it is already built.
+   */
+  public void buildIndex() {
+    getIndex();
+  }
+
+  private SuggestionIndex getIndex() {
+    SuggestionIndex currentIndex = this.index;
+    if (currentIndex == null) {
+      synchronized (this) {
+        if (this.index == null) {
+          this.index = new SuggestionIndex(this.unitNames);
+        }
+        currentIndex = this.index;
+      }
     }
+    return currentIndex;
   }
 }
@@ -0,0 +1,247 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.svc.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import se.vgregion.kivtools.search.domain.Unit;
+import se.vgregion.kivtools.search.util.geo.CoordinateTransformerService;
+import se.vgregion.kivtools.search.util.geo.GaussKrugerProjection;
+
+/**
+ * An immutable two-dimensional tree over the RT90 coordinates of a set of units. RT90 is a planar grid measured in meters
+ * which means that distances can be calculated directly on the coordinates. Units without RT90 coordinates are placed
+ * using their WGS84 coordinates and units without any coordinates are not indexed.
+ */
+public final class UnitProximityIndex {
+  private static final Comparator<Entry> BY_X = new Comparator<Entry>() {
+    @Override
+    public int compare(Entry o1, Entry o2) {
+      return o1.x < o2.x ? -1 : (o1.x == o2.x ? 0 : 1);
+    }
+  };
+
+  private static final Comparator<Entry> BY_Y = new Comparator<Entry>() {
+    @Override
+    public int compare(Entry o1, Entry o2) {
+      return o1.y < o2.y ? -1 : (o1.y == o2.y ? 0 : 1);
+    }
+  };
+
+  /**
+   * The tree is stored implicitly, the root of each range is the median element of the range and the left and right
+   * subtrees are the elements before and after it. Even depths are split on x and odd depths on y.
+   */
+  private final Entry[] entries;
+
+  /**
+   * Constructs a new index for the provided units.
+   * 
+   * @param units The units to index.
+   */
+  public UnitProximityIndex(Collection<Unit> units) {
+    List<Entry> positioned = new ArrayList<Entry>(units.size());
+    CoordinateTransformerService transformer = null;
+    for (Unit unit : units) {
+      if (unit.getRt90X() != 0 && unit.getRt90Y() != 0) {
+        positioned.add(new Entry(unit, unit.getRt90X(), unit.getRt90Y()));
+      } else if (unit.getWgs84Lat() != 0 && unit.getWgs84Long() != 0) {
+        if (transformer == null) {
+          transformer = new GaussKrugerProjection("2.5V");
+        }
+        int[] rt90 = transformer.getRT90(unit.getWgs84Lat(), unit.getWgs84Long());
+        positioned.add(new Entry(unit, rt90[0], rt90[1]));
+      }
+    }
+    this.entries = positioned.toArray(new Entry[positioned.size()]);
+    build(this.entries, 0, this.entries.length, 0);
+  }
+
+  private static void build(Entry[] entries, int from, int to, int depth) {
+    if (to - from < 2) {
+      return;
+    }
+    Arrays.sort(entries, from, to, depth % 2 == 0 ? BY_X : BY_Y);
+    int median = (from + to) >>> 1;
+    build(entries, from, median, depth + 1);
+    build(entries, median + 1, to, depth + 1);
+  }
+
+  /**
+   * Gets the number of units in the index.
+   * 
+   * @return The number of units that have coordinates.
+   */
+  public int size() {
+    return this.entries.length;
+  }
+
+  /**
+   * Retrieves the units closest to the provided RT90 position, closest first.
+   * 
+   * @param rt90X The RT90 X coordinate (northing).
+   * @param rt90Y The RT90 Y coordinate (easting).
+   * @param maxResults The maximum number of units to return.
+   * @return A list of the closest units.
+   */
+  public List<Unit> getNearestUnits(int rt90X, int rt90Y, int maxResults) {
+    return this.getNearestUnits(rt90X, rt90Y, maxResults, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Retrieves all units within the provided distance from the provided RT90 position, closest first.
+   * 
+   * @param rt90X The RT90 X coordinate (northing).
+   * @param rt90Y The RT90 Y coordinate (easting).
+   * @param meters The maximum distance in meters.
+   * @return A list of the units within the distance.
+   */
+  public List<Unit> getUnitsWithinDistance(int rt90X, int rt90Y, int meters) {
+    return this.getNearestUnits(rt90X, rt90Y, Integer.MAX_VALUE, meters);
+  }
+
+  /**
+   * Retrieves the units closest to the provided RT90 position that are within the provided distance, closest first.
+   * 
+   * @param rt90X The RT90 X coordinate (northing).
+   * @param rt90Y The RT90 Y coordinate (easting).
+   * @param maxResults The maximum number of units to return.
+   * @param meters The maximum distance in meters.
+   * @return A list of the closest units within the distance.
+   */
+  public List<Unit> getNearestUnits(int rt90X, int rt90Y, int maxResults, int meters) {
+    if (maxResults < 1 || meters < 0 || this.entries.length == 0) {
+      return Collections.emptyList();
+    }
+
+    Search search = new Search(rt90X, rt90Y, maxResults, (long) meters * meters);
+    this.search(search, 0, this.entries.length, 0);
+
+    Hit[] hits = search.hits.toArray(new Hit[search.hits.size()]);
+    Arrays.sort(hits, Collections.reverseOrder(search.hits.comparator()));
+    List<Unit> result = new ArrayList<Unit>(hits.length);
+    for (Hit hit : hits) {
+      result.add(hit.entry.unit);
+    }
+    return result;
+  }
+
+  private void search(Search search, int from, int to, int depth) {
+    if (from >= to) {
+      return;
+    }
+    int median = (from + to) >>> 1;
+    Entry entry = this.entries[median];
+    search.offer(entry);
+
+    long delta = depth % 2 == 0 ? (long) search.x - entry.x : (long) search.y - entry.y;
+    if (delta < 0) {
+      this.search(search, from, median, depth + 1);
+      if (delta * delta <= search.worstDistance()) {
+        this.search(search, median + 1, to, depth + 1);
+      }
+    } else {
+      this.search(search, median + 1, to, depth + 1);
+      if (delta * delta <= search.worstDistance()) {
+        this.search(search, from, median, depth + 1);
+      }
+    }
+  }
+
+  /**
+   * A unit together with its position in the RT90 grid.
+   */
+  private static final class Entry {
+    private final Unit unit;
+    private final int x;
+    private final int y;
+
+    private Entry(Unit unit, int x, int y) {
+      this.unit = unit;
+      this.x = x;
+      this.y = y;
+    }
+  }
+
+  /**
+   * An indexed unit found by a search and its squared distance from the searched position.
+   */
+  private static final class Hit {
+    private final Entry entry;
+    private final long distance;
+
+    private Hit(Entry entry, long distance) {
+      this.entry = entry;
+      this.distance = distance;
+    }
+  }
+
+  /**
+   * The state of a single search. The hits are kept in a heap with the hit furthest away at the head so that it can be
+   * replaced when a closer unit is found.
+   */
+  private static final class Search {
+    private final int x;
+    private final int y;
+    private final int maxResults;
+    private final long maxDistance;
+    private final PriorityQueue<Hit> hits = new PriorityQueue<Hit>(16, new Comparator<Hit>() {
+      @Override
+      public int compare(Hit o1, Hit o2) {
+        return o1.distance > o2.distance ? -1 : (o1.distance == o2.distance ? 0 : 1);
+      }
+    });
+
+    private Search(int x, int y, int maxResults, long maxDistance) {
+      this.x = x;
+      this.y = y;
+      this.maxResults = maxResults;
+      this.maxDistance = maxDistance;
+    }
+
+    private void offer(Entry entry) {
+      long dx = (long) this.x - entry.x;
+      long dy = (long) this.y - entry.y;
+      long distance = dx * dx + dy * dy;
+      if (distance > this.maxDistance) {
+        return;
+      }
+      if (this.hits.size() < this.maxResults) {
+        this.hits.add(new Hit(entry, distance));
+      } else if (distance < this.hits.peek().distance) {
+        this.hits.poll();
+        this.hits.add(new Hit(entry, distance));
+      }
+    }
+
+    private long worstDistance() {
+      if (this.hits.size() < this.maxResults) {
+        return this.maxDistance;
+      }
+      return this.hits.peek().distance;
+    }
+  }
+}
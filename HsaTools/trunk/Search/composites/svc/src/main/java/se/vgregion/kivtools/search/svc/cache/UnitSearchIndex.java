@@ -0,0 +1,529 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.svc.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import se.vgregion.kivtools.search.domain.Unit;
+import se.vgregion.kivtools.search.domain.values.Address;
+import se.vgregion.kivtools.search.util.TopKSelector;
+import se.vgregion.kivtools.util.StringUtil;
+
+/**
+ * An immutable set of inverted indexes over the searchable attributes of a set of units. Each unit is identified by its
+ * position in the list the index was built from and every lookup returns the matching positions as a sorted array, which
+ * makes it cheap to combine criteria using {@link #intersect(int[], int[])} and {@link #union(int[], int[])}.
+ * 
+ * Text lookups follow the rules used when searching the directory server. Spaces and hyphens in the search value are
+ * wildcards and the value matches anywhere in the attribute, ignoring case. A value surrounded by quotes must match the
+ * whole attribute. Text attributes are indexed on their three character substrings and the candidates found through the
+ * index are always verified against the attribute values.
+ */
+public final class UnitSearchIndex {
+  private static final int GRAM_LENGTH = 3;
+  private static final int[] NO_MATCHES = new int[0];
+  private static final String EXACT_MATCH_CHARACTER = "\"";
+
+  private final Unit[] units;
+  private final int[] allUnits;
+  private final TextIndex names;
+  private final TextIndex businessClassificationCodes;
+  private final TextIndex municipalityNames;
+  private final TextIndex municipalityCodes;
+  private final TextIndex postalAddresses;
+  private final TextIndex streetAddresses;
+  private final TextIndex liableCodes;
+  private final TextIndex hsaIdentities;
+  private final Map<String, int[]> unitsByCareType;
+  private final Map<String, int[]> unitsByAdministration;
+  private final Map<String, int[]> unitsByBusinessClassificationCode;
+  private final Map<Integer, int[]> unitsByHealthcareType;
+  private final int[] publicUnits;
+
+  /**
+   * Constructs a new index for the provided units.
+   * 
+   * @param units The units to index.
+   */
+  public UnitSearchIndex(List<Unit> units) {
+    this.units = units.toArray(new Unit[units.size()]);
+    this.allUnits = new int[this.units.length];
+
+    String[][] unitNames = new String[this.units.length][];
+    String[][] unitBusinessClassificationCodes = new String[this.units.length][];
+    String[][] unitMunicipalityNames = new String[this.units.length][];
+    String[][] unitMunicipalityCodes = new String[this.units.length][];
+    String[][] unitPostalAddresses = new String[this.units.length][];
+    String[][] unitStreetAddresses = new String[this.units.length][];
+    String[][] unitLiableCodes = new String[this.units.length][];
+    String[][] unitHsaIdentities = new String[this.units.length][];
+    Postings<String> careTypes = new Postings<String>();
+    Postings<String> administrations = new Postings<String>();
+    Postings<String> businessClassifications = new Postings<String>();
+    Postings<Integer> healthcareTypes = new Postings<Integer>();
+    Postings<Boolean> destinations = new Postings<Boolean>();
+
+    for (int id = 0; id < this.units.length; id++) {
+      Unit unit = this.units[id];
+      this.allUnits[id] = id;
+      unitNames[id] = values(unit.getName());
+      unitBusinessClassificationCodes[id] = values(unit.getHsaBusinessClassificationCode());
+      unitMunicipalityNames[id] = values(unit.getHsaMunicipalityName());
+      unitMunicipalityCodes[id] = values(unit.getHsaMunicipalityCode());
+      unitPostalAddresses[id] = values(unit.getHsaPostalAddress());
+      unitStreetAddresses[id] = values(unit.getHsaStreetAddress());
+      unitLiableCodes[id] = values(unit.getVgrAnsvarsnummer());
+      unitHsaIdentities[id] = values(unit.getHsaIdentity());
+
+      careTypes.add(normalize(unit.getCareType()), id);
+      administrations.add(normalize(unit.getVgrAO3kod()), id);
+      for (String code : unitBusinessClassificationCodes[id]) {
+        businessClassifications.add(code, id);
+      }
+      BitSet healthcareTypeIndexes = unit.getHealthcareTypeIndexes();
+      for (int index = healthcareTypeIndexes.nextSetBit(0); index >= 0; index = healthcareTypeIndexes.nextSetBit(index + 1)) {
+        healthcareTypes.add(Integer.valueOf(index), id);
+      }
+      if (unit.isForPublicDisplay()) {
+        destinations.add(Boolean.TRUE, id);
+      }
+    }
+
+    this.names = new TextIndex(unitNames);
+    this.businessClassificationCodes = new TextIndex(unitBusinessClassificationCodes);
+    this.municipalityNames = new TextIndex(unitMunicipalityNames);
+    this.municipalityCodes = new TextIndex(unitMunicipalityCodes);
+    this.postalAddresses = new TextIndex(unitPostalAddresses);
+    this.streetAddresses = new TextIndex(unitStreetAddresses);
+    this.liableCodes = new TextIndex(unitLiableCodes);
+    this.hsaIdentities = new TextIndex(unitHsaIdentities);
+    this.unitsByCareType = careTypes.build();
+    this.unitsByAdministration = administrations.build();
+    this.unitsByBusinessClassificationCode = businessClassifications.build();
+    this.unitsByHealthcareType = healthcareTypes.build();
+    int[] publicIds = destinations.build().get(Boolean.TRUE);
+    this.publicUnits = publicIds != null ? publicIds : NO_MATCHES;
+  }
+
+  /**
+   * The number of indexed units.
+   * 
+   * @return The number of indexed units.
+   */
+  public int size() {
+    return this.units.length;
+  }
+
+  /**
+   * Retrieves all indexed units.
+   * 
+   * @return The ids of all units.
+   */
+  public int[] all() {
+    return this.allUnits.clone();
+  }
+
+  /**
+   * Finds the units with a name matching the search value.
+   * 
+   * @param searchValue The value to search for.
+   * @return The ids of the matching units.
+   */
+  public int[] matchingName(String searchValue) {
+    return this.names.match(searchValue);
+  }
+
+  /**
+   * Finds the units with a business classification code matching the search value.
+   * 
+   * @param searchValue The value to search for.
+   * @return The ids of the matching units.
+   */
+  public int[] matchingBusinessClassificationCode(String searchValue) {
+    return this.businessClassificationCodes.match(searchValue);
+  }
+
+  /**
+   * Finds the units with a municipality name matching the search value.
+   * 
+   * @param searchValue The value to search for.
+   * @return The ids of the matching units.
+   */
+  public int[] matchingMunicipalityName(String searchValue) {
+    return this.municipalityNames.match(searchValue);
+  }
+
+  /**
+   * Finds the units with a municipality code matching the search value.
+   * 
+   * @param searchValue The value to search for.
+   * @return The ids of the matching units.
+   */
+  public int[] matchingMunicipalityCode(String searchValue) {
+    return this.municipalityCodes.match(searchValue);
+  }
+
+  /**
+   * Finds the units with a line of the postal address matching the search value.
+   * 
+   * @param searchValue The value to search for.
+   * @return The ids of the matching units.
+   */
+  public int[] matchingPostalAddress(String searchValue) {
+    return this.postalAddresses.match(searchValue);
+  }
+
+  /**
+   * Finds the units with a line of the street address matching the search value.
+   * 
+   * @param searchValue The value to search for.
+   * @return The ids of the matching units.
+   */
+  public int[] matchingStreetAddress(String searchValue) {
+    return this.streetAddresses.match(searchValue);
+  }
+
+  /**
+   * Finds the units with a liable code (vgrAnsvarsnummer) matching the search value.
+   * 
+   * @param searchValue The value to search for.
+   * @return The ids of the matching units.
+   */
+  public int[] matchingLiableCode(String searchValue) {
+    return this.liableCodes.match(searchValue);
+  }
+
+  /**
+   * Finds the units with a hsaIdentity matching the search value.
+   * 
+   * @param searchValue The value to search for.
+   * @return The ids of the matching units.
+   */
+  public int[] matchingHsaIdentity(String searchValue) {
+    return this.hsaIdentities.match(searchValue);
+  }
+
+  /**
+   * Finds the units with one of the provided care type codes.
+   * 
+   * @param codes The care type codes.
+   * @return The ids of the matching units.
+   */
+  public int[] withCareTypes(Collection<String> codes) {
+    return withAnyOf(this.unitsByCareType, codes);
+  }
+
+  /**
+   * Finds the units with one of the provided administration codes (vgrAO3kod).
+   * 
+   * @param codes The administration codes.
+   * @return The ids of the matching units.
+   */
+  public int[] withAdministrations(Collection<String> codes) {
+    return withAnyOf(this.unitsByAdministration, codes);
+  }
+
+  /**
+   * Finds the units with one of the provided business classification codes.
+   * 
+   * @param codes The business classification codes.
+   * @return The ids of the matching units.
+   */
+  public int[] withBusinessClassificationCodes(Collection<String> codes) {
+    return withAnyOf(this.unitsByBusinessClassificationCode, codes);
+  }
+
+  /**
+   * Finds the units that have been given the healthcare type with the provided index.
+   * 
+   * @param healthcareTypeIndex The index of the healthcare type.
+   * @return The ids of the matching units.
+   */
+  public int[] withHealthcareType(int healthcareTypeIndex) {
+    int[] ids = this.unitsByHealthcareType.get(Integer.valueOf(healthcareTypeIndex));
+    return ids != null ? ids.clone() : NO_MATCHES;
+  }
+
+  /**
+   * Finds the units that should be shown to the public (hsaDestinationIndicator 03).
+   * 
+   * @return The ids of the public units.
+   */
+  public int[] publicUnits() {
+    return this.publicUnits.clone();
+  }
+
+  /**
+   * Retrieves the units with the provided ids.
+   * 
+   * @param ids The ids of the units to retrieve.
+   * @return A new list of units in the same order as the ids.
+   */
+  public List<Unit> getUnits(int[] ids) {
+    List<Unit> result = new ArrayList<Unit>(ids.length);
+    for (int id : ids) {
+      result.add(this.units[id]);
+    }
+    return result;
+  }
+
+  /**
+   * Selects the first units of a list according to a sort order without sorting the whole list. Units that are equal
+   * according to the sort order keep their relative order.
+   * 
+   * @param units The units to select from.
+   * @param maxResult The maximum number of units to select.
+   * @param sortOrder The sort order to use.
+   * @return A new sorted list with at most maxResult units.
+   */
+  public static List<Unit> first(List<Unit> units, int maxResult, Comparator<Unit> sortOrder) {
+    return TopKSelector.first(units, maxResult, sortOrder);
+  }
+
+  /**
+   * Intersects two sorted arrays of ids.
+   * 
+   * @param ids1 The first array.
+   * @param ids2 The second array.
+   * @return A new sorted array with the ids present in both arrays.
+   */
+  public static int[] intersect(int[] ids1, int[] ids2) {
+    int[] result = new int[Math.min(ids1.length, ids2.length)];
+    int count = 0;
+    int i = 0;
+    int j = 0;
+    while (i < ids1.length && j < ids2.length) {
+      if (ids1[i] < ids2[j]) {
+        i++;
+      } else if (ids1[i] > ids2[j]) {
+        j++;
+      } else {
+        result[count++] = ids1[i];
+        i++;
+        j++;
+      }
+    }
+    return count == result.length ? result : Arrays.copyOf(result, count);
+  }
+
+  /**
+   * Merges two sorted arrays of ids.
+   * 
+   * @param ids1 The first array.
+   * @param ids2 The second array.
+   * @return A new sorted array with the ids present in any of the arrays.
+   */
+  public static int[] union(int[] ids1, int[] ids2) {
+    int[] result = new int[ids1.length + ids2.length];
+    int count = 0;
+    int i = 0;
+    int j = 0;
+    while (i < ids1.length || j < ids2.length) {
+      if (j == ids2.length || (i < ids1.length && ids1[i] < ids2[j])) {
+        result[count++] = ids1[i++];
+      } else if (i == ids1.length || ids1[i] > ids2[j]) {
+        result[count++] = ids2[j++];
+      } else {
+        result[count++] = ids1[i];
+        i++;
+        j++;
+      }
+    }
+    return count == result.length ? result : Arrays.copyOf(result, count);
+  }
+
+  private static int[] withAnyOf(Map<String, int[]> index, Collection<String> codes) {
+    int[] result = NO_MATCHES;
+    for (String code : codes) {
+      int[] ids = index.get(normalize(code));
+      if (ids != null) {
+        result = union(result, ids);
+      }
+    }
+    return result;
+  }
+
+  private static String[] values(String value) {
+    if (StringUtil.isEmpty(value)) {
+      return new String[0];
+    }
+    return new String[] { normalize(value) };
+  }
+
+  private static String[] values(List<String> values) {
+    List<String> result = new ArrayList<String>();
+    if (values != null) {
+      for (String value : values) {
+        if (!StringUtil.isEmpty(value)) {
+          result.add(normalize(value));
+        }
+      }
+    }
+    return result.toArray(new String[result.size()]);
+  }
+
+  private static String[] values(Address address) {
+    List<String> lines = new ArrayList<String>();
+    if (address != null) {
+      lines.add(address.getStreet());
+      lines.add(address.getZipCode().getZipCode() + " " + address.getCity());
+      if (address.getAdditionalInfo() != null) {
+        lines.addAll(address.getAdditionalInfo());
+      }
+    }
+    return values(lines);
+  }
+
+  private static String normalize(String value) {
+    return value == null ? null : value.trim().toLowerCase();
+  }
+
+  private static Set<String> grams(String normalizedText) {
+    Set<String> grams = new HashSet<String>();
+    for (int i = 0; i + GRAM_LENGTH <= normalizedText.length(); i++) {
+      grams.add(normalizedText.substring(i, i + GRAM_LENGTH));
+    }
+    return grams;
+  }
+
+  /**
+   * A text attribute of the indexed units, indexed on its three character substrings.
+   */
+  private static final class TextIndex {
+    private final String[][] values;
+    private final Map<String, int[]> unitsByGram;
+
+    private TextIndex(String[][] values) {
+      this.values = values;
+      Postings<String> grams = new Postings<String>();
+      for (int id = 0; id < values.length; id++) {
+        for (String value : values[id]) {
+          for (String gram : grams(value)) {
+            grams.add(gram, id);
+          }
+        }
+      }
+      this.unitsByGram = grams.build();
+    }
+
+    private int[] match(String searchValue) {
+      if (StringUtil.isEmpty(searchValue)) {
+        return NO_MATCHES;
+      }
+      String value = searchValue.trim();
+      boolean exactMatch = value.length() > 2 && value.startsWith(EXACT_MATCH_CHARACTER) && value.endsWith(EXACT_MATCH_CHARACTER);
+
+      List<String> fragments = new ArrayList<String>();
+      if (exactMatch) {
+        fragments.add(normalize(value.replace(EXACT_MATCH_CHARACTER, "")));
+      } else {
+        for (String fragment : normalize(value).split("[ *-]")) {
+          if (fragment.length() > 0) {
+            fragments.add(fragment);
+          }
+        }
+      }
+
+      int[] candidates = null;
+      for (String fragment : fragments) {
+        for (String gram : grams(fragment)) {
+          int[] ids = this.unitsByGram.get(gram);
+          if (ids == null) {
+            return NO_MATCHES;
+          }
+          candidates = candidates == null ? ids : intersect(candidates, ids);
+        }
+      }
+
+      int[] matches = new int[candidates != null ? candidates.length : this.values.length];
+      int count = 0;
+      for (int i = 0; i < matches.length; i++) {
+        int id = candidates != null ? candidates[i] : i;
+        if (this.matches(this.values[id], fragments, exactMatch)) {
+          matches[count++] = id;
+        }
+      }
+      return Arrays.copyOf(matches, count);
+    }
+
+    private boolean matches(String[] unitValues, List<String> fragments, boolean exactMatch) {
+      for (String unitValue : unitValues) {
+        if (exactMatch ? unitValue.equals(fragments.get(0)) : containsInOrder(unitValue, fragments)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static boolean containsInOrder(String value, List<String> fragments) {
+      int position = 0;
+      for (String fragment : fragments) {
+        position = value.indexOf(fragment, position);
+        if (position < 0) {
+          return false;
+        }
+        position += fragment.length();
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Collects the ids of the units for each key. Ids must be added in ascending order.
+   */
+  private static final class Postings<K> {
+    private final Map<K, List<Integer>> idsByKey = new HashMap<K, List<Integer>>();
+
+    private void add(K key, int id) {
+      if (key == null) {
+        return;
+      }
+      List<Integer> ids = this.idsByKey.get(key);
+      if (ids == null) {
+        ids = new ArrayList<Integer>();
+        this.idsByKey.put(key, ids);
+      }
+      if (ids.isEmpty() || ids.get(ids.size() - 1).intValue() != id) {
+        ids.add(Integer.valueOf(id));
+      }
+    }
+
+    private Map<K, int[]> build() {
+      Map<K, int[]> result = new HashMap<K, int[]>(this.idsByKey.size() * 2);
+      for (Map.Entry<K, List<Integer>> entry : this.idsByKey.entrySet()) {
+        int[] ids = new int[entry.getValue().size()];
+        for (int i = 0; i < ids.length; i++) {
+          ids[i] = entry.getValue().get(i).intValue();
+        }
+        result.put(entry.getKey(), ids);
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.svc.codetables;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import se.vgregion.kivtools.search.domain.values.CodeTableNameInterface;
+import se.vgregion.kivtools.search.exceptions.KivException;
+
+/**
+ * Base class for CodeTablesServices which keeps all code tables in an immutable snapshot. The code tables are loaded in
+ * {@link #init()} and can be reloaded in the background using {@link #refresh()}, readers always see a complete snapshot
+ * of all code tables.
+ * 
+ * @param <N> The enum naming the code tables handled by the service.
+ */
+public abstract class AbstractCodeTablesService<N extends Enum<N> & CodeTableNameInterface> implements CodeTablesService {
+  private final Log log = LogFactory.getLog(this.getClass());
+  private final Class<N> codeTableNameType;
+  private final AtomicReference<Map<N, CodeTable>> codeTables = new AtomicReference<Map<N, CodeTable>>(Collections.<N, CodeTable> emptyMap());
+
+  /**
+   * Constructs a new AbstractCodeTablesService.
+   * 
+   * @param codeTableNameType The enum naming the code tables handled by the service.
+   */
+  protected AbstractCodeTablesService(Class<N> codeTableNameType) {
+    this.codeTableNameType = codeTableNameType;
+  }
+
+  /**
+   * Initializes the code table service.
+   */
+  public void init() {
+    Map<N, CodeTable> loadedCodeTables = new EnumMap<N, CodeTable>(this.codeTableNameType);
+    for (N codeTableName : this.codeTableNameType.getEnumConstants()) {
+      try {
+        loadedCodeTables.put(codeTableName, this.loadCodeTable(codeTableName));
+      } catch (KivException e) {
+        throw this.createInitializationException(e);
+      }
+    }
+    this.codeTables.set(Collections.unmodifiableMap(loadedCodeTables));
+  }
+
+  /**
+   * Reloads all code tables and replaces the current snapshot when done. A code table that could not be loaded keeps its
+   * previous content, which is then reported as stale by {@link #getLoadedAt(CodeTableNameInterface)}.
+   */
+  public void refresh() {
+    Map<N, CodeTable> loadedCodeTables = new EnumMap<N, CodeTable>(this.codeTableNameType);
+    loadedCodeTables.putAll(this.codeTables.get());
+    for (N codeTableName : this.codeTableNameType.getEnumConstants()) {
+      try {
+        loadedCodeTables.put(codeTableName, this.loadCodeTable(codeTableName));
+      } catch (KivException e) {
+        this.log.warn("Unable to refresh code table " + codeTableName + ", keeping the previously loaded content. " + e.getMessage());
+      }
+    }
+    this.codeTables.set(Collections.unmodifiableMap(loadedCodeTables));
+  }
+
+  /**
+   * Retrieves the time when the content of the provided code table was loaded.
+   * 
+   * @param codeTableName The name of the code table.
+   * @return The time in milliseconds when the code table was loaded or -1 if the code table has never been loaded.
+   */
+  public long getLoadedAt(CodeTableNameInterface codeTableName) {
+    CodeTable codeTable = this.codeTables.get().get(codeTableName);
+    long loadedAt = -1;
+    if (codeTable != null) {
+      loadedAt = codeTable.getLoadedAt();
+    }
+    return loadedAt;
+  }
+
+  /**
+   * Loads the current content of a code table.
+   * 
+   * @param codeTableName The name of the code table to load.
+   * @return The loaded code table.
+   * @throws KivException If the code table could not be loaded.
+   */
+  protected abstract CodeTable loadCodeTable(N codeTableName) throws KivException;
+
+  /**
+   * Creates the exception to throw when a code table could not be loaded by {@link #init()}.
+   * 
+   * @param cause The reason the code table could not be loaded.
+   * @return The exception to throw.
+   */
+  protected RuntimeException createInitializationException(KivException cause) {
+    return new RuntimeException(cause.getMessage());
+  }
+
+  /**
+   * Retrieves the current snapshot of all loaded code tables.
+   * 
+   * @return The current snapshot of all loaded code tables.
+   */
+  protected Map<N, CodeTable> getCodeTables() {
+    return this.codeTables.get();
+  }
+
+  private CodeTable getCodeTable(CodeTableNameInterface codeTableName) {
+    if (!this.codeTableNameType.isInstance(codeTableName)) {
+      throw new RuntimeException("Object codeTableName is not a type of " + this.codeTableNameType.getSimpleName());
+    }
+    return this.codeTables.get().get(codeTableName);
+  }
+
+  @Override
+  public String getValueFromCode(CodeTableNameInterface codeTableName, String code) {
+    CodeTable chosenCodeTable = this.getCodeTable(codeTableName);
+    String value = "";
+    if (chosenCodeTable != null) {
+      value = chosenCodeTable.getValue(code);
+    }
+    return value;
+  }
+
+  @Override
+  public List<String> getCodeFromTextValue(CodeTableNameInterface codeTableName, String textValue) {
+    CodeTable chosenCodeTable = this.getCodeTable(codeTableName);
+    List<String> codes = new ArrayList<String>();
+    if (chosenCodeTable != null) {
+      codes = chosenCodeTable.getCodesMatching(textValue);
+    }
+    return codes;
+  }
+
+  @Override
+  public List<String> getValuesFromTextValue(CodeTableNameInterface codeTableName, String textValue) {
+    CodeTable chosenCodeTable = this.getCodeTable(codeTableName);
+    List<String> values = new ArrayList<String>();
+    if (chosenCodeTable != null) {
+      values = chosenCodeTable.getValuesMatching(textValue);
+    }
+    return values;
+  }
+}
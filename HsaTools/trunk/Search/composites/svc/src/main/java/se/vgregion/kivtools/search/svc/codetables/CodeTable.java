@@ -0,0 +1,233 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.svc.codetables;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An immutable snapshot of a code table. The descriptions are indexed on their three character substrings so that the
+ * entries with a description containing a text can be found without comparing the text with every description. The
+ * result of each lookup is remembered for as long as the snapshot is in use.
+ */
+public final class CodeTable {
+  private static final int GRAM_LENGTH = 3;
+  private static final int MAX_REMEMBERED_LOOKUPS = 1000;
+  private static final int[] NO_MATCHES = new int[0];
+
+  private final Map<String, String> valuesByCode;
+  private final String[] codes;
+  private final String[] values;
+  private final String[] normalizedValues;
+  private final Map<String, int[]> entriesByGram;
+  private final ConcurrentMap<String, int[]> matchesByText = new ConcurrentHashMap<String, int[]>();
+  private final long loadedAt;
+
+  /**
+   * Constructs a new CodeTable.
+   * 
+   * @param valuesByCode The descriptions of the code table keyed by code.
+   * @param loadedAt The time in milliseconds when the content was loaded.
+   */
+  public CodeTable(Map<String, String> valuesByCode, long loadedAt) {
+    this.valuesByCode = Collections.unmodifiableMap(new LinkedHashMap<String, String>(valuesByCode));
+    this.loadedAt = loadedAt;
+
+    int size = this.valuesByCode.size();
+    this.codes = new String[size];
+    this.values = new String[size];
+    this.normalizedValues = new String[size];
+    Map<String, List<Integer>> entries = new HashMap<String, List<Integer>>();
+    int index = 0;
+    for (Map.Entry<String, String> entry : this.valuesByCode.entrySet()) {
+      this.codes[index] = entry.getKey();
+      this.values[index] = entry.getValue();
+      this.normalizedValues[index] = normalize(entry.getValue());
+      for (String gram : grams(this.normalizedValues[index])) {
+        List<Integer> gramEntries = entries.get(gram);
+        if (gramEntries == null) {
+          gramEntries = new ArrayList<Integer>();
+          entries.put(gram, gramEntries);
+        }
+        gramEntries.add(Integer.valueOf(index));
+      }
+      index++;
+    }
+
+    this.entriesByGram = new HashMap<String, int[]>(entries.size() * 2);
+    for (Map.Entry<String, List<Integer>> entry : entries.entrySet()) {
+      int[] gramEntries = new int[entry.getValue().size()];
+      for (int i = 0; i < gramEntries.length; i++) {
+        gramEntries[i] = entry.getValue().get(i).intValue();
+      }
+      this.entriesByGram.put(entry.getKey(), gramEntries);
+    }
+  }
+
+  /**
+   * Retrieves the description of a code.
+   * 
+   * @param code The code to get the description for.
+   * @return The description of the code or null if the code is not part of the code table.
+   */
+  public String getValue(String code) {
+    return this.valuesByCode.get(code);
+  }
+
+  /**
+   * Retrieves all descriptions of the code table.
+   * 
+   * @return An unmodifiable collection of all descriptions.
+   */
+  public Collection<String> getValues() {
+    return this.valuesByCode.values();
+  }
+
+  /**
+   * Retrieves the codes of the entries where the description contains the provided text, ignoring case.
+   * 
+   * @param text The text to match.
+   * @return A new list of the matching codes.
+   */
+  public List<String> getCodesMatching(String text) {
+    return this.select(this.codes, this.findMatches(text));
+  }
+
+  /**
+   * Retrieves the descriptions that contains the provided text, ignoring case.
+   * 
+   * @param text The text to match.
+   * @return A new list of the matching descriptions.
+   */
+  public List<String> getValuesMatching(String text) {
+    return this.select(this.values, this.findMatches(text));
+  }
+
+  /**
+   * The time when the content of this code table was loaded.
+   * 
+   * @return The time in milliseconds when the content was loaded.
+   */
+  public long getLoadedAt() {
+    return this.loadedAt;
+  }
+
+  /**
+   * The number of entries in this code table.
+   * 
+   * @return The number of entries.
+   */
+  public int size() {
+    return this.codes.length;
+  }
+
+  private List<String> select(String[] source, int[] matches) {
+    List<String> result = new ArrayList<String>(matches.length);
+    for (int match : matches) {
+      result.add(source[match]);
+    }
+    return result;
+  }
+
+  private int[] findMatches(String text) {
+    String normalizedText = normalize(text);
+    int[] matches = this.matchesByText.get(normalizedText);
+    if (matches == null) {
+      matches = this.match(normalizedText);
+      if (this.matchesByText.size() < MAX_REMEMBERED_LOOKUPS) {
+        this.matchesByText.put(normalizedText, matches);
+      }
+    }
+    return matches;
+  }
+
+  private int[] match(String normalizedText) {
+    int[] candidates = this.candidates(normalizedText);
+    int[] matches = new int[candidates.length];
+    int count = 0;
+    for (int candidate : candidates) {
+      // The grams are not positioned so each candidate is verified.
+      if (this.normalizedValues[candidate].contains(normalizedText)) {
+        matches[count++] = candidate;
+      }
+    }
+    return count == matches.length ? matches : Arrays.copyOf(matches, count);
+  }
+
+  private int[] candidates(String normalizedText) {
+    if (normalizedText.length() < GRAM_LENGTH) {
+      int[] all = new int[this.codes.length];
+      for (int i = 0; i < all.length; i++) {
+        all[i] = i;
+      }
+      return all;
+    }
+
+    List<int[]> gramEntries = new ArrayList<int[]>();
+    for (String gram : grams(normalizedText)) {
+      int[] entries = this.entriesByGram.get(gram);
+      if (entries == null) {
+        return NO_MATCHES;
+      }
+      gramEntries.add(entries);
+    }
+
+    int[] smallest = gramEntries.get(0);
+    for (int[] entries : gramEntries) {
+      if (entries.length < smallest.length) {
+        smallest = entries;
+      }
+    }
+    int[] candidates = new int[smallest.length];
+    int count = 0;
+    for (int entry : smallest) {
+      boolean inAll = true;
+      for (int i = 0; i < gramEntries.size() && inAll; i++) {
+        inAll = Arrays.binarySearch(gramEntries.get(i), entry) >= 0;
+      }
+      if (inAll) {
+        candidates[count++] = entry;
+      }
+    }
+    return Arrays.copyOf(candidates, count);
+  }
+
+  private static String normalize(String text) {
+    return text.toLowerCase();
+  }
+
+  private static Set<String> grams(String normalizedText) {
+    Set<String> grams = new HashSet<String>();
+    for (int i = 0; i + GRAM_LENGTH <= normalizedText.length(); i++) {
+      grams.add(normalizedText.substring(i, i + GRAM_LENGTH));
+    }
+    return grams;
+  }
+}
@@ -23,8 +23,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.ldap.NamingException;
 import org.springframework.ldap.core.ContextMapper;
@@ -35,22 +33,21 @@ import org.springframework.ldap.filter.EqualsFilter;
 import org.springframework.ldap.filter.Filter;
 
 import se.vgregion.kivtools.search.domain.values.CodeTableName;
-import se.vgregion.kivtools.search.domain.values.CodeTableNameInterface;
 import se.vgregion.kivtools.search.exceptions.KivException;
 import se.vgregion.kivtools.search.exceptions.LDAPRuntimeExcepton;
-import se.vgregion.kivtools.search.svc.codetables.CodeTablesService;
+import se.vgregion.kivtools.search.svc.codetables.AbstractCodeTablesService;
+import se.vgregion.kivtools.search.svc.codetables.CodeTable;
 import se.vgregion.kivtools.search.svc.ldap.DirContextOperationsHelper;
+import se.vgregion.kivtools.util.time.TimeUtil;
 
 /**
  * Class that handles code, text pairing of ldap values.
  * 
  * @author David & Jonas
  */
-public class CodeTablesServiceImpl implements CodeTablesService {
+public class CodeTablesServiceImpl extends AbstractCodeTablesService<CodeTableName> {
   private static final DistinguishedName CODE_TABLES_BASE = DistinguishedName.immutableDistinguishedName("ou=listor,ou=System,o=VGR");
 
-  private final Map<CodeTableName, Map<String, String>> codeTables = new ConcurrentHashMap<CodeTableName, Map<String, String>>();
-
   private final LdapTemplate ldapTemplate;
 
   /**
@@ -59,88 +56,34 @@ public class CodeTablesServiceImpl implements CodeTablesService {
    * @param ldapTemplate The Spring LDAP Template to use.
    */
   public CodeTablesServiceImpl(LdapTemplate ldapTemplate) {
+    super(CodeTableName.class);
     this.ldapTemplate = ldapTemplate;
   }
 
-  /**
-   * Initializes the code table service.
-   */
-  public void init() {
-    this.codeTables.clear();
-    for (CodeTableName codeTableName : CodeTableName.values()) {
-      try {
-        this.populateCodeTablesMap(codeTableName);
-      } catch (KivException e) {
-        throw new LDAPRuntimeExcepton(e.getMessage());
-      }
-    }
-  }
-
-  private void populateCodeTablesMap(CodeTableName codeTableName) throws KivException {
+  @Override
+  protected CodeTable loadCodeTable(CodeTableName codeTableName) throws KivException {
     Filter searchFilter = new EqualsFilter("cn", codeTableName.toString());
     CodeTableMapper codeTableMapper = new CodeTableMapper();
     try {
       this.ldapTemplate.search(CODE_TABLES_BASE, searchFilter.encode(), codeTableMapper);
-      this.codeTables.put(codeTableName, codeTableMapper.getCodeTableContent());
+      return new CodeTable(codeTableMapper.getCodeTableContent(), TimeUtil.asMillis());
     } catch (NamingException e) {
       throw new KivException("An error occured in communication with the LDAP server. Message: " + e.getMessage());
     }
   }
 
   @Override
-  public String getValueFromCode(CodeTableNameInterface codeTableName, String code) {
-    if (!(codeTableName instanceof CodeTableName)) {
-      throw new RuntimeException("Object codeTableName is not a type of CodeTableName");
-    }
-
-    Map<String, String> chosenCodeTable = this.codeTables.get(codeTableName);
-    String value = "";
-    if (chosenCodeTable != null) {
-      value = chosenCodeTable.get(code);
-    }
-    return value;
-  }
-
-  @Override
-  public List<String> getCodeFromTextValue(CodeTableNameInterface codeTableName, String textValue) {
-    if (!(codeTableName instanceof CodeTableName)) {
-      throw new RuntimeException("Object codeTableName is not a type of CodeTableName");
-    }
-
-    String stringToMatch = textValue.toLowerCase();
-    List<String> codes = new ArrayList<String>();
-    Map<String, String> chosenCodeTable = this.codeTables.get(codeTableName);
-    for (Entry<String, String> entry : chosenCodeTable.entrySet()) {
-      if (entry.getValue().toLowerCase().contains(stringToMatch)) {
-        codes.add(entry.getKey());
-      }
-    }
-    return codes;
-  }
-
-  @Override
-  public List<String> getValuesFromTextValue(CodeTableNameInterface codeTableName, String textValue) {
-    if (!(codeTableName instanceof CodeTableName)) {
-      throw new RuntimeException("Object codeTableName is not a type of CodeTableName");
-    }
-
-    String stringToMatch = textValue.toLowerCase();
-    List<String> values = new ArrayList<String>();
-    Map<String, String> chosenCodeTable = this.codeTables.get(codeTableName);
-    for (String value : chosenCodeTable.values()) {
-      if (value.toLowerCase().contains(stringToMatch)) {
-        values.add(value);
-      }
-    }
-    return values;
+  protected RuntimeException createInitializationException(KivException cause) {
+    return new LDAPRuntimeExcepton(cause.getMessage());
   }
 
   @Override
   public List<String> getAllValuesItemsFromCodeTable(String codeTable) {
     ArrayList<String> values = new ArrayList<String>();
     CodeTableName codeTableEnum = CodeTableName.valueOf(codeTable);
-    if (this.codeTables.containsKey(codeTable)) {
-      values.addAll(this.codeTables.get(codeTableEnum).values());
+    Map<CodeTableName, CodeTable> currentCodeTables = this.getCodeTables();
+    if (currentCodeTables.containsKey(codeTable)) {
+      values.addAll(currentCodeTables.get(codeTableEnum).getValues());
     }
     return values;
   }
@@ -19,9 +19,11 @@
 
 package se.vgregion.kivtools.search.svc.comparators;
 
+import java.text.CollationKey;
 import java.util.Comparator;
 
 import se.vgregion.kivtools.search.domain.Person;
+import se.vgregion.kivtools.search.domain.util.SortKeys;
 
 /**
  * Comparator for Person instances.
@@ -37,23 +39,8 @@ public class PersonNameComparator implements Comparator<Person> {
    * @return A value less than 0 if person1 < person2, 0 if person1 == person2 and a value greater than 0 if person1 > person2.
    */
   public int compare(Person person1, Person person2) {
-    Person comparedPerson1 = person1;
-    Person comparedPerson2 = person2;
-    if (comparedPerson1 == null) {
-      comparedPerson1 = new Person();
-      comparedPerson1.setGivenName("");
-      comparedPerson1.setSn("");
-    }
-    if (comparedPerson2 == null) {
-      comparedPerson2 = new Person();
-      comparedPerson2.setGivenName("");
-      comparedPerson2.setSn("");
-    }
-    StringBuffer name1buf = new StringBuffer(comparedPerson1.getSn()).append(comparedPerson1.getGivenName());
-    String name1 = name1buf.toString().toLowerCase();
-    StringBuffer name2buf = new StringBuffer(comparedPerson2.getSn()).append(comparedPerson2.getGivenName());
-    String name2 = name2buf.toString().toLowerCase();
-
-    return name1.compareTo(name2);
+    CollationKey key1 = person1 != null ? person1.getNameSortKey() : null;
+    CollationKey key2 = person2 != null ? person2.getNameSortKey() : null;
+    return SortKeys.compare(key1, key2);
   }
 }
@@ -19,10 +19,10 @@
 
 package se.vgregion.kivtools.search.svc.comparators;
 
-import java.text.Collator;
 import java.util.Comparator;
 
 import se.vgregion.kivtools.search.domain.Person;
+import se.vgregion.kivtools.search.domain.util.SortKeys;
 import se.vgregion.kivtools.util.Arguments;
 import se.vgregion.kivtools.util.StringUtil;
 
@@ -68,12 +68,12 @@ public class PersonNameWeightedComparator implements Comparator<Person> {
       weight += 100;
     }
 
-    // Concatenate and make lower case.
-    String name1 = StringUtil.emptyStringIfNull(person1.getSn()) + "<->" + StringUtil.emptyStringIfNull(person1.getGivenName());
-    name1 = name1.toLowerCase();
-    String name2 = StringUtil.emptyStringIfNull(person2.getSn()) + "<->" + StringUtil.emptyStringIfNull(person2.getGivenName());
-    name2 = name2.toLowerCase();
+    // Sort on surname and then on given name.
+    int nameOrder = SortKeys.compare(person1.getSnSortKey(), person2.getSnSortKey());
+    if (nameOrder == 0) {
+      nameOrder = SortKeys.compare(person1.getGivenNameSortKey(), person2.getGivenNameSortKey());
+    }
 
-    return weight + Collator.getInstance().compare(name1, name2);
+    return weight + nameOrder;
   }
 }
@@ -19,11 +19,11 @@
 
 package se.vgregion.kivtools.search.svc.comparators;
 
-import java.text.Collator;
+import java.text.CollationKey;
 import java.util.Comparator;
 
 import se.vgregion.kivtools.search.domain.Unit;
-import se.vgregion.kivtools.util.StringUtil;
+import se.vgregion.kivtools.search.domain.util.SortKeys;
 
 /**
  * Comparator for Unit instances.
@@ -33,30 +33,15 @@ import se.vgregion.kivtools.util.StringUtil;
 public class UnitNameComparator implements Comparator<Unit> {
 
   /**
-   * Compares two Unit instances using unit name.
+   * Compares two Unit instances using unit name. Units without a name are sorted as if the name was empty.
    * 
    * @param unit1 The first unit to compare.
    * @param unit2 The second unit to compare.
    * @return A value less than 0 if unit1 < unit2, 0 if unit1 == unit2 and a value greater than 0 if unit1 > unit2.
    */
   public int compare(Unit unit1, Unit unit2) {
-    Unit comparedUnit1 = unit1;
-    Unit comparedUnit2 = unit2;
-
-    if (comparedUnit1 == null) {
-      comparedUnit1 = new Unit();
-    }
-    if (comparedUnit2 == null) {
-      comparedUnit2 = new Unit();
-    }
-    if (StringUtil.isEmpty(comparedUnit1.getName())) {
-      comparedUnit1.setName("");
-    }
-    if (StringUtil.isEmpty(comparedUnit2.getName())) {
-      comparedUnit2.setName("");
-    }
-
-    Collator myCollator = Collator.getInstance();
-    return myCollator.compare(comparedUnit1.getName().toLowerCase(), comparedUnit2.getName().toLowerCase());
+    CollationKey key1 = unit1 != null ? unit1.getNameSortKey() : null;
+    CollationKey key2 = unit2 != null ? unit2.getNameSortKey() : null;
+    return SortKeys.compare(key1, key2);
   }
 }
@@ -0,0 +1,228 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.svc.impl.cache;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Reloads a set of cache services in dependency order. A cache service is reloaded as soon as all the cache services it
+ * depends on have published a new cache. Cache services that are independent of each other are reloaded concurrently
+ * using a bounded number of threads. If the reload of a cache service fails, the cache services depending on it are not
+ * reloaded and keeps their current cache.
+ */
+public class CacheReloadScheduler {
+  private final Log log = LogFactory.getLog(this.getClass());
+  private final int maxConcurrentReloads;
+  private final List<CacheServiceImpl<?>> cacheServices = new ArrayList<CacheServiceImpl<?>>();
+  private final Map<CacheServiceImpl<?>, List<CacheServiceImpl<?>>> prerequisites = new IdentityHashMap<CacheServiceImpl<?>, List<CacheServiceImpl<?>>>();
+
+  /**
+   * Constructs a new {@link CacheReloadScheduler}.
+   *
+   * @param maxConcurrentReloads The maximum number of cache services to reload at the same time.
+   */
+  public CacheReloadScheduler(int maxConcurrentReloads) {
+    if (maxConcurrentReloads < 1) {
+      throw new IllegalArgumentException("maxConcurrentReloads must be at least 1");
+    }
+    this.maxConcurrentReloads = maxConcurrentReloads;
+  }
+
+  /**
+   * Sets the cache services to reload.
+   *
+   * @param cacheServices The cache services to reload.
+   */
+  public void setCacheServices(List<CacheServiceImpl<?>> cacheServices) {
+    this.cacheServices.clear();
+    this.cacheServices.addAll(cacheServices);
+  }
+
+  /**
+   * Sets the dependencies between the cache services. Each key is a cache service and the value is the list of cache
+   * services that must be reloaded before the key is reloaded.
+   *
+   * @param dependencies The dependencies between the cache services.
+   */
+  public void setDependencies(Map<CacheServiceImpl<?>, List<CacheServiceImpl<?>>> dependencies) {
+    this.prerequisites.clear();
+    for (Map.Entry<CacheServiceImpl<?>, List<CacheServiceImpl<?>>> entry : dependencies.entrySet()) {
+      this.prerequisites.put(entry.getKey(), new ArrayList<CacheServiceImpl<?>>(entry.getValue()));
+    }
+  }
+
+  /**
+   * Reloads all cache services. Returns when all cache services have been reloaded or skipped.
+   *
+   * @throws IllegalStateException If the dependencies refers to unknown cache services or contains a cycle.
+   */
+  public void reloadCaches() {
+    Map<CacheServiceImpl<?>, Integer> remaining = new IdentityHashMap<CacheServiceImpl<?>, Integer>();
+    Map<CacheServiceImpl<?>, List<CacheServiceImpl<?>>> dependents = this.createDependents(remaining);
+    this.verifyNoCycles(remaining, dependents);
+
+    if (this.cacheServices.isEmpty()) {
+      return;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.maxConcurrentReloads, this.cacheServices.size()));
+    CompletionService<ReloadTask> completionService = new ExecutorCompletionService<ReloadTask>(executor);
+    Map<CacheServiceImpl<?>, Boolean> blocked = new IdentityHashMap<CacheServiceImpl<?>, Boolean>();
+    int running = 0;
+
+    try {
+      for (CacheServiceImpl<?> cacheService : this.cacheServices) {
+        if (remaining.get(cacheService).intValue() == 0) {
+          completionService.submit(new ReloadTask(cacheService));
+          running++;
+        }
+      }
+
+      while (running > 0) {
+        ReloadTask task = completionService.take().get();
+        running--;
+
+        LinkedList<CacheServiceImpl<?>> finished = new LinkedList<CacheServiceImpl<?>>();
+        if (task.failure != null) {
+          this.log.error("Reload of " + this.nameOf(task.cacheService) + " failed, dependent caches are not reloaded.", task.failure);
+          blocked.put(task.cacheService, Boolean.TRUE);
+        }
+        finished.add(task.cacheService);
+
+        while (!finished.isEmpty()) {
+          CacheServiceImpl<?> cacheService = finished.removeFirst();
+          for (CacheServiceImpl<?> dependent : dependents.get(cacheService)) {
+            if (blocked.containsKey(cacheService)) {
+              blocked.put(dependent, Boolean.TRUE);
+            }
+            int left = remaining.get(dependent).intValue() - 1;
+            remaining.put(dependent, Integer.valueOf(left));
+            if (left == 0) {
+              if (blocked.containsKey(dependent)) {
+                this.log.warn("Skipping reload of " + this.nameOf(dependent) + " since a cache it depends on could not be reloaded.");
+                finished.add(dependent);
+              } else {
+                completionService.submit(new ReloadTask(dependent));
+                running++;
+              }
+            }
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      this.log.warn("Interrupted while waiting for caches to reload.");
+    } catch (ExecutionException e) {
+      // ReloadTask catches all runtime exceptions so this only happens for errors.
+      this.log.error("Unexpected error while reloading caches.", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private Map<CacheServiceImpl<?>, List<CacheServiceImpl<?>>> createDependents(Map<CacheServiceImpl<?>, Integer> remaining) {
+    Map<CacheServiceImpl<?>, List<CacheServiceImpl<?>>> dependents = new IdentityHashMap<CacheServiceImpl<?>, List<CacheServiceImpl<?>>>();
+    for (CacheServiceImpl<?> cacheService : this.cacheServices) {
+      dependents.put(cacheService, new ArrayList<CacheServiceImpl<?>>());
+      remaining.put(cacheService, Integer.valueOf(0));
+    }
+
+    for (Map.Entry<CacheServiceImpl<?>, List<CacheServiceImpl<?>>> entry : this.prerequisites.entrySet()) {
+      CacheServiceImpl<?> cacheService = entry.getKey();
+      if (!dependents.containsKey(cacheService)) {
+        throw new IllegalStateException("Dependencies are configured for " + this.nameOf(cacheService) + " which is not among the cache services to reload.");
+      }
+      for (CacheServiceImpl<?> prerequisite : entry.getValue()) {
+        if (!dependents.containsKey(prerequisite)) {
+          throw new IllegalStateException(this.nameOf(cacheService) + " depends on " + this.nameOf(prerequisite) + " which is not among the cache services to reload.");
+        }
+        dependents.get(prerequisite).add(cacheService);
+        remaining.put(cacheService, Integer.valueOf(remaining.get(cacheService).intValue() + 1));
+      }
+    }
+    return dependents;
+  }
+
+  private void verifyNoCycles(Map<CacheServiceImpl<?>, Integer> remaining, Map<CacheServiceImpl<?>, List<CacheServiceImpl<?>>> dependents) {
+    Map<CacheServiceImpl<?>, Integer> left = new IdentityHashMap<CacheServiceImpl<?>, Integer>(remaining);
+    LinkedList<CacheServiceImpl<?>> ready = new LinkedList<CacheServiceImpl<?>>();
+    for (CacheServiceImpl<?> cacheService : this.cacheServices) {
+      if (left.get(cacheService).intValue() == 0) {
+        ready.add(cacheService);
+      }
+    }
+
+    int visited = 0;
+    while (!ready.isEmpty()) {
+      CacheServiceImpl<?> cacheService = ready.removeFirst();
+      visited++;
+      for (CacheServiceImpl<?> dependent : dependents.get(cacheService)) {
+        int count = left.get(dependent).intValue() - 1;
+        left.put(dependent, Integer.valueOf(count));
+        if (count == 0) {
+          ready.add(dependent);
+        }
+      }
+    }
+
+    if (visited != this.cacheServices.size()) {
+      throw new IllegalStateException("The cache dependencies contains a cycle.");
+    }
+  }
+
+  private String nameOf(CacheServiceImpl<?> cacheService) {
+    return cacheService.toString();
+  }
+
+  /**
+   * Reloads a single cache service and keeps track of any failure.
+   */
+  private static final class ReloadTask implements Callable<ReloadTask> {
+    private final CacheServiceImpl<?> cacheService;
+    private RuntimeException failure;
+
+    private ReloadTask(CacheServiceImpl<?> cacheService) {
+      this.cacheService = cacheService;
+    }
+
+    @Override
+    public ReloadTask call() {
+      try {
+        this.cacheService.reloadCache();
+      } catch (RuntimeException e) {
+        this.failure = e;
+      }
+      return this;
+    }
+  }
+}
@@ -44,7 +44,10 @@ public class CacheServiceImpl<T> {
   }
 
   /**
-   * Reloads the cache from LDAP using the cache loader instance.
+   * Reloads the cache from LDAP using the cache loader instance. If the cache loader fails the current cache is kept and
+   * the failure is propagated to the caller.
+   * 
+   * @throws se.vgregion.kivtools.search.svc.cache.CacheLoadingException If the cache loader could not load the cache.
    */
   public void reloadCache() {
     cache.set(cacheLoader.loadCache());
@@ -56,4 +59,21 @@ public class CacheServiceImpl<T> {
   public void setCache(T unitCache){
 	  this.cache.set(unitCache); 
   }
+
+  /**
+   * Publishes a new cache, but only if the current cache is still the expected one. Used to publish a cache that is
+   * derived from the current cache without overwriting a cache that has been reloaded in the meantime.
+   * 
+   * @param expected The cache that the new cache was derived from.
+   * @param updated The new cache to publish.
+   * @return True if the new cache was published, false if the current cache was not the expected one.
+   */
+  public boolean replaceCache(T expected, T updated) {
+    return this.cache.compareAndSet(expected, updated);
+  }
+
+  @Override
+  public String toString() {
+    return this.getClass().getSimpleName() + "[" + this.cacheLoader.getClass().getSimpleName() + "]";
+  }
 }
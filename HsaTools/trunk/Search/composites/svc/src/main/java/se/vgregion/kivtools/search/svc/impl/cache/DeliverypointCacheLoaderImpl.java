@@ -30,17 +30,24 @@ import se.vgregion.kivtools.search.domain.Unit;
 import se.vgregion.kivtools.search.exceptions.KivException;
 import se.vgregion.kivtools.search.svc.SearchService;
 import se.vgregion.kivtools.search.svc.cache.CacheLoader;
+import se.vgregion.kivtools.search.svc.cache.CacheLoadingException;
 import se.vgregion.kivtools.search.svc.cache.DeliveryPointCache;
 import se.vgregion.kivtools.search.svc.cache.UnitCache;
+import se.vgregion.kivtools.search.svc.impl.kiv.DeliverypointAddressResolver;
 
 /**
  * Implementation of the DeliverypointCacheLoader using the
- * DeliverypointCacheServiceImpl.
+ * DeliverypointCacheServiceImpl. After loading the delivery points a copy of
+ * the current unit cache where each unit has the addresses of its delivery
+ * points is published. The units of the current unit cache are never
+ * modified.
  * 
  * @author kengu5
  */
 public class DeliverypointCacheLoaderImpl implements
 		CacheLoader<DeliveryPointCache> {
+	/** The number of times to try to publish the enriched unit cache if the unit cache is reloaded meanwhile. */
+	private static final int MAX_PUBLISH_ATTEMPTS = 3;
 	private final Log log = LogFactory.getLog(getClass());
 	private SearchService searchService;
 	private UnitCacheServiceImpl unitCacheServiceImpl;
@@ -53,6 +60,9 @@ public class DeliverypointCacheLoaderImpl implements
 	}
 	/**
 	 * {@inheritDoc}
+	 * 
+	 * @throws CacheLoadingException
+	 *             If the delivery points could not be retrieved.
 	 */
 	@Override
 	public DeliveryPointCache loadCache() {
@@ -66,15 +76,13 @@ public class DeliverypointCacheLoaderImpl implements
 				}
 			}
 		} catch (KivException e) {
-			log.error(
+			throw new CacheLoadingException(
 					"Something went wrong when retrieving all deliverypoints.",
 					e);
 		}
 		cache.createUnitHsaIdentityMatchOnDeliverPoint();
 
-		UnitCache unitCache = this.unitCacheServiceImpl.getCache();
-		this.unitCacheServiceImpl.setCache(addDeliveryPointsToUnitChache(
-				unitCache, cache));
+		this.publishEnrichedUnitCache(cache);
 
 		return cache;
 	}
@@ -87,20 +95,32 @@ public class DeliverypointCacheLoaderImpl implements
 		return new DeliveryPointCache();
 	}
 
+	private void publishEnrichedUnitCache(DeliveryPointCache dpc) {
+		for (int attempt = 0; attempt < MAX_PUBLISH_ATTEMPTS; attempt++) {
+			UnitCache unitCache = this.unitCacheServiceImpl.getCache();
+			if (this.unitCacheServiceImpl.replaceCache(unitCache,
+					addDeliveryPointsToUnitChache(unitCache, dpc))) {
+				return;
+			}
+		}
+		log.warn("The unit cache was reloaded while adding delivery point addresses, the addresses were not added.");
+	}
+
 	private UnitCache addDeliveryPointsToUnitChache(UnitCache unitCache,
 			DeliveryPointCache dpc) {
 		List<Unit> units = unitCache.getUnits();
-		UnitCache pUnitCache = new UnitCache();
+		UnitCache.Builder builder = new UnitCache.Builder().setComplete(unitCache.isComplete());
 
 		for (Unit unit : units) {
-			pUnitCache.add(addDeliveryPointToUnit(unit, dpc));
+			builder.add(addDeliveryPointToUnit(unit, dpc));
 		}
 
-		return pUnitCache;
+		return builder.build();
 	}
 	/**
 	 * 
-	 * Adds hsaConsigneeAddress and hsaSedDeliveryAddress to Unit.(from DeliverypointCache)  
+	 * Creates a copy of the unit with the hsaConsigneeAddress and hsaSedDeliveryAddress of its
+	 * delivery points (from DeliverypointCache).
 	 * 
 	 * @param Unit
 	 * @param DeliveryPointCache
@@ -109,20 +129,6 @@ public class DeliverypointCacheLoaderImpl implements
 	private Unit addDeliveryPointToUnit(Unit u, DeliveryPointCache dpc) {
 		Set<Deliverypoint> unitdeliverypoints = dpc
 				.getDeliverypointsByUnitHsaId(u.getHsaIdentity());
-		if (unitdeliverypoints != null && !unitdeliverypoints.isEmpty()) {
-			for (Deliverypoint dp : unitdeliverypoints) {
-				if (dp.getHsaSedfDeliveryAddress() != null
-						&& !dp.getHsaSedfDeliveryAddress().isEmpty()) {
-					u.addDeliverypointDeliveryAddress(dp
-							.getHsaSedfDeliveryAddress());
-				}
-				if (dp.getHsaConsigneeAddress() != null
-						&& !dp.getHsaConsigneeAddress().isEmpty()) {
-					u.addDeliverypointConsigneeAddress(dp
-							.getHsaConsigneeAddress());
-				}
-			}
-		}
-		return u;
+		return DeliverypointAddressResolver.copyWithAddresses(u, unitdeliverypoints);
 	}
 }
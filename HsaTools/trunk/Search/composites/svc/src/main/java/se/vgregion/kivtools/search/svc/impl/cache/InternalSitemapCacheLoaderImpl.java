@@ -19,7 +19,9 @@
 
 package se.vgregion.kivtools.search.svc.impl.cache;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import se.vgregion.kivtools.search.domain.Employment;
 import se.vgregion.kivtools.search.domain.Person;
@@ -31,7 +33,7 @@ import se.vgregion.kivtools.search.svc.cache.SitemapCache;
 import se.vgregion.kivtools.search.svc.cache.SitemapCache.EntryType;
 import se.vgregion.kivtools.search.svc.impl.SitemapPersonMapper;
 import se.vgregion.kivtools.search.svc.impl.SitemapUnitMapper;
-import se.vgregion.kivtools.search.util.MvkClient;
+import se.vgregion.kivtools.search.util.MvkCaseTypeService;
 import se.vgregion.kivtools.util.StringUtil;
 import se.vgregion.kivtools.util.time.TimeUtil;
 
@@ -45,22 +47,22 @@ public class InternalSitemapCacheLoaderImpl implements CacheLoader<SitemapCache>
   private final PersonCacheServiceImpl personCacheService;
   private final String internalApplicationURL;
   private final String changeFrequency;
-  private final MvkClient mvkClient;
+  private final MvkCaseTypeService mvkCaseTypeService;
 
   /**
    * Constructs a new {@link InternalSitemapCacheLoaderImpl}.
    * 
    * @param unitCacheService The {@link UnitCacheServiceImpl} implementation to use to fetch units.
    * @param searchService The {@link SearchService} implementation to use to fetch persons.
-   * @param mvkClient The MvkClient to use to fetch MVK casetypes for units.
+   * @param mvkCaseTypeService The MvkCaseTypeService to use to fetch MVK casetypes for units.
    * @param internalApplicationURL The internal URL to the application.
    * @param changeFrequency The change frequency of the sitemap entries.
    */
-  public InternalSitemapCacheLoaderImpl(final UnitCacheServiceImpl unitCacheService, final PersonCacheServiceImpl personCacheService, MvkClient mvkClient, final String internalApplicationURL,
+  public InternalSitemapCacheLoaderImpl(final UnitCacheServiceImpl unitCacheService, final PersonCacheServiceImpl personCacheService, MvkCaseTypeService mvkCaseTypeService, final String internalApplicationURL,
       String changeFrequency) {
     this.unitCacheService = unitCacheService;
     this.personCacheService = personCacheService;
-    this.mvkClient = mvkClient;
+    this.mvkCaseTypeService = mvkCaseTypeService;
     this.internalApplicationURL = internalApplicationURL;
     this.changeFrequency = changeFrequency;
   }
@@ -112,8 +114,14 @@ public class InternalSitemapCacheLoaderImpl implements CacheLoader<SitemapCache>
       units = this.unitCacheService.getCache().getUnits();
     }
 
+    List<String> hsaIdentities = new ArrayList<String>(units.size());
     for (Unit unit : units) {
-      unit.setMvkCaseTypes(this.mvkClient.getCaseTypesForUnit(unit.getHsaIdentity()));
+      hsaIdentities.add(unit.getHsaIdentity());
+    }
+    Map<String, List<String>> caseTypes = this.mvkCaseTypeService.getCaseTypesForUnits(hsaIdentities);
+
+    for (Unit unit : units) {
+      unit.setMvkCaseTypes(caseTypes.get(unit.getHsaIdentity()));
 
       String lastmod = this.getLastModifiedDateTime(unit.getModifyTimestampFormattedInW3CDatetimeFormat(), unit.getCreateTimestampFormattedInW3CDatetimeFormat());
       SitemapEntry entry = new SitemapEntry(this.internalApplicationURL + "/" + "visaenhet?hsaidentity=" + unit.getHsaIdentity(), lastmod, this.changeFrequency);
@@ -19,22 +19,23 @@
 
 package se.vgregion.kivtools.search.svc.impl.cache;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
-
+import se.vgregion.kivtools.search.domain.Employment;
 import se.vgregion.kivtools.search.domain.Person;
 import se.vgregion.kivtools.search.exceptions.KivException;
+import se.vgregion.kivtools.search.svc.PageConsumer;
 import se.vgregion.kivtools.search.svc.SearchService;
 import se.vgregion.kivtools.search.svc.cache.CacheLoader;
+import se.vgregion.kivtools.search.svc.cache.CacheLoadingException;
 import se.vgregion.kivtools.search.svc.cache.PersonCache;
 
 /**
  * Implementation of the CacheLoader interface which populates a PersonCache by using the {@link SearchService}.
  */
 public class PersonCacheLoaderImpl implements CacheLoader<PersonCache> {
-  private final Log log = LogFactory.getLog(this.getClass());
   private final SearchService searchService;
 
   /**
@@ -48,21 +49,41 @@ public class PersonCacheLoaderImpl implements CacheLoader<PersonCache> {
 
   /**
    * {@inheritDoc}
+   * 
+   * @throws CacheLoadingException If the persons or their employments could not be retrieved.
    */
   @Override
   public PersonCache loadCache() {
-    PersonCache cache = new PersonCache();
+    final PersonCache cache = new PersonCache();
+    final List<Person> personsWithoutEmployments = new ArrayList<Person>();
 
     try {
-      List<Person> persons = this.searchService.getAllPersons();
-      for (Person person : persons) {
-        if (person.getEmployments() == null) {
-          person.setEmployments(this.searchService.getEmployments(person.getDn()));
+      this.searchService.getAllPersons(new PageConsumer<Person>() {
+        @Override
+        public boolean consume(List<Person> page) throws KivException {
+          for (Person person : page) {
+            if (person.getEmployments() == null) {
+              personsWithoutEmployments.add(person);
+            }
+            cache.add(person);
+          }
+          return true;
+        }
+      });
+
+      // Fetch the employments for all persons at once instead of one search per person.
+      if (!personsWithoutEmployments.isEmpty()) {
+        List<String> personDns = new ArrayList<String>(personsWithoutEmployments.size());
+        for (Person person : personsWithoutEmployments) {
+          personDns.add(person.getDn());
+        }
+        Map<String, List<Employment>> employments = this.searchService.getEmploymentsByPersonDn(personDns);
+        for (Person person : personsWithoutEmployments) {
+          person.setEmployments(employments.get(person.getDn()));
         }
-        cache.add(person);
       }
     } catch (KivException e) {
-      this.log.error("Something went wrong when retrieving all persons.", e);
+      throw new CacheLoadingException("Something went wrong when retrieving all persons.", e);
     }
 
     return cache;
@@ -55,6 +55,7 @@ public class PersonNameCacheLoaderImpl implements CacheLoader<PersonNameCache> {
     for (Person person : persons) {
       personNameCache.add(StringUtil.emptyStringIfNull(person.getGivenName()), StringUtil.emptyStringIfNull(person.getSn()));
     }
+    personNameCache.buildIndex();
 
     return personNameCache;
   }
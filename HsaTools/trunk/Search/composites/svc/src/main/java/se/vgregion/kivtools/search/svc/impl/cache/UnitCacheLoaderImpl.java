@@ -21,12 +21,11 @@ package se.vgregion.kivtools.search.svc.impl.cache;
 
 import java.util.List;
 
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
-
 import se.vgregion.kivtools.search.domain.Unit;
 import se.vgregion.kivtools.search.exceptions.KivException;
+import se.vgregion.kivtools.search.svc.PageConsumer;
 import se.vgregion.kivtools.search.svc.SearchService;
+import se.vgregion.kivtools.search.svc.cache.CacheLoadingException;
 import se.vgregion.kivtools.search.svc.cache.CacheLoader;
 import se.vgregion.kivtools.search.svc.cache.UnitCache;
 
@@ -34,7 +33,6 @@ import se.vgregion.kivtools.search.svc.cache.UnitCache;
  * Implementation of the CacheLoader interface which populates a UnitCache by using the {@link SearchService}.
  */
 public class UnitCacheLoaderImpl implements CacheLoader<UnitCache> {
-  private final Log log = LogFactory.getLog(getClass());
   private final SearchService searchService;
   private final boolean onlyPublicUnits;
 
@@ -51,21 +49,26 @@ public class UnitCacheLoaderImpl implements CacheLoader<UnitCache> {
 
   /**
    * {@inheritDoc}
+   * 
+   * @throws CacheLoadingException If the units could not be retrieved.
    */
   @Override
   public UnitCache loadCache() {
-    UnitCache cache = new UnitCache();
+    final UnitCache.Builder builder = new UnitCache.Builder();
 
     try {
-      List<Unit> units = searchService.getAllUnits(onlyPublicUnits);
-      for (Unit unit : units) {
-        cache.add(unit);
-      }
+      searchService.getAllUnits(onlyPublicUnits, new PageConsumer<Unit>() {
+        @Override
+        public boolean consume(List<Unit> page) {
+          builder.addAll(page);
+          return true;
+        }
+      });
     } catch (KivException e) {
-      log.error("Something went wrong when retrieving all units.", e);
+      throw new CacheLoadingException("Something went wrong when retrieving all units.", e);
     }
 
-    return cache;
+    return builder.build();
   }
 
   /**
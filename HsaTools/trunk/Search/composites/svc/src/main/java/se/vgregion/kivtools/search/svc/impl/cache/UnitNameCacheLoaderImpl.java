@@ -54,6 +54,7 @@ public class UnitNameCacheLoaderImpl implements CacheLoader<UnitNameCache> {
     for (Unit unit : units) {
       unitNameCache.add(unit.getName());
     }
+    unitNameCache.buildIndex();
 
     return unitNameCache;
   }
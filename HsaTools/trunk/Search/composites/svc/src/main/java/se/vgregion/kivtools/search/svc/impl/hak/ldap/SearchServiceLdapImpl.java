@@ -21,7 +21,9 @@ package se.vgregion.kivtools.search.svc.impl.hak.ldap;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang.NotImplementedException;
 
@@ -31,6 +33,7 @@ import se.vgregion.kivtools.search.domain.Person;
 import se.vgregion.kivtools.search.domain.Unit;
 import se.vgregion.kivtools.search.domain.values.DN;
 import se.vgregion.kivtools.search.exceptions.KivException;
+import se.vgregion.kivtools.search.svc.PageConsumer;
 import se.vgregion.kivtools.search.svc.SearchService;
 import se.vgregion.kivtools.search.svc.SikSearchResultList;
 import se.vgregion.kivtools.search.svc.ldap.criterions.SearchPersonCriterions;
@@ -74,6 +77,14 @@ public class SearchServiceLdapImpl implements SearchService {
 		return this.personRepository.getAllPersons();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void getAllPersons(PageConsumer<Person> consumer) throws KivException {
+		consumer.consume(this.personRepository.getAllPersons());
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -99,6 +110,14 @@ public class SearchServiceLdapImpl implements SearchService {
 		return this.unitRepository.getAllUnits(onlyPublicUnits);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void getAllUnits(boolean onlyPublicUnits, PageConsumer<Unit> consumer) throws KivException {
+		consumer.consume(this.unitRepository.getAllUnits(onlyPublicUnits));
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -108,6 +127,19 @@ public class SearchServiceLdapImpl implements SearchService {
 		return new SikSearchResultList<Employment>();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, List<Employment>> getEmploymentsByPersonDn(
+			List<String> personDns) throws KivException {
+		Map<String, List<Employment>> employments = new HashMap<String, List<Employment>>();
+		for (String personDn : personDns) {
+			employments.put(personDn, this.getEmployments(personDn));
+		}
+		return employments;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
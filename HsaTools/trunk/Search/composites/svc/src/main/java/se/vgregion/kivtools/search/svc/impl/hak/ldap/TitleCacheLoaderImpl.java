@@ -63,6 +63,7 @@ public class TitleCacheLoaderImpl implements CacheLoader<TitleCache> {
         }
       }
     }
+    titleCache.buildIndex();
 
     return titleCache;
   }
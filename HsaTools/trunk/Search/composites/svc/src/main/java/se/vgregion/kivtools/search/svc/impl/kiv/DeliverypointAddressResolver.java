@@ -0,0 +1,153 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.svc.impl.kiv;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import se.vgregion.kivtools.search.domain.Deliverypoint;
+import se.vgregion.kivtools.search.domain.Unit;
+import se.vgregion.kivtools.search.domain.values.Address;
+import se.vgregion.kivtools.search.exceptions.KivException;
+
+/**
+ * Adds the addresses of the delivery points of a batch of units. The delivery
+ * points of the whole batch are fetched at once and are then attached to the
+ * units in a single pass.
+ */
+public class DeliverypointAddressResolver {
+	private final DeliverypointService deliverypointService;
+
+	/**
+	 * Constructs a new DeliverypointAddressResolver.
+	 * 
+	 * @param deliverypointService
+	 *            The DeliverypointService to fetch delivery points from.
+	 */
+	public DeliverypointAddressResolver(DeliverypointService deliverypointService) {
+		this.deliverypointService = deliverypointService;
+	}
+
+	/**
+	 * Fetches the delivery points of the provided units and adds their
+	 * addresses to the units.
+	 * 
+	 * @param units
+	 *            The units to add delivery point addresses to.
+	 * @throws KivException
+	 *             If the delivery points could not be fetched.
+	 */
+	public void resolve(List<Unit> units) throws KivException {
+		Set<String> hsaIds = new LinkedHashSet<String>();
+		for (Unit unit : units) {
+			if (unit.getHsaIdentity() != null && unit.getHsaIdentity().length() > 0) {
+				hsaIds.add(unit.getHsaIdentity());
+			}
+		}
+		if (!hsaIds.isEmpty()) {
+			addAddresses(units, this.deliverypointService.searchDeliveryPointsForUnits(hsaIds));
+		}
+	}
+
+	/**
+	 * Adds the addresses of already fetched delivery points to the provided
+	 * units.
+	 * 
+	 * @param units
+	 *            The units to add delivery point addresses to.
+	 * @param deliverypointsByUnitHsaId
+	 *            The delivery points keyed by the hsaIdentity of the units
+	 *            they are registered on.
+	 */
+	public static void addAddresses(List<Unit> units,
+			Map<String, ? extends Collection<Deliverypoint>> deliverypointsByUnitHsaId) {
+		for (Unit unit : units) {
+			addAddresses(unit, deliverypointsByUnitHsaId.get(unit.getHsaIdentity()));
+		}
+	}
+
+	/**
+	 * Adds the delivery and consignee addresses of the provided delivery points
+	 * to a unit.
+	 * 
+	 * @param unit
+	 *            The unit to add delivery point addresses to.
+	 * @param deliverypoints
+	 *            The delivery points of the unit, may be null.
+	 */
+	public static void addAddresses(Unit unit, Collection<Deliverypoint> deliverypoints) {
+		unit.addDeliverypointDeliveryAddress(deliveryAddresses(deliverypoints));
+		unit.addDeliverypointConsigneeAddress(consigneeAddresses(deliverypoints));
+	}
+
+	/**
+	 * Creates a copy of a unit that has the addresses of the provided
+	 * delivery points in place of its current delivery point addresses. The
+	 * provided unit is never modified which makes it possible to enrich units
+	 * that are visible to other threads.
+	 * 
+	 * @param unit
+	 *            The unit to copy.
+	 * @param deliverypoints
+	 *            The delivery points of the unit, may be null.
+	 * @return A copy of the unit, or the unit itself if neither the unit nor
+	 *         the delivery points have any addresses.
+	 */
+	public static Unit copyWithAddresses(Unit unit, Collection<Deliverypoint> deliverypoints) {
+		List<Address> deliveryAddresses = deliveryAddresses(deliverypoints);
+		List<Address> consigneeAddresses = consigneeAddresses(deliverypoints);
+		if (deliveryAddresses.isEmpty() && consigneeAddresses.isEmpty()
+				&& unit.getDeliverypointDeliveryAddress().isEmpty()
+				&& unit.getDeliverypointConsigneeAddress().isEmpty()) {
+			return unit;
+		}
+		return unit.copyWithDeliverypointAddresses(deliveryAddresses, consigneeAddresses);
+	}
+
+	private static List<Address> deliveryAddresses(Collection<Deliverypoint> deliverypoints) {
+		List<Address> addresses = new ArrayList<Address>();
+		if (deliverypoints != null) {
+			for (Deliverypoint dp : deliverypoints) {
+				if (dp.getHsaSedfDeliveryAddress() != null
+						&& !dp.getHsaSedfDeliveryAddress().isEmpty()) {
+					addresses.add(dp.getHsaSedfDeliveryAddress());
+				}
+			}
+		}
+		return addresses;
+	}
+
+	private static List<Address> consigneeAddresses(Collection<Deliverypoint> deliverypoints) {
+		List<Address> addresses = new ArrayList<Address>();
+		if (deliverypoints != null) {
+			for (Deliverypoint dp : deliverypoints) {
+				if (dp.getHsaConsigneeAddress() != null
+						&& !dp.getHsaConsigneeAddress().isEmpty()) {
+					addresses.add(dp.getHsaConsigneeAddress());
+				}
+			}
+		}
+		return addresses;
+	}
+}
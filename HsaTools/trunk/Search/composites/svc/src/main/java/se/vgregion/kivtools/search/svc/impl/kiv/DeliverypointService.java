@@ -3,7 +3,9 @@
  */
 package se.vgregion.kivtools.search.svc.impl.kiv;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import se.vgregion.kivtools.search.domain.Deliverypoint;
 import se.vgregion.kivtools.search.domain.Unit;
@@ -32,6 +34,16 @@ public interface DeliverypointService {
 	   */
 	  List<Deliverypoint> searchDeliveryPointsForUnit(String unitHsaid) throws KivException;
 
+	  /**
+	   * Search for the deliveryPoints of several units at once.
+	   * 
+	   * @param unitHsaids - hsaIdentities of the units
+	   * @return The found deliveryPoints keyed by the hsaIdentity of each unit they are registered on. Units without
+	   *         deliveryPoints are not included.
+	   * @throws KivException .
+	   */
+	  Map<String, List<Deliverypoint>> searchDeliveryPointsForUnits(Collection<String> unitHsaids) throws KivException;
+
 	  /**
 	   * Fetch delivery point object given its hsaid.
 	   * 
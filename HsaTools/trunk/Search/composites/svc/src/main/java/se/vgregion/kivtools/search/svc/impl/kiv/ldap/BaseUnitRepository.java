@@ -24,9 +24,11 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.naming.Name;
 import javax.naming.directory.SearchControls;
@@ -46,15 +48,20 @@ import se.vgregion.kivtools.search.domain.values.HealthcareType;
 import se.vgregion.kivtools.search.domain.values.HealthcareTypeConditionHelper;
 import se.vgregion.kivtools.search.exceptions.KivException;
 import se.vgregion.kivtools.search.exceptions.KivNoDataFoundException;
+import se.vgregion.kivtools.search.svc.PageConsumer;
 import se.vgregion.kivtools.search.svc.SikSearchResultList;
+import se.vgregion.kivtools.search.svc.cache.OrganisationTreeIndex;
+import se.vgregion.kivtools.search.svc.cache.UnitCache;
+import se.vgregion.kivtools.search.svc.cache.UnitSearchIndex;
 import se.vgregion.kivtools.search.svc.codetables.CodeTablesService;
 import se.vgregion.kivtools.search.svc.comparators.UnitNameComparator;
 import se.vgregion.kivtools.search.svc.impl.SingleAttributeMapper;
+import se.vgregion.kivtools.search.svc.impl.cache.CacheServiceImpl;
+import se.vgregion.kivtools.search.svc.ldap.PagedSearch;
 import se.vgregion.kivtools.search.svc.ldap.criterions.SearchUnitCriterions;
 import se.vgregion.kivtools.search.util.Formatter;
 import se.vgregion.kivtools.search.util.LdapParse;
 import se.vgregion.kivtools.util.StringUtil;
-import se.vgregion.kivtools.util.reflection.ReflectionUtil;
 import se.vgregion.kivtools.util.time.TimeUtil;
 
 /**
@@ -67,9 +74,14 @@ public abstract class BaseUnitRepository implements UnitRepository {
   // an "
   private static final String LDAP_EXACT_CARD = "\"";
   private static final List<String> ATTRIBUTES = Arrays.asList("*", "objectClass", "createTimestamp");
+  private static final int DEFAULT_PAGE_SIZE = 500;
+  private static final String ALL_UNITS_FILTER = "(|(objectclass=" + Constants.OBJECT_CLASS_UNIT_SPECIFIC + ")(objectclass=" + Constants.OBJECT_CLASS_FUNCTION_SPECIFIC + "))";
   private CodeTablesService codeTablesService;
   private LdapTemplate ldapTemplate;
   private UnitMapper unitMapper;
+  private int pageSize = DEFAULT_PAGE_SIZE;
+  private CacheServiceImpl<UnitCache> unitCacheService;
+  private CacheServiceImpl<UnitCache> organisationCacheService;
 
   private static final String OPPENVARD = "Öppenvård";
   private static final String HEMSJUKVARD = "Hemsjukvård";
@@ -78,11 +90,47 @@ public abstract class BaseUnitRepository implements UnitRepository {
     this.codeTablesService = codeTablesService;
   }
 
+  /**
+   * Sets the number of units to fetch from the directory server in each request when fetching all units.
+   * 
+   * @param pageSize The number of units to fetch in each request.
+   */
+  public void setPageSize(int pageSize) {
+    this.pageSize = pageSize;
+  }
+
+  /**
+   * Sets the unit cache to search instead of the directory server. Searches are only served from the cache when it has
+   * been loaded with every unit of the organisation, see {@link UnitCache#isComplete()}. The directory server is searched
+   * as long as the cache is empty or only holds a filtered selection of the units.
+   * 
+   * @param unitCacheService The service holding the unit cache.
+   */
+  public void setUnitCacheService(CacheServiceImpl<UnitCache> unitCacheService) {
+    this.unitCacheService = unitCacheService;
+  }
+
+  /**
+   * Sets the organisation snapshot to look up sub units in instead of the directory server. Unit searches are not
+   * affected. Sub units are only looked up in the snapshot when it has been loaded with every unit of the organisation,
+   * see {@link UnitCache#isComplete()}.
+   * 
+   * @param organisationCacheService The service holding the organisation snapshot.
+   */
+  public void setOrganisationCacheService(CacheServiceImpl<UnitCache> organisationCacheService) {
+    this.organisationCacheService = organisationCacheService;
+  }
+
   /**
    * @inheritDoc
    */
   @Override
   public SikSearchResultList<Unit> searchAdvancedUnits(Unit unit, int maxResult, Comparator<Unit> sortOrder, boolean onlyPublicUnits) throws KivException {
+    UnitCache unitCache = this.getCompleteCache(this.unitCacheService);
+    if (unitCache != null) {
+      return this.searchAdvancedUnits(unitCache.getSearchIndex(), unit, maxResult, sortOrder, onlyPublicUnits);
+    }
+
     String searchFilter = this.createAdvancedSearchFilter(unit, onlyPublicUnits);
     // Perform search without limit since the information will be filtered
     SikSearchResultList<Unit> units = this.searchUnits(searchFilter, SearchControls.SUBTREE_SCOPE, Integer.MAX_VALUE, sortOrder);
@@ -106,6 +154,109 @@ public abstract class BaseUnitRepository implements UnitRepository {
     return units;
   }
 
+  private SikSearchResultList<Unit> searchAdvancedUnits(UnitSearchIndex index, Unit unit, int maxResult, Comparator<Unit> sortOrder, boolean onlyPublicUnits) {
+    int[] ids = this.findAdvancedUnits(index, unit);
+    if (onlyPublicUnits) {
+      ids = UnitSearchIndex.intersect(ids, index.publicUnits());
+    }
+    SikSearchResultList<Unit> units = new SikSearchResultList<Unit>(index.getUnits(ids));
+
+    this.removeUnallowedUnits(units);
+
+    this.removeOutdatedUnits(units);
+
+    int numberOfHits = units.size();
+
+    // Only sort the subset that is returned
+    units = new SikSearchResultList<Unit>(UnitSearchIndex.first(units, maxResult, sortOrder != null ? sortOrder : new UnitNameComparator()));
+
+    // Set the total number of found items on the returned result set
+    units.setTotalNumberOfFoundItems(numberOfHits);
+
+    return units;
+  }
+
+  /**
+   * Finds the units matching the same criteria as the filter created by {@link #createAdvancedUnitSearchFilter(Unit)}.
+   */
+  private int[] findAdvancedUnits(UnitSearchIndex index, Unit unit) {
+    int[] ids = index.all();
+
+    if (!StringUtil.isEmpty(unit.getName())) {
+      ids = UnitSearchIndex.intersect(ids, UnitSearchIndex.union(index.matchingName(unit.getName()), index.matchingBusinessClassificationCode(unit.getName())));
+    }
+
+    int[] location = null;
+    if (!StringUtil.isEmpty(unit.getHsaMunicipalityName())) {
+      location = UnitSearchIndex.union(index.matchingMunicipalityName(unit.getHsaMunicipalityName()), index.matchingPostalAddress(unit.getHsaMunicipalityName()));
+      location = UnitSearchIndex.union(location, index.matchingStreetAddress(unit.getHsaMunicipalityName()));
+    }
+    if (!StringUtil.isEmpty(unit.getHsaMunicipalityCode())) {
+      int[] municipalityCode = index.matchingMunicipalityCode(unit.getHsaMunicipalityCode());
+      location = location == null ? municipalityCode : UnitSearchIndex.union(location, municipalityCode);
+    }
+    if (location != null) {
+      ids = UnitSearchIndex.intersect(ids, location);
+    }
+
+    if (!StringUtil.isEmpty(unit.getHsaIdentity())) {
+      ids = UnitSearchIndex.intersect(ids, index.matchingHsaIdentity(unit.getHsaIdentity()));
+    }
+
+    if (unit.getHealthcareTypes() != null) {
+      for (HealthcareType healthcareType : unit.getHealthcareTypes()) {
+        ids = UnitSearchIndex.intersect(ids, index.withHealthcareType(healthcareType.getIndex()));
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Finds the units matching the same criteria as the filter created by {@link #createUnitSearchFilter(SearchUnitCriterions)}.
+   */
+  private int[] findUnits(UnitSearchIndex index, SearchUnitCriterions searchUnitCriterions) {
+    int[] ids = index.all();
+
+    if (!StringUtil.isEmpty(searchUnitCriterions.getUnitId())) {
+      ids = UnitSearchIndex.intersect(ids, index.matchingHsaIdentity(searchUnitCriterions.getUnitId()));
+    }
+    if (!StringUtil.isEmpty(searchUnitCriterions.getUnitName())) {
+      ids = UnitSearchIndex.intersect(ids, index.matchingName(searchUnitCriterions.getUnitName()));
+    }
+    if (!StringUtil.isEmpty(searchUnitCriterions.getAdministrationName())) {
+      List<String> codes = this.codeTablesService.getCodeFromTextValue(CodeTableName.VGR_AO3_CODE, searchUnitCriterions.getAdministrationName());
+      ids = UnitSearchIndex.intersect(ids, index.withAdministrations(codes));
+    }
+    if (!StringUtil.isEmpty(searchUnitCriterions.getLiableCode())) {
+      ids = UnitSearchIndex.intersect(ids, index.matchingLiableCode(searchUnitCriterions.getLiableCode()));
+    }
+    if (!StringUtil.isEmpty(searchUnitCriterions.getBusinessClassificationName())) {
+      List<String> codes = this.codeTablesService.getCodeFromTextValue(CodeTableName.HSA_BUSINESSCLASSIFICATION_CODE, searchUnitCriterions.getBusinessClassificationName());
+      ids = UnitSearchIndex.intersect(ids, index.withBusinessClassificationCodes(codes));
+    }
+    if (!StringUtil.isEmpty(searchUnitCriterions.getCareTypeName())) {
+      List<String> codes = this.codeTablesService.getCodeFromTextValue(CodeTableName.VGR_CARE_TYPE, searchUnitCriterions.getCareTypeName());
+      ids = UnitSearchIndex.intersect(ids, index.withCareTypes(codes));
+    }
+    if (!StringUtil.isEmpty(searchUnitCriterions.getLocation())) {
+      String location = searchUnitCriterions.getLocation();
+      int[] locationIds = UnitSearchIndex.union(index.matchingMunicipalityName(location), index.matchingPostalAddress(location));
+      ids = UnitSearchIndex.intersect(ids, UnitSearchIndex.union(locationIds, index.matchingStreetAddress(location)));
+    }
+    return ids;
+  }
+
+  private UnitCache getCompleteCache(CacheServiceImpl<UnitCache> cacheService) {
+    UnitCache unitCache = null;
+    if (cacheService != null) {
+      unitCache = cacheService.getCache();
+      if (unitCache != null && (unitCache.isEmpty() || !unitCache.isComplete())) {
+        unitCache = null;
+      }
+    }
+    return unitCache;
+  }
+
   /**
    * Removes units that have passed its end date (hsaEndDate).
    * 
@@ -127,47 +278,13 @@ public abstract class BaseUnitRepository implements UnitRepository {
    * @param units
    */
   protected void removeUnallowedUnits(SikSearchResultList<Unit> units) {
-
-    // Get all health care types that are unfiltered
     HealthcareTypeConditionHelper htch = new HealthcareTypeConditionHelper();
-    List<HealthcareType> allUnfilteredHealthcareTypes = htch.getAllUnfilteredHealthCareTypes();
 
     for (int j = units.size() - 1; j >= 0; j--) {
-      if (!this.unitMatchesUnfilteredHealtcareType(units.get(j), allUnfilteredHealthcareTypes)) {
-        units.remove(units.get(j));
-      }
-    }
-  }
-
-  private boolean unitMatchesUnfilteredHealtcareType(Unit unit, List<HealthcareType> allUnfilteredHealthcareTypes) {
-    boolean found = false;
-    for (HealthcareType h : allUnfilteredHealthcareTypes) {
-      for (Map.Entry<String, String> condition : h.getConditions().entrySet()) {
-        String key = condition.getKey();
-        String[] conditionValues = condition.getValue().split(",");
-        Object value = ReflectionUtil.getProperty(unit, key, true);
-
-        boolean conditionFulfilled = false;
-        if (value instanceof String) {
-          for (String v : conditionValues) {
-            if (v.equals(value)) {
-              conditionFulfilled = true;
-            }
-          }
-        } else if (value instanceof List<?>) {
-          for (String v : conditionValues) {
-            if (((List<?>) value).contains(v)) {
-              conditionFulfilled = true;
-            }
-          }
-        }
-        if (conditionFulfilled) {
-          found = true;
-          break;
-        }
+      if (!htch.matchesUnfilteredHealthcareType(units.get(j))) {
+        units.remove(j);
       }
     }
-    return found;
   }
 
   /**
@@ -175,6 +292,15 @@ public abstract class BaseUnitRepository implements UnitRepository {
    */
   @Override
   public SikSearchResultList<Unit> searchUnits(SearchUnitCriterions searchUnitCriterions, int maxResult) throws KivException {
+    UnitCache unitCache = this.getCompleteCache(this.unitCacheService);
+    if (unitCache != null) {
+      UnitSearchIndex index = unitCache.getSearchIndex();
+      List<Unit> units = index.getUnits(this.findUnits(index, searchUnitCriterions));
+      SikSearchResultList<Unit> result = new SikSearchResultList<Unit>(UnitSearchIndex.first(units, maxResult != 0 ? maxResult : units.size(), new UnitNameComparator()));
+      result.setTotalNumberOfFoundItems(units.size());
+      return result;
+    }
+
     String searchFilter = this.createSearchFilter(searchUnitCriterions);
     return this.searchUnits(searchFilter, SearchControls.SUBTREE_SCOPE, maxResult, new UnitNameComparator());
   }
@@ -241,14 +367,48 @@ public abstract class BaseUnitRepository implements UnitRepository {
    */
   @Override
   public List<Unit> getAllUnits(boolean onlyPublicUnits) {
+    final List<Unit> result = new ArrayList<Unit>();
+    try {
+      this.getAllUnits(onlyPublicUnits, new PageConsumer<Unit>() {
+        @Override
+        public boolean consume(List<Unit> page) {
+          result.addAll(page);
+          return true;
+        }
+      });
+    } catch (KivException e) {
+      // The consumer above never throws KivException.
+      throw new IllegalStateException(e);
+    }
+    return result;
+  }
+
+  /**
+   * @inheritDoc
+   */
+  @Override
+  public void getAllUnits(boolean onlyPublicUnits, PageConsumer<Unit> consumer) throws KivException {
     String searchFilter = this.createAllUnitsFilter(onlyPublicUnits);
 
-    List<Unit> result = this.searchUnits(this.getSearchBase(), searchFilter, SearchControls.SUBTREE_SCOPE, ATTRIBUTES);
-    return result;
+    PagedSearch<Unit> pagedSearch = new PagedSearch<Unit>(this.ldapTemplate, this.unitMapper, this.pageSize);
+    pagedSearch.search(this.getSearchBase(), searchFilter, SearchControls.SUBTREE_SCOPE, ATTRIBUTES.toArray(new String[0]), consumer);
+  }
+
+  /**
+   * Pages through every unit and function below the search base of the repository. Unlike
+   * {@link #getAllUnits(boolean, PageConsumer)} no units are filtered out, which makes the result a complete snapshot of
+   * the organisation, see {@link #setOrganisationCacheService(CacheServiceImpl)}.
+   * 
+   * @param consumer The consumer to pass each page of units to.
+   * @throws KivException If something goes wrong when fetching the units or if the consumer throws a KivException.
+   */
+  public void getOrganisation(PageConsumer<Unit> consumer) throws KivException {
+    PagedSearch<Unit> pagedSearch = new PagedSearch<Unit>(this.ldapTemplate, this.unitMapper, this.pageSize);
+    pagedSearch.search(this.getSearchBase(), ALL_UNITS_FILTER, SearchControls.SUBTREE_SCOPE, ATTRIBUTES.toArray(new String[0]), consumer);
   }
 
   private String createAllUnitsFilter(boolean onlyPublicUnits) {
-    String searchFilter = "(|(objectclass=" + Constants.OBJECT_CLASS_UNIT_SPECIFIC + ")(objectclass=" + Constants.OBJECT_CLASS_FUNCTION_SPECIFIC + "))";
+    String searchFilter = ALL_UNITS_FILTER;
 
     List<String> filterList = new ArrayList<String>();
     if (onlyPublicUnits) {
@@ -310,17 +470,11 @@ public abstract class BaseUnitRepository implements UnitRepository {
 
   private SikSearchResultList<Unit> deduplicateResult(SikSearchResultList<Unit> result) {
     SikSearchResultList<Unit> resultNoDuplicates = new SikSearchResultList<Unit>();
+    Set<String> hsaIdentities = new HashSet<String>(result.size() * 2);
     for (Unit u : result) {
       // Would like to use "contains" which uses equals (where you could
       // test for same hsa-id) but that would break the searching.
-      boolean alreadyExists = false;
-      for (Unit uND : resultNoDuplicates) {
-        if (u.getHsaIdentity().equals(uND.getHsaIdentity())) {
-          alreadyExists = true;
-          break;
-        }
-      }
-      if (!alreadyExists) {
+      if (hsaIdentities.add(u.getHsaIdentity())) {
         resultNoDuplicates.add(u);
       }
     }
@@ -681,6 +835,18 @@ public abstract class BaseUnitRepository implements UnitRepository {
    */
   @Override
   public SikSearchResultList<Unit> getSubUnits(Unit parentUnit, int maxResult) throws KivException {
+    OrganisationTreeIndex organisationTree = this.getLoadedOrganisationTree();
+    int parentId = this.getOrganisationTreeId(organisationTree, parentUnit);
+    if (parentId >= 0) {
+      List<Unit> descendants = new ArrayList<Unit>();
+      for (Unit descendant : organisationTree.getDescendants(parentId)) {
+        if (descendant.getIsUnit()) {
+          descendants.add(descendant);
+        }
+      }
+      return this.cleanAndSortResult(descendants, maxResult, null);
+    }
+
     SikSearchResultList<Unit> subUnits = null;
 
     DistinguishedName parentDn = new DistinguishedName(parentUnit.getDn().toString());
@@ -696,6 +862,20 @@ public abstract class BaseUnitRepository implements UnitRepository {
    */
   @Override
   public SikSearchResultList<Unit> getFirstLevelSubUnits(Unit parentUnit) throws KivException {
+    OrganisationTreeIndex organisationTree = this.getLoadedOrganisationTree();
+    int parentId = this.getOrganisationTreeId(organisationTree, parentUnit);
+    if (parentId >= 0) {
+      // Entries between the parent and a unit that are not units themselves are not part of the tree, only units located
+      // directly below the parent entry are first level sub units.
+      List<Unit> children = new ArrayList<Unit>();
+      for (Unit child : organisationTree.getChildren(parentId)) {
+        if (child.getIsUnit() && parentUnit.getDn().equals(child.getDn().getParentDN())) {
+          children.add(child);
+        }
+      }
+      return this.cleanAndSortResult(children, 0, null);
+    }
+
     SikSearchResultList<Unit> subUnits = null;
 
     DistinguishedName parentDn = new DistinguishedName(parentUnit.getDn().toString());
@@ -706,6 +886,21 @@ public abstract class BaseUnitRepository implements UnitRepository {
     return subUnits;
   }
 
+  private OrganisationTreeIndex getLoadedOrganisationTree() {
+    UnitCache unitCache = this.getCompleteCache(this.organisationCacheService);
+    return unitCache != null ? unitCache.getOrganisationTree() : null;
+  }
+
+  // Only units that are part of the complete organisation snapshot can be looked up in it, the directory is searched for
+  // others.
+  private int getOrganisationTreeId(OrganisationTreeIndex organisationTree, Unit unit) {
+    int id = -1;
+    if (organisationTree != null && unit.getDn() != null) {
+      id = organisationTree.getId(unit.getDn());
+    }
+    return id;
+  }
+
   // Remove parent unit from search result list
   private void removeUnitParentFromList(Unit parentUnit, SikSearchResultList<Unit> subUnits) {
     for (Unit unit : subUnits) {
@@ -19,18 +19,26 @@
 
 package se.vgregion.kivtools.search.svc.impl.kiv.ldap;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.naming.directory.SearchControls;
 
+import org.springframework.ldap.core.ContextMapper;
+import org.springframework.ldap.core.DirContextOperations;
 import org.springframework.ldap.core.DistinguishedName;
 import org.springframework.ldap.core.LdapTemplate;
 
 import se.vgregion.kivtools.search.domain.Employment;
 import se.vgregion.kivtools.search.domain.values.DN;
 import se.vgregion.kivtools.search.exceptions.KivException;
+import se.vgregion.kivtools.search.svc.PageConsumer;
 import se.vgregion.kivtools.search.svc.SikSearchResultList;
 import se.vgregion.kivtools.search.svc.codetables.CodeTablesService;
+import se.vgregion.kivtools.search.svc.ldap.PagedSearch;
 import se.vgregion.kivtools.util.time.TimeUtil;
 import se.vgregion.kivtools.util.time.TimeUtil.DateTimeFormat;
 
@@ -41,10 +49,14 @@ public class EmploymentRepository {
   // Get LDAP entries that have hsaEndDate greater or equal current date and hsaStartDate less or equal current
   // date.
   private static final String ALL_EMPLOYMENT_FILTER = "(&(objectclass=vgrAnstallning)(|(!(hsaEndDate=*))(hsaEndDate>=%1$s))(|(hsaStartDate<=%2$s)(!(hsaStartDate=*))))";
+  private static final int DEFAULT_BULK_SEARCH_THRESHOLD = 100;
+  private static final int DEFAULT_PAGE_SIZE = 500;
 
   // private LdapConnectionPool theConnectionPool;
   private CodeTablesService codeTablesService;
   private LdapTemplate ldapTemplate;
+  private int bulkSearchThreshold = DEFAULT_BULK_SEARCH_THRESHOLD;
+  private int pageSize = DEFAULT_PAGE_SIZE;
 
   public void setLdapTemplate(LdapTemplate ldapTemplate) {
     this.ldapTemplate = ldapTemplate;
@@ -54,26 +66,130 @@ public class EmploymentRepository {
     this.codeTablesService = codeTablesService;
   }
 
+  /**
+   * Sets the number of persons with the same parent entry that is needed before all employments below the parent entry
+   * are fetched in a single subtree search instead of one search per person.
+   * 
+   * @param bulkSearchThreshold The minimum number of persons to use a subtree search for.
+   */
+  public void setBulkSearchThreshold(int bulkSearchThreshold) {
+    this.bulkSearchThreshold = bulkSearchThreshold;
+  }
+
+  /**
+   * Sets the number of employments to fetch from the directory server in each request during a subtree search.
+   * 
+   * @param pageSize The number of employments to fetch in each request.
+   */
+  public void setPageSize(int pageSize) {
+    this.pageSize = pageSize;
+  }
+
   /**
    * 
    * @param dn Dn of the employments.
    * @return A list of employments.
    * @throws KivException If something goes wrong.
    */
-  @SuppressWarnings("unchecked")
   public SikSearchResultList<Employment> getEmployments(DN dn) throws KivException {
     SikSearchResultList<Employment> result = new SikSearchResultList<Employment>();
-    DistinguishedName distinguishedName = new DistinguishedName(dn.toString());
-    String[] attributes = new String[] { "*", EmploymentSearchAttributes.MODIFY_TIMESTAMP.toString() };
+    result.addAll(this.searchEmployments(new DistinguishedName(dn.toString())));
+    return result;
+  }
 
-    List<Employment> employments = this.ldapTemplate.search(distinguishedName, this.generateLDAPFilter(), SearchControls.ONELEVEL_SCOPE, attributes, new EmploymentMapper(this.codeTablesService));
+  /**
+   * Retrieves the employments for several persons. Persons that share the same parent entry are fetched using a single
+   * paged subtree search below the parent entry if they are at least as many as the bulk search threshold. Otherwise
+   * the employments are fetched using one search per person.
+   * 
+   * @param personDns The DN's of the persons to get employments for.
+   * @return A map with the employments for each person keyed on the provided DN's. Persons without employments are
+   *         mapped to an empty list.
+   * @throws KivException If something goes wrong.
+   */
+  public Map<String, List<Employment>> getEmployments(List<String> personDns) throws KivException {
+    Map<String, List<Employment>> result = new HashMap<String, List<Employment>>();
+    Map<DistinguishedName, List<Employment>> employmentsByPerson = new HashMap<DistinguishedName, List<Employment>>();
+    Map<DistinguishedName, List<DistinguishedName>> personsByParent = new LinkedHashMap<DistinguishedName, List<DistinguishedName>>();
 
-    if (employments != null) {
-      result.addAll(employments);
+    for (String personDn : personDns) {
+      DistinguishedName person = new DistinguishedName(personDn);
+      List<Employment> employments = employmentsByPerson.get(person);
+      if (employments == null) {
+        employments = new ArrayList<Employment>();
+        employmentsByPerson.put(person, employments);
+
+        DistinguishedName parent = new DistinguishedName(person);
+        parent.removeLast();
+        List<DistinguishedName> siblings = personsByParent.get(parent);
+        if (siblings == null) {
+          siblings = new ArrayList<DistinguishedName>();
+          personsByParent.put(parent, siblings);
+        }
+        siblings.add(person);
+      }
+      result.put(personDn, employments);
+    }
+
+    for (Map.Entry<DistinguishedName, List<DistinguishedName>> entry : personsByParent.entrySet()) {
+      if (entry.getValue().size() >= this.bulkSearchThreshold) {
+        this.searchEmploymentsBelow(entry.getKey(), employmentsByPerson);
+      } else {
+        for (DistinguishedName person : entry.getValue()) {
+          employmentsByPerson.get(person).addAll(this.searchEmployments(person));
+        }
+      }
     }
     return result;
   }
 
+  @SuppressWarnings("unchecked")
+  private List<Employment> searchEmployments(DistinguishedName personDn) {
+    List<Employment> employments = this.ldapTemplate.search(personDn, this.generateLDAPFilter(), SearchControls.ONELEVEL_SCOPE, this.getAttributes(), new EmploymentMapper(this.codeTablesService));
+    if (employments == null) {
+      employments = new ArrayList<Employment>();
+    }
+    return employments;
+  }
+
+  /**
+   * Fetches all employments below the provided base and adds each employment to the list of its owning person. Employments
+   * owned by persons that are not in the provided map are skipped without being mapped.
+   */
+  private void searchEmploymentsBelow(DistinguishedName base, final Map<DistinguishedName, List<Employment>> employmentsByPerson) throws KivException {
+    final EmploymentMapper employmentMapper = new EmploymentMapper(this.codeTablesService);
+    ContextMapper ownedEmploymentMapper = new ContextMapper() {
+      @Override
+      public OwnedEmployment mapFromContext(Object ctx) {
+        DistinguishedName owner = new DistinguishedName(((DirContextOperations) ctx).getDn());
+        owner.removeLast();
+        List<Employment> employments = employmentsByPerson.get(owner);
+        OwnedEmployment result = null;
+        if (employments != null) {
+          result = new OwnedEmployment(employments, employmentMapper.mapFromContext(ctx));
+        }
+        return result;
+      }
+    };
+
+    PagedSearch<OwnedEmployment> pagedSearch = new PagedSearch<OwnedEmployment>(this.ldapTemplate, ownedEmploymentMapper, this.pageSize);
+    pagedSearch.search(base, this.generateLDAPFilter(), SearchControls.SUBTREE_SCOPE, this.getAttributes(), new PageConsumer<OwnedEmployment>() {
+      @Override
+      public boolean consume(List<OwnedEmployment> page) {
+        for (OwnedEmployment ownedEmployment : page) {
+          if (ownedEmployment != null) {
+            ownedEmployment.ownerEmployments.add(ownedEmployment.employment);
+          }
+        }
+        return true;
+      }
+    });
+  }
+
+  private String[] getAttributes() {
+    return new String[] { "*", EmploymentSearchAttributes.MODIFY_TIMESTAMP.toString() };
+  }
+
   /**
    * Create LDAP filter string with a condition that hsaEndDate must be greater or equal current date. Set the time to 00:00:00 (HH:mm:ss) so the employment that expires today will still be returned.
    */
@@ -83,4 +199,17 @@ public class EmploymentRepository {
     String zuluTimeEndTime = zuluTime.substring(0, 8).concat("235959Z");
     return String.format(ALL_EMPLOYMENT_FILTER, zuluTimeEndTime, zuluTimeStartTime);
   }
+
+  /**
+   * An employment together with the list of employments of the person owning it.
+   */
+  private static class OwnedEmployment {
+    private final List<Employment> ownerEmployments;
+    private final Employment employment;
+
+    public OwnedEmployment(List<Employment> ownerEmployments, Employment employment) {
+      this.ownerEmployments = ownerEmployments;
+      this.employment = employment;
+    }
+  }
 }
@@ -0,0 +1,79 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.svc.impl.kiv.ldap;
+
+import java.util.List;
+
+import se.vgregion.kivtools.search.domain.Unit;
+import se.vgregion.kivtools.search.exceptions.KivException;
+import se.vgregion.kivtools.search.svc.PageConsumer;
+import se.vgregion.kivtools.search.svc.cache.CacheLoader;
+import se.vgregion.kivtools.search.svc.cache.CacheLoadingException;
+import se.vgregion.kivtools.search.svc.cache.UnitCache;
+
+/**
+ * Implementation of the CacheLoader interface which populates a complete UnitCache with every unit and function below
+ * the search base of a {@link BaseUnitRepository}. The cache is meant to be set as organisation cache of the same
+ * repository which then looks up sub units in the cache instead of the directory server.
+ */
+public class OrganisationCacheLoaderImpl implements CacheLoader<UnitCache> {
+  private final BaseUnitRepository unitRepository;
+
+  /**
+   * Constructs a new {@link OrganisationCacheLoaderImpl}.
+   * 
+   * @param unitRepository The {@link BaseUnitRepository} to use to fetch the units of the organisation.
+   */
+  public OrganisationCacheLoaderImpl(BaseUnitRepository unitRepository) {
+    this.unitRepository = unitRepository;
+  }
+
+  /**
+   * {@inheritDoc}
+   * 
+   * @throws CacheLoadingException If the units could not be retrieved.
+   */
+  @Override
+  public UnitCache loadCache() {
+    final UnitCache.Builder builder = new UnitCache.Builder().setComplete(true);
+
+    try {
+      this.unitRepository.getOrganisation(new PageConsumer<Unit>() {
+        @Override
+        public boolean consume(List<Unit> page) {
+          builder.addAll(page);
+          return true;
+        }
+      });
+    } catch (KivException e) {
+      throw new CacheLoadingException("Something went wrong when retrieving the organisation.", e);
+    }
+
+    return builder.build();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public UnitCache createEmptyCache() {
+    return new UnitCache();
+  }
+}
@@ -20,7 +20,6 @@
 package se.vgregion.kivtools.search.svc.impl.kiv.ldap;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import javax.naming.Name;
@@ -46,12 +45,16 @@ import se.vgregion.kivtools.search.domain.Unit;
 import se.vgregion.kivtools.search.domain.values.CodeTableName;
 import se.vgregion.kivtools.search.exceptions.KivException;
 import se.vgregion.kivtools.search.exceptions.KivNoDataFoundException;
+import se.vgregion.kivtools.search.svc.PageConsumer;
 import se.vgregion.kivtools.search.svc.SikSearchResultList;
 import se.vgregion.kivtools.search.svc.codetables.CodeTablesService;
 import se.vgregion.kivtools.search.svc.comparators.PersonNameComparator;
 import se.vgregion.kivtools.search.svc.impl.SingleAttributeMapper;
+import se.vgregion.kivtools.search.svc.ldap.PagedSearch;
+import se.vgregion.kivtools.search.svc.ldap.SelectingContextMapper;
 import se.vgregion.kivtools.search.svc.ldap.criterions.SearchPersonCriterions;
 import se.vgregion.kivtools.search.util.Formatter;
+import se.vgregion.kivtools.search.util.TopKSelector;
 import se.vgregion.kivtools.util.StringUtil;
 import se.vgregion.kivtools.util.time.TimeUtil;
 import se.vgregion.kivtools.util.time.TimeUtil.DateTimeFormat;
@@ -64,9 +67,11 @@ public class PersonRepository {
   private static final String LDAP_WILD_CARD = "*";
   // an "
   private static final String LDAP_EXACT_CARD = "\"";
+  private static final int DEFAULT_PAGE_SIZE = 500;
   private LdapTemplate ldapTemplate;
   private String unitFkField;
   private CodeTablesService codeTablesService;
+  private int pageSize = DEFAULT_PAGE_SIZE;
 
   private static final String CN_EQUALS = "cn=";
 
@@ -82,6 +87,15 @@ public class PersonRepository {
     this.codeTablesService = codeTablesService;
   }
 
+  /**
+   * Sets the number of persons to fetch from the directory server in each request when fetching all persons.
+   * 
+   * @param pageSize The number of persons to fetch in each request.
+   */
+  public void setPageSize(int pageSize) {
+    this.pageSize = pageSize;
+  }
+
   /**
    * 
    * @param vgrId can be a complete or parts of a vgrId. That is why we can return a list od Persons
@@ -141,15 +155,32 @@ public class PersonRepository {
    * @throws KivException if search cannot be performed.
    */
   public List<Person> getAllPersons() throws KivException {
+    final List<Person> result = new ArrayList<Person>();
+    this.getAllPersons(new PageConsumer<Person>() {
+      @Override
+      public boolean consume(List<Person> page) {
+        result.addAll(page);
+        return true;
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Retrieves all persons. The persons are fetched from the directory server one page at a time and each page is handed
+   * to the provided consumer before the next page is fetched.
+   * 
+   * @param consumer The consumer to hand each page of persons to.
+   * @throws KivException if search cannot be performed or if the consumer fails.
+   */
+  public void getAllPersons(PageConsumer<Person> consumer) throws KivException {
     AndFilter filter = new AndFilter();
     filter.and(new LikeFilter("vgr-id", "*"));
 
     try {
       String[] attributes = new String[] { "*", "createTimestamp", "modifyTimestamp" };
-      // Since UnitMapper returns Units we are certain that the cast to List<Unit> is ok.
-      @SuppressWarnings("unchecked")
-      List<Person> result = this.ldapTemplate.search(PERSON_SEARCH_BASE, filter.encode(), SearchControls.SUBTREE_SCOPE, attributes, new PersonMapper(this.codeTablesService));
-      return result;
+      PagedSearch<Person> pagedSearch = new PagedSearch<Person>(this.ldapTemplate, new PersonMapper(this.codeTablesService), this.pageSize);
+      pagedSearch.search(PERSON_SEARCH_BASE, filter.encode(), SearchControls.SUBTREE_SCOPE, attributes, consumer);
     } catch (NamingException e) {
       throw new KivException("Error getting persons from server: " + e.getMessage());
     }
@@ -171,38 +202,39 @@ public class PersonRepository {
   }
 
   private SikSearchResultList<Person> searchPersons(String searchFilter, int searchScope, int maxResult) throws KivException {
-    SikSearchResultList<Person> result = this.performPersonSearch(searchFilter, searchScope);
-    result = this.sortAndTrimPersonSearchResult(maxResult, result);
-    return result;
+    TopKSelector<Person> selector = this.createPersonSelector(maxResult);
+    this.performPersonSearch(searchFilter, searchScope, 0, selector);
+    return this.createPersonSearchResult(selector);
   }
 
-  private SikSearchResultList<Person> sortAndTrimPersonSearchResult(int maxResult, SikSearchResultList<Person> result) {
-    Collections.sort(result, new PersonNameComparator());
-    int resultCount = result.size();
-    if (result.size() > maxResult && maxResult != 0) {
-      result = new SikSearchResultList<Person>(result.subList(0, maxResult));
-    }
-    result.setTotalNumberOfFoundItems(resultCount);
+  private TopKSelector<Person> createPersonSelector(int maxResult) {
+    // A maxResult of zero means that all found persons should be returned.
+    return new TopKSelector<Person>(new PersonNameComparator(), maxResult > 0 ? maxResult : Integer.MAX_VALUE);
+  }
+
+  private SikSearchResultList<Person> createPersonSearchResult(TopKSelector<Person> selector) {
+    SikSearchResultList<Person> result = new SikSearchResultList<Person>(selector.getSelected());
+    result.setTotalNumberOfFoundItems(selector.getCount());
     return result;
   }
 
-  private SikSearchResultList<Person> performPersonSearch(String searchFilter, int searchScope) {
+  private void performPersonSearch(String searchFilter, int searchScope, int countLimit, TopKSelector<Person> selector) {
     SearchControls searchControls = new SearchControls();
-    searchControls.setCountLimit(0);
+    searchControls.setCountLimit(countLimit);
     searchControls.setSearchScope(searchScope);
     searchControls.setReturningObjFlag(true);
     searchControls.setReturningAttributes(new String[] { "*", "createTimestamp", "modifyTimestamp" });
-    // Since PersonMapper returns a Person we are certain that a cast to List<Person> is ok
-    @SuppressWarnings("unchecked")
-    List<Person> persons = this.ldapTemplate.search(PERSON_SEARCH_BASE, searchFilter, searchControls, new PersonMapper(this.codeTablesService));
-    SikSearchResultList<Person> result = null;
-
-    if (persons == null) {
-      result = new SikSearchResultList<Person>();
-    } else {
-      result = new SikSearchResultList<Person>(persons);
+    List<?> persons = this.ldapTemplate.search(PERSON_SEARCH_BASE, searchFilter, searchControls, new SelectingContextMapper<Person>(new PersonMapper(
+        this.codeTablesService), selector));
+
+    if (persons != null) {
+      // The mapper hands each person to the selector and returns null, anything else returned is selected as well.
+      for (Object person : persons) {
+        if (person != null) {
+          selector.add((Person) person);
+        }
+      }
     }
-    return result;
   }
 
   private List<String> getPersonDNsByEmployment(String searchFilter, int searchScope, int maxResult) throws KivException {
@@ -333,7 +365,7 @@ public class PersonRepository {
       }
     }
 
-    final SikSearchResultList<Person> result = new SikSearchResultList<Person>();
+    TopKSelector<Person> selector = this.createPersonSelector(maxResult);
 
     AndFilter searchPersonFilter = this.generateFreeTextSearchPersonFilter(person);
     if (!personDNs.isEmpty()) {
@@ -344,13 +376,14 @@ public class PersonRepository {
         AndFilter filter = new AndFilter();
         filter.and(searchPersonFilter);
         filter.and(employmentFilter);
-        result.addAll(this.performPersonSearch(filter.encode(), SearchControls.SUBTREE_SCOPE));
+        // Each vgr-id identifies a single person so the directory never has to return more entries than ids.
+        this.performPersonSearch(filter.encode(), SearchControls.SUBTREE_SCOPE, splitElement, selector);
       }
     } else {
-      result.addAll(this.performPersonSearch(searchPersonFilter.encode(), SearchControls.SUBTREE_SCOPE));
+      this.performPersonSearch(searchPersonFilter.encode(), SearchControls.SUBTREE_SCOPE, 0, selector);
     }
 
-    return this.sortAndTrimPersonSearchResult(maxResult, result);
+    return this.createPersonSearchResult(selector);
   }
 
   private Filter createEmploymentFilter(List<String> personDNs) {
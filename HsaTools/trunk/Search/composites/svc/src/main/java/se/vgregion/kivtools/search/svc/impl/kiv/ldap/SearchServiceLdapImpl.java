@@ -21,6 +21,7 @@ package se.vgregion.kivtools.search.svc.impl.kiv.ldap;
 
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 
 import se.vgregion.kivtools.search.domain.Deliverypoint;
 import se.vgregion.kivtools.search.domain.Employment;
@@ -28,6 +29,7 @@ import se.vgregion.kivtools.search.domain.Person;
 import se.vgregion.kivtools.search.domain.Unit;
 import se.vgregion.kivtools.search.domain.values.DN;
 import se.vgregion.kivtools.search.exceptions.KivException;
+import se.vgregion.kivtools.search.svc.PageConsumer;
 import se.vgregion.kivtools.search.svc.SearchService;
 import se.vgregion.kivtools.search.svc.SikSearchResultList;
 import se.vgregion.kivtools.search.svc.impl.kiv.DeliverypointService;
@@ -85,6 +87,15 @@ public class SearchServiceLdapImpl implements SearchService {
 		return this.personRepository.getAllPersons();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void getAllPersons(PageConsumer<Person> consumer)
+			throws KivException {
+		this.personRepository.getAllPersons(consumer);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -110,6 +121,15 @@ public class SearchServiceLdapImpl implements SearchService {
 		return this.unitRepository.getAllUnits(onlyPublicUnits);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void getAllUnits(boolean onlyPublicUnits,
+			PageConsumer<Unit> consumer) throws KivException {
+		this.unitRepository.getAllUnits(onlyPublicUnits, consumer);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -120,6 +140,15 @@ public class SearchServiceLdapImpl implements SearchService {
 				.createDNFromString(personDn));
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<String, List<Employment>> getEmploymentsByPersonDn(
+			List<String> personDns) throws KivException {
+		return this.employmentRepository.getEmployments(personDns);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -7,6 +7,7 @@ import se.vgregion.kivtools.search.domain.Person;
 import se.vgregion.kivtools.search.domain.Unit;
 import se.vgregion.kivtools.search.domain.values.DN;
 import se.vgregion.kivtools.search.exceptions.KivException;
+import se.vgregion.kivtools.search.svc.PageConsumer;
 import se.vgregion.kivtools.search.svc.SikSearchResultList;
 import se.vgregion.kivtools.search.svc.ldap.criterions.SearchUnitCriterions;
 
@@ -98,6 +99,16 @@ public interface UnitRepository {
    */
   List<Unit> getAllUnits(boolean onlyPublicUnits);
 
+  /**
+   * Retrieves all Units and functions filtered based on if only units for public display should be retrieved. The units
+   * are handed to the provided consumer one page at a time.
+   * 
+   * @param onlyPublicUnits Only select units from search that should be displayed to the public.
+   * @param consumer The consumer to hand each page of units to.
+   * @throws KivException If something goes wrong doing search.
+   */
+  void getAllUnits(boolean onlyPublicUnits, PageConsumer<Unit> consumer) throws KivException;
+
   /**
    * 
    * @param parentUnit - unit to get subunits for
@@ -19,16 +19,11 @@
 
 package se.vgregion.kivtools.search.svc.impl.kiv.ldap;
 
-import java.util.List;
-import java.util.Map;
-
 import se.vgregion.kivtools.search.domain.Person;
 import se.vgregion.kivtools.search.domain.Unit;
-import se.vgregion.kivtools.search.domain.values.HealthcareType;
 import se.vgregion.kivtools.search.domain.values.HealthcareTypeConditionHelper;
 import se.vgregion.kivtools.search.exceptions.KivException;
 import se.vgregion.kivtools.search.svc.SikSearchResultList;
-import se.vgregion.kivtools.util.reflection.ReflectionUtil;
 
 /**
  * Implementation of the UnitRepository for Hitta rätt i Administration for VGR.
@@ -36,47 +31,13 @@ import se.vgregion.kivtools.util.reflection.ReflectionUtil;
 public class UnitRepositoryHRIA extends BaseUnitRepository {
   @Override
   protected void removeUnallowedUnits(SikSearchResultList<Unit> units) {
-
-    // Get all health care types that are unfiltered
     HealthcareTypeConditionHelper htch = new HealthcareTypeConditionHelper();
-    List<HealthcareType> allUnfilteredHealthcareTypes = htch.getAllUnfilteredHealthCareTypes();
 
     for (int j = units.size() - 1; j >= 0; j--) {
-      if (this.unitMatchesUnfilteredHealtcareType(units.get(j), allUnfilteredHealthcareTypes)) {
-        units.remove(units.get(j));
-      }
-    }
-  }
-
-  private boolean unitMatchesUnfilteredHealtcareType(Unit unit, List<HealthcareType> allUnfilteredHealthcareTypes) {
-    boolean found = false;
-    for (HealthcareType h : allUnfilteredHealthcareTypes) {
-      for (Map.Entry<String, String> condition : h.getConditions().entrySet()) {
-        String key = condition.getKey();
-        String[] conditionValues = condition.getValue().split(",");
-        Object value = ReflectionUtil.getProperty(unit, key, true);
-
-        boolean conditionFulfilled = false;
-        if (value instanceof String) {
-          for (String v : conditionValues) {
-            if (v.equals(value)) {
-              conditionFulfilled = true;
-            }
-          }
-        } else if (value instanceof List<?>) {
-          for (String v : conditionValues) {
-            if (((List<?>) value).contains(v)) {
-              conditionFulfilled = true;
-            }
-          }
-        }
-        if (conditionFulfilled) {
-          found = true;
-          break;
-        }
+      if (htch.matchesUnfilteredHealthcareType(units.get(j))) {
+        units.remove(j);
       }
     }
-    return found;
   }
 
 @Override
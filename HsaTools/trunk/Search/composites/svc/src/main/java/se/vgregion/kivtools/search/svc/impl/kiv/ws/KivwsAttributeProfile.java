@@ -0,0 +1,110 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.svc.impl.kiv.ws;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import se.vgregion.kivtools.search.svc.ws.domain.kivws.ArrayOfString;
+
+/**
+ * The sets of attributes requested from the KIV web service. Each profile only contains the attributes that are used
+ * by the mapper of the search results, which keeps the responses from the web service small. The attribute lists are
+ * built once and shared by all requests instead of being fetched from the web service before each search.
+ */
+enum KivwsAttributeProfile {
+  /**
+   * All attributes mapped to a unit by {@link KivwsUnitMapper}. Used for unit searches and for unit details.
+   */
+  UNIT(KivwsAttributes.CN, KivwsAttributes.OBJECT_CLASS, KivwsAttributes.OU, KivwsAttributes.HSA_IDENTITY, KivwsAttributes.ORGANIZATIONAL_UNITNAME_SHORT,
+      KivwsAttributes.DESCRIPTION, KivwsAttributes.VGR_INTERNAL_DESCRIPTION, KivwsAttributes.MAIL, KivwsAttributes.L, KivwsAttributes.LABELED_URI,
+      KivwsAttributes.VGR_INTERNAL_SEDF_INVOICE_ADDRESS, KivwsAttributes.VGR_CARE_TYPE, KivwsAttributes.VGR_AO3_KOD, KivwsAttributes.HSA_BUSINESS_CLASSIFICATION_CODE,
+      KivwsAttributes.HSA_TEXT_PHONE_NUMBER, KivwsAttributes.MOBILE_TELEPHONE_NUMBER, KivwsAttributes.HSA_SEDF_SWITCHBOARD_TELEPHONE_NO,
+      KivwsAttributes.HSA_TELEPHONE_NUMBER, KivwsAttributes.FACSIMILE_TELEPHONE_NUMBER, KivwsAttributes.PAGER_TELEPHONE_NUMBER,
+      KivwsAttributes.HSA_PUBLIC_TELEPHONE_NUMBER, KivwsAttributes.HSA_TELEPHONE_TIME, KivwsAttributes.HSA_END_DATE, KivwsAttributes.HSA_SURGERY_HOURS,
+      KivwsAttributes.HSA_DROPIN_HOURS, KivwsAttributes.HSA_INTERNAL_ADDRESS, KivwsAttributes.HSA_STREET_ADDRESS, KivwsAttributes.HSA_POSTAL_ADDRESS,
+      KivwsAttributes.HSA_SEDF_DELIVERY_ADDRESS, KivwsAttributes.HSA_SEDF_INVOICE_ADDRESS, KivwsAttributes.HSA_UNIT_PRESCRIPTION_CODE,
+      KivwsAttributes.VGR_ANSVARSNUMMER, KivwsAttributes.HSA_MUNICIPALITY_CODE, KivwsAttributes.HSA_MUNICIPALITY_SECTION_NAME,
+      KivwsAttributes.HSA_MUNICIPALITY_SECTION_CODE, KivwsAttributes.HSA_COUNTY_CODE, KivwsAttributes.HSA_MANAGEMENT_CODE, KivwsAttributes.HSA_VISITING_RULES,
+      KivwsAttributes.HSA_VISITING_RULE_AGE, KivwsAttributes.VGR_TEMP_INFO, KivwsAttributes.VGR_REF_INFO, KivwsAttributes.HSA_ADMINISTRATION_FORM,
+      KivwsAttributes.VGR_MODIFY_TIMESTAMP, KivwsAttributes.CREATE_TIMESTAMP, KivwsAttributes.HSA_GEOGRAPHICAL_COORDINATES, KivwsAttributes.HSA_ROUTE,
+      KivwsAttributes.VGR_VARDVAL, KivwsAttributes.VGR_AVTALSKOD, KivwsAttributes.VGR_LABELED_URI, KivwsAttributes.HSA_VISITING_HOURS,
+      KivwsAttributes.HSA_VISITING_RULE_REFERRAL, KivwsAttributes.HSA_DESTINATION_INDICATOR, KivwsAttributes.HSA_BUSINESS_TYPE,
+      KivwsAttributes.HSA_PATIENT_VISITING_RULES, KivwsAttributes.HSA_RESPONSIBLE_HEALTH_CARE_PROVIDER, KivwsAttributes.HSA_HEALTH_CARE_UNIT_MEMBER,
+      KivwsAttributes.HSA_HEALTH_CARE_UNIT_MANAGER, KivwsAttributes.VGR_OBJECT_MANAGERS),
+
+  /**
+   * The hsaIdentity and name of a unit. Used when only a reference to a unit is presented.
+   */
+  UNIT_NAME(KivwsAttributes.HSA_IDENTITY, KivwsAttributes.OU),
+
+  /**
+   * The hsaIdentity of a unit or function. The name of a function is taken from its DN.
+   */
+  HSA_IDENTITY(KivwsAttributes.HSA_IDENTITY),
+
+  /**
+   * All attributes mapped to a person by {@link KivwsPersonMapper}.
+   */
+  PERSON(names(KivwsPersonAttributes.values())),
+
+  /**
+   * All attributes mapped to a delivery point by {@link KivwsDeliverypointService}.
+   */
+  DELIVERY_POINT(names(KivwsDeliverypointAttributes.values()));
+
+  private final List<String> names;
+  private final ArrayOfString arrayOfString;
+
+  private KivwsAttributeProfile(String... names) {
+    this.names = Collections.unmodifiableList(new ArrayList<String>(Arrays.asList(names)));
+    this.arrayOfString = new ArrayOfString();
+    this.arrayOfString.getString().addAll(this.names);
+  }
+
+  private static String[] names(Enum<?>[] attributes) {
+    String[] names = new String[attributes.length];
+    for (int i = 0; i < attributes.length; i++) {
+      names[i] = attributes[i].toString();
+    }
+    return names;
+  }
+
+  /**
+   * Retrieves the names of the attributes in this profile.
+   *
+   * @return An unmodifiable list of attribute names.
+   */
+  public List<String> getNames() {
+    return names;
+  }
+
+  /**
+   * Retrieves the attributes of this profile in the form used by the web service. The same instance is returned on
+   * each call and is shared between concurrent requests so it must not be modified.
+   *
+   * @return The attributes of this profile.
+   */
+  public ArrayOfString getArrayOfString() {
+    return arrayOfString;
+  }
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.svc.impl.kiv.ws;
+
+/**
+ * The attributes of a delivery point that are mapped by {@link KivwsDeliverypointService}.
+ */
+enum KivwsDeliverypointAttributes {
+	cn("cn"), hsaidentity("hsaidentity"), hsasedfdeliveryaddress(
+			"hsasedfdeliveryaddress"), hsaconsigneeaddress(
+			"hsaconsigneeaddress"), vgreancode("vgreancode"), vgrorgrel("vgrorgrel");
+
+	private KivwsDeliverypointAttributes(String value) {
+		this.value = value;
+	}
+
+	private String value;
+
+	@Override
+	public String toString() {
+		return this.value;
+	}
+	
+	public static boolean contains(String test) {
+
+	    for (KivwsDeliverypointAttributes c : KivwsDeliverypointAttributes.values()) {
+	        if (c.toString().equalsIgnoreCase(test)) {
+	            return true;
+	        }
+	    }
+
+	    return false;
+	}
+}
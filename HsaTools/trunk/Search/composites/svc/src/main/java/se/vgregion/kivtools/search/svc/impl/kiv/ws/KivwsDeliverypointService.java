@@ -4,7 +4,12 @@
 package se.vgregion.kivtools.search.svc.impl.kiv.ws;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -18,7 +23,6 @@ import se.vgregion.kivtools.search.domain.values.AddressHelper;
 import se.vgregion.kivtools.search.exceptions.KivException;
 import se.vgregion.kivtools.search.svc.impl.kiv.DeliverypointService;
 import se.vgregion.kivtools.search.svc.ws.domain.kivws.ArrayOfDeliveryPoint;
-import se.vgregion.kivtools.search.svc.ws.domain.kivws.ArrayOfString;
 import se.vgregion.kivtools.search.svc.ws.domain.kivws.DeliveryPoint;
 import se.vgregion.kivtools.search.svc.ws.domain.kivws.String2ArrayOfAnyTypeMap;
 import se.vgregion.kivtools.search.svc.ws.domain.kivws.String2ArrayOfAnyTypeMap.Entry;
@@ -29,35 +33,9 @@ import se.vgregion.kivtools.search.svc.ws.domain.kivws.VGRegionWebServiceImplPor
  * @author attra
  *
  */
-enum KivwsDeliverypointAttributes {
-	cn("cn"), hsaidentity("hsaidentity"), hsasedfdeliveryaddress(
-			"hsasedfdeliveryaddress"), hsaconsigneeaddress(
-			"hsaconsigneeaddress"), vgreancode("vgreancode"), vgrorgrel("vgrorgrel");
-
-	private KivwsDeliverypointAttributes(String value) {
-		this.value = value;
-	}
-
-	private String value;
-
-	@Override
-	public String toString() {
-		return this.value;
-	}
-	
-	public static boolean contains(String test) {
-
-	    for (KivwsDeliverypointAttributes c : KivwsDeliverypointAttributes.values()) {
-	        if (c.toString().equalsIgnoreCase(test)) {
-	            return true;
-	        }
-	    }
-
-	    return false;
-	}
-}
-
 public class KivwsDeliverypointService implements DeliverypointService {
+	/** The maximum number of units to search for delivery points in a single request. */
+	private static final int MAX_UNITS_PER_SEARCH = 50;
 
 	private final VGRegionWebServiceImplPortType vgregionWebService;
 	private static final Log LOG = LogFactory.getLog(KivwsDeliverypointService.class);
@@ -104,6 +82,42 @@ public class KivwsDeliverypointService implements DeliverypointService {
 
 		return result;
 	}
+	/**
+	 * Searches for the delivery points of the provided units using as few
+	 * requests as possible. Each request covers up to 50 units using an
+	 * or-filter on vgrOrgRel.
+	 */
+	@Override
+	public Map<String, List<Deliverypoint>> searchDeliveryPointsForUnits(
+			Collection<String> unitHsaids) throws KivException {
+		Map<String, List<Deliverypoint>> result = new LinkedHashMap<String, List<Deliverypoint>>();
+		List<String> hsaIds = new ArrayList<String>(new HashSet<String>(unitHsaids));
+		for (int start = 0; start < hsaIds.size(); start += MAX_UNITS_PER_SEARCH) {
+			Set<String> batch = new HashSet<String>(hsaIds.subList(start,
+					Math.min(start + MAX_UNITS_PER_SEARCH, hsaIds.size())));
+			StringBuilder filter = new StringBuilder("(|");
+			for (String hsaId : batch) {
+				filter.append("(vgrOrgRel=").append(hsaId).append(")");
+			}
+			filter.append(")");
+
+			for (Deliverypoint deliverypoint : this.searchDeliveryPoint(filter.toString())) {
+				// A delivery point may be shared by several of the units in the batch.
+				for (String vgrOrgRel : deliverypoint.getVgrOrgRel()) {
+					if (batch.contains(vgrOrgRel)) {
+						List<Deliverypoint> deliverypoints = result.get(vgrOrgRel);
+						if (deliverypoints == null) {
+							deliverypoints = new ArrayList<Deliverypoint>();
+							result.put(vgrOrgRel, deliverypoints);
+						}
+						deliverypoints.add(deliverypoint);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
 	@Override
 	public List<Deliverypoint> getAllDeliverypoints() throws KivException{
 		List<Deliverypoint> result = null;
@@ -116,8 +130,8 @@ public class KivwsDeliverypointService implements DeliverypointService {
 		Deliverypoint deliverypointObject;
 		
 		try {
-		  ArrayOfString attributes = this.vgregionWebService.getReturnAttributesForDeliveryPoint();
-			ArrayOfDeliveryPoint searchDeliveryPoints = this.vgregionWebService.searchDeliveryPoint(filter, attributes);
+			ArrayOfDeliveryPoint searchDeliveryPoints = this.vgregionWebService.searchDeliveryPoint(filter,
+					KivwsAttributeProfile.DELIVERY_POINT.getArrayOfString());
 			List<DeliveryPoint> deliveryPointsFromWS = searchDeliveryPoints.getDeliveryPoint();
 			for(DeliveryPoint dp : deliveryPointsFromWS) {
 				deliverypointObject = null;
@@ -0,0 +1,39 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.svc.impl.kiv.ws;
+
+/**
+ * The attributes of a person that are mapped by {@link KivwsPersonMapper}.
+ */
+enum KivwsPersonAttributes {
+  cn("cn"), hsaidentity("hsaidentity"), hsatitle("hsatitle"), givenname("givenname"), mail("mail"), sn("sn"), vgrid("vgr-id"), hsanickname("hsanickname"), hsaspecialitycode("hsaspecialitycode"), hsalanguageknowledgecode(
+      "hsalanguageknowledgecode"), hsamiddlename("hsamiddlename"), fullname("fullname");
+
+  private KivwsPersonAttributes(String value) {
+    this.value = value;
+  }
+
+  private String value;
+
+  @Override
+  public String toString() {
+    return this.value;
+  }
+}
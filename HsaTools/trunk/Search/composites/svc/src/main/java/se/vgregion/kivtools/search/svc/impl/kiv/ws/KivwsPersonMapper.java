@@ -33,22 +33,6 @@ import se.vgregion.kivtools.search.svc.ws.domain.kivws.String2ArrayOfAnyTypeMap;
 import se.vgregion.kivtools.search.svc.ws.domain.kivws.String2ArrayOfAnyTypeMap.Entry;
 import se.vgregion.kivtools.util.Arguments;
 
-enum KivwsPersonAttributes {
-  cn("cn"), hsaidentity("hsaidentity"), hsatitle("hsatitle"), givenname("givenname"), mail("mail"), sn("sn"), vgrid("vgr-id"), hsanickname("hsanickname"), hsaspecialitycode("hsaspecialitycode"), hsalanguageknowledgecode(
-      "hsalanguageknowledgecode"), hsamiddlename("hsamiddlename"), fullname("fullname");
-
-  private KivwsPersonAttributes(String value) {
-    this.value = value;
-  }
-
-  private String value;
-
-  @Override
-  public String toString() {
-    return this.value;
-  }
-}
-
 public class KivwsPersonMapper implements ContextMapper {
   private Map<String, List<Object>> attributes;
 
@@ -20,7 +20,6 @@
 package se.vgregion.kivtools.search.svc.impl.kiv.ws;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import javax.naming.Name;
@@ -53,9 +52,11 @@ import se.vgregion.kivtools.search.svc.impl.SingleAttributeMapper;
 import se.vgregion.kivtools.search.svc.impl.kiv.ldap.EmploymentSearchAttributes;
 import se.vgregion.kivtools.search.svc.impl.kiv.ldap.PersonSearchAttributes;
 import se.vgregion.kivtools.search.svc.impl.kiv.ldap.PersonMapper;
+import se.vgregion.kivtools.search.svc.ldap.SelectingContextMapper;
 import se.vgregion.kivtools.search.svc.ldap.criterions.SearchPersonCriterions;
 import se.vgregion.kivtools.search.svc.ws.domain.kivws.VGRegionWebServiceImplPortType;
 import se.vgregion.kivtools.search.util.Formatter;
+import se.vgregion.kivtools.search.util.TopKSelector;
 import se.vgregion.kivtools.util.StringUtil;
 import se.vgregion.kivtools.util.time.TimeUtil;
 import se.vgregion.kivtools.util.time.TimeUtil.DateTimeFormat;
@@ -198,24 +199,22 @@ public class KivwsPersonRepository {
     searchControls.setSearchScope(searchScope);
     searchControls.setReturningObjFlag(true);
     searchControls.setReturningAttributes(new String[] { "*", "createTimestamp", "modifyTimestamp" });
-    // Since PersonMapper returns a Person we are certain that a cast to List<Person> is ok
-    @SuppressWarnings("unchecked")
-    List<Person> persons = this.ldapTemplate.search(PERSON_SEARCH_BASE, searchFilter, searchControls, new PersonMapper(this.codeTablesService));
-    SikSearchResultList<Person> result = null;
-
-    if (persons == null) {
-      result = new SikSearchResultList<Person>();
-    } else {
-      result = new SikSearchResultList<Person>(persons);
+    // Only the first persons in name order are kept while the search result is read, a maxResult of zero keeps all.
+    TopKSelector<Person> selector = new TopKSelector<Person>(new PersonNameComparator(), maxResult > 0 ? maxResult : Integer.MAX_VALUE);
+    List<?> persons = this.ldapTemplate.search(PERSON_SEARCH_BASE, searchFilter, searchControls, new SelectingContextMapper<Person>(new PersonMapper(
+        this.codeTablesService), selector));
+
+    if (persons != null) {
+      // The mapper hands each person to the selector and returns null, anything else returned is selected as well.
+      for (Object person : persons) {
+        if (person != null) {
+          selector.add((Person) person);
+        }
+      }
     }
 
-    // Sort list
-    Collections.sort(result, new PersonNameComparator());
-    int resultCount = result.size();
-    if (result.size() > maxResult && maxResult != 0) {
-      result = new SikSearchResultList<Person>(result.subList(0, maxResult));
-    }
-    result.setTotalNumberOfFoundItems(resultCount);
+    SikSearchResultList<Person> result = new SikSearchResultList<Person>(selector.getSelected());
+    result.setTotalNumberOfFoundItems(selector.getCount());
 
     return result;
   }
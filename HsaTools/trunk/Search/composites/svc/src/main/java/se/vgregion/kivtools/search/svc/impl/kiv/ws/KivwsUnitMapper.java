@@ -21,6 +21,7 @@ package se.vgregion.kivtools.search.svc.impl.kiv.ws;
 
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,7 +30,6 @@ import java.util.TimeZone;
 import org.apache.log4j.Logger;
 import org.springframework.ldap.core.ContextMapper;
 
-import se.vgregion.kivtools.search.domain.Deliverypoint;
 import se.vgregion.kivtools.search.domain.Person;
 import se.vgregion.kivtools.search.domain.Unit;
 import se.vgregion.kivtools.search.domain.values.AddressHelper;
@@ -41,6 +41,7 @@ import se.vgregion.kivtools.search.domain.values.PhoneNumber;
 import se.vgregion.kivtools.search.domain.values.WeekdayTime;
 import se.vgregion.kivtools.search.exceptions.KivException;
 import se.vgregion.kivtools.search.svc.codetables.CodeTablesService;
+import se.vgregion.kivtools.search.svc.impl.kiv.DeliverypointAddressResolver;
 import se.vgregion.kivtools.search.svc.impl.kiv.DeliverypointService;
 import se.vgregion.kivtools.search.svc.ws.domain.kivws.Function;
 import se.vgregion.kivtools.search.svc.ws.domain.kivws.String2ArrayOfAnyTypeMap.Entry;
@@ -64,7 +65,7 @@ import com.domainlanguage.time.TimePoint;
 public class KivwsUnitMapper implements ContextMapper {
 	private final CodeTablesService codeTablesService;
 	private final DisplayValueTranslator displayValueTranslator;
-	private final DeliverypointService deliveryPointService;
+	private final DeliverypointAddressResolver deliverypointAddressResolver;
 	private static final Logger LOG = Logger.getLogger(KivwsUnitMapper.class);
 
 
@@ -83,7 +84,7 @@ public class KivwsUnitMapper implements ContextMapper {
 			DeliverypointService deliveryPointService) {
 		this.codeTablesService = codeTablesService;
 		this.displayValueTranslator = displayValueTranslator;
-		this.deliveryPointService = deliveryPointService;
+		this.deliverypointAddressResolver = new DeliverypointAddressResolver(deliveryPointService);
 	}
   @Override
   public Unit mapFromContext(Object ctx) {
@@ -92,6 +93,37 @@ public class KivwsUnitMapper implements ContextMapper {
 		return unit;
 	}
 	public Unit mapFromContext(Object ctx, boolean mapDeliverypoint) {
+		Unit unit = this.mapUnit(ctx);
+		if (mapDeliverypoint) {
+			this.populateDeliverypointAddresses(Collections.singletonList(unit));
+		}
+		return unit;
+	}
+
+	/**
+	 * Maps a batch of kivws units and/or functions. The delivery points of
+	 * all units in the batch are fetched together instead of one unit at a
+	 * time.
+	 * 
+	 * @param ctxs
+	 *            The kivws units and/or functions to map.
+	 * @param mapDeliverypoint
+	 *            True if the addresses of the delivery points of the units
+	 *            should be mapped.
+	 * @return The mapped units in the same order as the provided objects.
+	 */
+	public List<Unit> mapFromContexts(List<?> ctxs, boolean mapDeliverypoint) {
+		List<Unit> units = new ArrayList<Unit>(ctxs.size());
+		for (Object ctx : ctxs) {
+			units.add(this.mapUnit(ctx));
+		}
+		if (mapDeliverypoint) {
+			this.populateDeliverypointAddresses(units);
+		}
+		return units;
+	}
+
+	private Unit mapUnit(Object ctx) {
     Unit unit = new Unit();
 
     List<Entry> attributes = null;
@@ -262,30 +294,12 @@ public class KivwsUnitMapper implements ContextMapper {
         .getMultiValue(KivwsAttributes.HSA_HEALTH_CARE_UNIT_MEMBER));
     unit.setVgrObjectManagers(attributeHelper
         .getMultiValue(KivwsAttributes.VGR_OBJECT_MANAGERS));
-    if (mapDeliverypoint){
-      this.populateDeliverypointAddresses(unit);
-    }
 
     return unit;
   }
-	private void populateDeliverypointAddresses(Unit unit) {
+	private void populateDeliverypointAddresses(List<Unit> units) {
 		try {
-			List<Deliverypoint> unitdeliverypoints = this.deliveryPointService
-					.searchDeliveryPointsForUnit(unit);
-			if (!unitdeliverypoints.isEmpty()) {
-				for (Deliverypoint dp : unitdeliverypoints) {
-					if (dp.getHsaSedfDeliveryAddress() != null
-							&& !dp.getHsaSedfDeliveryAddress().isEmpty()) {
-						unit.addDeliverypointDeliveryAddress(dp
-								.getHsaSedfDeliveryAddress());
-					}
-					if (dp.getHsaConsigneeAddress() != null
-							&& !dp.getHsaConsigneeAddress().isEmpty()) {
-						unit.addDeliverypointConsigneeAddress(dp
-								.getHsaConsigneeAddress());
-					}
-				}
-			}
+			this.deliverypointAddressResolver.resolve(units);
 		} catch (KivException e) {
 			LOG.error(e.getMessage());
 		}
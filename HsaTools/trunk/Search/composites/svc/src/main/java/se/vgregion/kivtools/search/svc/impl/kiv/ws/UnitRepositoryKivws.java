@@ -20,7 +20,6 @@
 package se.vgregion.kivtools.search.svc.impl.kiv.ws;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
@@ -28,6 +27,18 @@ import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.naming.Name;
 import javax.naming.directory.SearchControls;
@@ -51,6 +62,7 @@ import se.vgregion.kivtools.search.domain.values.HealthcareTypeConditionHelper;
 import se.vgregion.kivtools.search.domain.values.KivwsCodeTableName;
 import se.vgregion.kivtools.search.exceptions.KivException;
 import se.vgregion.kivtools.search.exceptions.KivNoDataFoundException;
+import se.vgregion.kivtools.search.svc.PageConsumer;
 import se.vgregion.kivtools.search.svc.SikSearchResultList;
 import se.vgregion.kivtools.search.svc.codetables.CodeTablesService;
 import se.vgregion.kivtools.search.svc.comparators.UnitNameComparator;
@@ -72,12 +84,19 @@ import se.vgregion.kivtools.search.util.Formatter;
 import se.vgregion.kivtools.search.util.LdapParse;
 import se.vgregion.kivtools.util.Arguments;
 import se.vgregion.kivtools.util.StringUtil;
-import se.vgregion.kivtools.util.reflection.ReflectionUtil;
 import se.vgregion.kivtools.util.time.TimeUtil;
 
 /**
  * This is a copy of UnitRepository.
  * 
+ * <p>
+ * Looking up a single unit requires several web service calls. Calls that do
+ * not depend on each other are issued concurrently on a bounded pool of
+ * threads and each call is given at most {@link #setCallTimeout(long)}
+ * milliseconds to complete. Concurrent lookups of the same unit by hsaId share
+ * a single lookup.
+ * </p>
+ * 
  * @author davidbennehult
  * 
  */
@@ -86,7 +105,6 @@ public class UnitRepositoryKivws implements UnitRepository {
 			"ou=Org,o=vgr");
 	private static final String LDAP_WILD_CARD = "*";
 	private static final String LDAP_EXACT_CARD = "\"";
-	private static final List<String> ATTRIBUTES = new ArrayList<String>();
 	private final Log logger = LogFactory.getLog(UnitRepositoryKivws.class);
 	private final CodeTablesService codeTablesService;
 	private final VGRegionWebServiceImplPortType vgregionWebService;
@@ -96,6 +114,12 @@ public class UnitRepositoryKivws implements UnitRepository {
 	private static final String OPPENVARD = "Öppenvård";
 	private static final String SLUTENVARD = "Slutenvård";
 	private static final String HEMSJUKVARD = "Hemsjukvård";
+	private static final int DEFAULT_MAX_CONCURRENT_CALLS = 8;
+	private static final long DEFAULT_CALL_TIMEOUT = 20000L;
+
+	private final ThreadPoolExecutor executor;
+	private final ConcurrentMap<String, FutureTask<Unit>> unitLookupsInFlight = new ConcurrentHashMap<String, FutureTask<Unit>>();
+	private volatile long callTimeout = DEFAULT_CALL_TIMEOUT;
 
 	public UnitRepositoryKivws(
 			VGRegionWebServiceImplPortType vgregionWebService,
@@ -104,6 +128,54 @@ public class UnitRepositoryKivws implements UnitRepository {
 		this.kivwsUnitMapper = kivwsUnitMapper;
 		this.codeTablesService = codeTablesService;
 		this.KivwsPersonMapper = new KivwsPersonMapper();
+		this.executor = new ThreadPoolExecutor(DEFAULT_MAX_CONCURRENT_CALLS,
+				DEFAULT_MAX_CONCURRENT_CALLS, 60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new CallThreadFactory());
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Sets the maximum number of web service calls that are issued at the same
+	 * time by this repository. Defaults to 8.
+	 * 
+	 * @param maxConcurrentCalls
+	 *            The maximum number of concurrent web service calls.
+	 */
+	public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+		if (maxConcurrentCalls < 1) {
+			throw new IllegalArgumentException(
+					"maxConcurrentCalls must be at least 1");
+		}
+		if (maxConcurrentCalls > this.executor.getMaximumPoolSize()) {
+			this.executor.setMaximumPoolSize(maxConcurrentCalls);
+			this.executor.setCorePoolSize(maxConcurrentCalls);
+		} else {
+			this.executor.setCorePoolSize(maxConcurrentCalls);
+			this.executor.setMaximumPoolSize(maxConcurrentCalls);
+		}
+	}
+
+	/**
+	 * Sets the number of milliseconds to wait for each concurrent web service
+	 * call. Defaults to 20000.
+	 * 
+	 * @param callTimeout
+	 *            The timeout in milliseconds.
+	 */
+	public void setCallTimeout(long callTimeout) {
+		if (callTimeout < 1) {
+			throw new IllegalArgumentException(
+					"callTimeout must be at least 1 millisecond");
+		}
+		this.callTimeout = callTimeout;
+	}
+
+	/**
+	 * Stops the threads used for concurrent web service calls. Calls in
+	 * progress are interrupted.
+	 */
+	public void shutdown() {
+		this.executor.shutdownNow();
 	}
 
 	/**
@@ -134,10 +206,10 @@ public class UnitRepositoryKivws implements UnitRepository {
 
 		List<Unit> searchOUresult = this
 				.searchUnits(this.getSearchBase(), searchFilterOU,
-						SearchControls.SUBTREE_SCOPE, ATTRIBUTES, false);
+						SearchControls.SUBTREE_SCOPE, KivwsAttributeProfile.UNIT, false);
 		List<Unit> searchCNResult = this.searchFunctionUnits(
 				this.getSearchBase(), searchFilterCN,
-				SearchControls.SUBTREE_SCOPE, ATTRIBUTES);
+				SearchControls.SUBTREE_SCOPE, KivwsAttributeProfile.UNIT);
 		searchOUresult.addAll(searchCNResult);
 		SikSearchResultList<Unit> units = this.cleanAndSortResult(
 				searchOUresult, sortOrder);
@@ -181,52 +253,15 @@ public class UnitRepositoryKivws implements UnitRepository {
 	 * @param units
 	 */
 	protected void removeUnallowedUnits(SikSearchResultList<Unit> units) {
-		// Get all health care types that are unfiltered
 		HealthcareTypeConditionHelper htch = new HealthcareTypeConditionHelper();
-		List<HealthcareType> allUnfilteredHealthcareTypes = htch
-				.getAllUnfilteredHealthCareTypes();
 
 		for (int j = units.size() - 1; j >= 0; j--) {
-			if (!this.unitMatchesUnfilteredHealtcareType(units.get(j),
-					allUnfilteredHealthcareTypes)) {
-				units.remove(units.get(j));
+			if (!htch.matchesUnfilteredHealthcareType(units.get(j))) {
+				units.remove(j);
 			}
 		}
 	}
 
-	private boolean unitMatchesUnfilteredHealtcareType(Unit unit,
-			List<HealthcareType> allUnfilteredHealthcareTypes) {
-		boolean found = false;
-		for (HealthcareType h : allUnfilteredHealthcareTypes) {
-			for (Map.Entry<String, String> condition : h.getConditions()
-					.entrySet()) {
-				String key = condition.getKey();
-				String[] conditionValues = condition.getValue().split(",");
-				Object value = ReflectionUtil.getProperty(unit, key, true);
-
-				boolean conditionFulfilled = false;
-				if (value instanceof String) {
-					for (String v : conditionValues) {
-						if (v.equals(value)) {
-							conditionFulfilled = true;
-						}
-					}
-				} else if (value instanceof List<?>) {
-					for (String v : conditionValues) {
-						if (((List<?>) value).contains(v)) {
-							conditionFulfilled = true;
-						}
-					}
-				}
-				if (conditionFulfilled) {
-					found = true;
-					break;
-				}
-			}
-		}
-		return found;
-	}
-
 	/**
 	 * Search for selected unit.
 	 * 
@@ -248,10 +283,10 @@ public class UnitRepositoryKivws implements UnitRepository {
 
 		List<Unit> searchResultForOuUnits = this.searchUnits(
 				this.getSearchBase(), searchFilterOU,
-				SearchControls.SUBTREE_SCOPE, ATTRIBUTES, false);
+				SearchControls.SUBTREE_SCOPE, KivwsAttributeProfile.UNIT, false);
 		List<Unit> searchResultForCnUnits = this.searchFunctionUnits(
 				this.getSearchBase(), searchFilterCN,
-				SearchControls.SUBTREE_SCOPE, ATTRIBUTES);
+				SearchControls.SUBTREE_SCOPE, KivwsAttributeProfile.UNIT);
 		searchResultForOuUnits.addAll(searchResultForCnUnits);
 
 		SikSearchResultList<Unit> result = this.cleanAndSortResult(
@@ -281,23 +316,58 @@ public class UnitRepositoryKivws implements UnitRepository {
 		return getUnitByHsaId(hsaId, true);
 	}
 
-	private Unit getUnitByHsaId(String hsaId, boolean mapDeliveryPoint)
-			throws KivException {
-		Unit pUnit;
-		String searchFilter = "(hsaIdentity=" + hsaId + ")";
-		pUnit = this.searchUnit(this.getSearchBase(),
-				SearchControls.SUBTREE_SCOPE, searchFilter, mapDeliveryPoint);
-		if (pUnit.getHsaHealthCareUnitManagerHsaId().length() > 0
-				&& pUnit.getHsaHealthCareUnitManagerHsaId() != null) {
-			pUnit.setHsaHealthCareUnitManagerPerson(this
-					.getHsaHealthCareUnitManagerByHsaID(pUnit
-							.getHsaHealthCareUnitManagerHsaId()));
+	private Unit getUnitByHsaId(final String hsaId,
+			final boolean mapDeliveryPoint) throws KivException {
+		String key = mapDeliveryPoint ? hsaId : hsaId + "#nodeliverypoints";
+		FutureTask<Unit> lookup = new FutureTask<Unit>(new Callable<Unit>() {
+			@Override
+			public Unit call() throws KivException {
+				return lookupUnitByHsaId(hsaId, mapDeliveryPoint);
+			}
+		});
+
+		FutureTask<Unit> inFlight = this.unitLookupsInFlight.putIfAbsent(key,
+				lookup);
+		if (inFlight == null) {
+			// No lookup of the unit is in progress, perform it in this thread.
+			try {
+				lookup.run();
+			} finally {
+				this.unitLookupsInFlight.remove(key, lookup);
+			}
+			inFlight = lookup;
 		}
-		if (pUnit.getHsaHealthCareUnitMembers().size() > 0) {
-			pUnit.setHsaHealthCareUnitMembersAsUnit(this
-					.getSimpleUnitsByHsaId(pUnit.getHsaHealthCareUnitMembers()));
+
+		// Each call made by the lookup has a timeout so there is no need for
+		// one here.
+		try {
+			return inFlight.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new KivException("Interrupted while waiting for unit "
+					+ hsaId);
+		} catch (ExecutionException e) {
+			throw this.toKivException(e.getCause());
+		}
+	}
+
+	private Unit lookupUnitByHsaId(String hsaId, boolean mapDeliveryPoint)
+			throws KivException {
+		// Which unit the unit is a member of only depends on the hsaId so it
+		// is looked up at the same time as the unit itself.
+		Future<String> memberOf = this.submitMemberOfLookup(hsaId);
+		Unit pUnit = null;
+		try {
+			String searchFilter = "(hsaIdentity=" + hsaId + ")";
+			pUnit = this.searchUnit(this.getSearchBase(),
+					SearchControls.SUBTREE_SCOPE, searchFilter,
+					mapDeliveryPoint);
+		} finally {
+			if (pUnit == null) {
+				memberOf.cancel(true);
+			}
 		}
-		pUnit.setHsaHealthCareMemberOf(getHsaIdWhereUnitIsHealthCareMember(hsaId));
+		this.addRelatedUnits(pUnit, memberOf);
 
 		return pUnit;
 	}
@@ -360,7 +430,7 @@ public class UnitRepositoryKivws implements UnitRepository {
 
 		List<Unit> pUnits = this.searchUnits(this.getSearchBase(),
 				this.makeOr(orFilterList), SearchControls.SUBTREE_SCOPE,
-				ATTRIBUTES, false);
+				KivwsAttributeProfile.UNIT, false);
 
 		Hashtable<String, Unit> pTableOfUnits = new Hashtable<String, Unit>();
 		for (Unit unit : pUnits) {
@@ -394,10 +464,21 @@ public class UnitRepositoryKivws implements UnitRepository {
 	 */
 	public List<Unit> getSimpleUnitsByHsaId(List<String> hsaIds)
 			throws KivException {
-		Unit pUnit = null;
-		String pSearchFilter = "";
-		StringBuilder sb = new StringBuilder();
+		Future<List<Unit>> units = this.submitSimpleUnitSearch(hsaIds);
+		Future<List<Unit>> functions = this.submitSimpleFunctionSearch(hsaIds);
+
 		List<Unit> pReturnValues = new ArrayList<Unit>();
+		try {
+			pReturnValues.addAll(this.await(units, "units " + hsaIds));
+			pReturnValues.addAll(this.await(functions, "functions " + hsaIds));
+		} catch (TimeoutException e) {
+			throw new KivException(e.getMessage());
+		}
+		return pReturnValues;
+	}
+
+	private String createSimpleUnitsFilter(List<String> hsaIds) {
+		StringBuilder sb = new StringBuilder();
 
 		sb.append("(|");
 		for (String hsaId : hsaIds) {
@@ -406,15 +487,36 @@ public class UnitRepositoryKivws implements UnitRepository {
 			sb.append(")");
 		}
 		sb.append(")");
-		pSearchFilter = sb.toString();
+		return sb.toString();
+	}
+
+	private Future<List<Unit>> submitSimpleUnitSearch(final List<String> hsaIds) {
+		return this.executor.submit(new Callable<List<Unit>>() {
+			@Override
+			public List<Unit> call() {
+				return searchSimpleUnits(createSimpleUnitsFilter(hsaIds));
+			}
+		});
+	}
+
+	private Future<List<Unit>> submitSimpleFunctionSearch(
+			final List<String> hsaIds) {
+		return this.executor.submit(new Callable<List<Unit>>() {
+			@Override
+			public List<Unit> call() {
+				return searchSimpleFunctions(createSimpleUnitsFilter(hsaIds));
+			}
+		});
+	}
+
+	private List<Unit> searchSimpleUnits(String pSearchFilter) {
+		List<Unit> pReturnValues = new ArrayList<Unit>();
 
-		ArrayOfString pAttributes;
 		try {
 			// Get units
-			pAttributes = this.vgregionWebService
-					.getReturnAttributesForUnit(VGRegionDirectory.KIV);
 			ArrayOfUnit searchUnits = this.vgregionWebService.searchUnit(
-					pSearchFilter, pAttributes, VGRegionDirectory.KIV,
+					pSearchFilter,
+					KivwsAttributeProfile.UNIT_NAME.getArrayOfString(), VGRegionDirectory.KIV,
 					"ou=org,o=vgr", "2");
 
 			List<Entry> attributes;
@@ -437,11 +539,21 @@ public class UnitRepositoryKivws implements UnitRepository {
 				unit.setDn(DN.createDNFromString(u.getDn().getValue()).escape());
 				pReturnValues.add(unit);
 			}
+		} catch (VGRException_Exception e) {
+			this.logger.error(e.getMessage(), e);
+		}
+		return pReturnValues;
+	}
+
+	private List<Unit> searchSimpleFunctions(String pSearchFilter) {
+		List<Unit> pReturnValues = new ArrayList<Unit>();
+
+		try {
+			List<Entry> attributes;
 			// Get functions
-			pAttributes = this.vgregionWebService
-					.getReturnAttributesForFunction(VGRegionDirectory.KIV);
 			ArrayOfFunction searchFunctions = this.vgregionWebService
-					.searchFunction(pSearchFilter, pAttributes,
+					.searchFunction(pSearchFilter,
+							KivwsAttributeProfile.HSA_IDENTITY.getArrayOfString(),
 							VGRegionDirectory.KIV, "ou=org,o=vgr", "2");
 			for (se.vgregion.kivtools.search.svc.ws.domain.kivws.Function u : searchFunctions
 					.getFunction()) {
@@ -461,8 +573,7 @@ public class UnitRepositoryKivws implements UnitRepository {
 				pReturnValues.add(unit);
 			}
 		} catch (VGRException_Exception e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			this.logger.error(e.getMessage(), e);
 		}
 		return pReturnValues;
 	}
@@ -471,15 +582,13 @@ public class UnitRepositoryKivws implements UnitRepository {
 			String hsaHealthCareUnitManagerHsaId) {
 		String pSearchFilter = "(hsaIdentity=" + hsaHealthCareUnitManagerHsaId
 				+ ")";
-		ArrayOfString pAttributes;
 
 		List<se.vgregion.kivtools.search.svc.ws.domain.kivws.Person> pPersons = null;
 		Person pPerson = null;
 		try {
-			pAttributes = vgregionWebService
-					.getReturnAttributesForPerson(VGRegionDirectory.KIV);
 			pPersons = this.vgregionWebService.searchPerson(pSearchFilter,
-					pAttributes, VGRegionDirectory.KIV, "o=vgr", "2")
+					KivwsAttributeProfile.PERSON.getArrayOfString(),
+					VGRegionDirectory.KIV, "o=vgr", "2")
 					.getPerson();
 
 			for (se.vgregion.kivtools.search.svc.ws.domain.kivws.Person p : pPersons) {
@@ -520,19 +629,17 @@ public class UnitRepositoryKivws implements UnitRepository {
 		// return this.searchUnit(this.getSearchBase(),
 		// SearchControls.SUBTREE_SCOPE, searchFilterString);
 
-		Unit pUnit = this.searchUnit(this.getSearchBase(),
-				SearchControls.SUBTREE_SCOPE, searchFilterString, true);
-		if (pUnit.getHsaHealthCareUnitManagerHsaId().length() > 0
-				&& pUnit.getHsaHealthCareUnitManagerHsaId() != null) {
-			pUnit.setHsaHealthCareUnitManagerPerson(this
-					.getHsaHealthCareUnitManagerByHsaID(pUnit
-							.getHsaHealthCareUnitManagerHsaId()));
-		}
-		if (pUnit.getHsaHealthCareUnitMembers().size() > 0) {
-			pUnit.setHsaHealthCareUnitMembersAsUnit(this
-					.getSimpleUnitsByHsaId(pUnit.getHsaHealthCareUnitMembers()));
+		Future<String> memberOf = this.submitMemberOfLookup(hsaId);
+		Unit pUnit = null;
+		try {
+			pUnit = this.searchUnit(this.getSearchBase(),
+					SearchControls.SUBTREE_SCOPE, searchFilterString, true);
+		} finally {
+			if (pUnit == null) {
+				memberOf.cancel(true);
+			}
 		}
-		pUnit.setHsaHealthCareMemberOf(getHsaIdWhereUnitIsHealthCareMember(hsaId));
+		this.addRelatedUnits(pUnit, memberOf);
 
 		return pUnit;
 	}
@@ -550,22 +657,109 @@ public class UnitRepositoryKivws implements UnitRepository {
 		Unit u = null;
 		DistinguishedName distinguishedName = new DistinguishedName(dn.escape()
 				.toString());
-		u = this.lookupUnit(distinguishedName, ATTRIBUTES);
+		u = this.lookupUnit(distinguishedName, KivwsAttributeProfile.UNIT);
 
-		if (u.getHsaHealthCareUnitManagerHsaId().length() > 0
-				&& u.getHsaHealthCareUnitManagerHsaId() != null) {
-			u.setHsaHealthCareUnitManagerPerson(this
-					.getHsaHealthCareUnitManagerByHsaID(u
-							.getHsaHealthCareUnitManagerHsaId()));
+		this.addRelatedUnits(u, this.submitMemberOfLookup(u.getHsaIdentity()));
+
+		return u;
+	}
+
+	/**
+	 * Looks up the manager, the member units and the unit the provided unit is
+	 * a member of concurrently. Lookups that times out are logged and left out
+	 * of the unit.
+	 */
+	private void addRelatedUnits(Unit unit, Future<String> memberOf)
+			throws KivException {
+		Future<Person> manager = null;
+		final String managerHsaId = unit.getHsaHealthCareUnitManagerHsaId();
+		if (managerHsaId != null && managerHsaId.length() > 0) {
+			manager = this.executor.submit(new Callable<Person>() {
+				@Override
+				public Person call() {
+					return getHsaHealthCareUnitManagerByHsaID(managerHsaId);
+				}
+			});
 		}
-		if (u.getHsaHealthCareUnitMembers().size() > 0) {
-			u.setHsaHealthCareUnitMembersAsUnit(this.getSimpleUnitsByHsaId(u
-					.getHsaHealthCareUnitMembers()));
+		Future<List<Unit>> memberUnits = null;
+		Future<List<Unit>> memberFunctions = null;
+		List<String> members = unit.getHsaHealthCareUnitMembers();
+		if (members.size() > 0) {
+			memberUnits = this.submitSimpleUnitSearch(members);
+			memberFunctions = this.submitSimpleFunctionSearch(members);
 		}
-		u.setHsaHealthCareMemberOf(getHsaIdWhereUnitIsHealthCareMember(u
-				.getHsaIdentity()));
 
-		return u;
+		if (manager != null) {
+			try {
+				unit.setHsaHealthCareUnitManagerPerson(this.await(manager,
+						"manager " + managerHsaId));
+			} catch (TimeoutException e) {
+				this.logger.warn(e.getMessage());
+			}
+		}
+		if (memberUnits != null) {
+			List<Unit> memberUnitList = new ArrayList<Unit>();
+			try {
+				memberUnitList.addAll(this.await(memberUnits, "member units "
+						+ members));
+				memberUnitList.addAll(this.await(memberFunctions,
+						"member functions " + members));
+				unit.setHsaHealthCareUnitMembersAsUnit(memberUnitList);
+			} catch (TimeoutException e) {
+				memberFunctions.cancel(true);
+				this.logger.warn(e.getMessage());
+			}
+		}
+		try {
+			unit.setHsaHealthCareMemberOf(this.await(memberOf,
+					"healthcare unit of " + unit.getHsaIdentity()));
+		} catch (TimeoutException e) {
+			this.logger.warn(e.getMessage());
+		}
+	}
+
+	private Future<String> submitMemberOfLookup(final String hsaId) {
+		return this.executor.submit(new Callable<String>() {
+			@Override
+			public String call() throws KivException {
+				return getHsaIdWhereUnitIsHealthCareMember(hsaId);
+			}
+		});
+	}
+
+	/**
+	 * Waits at most callTimeout milliseconds for a concurrent web service call
+	 * to complete. A call that times out is cancelled.
+	 */
+	private <T> T await(Future<T> call, String description)
+			throws KivException, TimeoutException {
+		try {
+			return call.get(this.callTimeout, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			call.cancel(true);
+			throw new TimeoutException("Timed out after " + this.callTimeout
+					+ " ms waiting for " + description);
+		} catch (InterruptedException e) {
+			call.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new KivException("Interrupted while waiting for "
+					+ description);
+		} catch (ExecutionException e) {
+			throw this.toKivException(e.getCause());
+		}
+	}
+
+	private KivException toKivException(Throwable cause) {
+		if (cause instanceof KivException) {
+			return (KivException) cause;
+		}
+		if (cause instanceof RuntimeException) {
+			throw (RuntimeException) cause;
+		}
+		if (cause instanceof Error) {
+			throw (Error) cause;
+		}
+		return new KivException(cause.getMessage());
 	}
 
 	/**
@@ -596,7 +790,7 @@ public class UnitRepositoryKivws implements UnitRepository {
 		// cast to List<String> is ok
 		List<String> result = this.searchSingleAttribute(this.getSearchBase(),
 				searchFilter, SearchControls.SUBTREE_SCOPE,
-				Arrays.asList("hsaIdentity"), UnitLdapAttributes.HSA_IDENTITY);
+				UnitLdapAttributes.HSA_IDENTITY);
 		return result;
 	}
 
@@ -615,12 +809,40 @@ public class UnitRepositoryKivws implements UnitRepository {
 
 		List<Unit> result = new ArrayList<Unit>();
 		result.addAll(this.searchUnits(this.getSearchBase(), searchFilter,
-				SearchControls.SUBTREE_SCOPE, ATTRIBUTES, false));
+				SearchControls.SUBTREE_SCOPE, KivwsAttributeProfile.UNIT, false));
 		result.addAll(this.searchFunctionUnits(this.getSearchBase(),
-				searchFilter, SearchControls.SUBTREE_SCOPE, ATTRIBUTES));
+				searchFilter, SearchControls.SUBTREE_SCOPE, KivwsAttributeProfile.UNIT));
 		return result;
 	}
 
+	/**
+	 * Retrieves all Units and functions filtered based on if only units for
+	 * public display should be retrieved. The web service does not support
+	 * paging so units and functions are handed to the consumer as one page
+	 * each.
+	 * 
+	 * @param onlyPublicUnits
+	 *            Only select units from search that should be displayed to the
+	 *            public.
+	 * @param consumer
+	 *            The consumer to hand each page of units to.
+	 * @throws KivException
+	 *             If the consumer fails.
+	 */
+	@Override
+	public void getAllUnits(boolean onlyPublicUnits,
+			PageConsumer<Unit> consumer) throws KivException {
+		String searchFilter = this.createAllUnitsFilter(onlyPublicUnits);
+
+		boolean proceed = consumer.consume(this.searchUnits(
+				this.getSearchBase(), searchFilter,
+				SearchControls.SUBTREE_SCOPE, KivwsAttributeProfile.UNIT, false));
+		if (proceed) {
+			consumer.consume(this.searchFunctionUnits(this.getSearchBase(),
+					searchFilter, SearchControls.SUBTREE_SCOPE, KivwsAttributeProfile.UNIT));
+		}
+	}
+
 	private String createAllUnitsFilter(boolean onlyPublicUnits) {
 		List<String> filterList = new ArrayList<String>();
 		if (onlyPublicUnits) {
@@ -631,15 +853,35 @@ public class UnitRepositoryKivws implements UnitRepository {
 		return this.makeAnd(filterList);
 	}
 
-	private Unit searchUnit(DistinguishedName searchBase, int searchScope,
-			String searchFilter, boolean mapDeliverypoint) throws KivException {
-		// Since UnitMapper return Units we are certain that the suppression is
-		// ok
-		List<Unit> result = this.searchUnits(searchBase, searchFilter,
-				searchScope, ATTRIBUTES, mapDeliverypoint);
-		List<Unit> resultFunctions = this.searchFunctionUnits(searchBase,
-				searchFilter, searchScope, ATTRIBUTES);
-		result.addAll(resultFunctions);
+	private Unit searchUnit(final DistinguishedName searchBase,
+			final int searchScope, final String searchFilter,
+			final boolean mapDeliverypoint) throws KivException {
+		// Units and functions are searched for at the same time.
+		Future<List<Unit>> units = this.executor
+				.submit(new Callable<List<Unit>>() {
+					@Override
+					public List<Unit> call() {
+						return searchUnits(searchBase, searchFilter,
+								searchScope, KivwsAttributeProfile.UNIT, mapDeliverypoint);
+					}
+				});
+		Future<List<Unit>> functions = this.executor
+				.submit(new Callable<List<Unit>>() {
+					@Override
+					public List<Unit> call() {
+						return searchFunctionUnits(searchBase, searchFilter,
+								searchScope, KivwsAttributeProfile.UNIT);
+					}
+				});
+
+		List<Unit> result = new ArrayList<Unit>();
+		try {
+			result.addAll(this.await(units, "units " + searchFilter));
+			result.addAll(this.await(functions, "functions " + searchFilter));
+		} catch (TimeoutException e) {
+			functions.cancel(true);
+			throw new KivException(e.getMessage());
+		}
 		if (result.size() == 0) {
 			throw new KivNoDataFoundException("Error getting unit from server");
 		}
@@ -660,7 +902,7 @@ public class UnitRepositoryKivws implements UnitRepository {
 		// ok
 		Unit pRetUnit;
 		List<Unit> result = this.searchUnits(searchBase, searchFilter,
-				searchScope, ATTRIBUTES, false);
+				searchScope, KivwsAttributeProfile.HSA_IDENTITY, false);
 		if (result.size() == 0) {
 			pRetUnit = null;
 		} else {
@@ -1150,9 +1392,9 @@ public class UnitRepositoryKivws implements UnitRepository {
 		// Since UnitMapper return a Unit we are certain that the cast to
 		// List<Unit> is ok
 		List<Unit> searchOU = this.searchUnits(parentDn, "(ou=*)",
-				SearchControls.SUBTREE_SCOPE, ATTRIBUTES, false);
+				SearchControls.SUBTREE_SCOPE, KivwsAttributeProfile.UNIT, false);
 		List<Unit> searchCN = this.searchFunctionUnits(parentDn, "(cn=*)",
-				SearchControls.SUBTREE_SCOPE, ATTRIBUTES);
+				SearchControls.SUBTREE_SCOPE, KivwsAttributeProfile.UNIT);
 		searchOU.addAll(searchCN);
 		subUnits = this.cleanAndSortResult(searchOU, null);
 		this.removeUnitParentFromList(parentUnit, subUnits);
@@ -1181,7 +1423,7 @@ public class UnitRepositoryKivws implements UnitRepository {
 		// Since UnitMapper return a Unit we are certain that the cast to
 		// List<Unit> is ok
 		List<Unit> search = this.searchUnits(parentDn, "(ou=*)",
-				SearchControls.ONELEVEL_SCOPE, ATTRIBUTES, false);
+				SearchControls.ONELEVEL_SCOPE, KivwsAttributeProfile.UNIT, false);
 		subUnits = this.cleanAndSortResult(search, null);
 		this.removeUnitParentFromList(parentUnit, subUnits);
 		this.getMaxResultList(subUnits.size(), subUnits);
@@ -1227,13 +1469,12 @@ public class UnitRepositoryKivws implements UnitRepository {
 		return vgrId;
 	}
 
-	private Unit lookupUnit(Name name, List<String> attrs) {
+	private Unit lookupUnit(Name name, KivwsAttributeProfile attrs) {
 		Arguments.notNull("name", name);
 		Arguments.notNull("attrs", attrs);
 
 		Unit unit = null;
-		ArrayOfString arrayOfString = new ArrayOfString();
-		arrayOfString.getString().addAll(attrs);
+		ArrayOfString arrayOfString = attrs.getArrayOfString();
 
 		try {
 			String filter = "(" + name.get(name.size() - 1) + ")";
@@ -1251,10 +1492,9 @@ public class UnitRepositoryKivws implements UnitRepository {
 	}
 
 	private List<Unit> searchFunctionUnits(Name base, String filter,
-			int searchScope, List<String> attrs) {
+			int searchScope, KivwsAttributeProfile attrs) {
 		List<Unit> resultUnits = new ArrayList<Unit>();
-		ArrayOfString arrayOfString = new ArrayOfString();
-		arrayOfString.getString().addAll(attrs);
+		ArrayOfString arrayOfString = attrs.getArrayOfString();
 		try {
 			ArrayOfFunction searchFunction = this.vgregionWebService
 					.searchFunction(
@@ -1269,12 +1509,13 @@ public class UnitRepositoryKivws implements UnitRepository {
 	}
 
 	private List<String> searchSingleAttribute(Name base, String filter,
-			int searchScope, List<String> attrs, String mappingAttribute) {
+			int searchScope, String mappingAttribute) {
 		List<String> result = new ArrayList<String>();
 		SingleAttributeMapper singleAttributeMaper = new SingleAttributeMapper(
 				mappingAttribute);
+		// Only the mapped attribute is requested.
 		ArrayOfString arrayOfString = new ArrayOfString();
-		arrayOfString.getString().addAll(attrs);
+		arrayOfString.getString().add(mappingAttribute);
 		try {
 			// Get all functions and map.
 			ArrayOfFunction searchFunction = this.vgregionWebService
@@ -1303,10 +1544,9 @@ public class UnitRepositoryKivws implements UnitRepository {
 	}
 
 	private List<Unit> searchUnits(Name base, String filter, int searchScope,
-			List<String> attrs, boolean mapDeliverypoints) {
+			KivwsAttributeProfile attrs, boolean mapDeliverypoints) {
 		List<Unit> result = new ArrayList<Unit>();
-		ArrayOfString arrayOfString = new ArrayOfString();
-		arrayOfString.getString().addAll(attrs);
+		ArrayOfString arrayOfString = attrs.getArrayOfString();
 
 		try {
 			//long start = System.currentTimeMillis();
@@ -1343,28 +1583,29 @@ public class UnitRepositoryKivws implements UnitRepository {
 
 	private List<Unit> mapKivwsUnitToUnit(ArrayOfUnit arrayOfUnit,
 			boolean mapDeliverypoint) {
-		List<se.vgregion.kivtools.search.svc.ws.domain.kivws.Unit> unit = arrayOfUnit
-				.getUnit();
-		List<Unit> result = new ArrayList<Unit>();
-
-		for (se.vgregion.kivtools.search.svc.ws.domain.kivws.Unit kivwsUnit : unit) {
-			result.add(this.kivwsUnitMapper.mapFromContext(kivwsUnit,
-					mapDeliverypoint));
-
-		}
-
-		return result;
+		// The delivery points of all units are fetched in one go by the mapper.
+		return this.kivwsUnitMapper.mapFromContexts(arrayOfUnit.getUnit(),
+				mapDeliverypoint);
 	}
 
 	private List<Unit> mapKivwsUnitFunctionToUnit(
 			ArrayOfFunction arrayOfFunction, boolean mapDeliverypoint) {
-		List<Unit> result = new ArrayList<Unit>();
-		List<Function> function = arrayOfFunction.getFunction();
-		for (Function function2 : function) {
-			result.add(this.kivwsUnitMapper.mapFromContext(function2,
-					mapDeliverypoint));
-		}
-		return result;
+		return this.kivwsUnitMapper.mapFromContexts(
+				arrayOfFunction.getFunction(), mapDeliverypoint);
 	}
 
+	/**
+	 * Creates daemon threads for the concurrent web service calls.
+	 */
+	private static final class CallThreadFactory implements ThreadFactory {
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "kivws-unit-call-"
+					+ this.threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
 }
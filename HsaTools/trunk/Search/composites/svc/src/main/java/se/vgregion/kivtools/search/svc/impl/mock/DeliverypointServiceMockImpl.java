@@ -1,8 +1,11 @@
 package se.vgregion.kivtools.search.svc.impl.mock;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import se.vgregion.kivtools.search.domain.Deliverypoint;
 import se.vgregion.kivtools.search.domain.Unit;
@@ -25,6 +28,19 @@ public class DeliverypointServiceMockImpl implements DeliverypointService {
 		return createDeliverypoints(null, unitHsaid);
 	}
 
+	@Override
+	public Map<String, List<Deliverypoint>> searchDeliveryPointsForUnits(
+			Collection<String> unitHsaids) throws KivException {
+		Map<String, List<Deliverypoint>> retval = new HashMap<String, List<Deliverypoint>>();
+		for (String unitHsaid : unitHsaids) {
+			List<Deliverypoint> deliverypoints = searchDeliveryPointsForUnit(unitHsaid);
+			if (deliverypoints != null && !deliverypoints.isEmpty()) {
+				retval.put(unitHsaid, deliverypoints);
+			}
+		}
+		return retval;
+	}
+
 	@Override
 	public Deliverypoint findDeliveryPointById(String hsaId)
 			throws KivException {
@@ -23,7 +23,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import se.vgregion.kivtools.search.domain.Deliverypoint;
 import se.vgregion.kivtools.search.domain.Employment;
@@ -35,6 +37,7 @@ import se.vgregion.kivtools.search.domain.values.HealthcareType;
 import se.vgregion.kivtools.search.domain.values.PhoneNumber;
 import se.vgregion.kivtools.search.domain.values.WeekdayTime;
 import se.vgregion.kivtools.search.exceptions.KivException;
+import se.vgregion.kivtools.search.svc.PageConsumer;
 import se.vgregion.kivtools.search.svc.SearchService;
 import se.vgregion.kivtools.search.svc.SikSearchResultList;
 import se.vgregion.kivtools.search.svc.ldap.criterions.SearchPersonCriterions;
@@ -95,6 +98,15 @@ public class SearchServiceMockImpl implements SearchService {
     return employments;
   }
 
+  @Override
+  public Map<String, List<Employment>> getEmploymentsByPersonDn(List<String> personDns) throws KivException {
+    Map<String, List<Employment>> employments = new HashMap<String, List<Employment>>();
+    for (String personDn : personDns) {
+      employments.put(personDn, this.getEmployments(personDn));
+    }
+    return employments;
+  }
+
   @Override
   public Person getPersonById(String vgrId) throws KivException {
     Person p = null;
@@ -397,6 +409,16 @@ public class SearchServiceMockImpl implements SearchService {
     return this.unitList;
   }
 
+  @Override
+  public void getAllUnits(boolean onlyPublicUnits, PageConsumer<Unit> consumer) throws KivException {
+    consumer.consume(this.getAllUnits(onlyPublicUnits));
+  }
+
+  @Override
+  public void getAllPersons(PageConsumer<Person> consumer) throws KivException {
+    consumer.consume(this.getAllPersons());
+  }
+
   @Override
   public SikSearchResultList<Unit> getFirstLevelSubUnits(Unit parentUnit) throws KivException {
     return null;
@@ -0,0 +1,127 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.svc.kiv.organizationtree;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import se.vgregion.kivtools.search.domain.Unit;
+import se.vgregion.kivtools.search.interfaces.UnitComposition;
+
+/**
+ * Detects the changes between two versions of a flat organization using a hash join on hsaIdentity. Each unit is
+ * visited a constant number of times and the relevant fields of each unit are hashed once, so the time needed grows
+ * linearly with the size of the organization. Fields are only compared one by one for units whose hashes differ.
+ * Changes are handed to an {@link OrganizationChangeListener} as they are found.
+ */
+public class OrganizationChangeDetector {
+    // 64-bit FNV-1a, the chance of two different sets of field values getting the same hash is negligible.
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final UnitChangeField[] FIELDS = UnitChangeField.values();
+
+    /**
+     * Detects the changes between the provided organizations. Compositions without a unit are ignored.
+     * 
+     * @param oldFlatOrganization The organization as it was.
+     * @param newFlatOrganization The organization as it is now.
+     * @param listener The listener to report changes to. Removed units are reported last.
+     */
+    public void detectChanges(List<UnitComposition<Unit>> oldFlatOrganization, List<UnitComposition<Unit>> newFlatOrganization,
+            OrganizationChangeListener listener) {
+        Map<String, HashedUnit> oldUnits = new LinkedHashMap<String, HashedUnit>(oldFlatOrganization.size() * 2);
+        for (UnitComposition<Unit> unitComposition : oldFlatOrganization) {
+            if (unitComposition.getUnit() != null) {
+                oldUnits.put(unitComposition.getUnit().getHsaIdentity(), new HashedUnit(unitComposition));
+            }
+        }
+
+        Map<String, UnitComposition<Unit>> newUnitsByDn = new HashMap<String, UnitComposition<Unit>>(newFlatOrganization.size() * 2);
+        for (UnitComposition<Unit> unitComposition : newFlatOrganization) {
+            if (unitComposition.getUnit() != null) {
+                newUnitsByDn.put(unitComposition.getDn(), unitComposition);
+            }
+        }
+
+        for (UnitComposition<Unit> newUnit : newFlatOrganization) {
+            if (newUnit.getUnit() != null) {
+                HashedUnit oldUnit = oldUnits.remove(newUnit.getUnit().getHsaIdentity());
+                if (oldUnit == null) {
+                    listener.unitAdded(newUnit, getParentHsaIdentity(newUnitsByDn, newUnit));
+                } else {
+                    if (!newUnit.getDn().equals(oldUnit.unitComposition.getDn())) {
+                        listener.unitMoved(oldUnit.unitComposition, newUnit, getParentHsaIdentity(newUnitsByDn, newUnit));
+                    }
+                    if (hash(newUnit.getUnit()) != oldUnit.hash) {
+                        reportChangedFields(oldUnit.unitComposition, newUnit, listener);
+                    }
+                }
+            }
+        }
+
+        for (HashedUnit oldUnit : oldUnits.values()) {
+            listener.unitRemoved(oldUnit.unitComposition);
+        }
+    }
+
+    private void reportChangedFields(UnitComposition<Unit> oldUnit, UnitComposition<Unit> newUnit, OrganizationChangeListener listener) {
+        for (UnitChangeField field : FIELDS) {
+            String oldValue = field.getValue(oldUnit.getUnit());
+            String newValue = field.getValue(newUnit.getUnit());
+            if (!oldValue.equals(newValue)) {
+                listener.unitChanged(oldUnit, newUnit, field, oldValue, newValue);
+            }
+        }
+    }
+
+    private String getParentHsaIdentity(Map<String, UnitComposition<Unit>> unitsByDn, UnitComposition<Unit> unitComposition) {
+        String parentHsaIdentity = "";
+        UnitComposition<Unit> parent = unitsByDn.get(unitComposition.getParentDn());
+        if (parent != null) {
+            parentHsaIdentity = parent.getUnit().getHsaIdentity();
+        }
+        return parentHsaIdentity;
+    }
+
+    private static long hash(Unit unit) {
+        long hash = FNV_OFFSET_BASIS;
+        for (UnitChangeField field : FIELDS) {
+            String value = field.getValue(unit);
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+            }
+            // Separate the fields so that moving characters between two fields changes the hash.
+            hash = (hash ^ 0xffff) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static final class HashedUnit {
+        private final UnitComposition<Unit> unitComposition;
+        private final long hash;
+
+        private HashedUnit(UnitComposition<Unit> unitComposition) {
+            this.unitComposition = unitComposition;
+            this.hash = hash(unitComposition.getUnit());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.svc.kiv.organizationtree;
+
+import se.vgregion.kivtools.search.domain.Unit;
+import se.vgregion.kivtools.search.interfaces.UnitComposition;
+
+/**
+ * Callback which receives the changes found by an {@link OrganizationChangeDetector} as they are found. Nothing is
+ * collected by the detector itself, so a listener that writes each change to a report does not need to keep the
+ * changes in memory.
+ */
+public interface OrganizationChangeListener {
+    /**
+     * Called for a unit that only exists in the new organization.
+     * 
+     * @param unit The added unit.
+     * @param parentHsaIdentity The hsaIdentity of the parent of the unit in the new organization, empty if the parent is
+     *            not part of the new organization.
+     */
+    void unitAdded(UnitComposition<Unit> unit, String parentHsaIdentity);
+
+    /**
+     * Called for a unit that only exists in the old organization.
+     * 
+     * @param unit The removed unit.
+     */
+    void unitRemoved(UnitComposition<Unit> unit);
+
+    /**
+     * Called for a unit that has a different DN in the new organization.
+     * 
+     * @param oldUnit The unit in the old organization.
+     * @param newUnit The unit in the new organization.
+     * @param parentHsaIdentity The hsaIdentity of the new parent of the unit, empty if the parent is not part of the new
+     *            organization.
+     */
+    void unitMoved(UnitComposition<Unit> oldUnit, UnitComposition<Unit> newUnit, String parentHsaIdentity);
+
+    /**
+     * Called once for each field that differs between the old and new version of a unit. All changed fields of a unit
+     * are reported one after another.
+     * 
+     * @param oldUnit The unit in the old organization.
+     * @param newUnit The unit in the new organization.
+     * @param field The field that has changed.
+     * @param oldValue The value of the field in the old organization.
+     * @param newValue The value of the field in the new organization.
+     */
+    void unitChanged(UnitComposition<Unit> oldUnit, UnitComposition<Unit> newUnit, UnitChangeField field, String oldValue, String newValue);
+}
@@ -0,0 +1,165 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.svc.kiv.organizationtree;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import se.vgregion.kivtools.search.domain.Unit;
+import se.vgregion.kivtools.search.domain.values.Address;
+import se.vgregion.kivtools.search.domain.values.PhoneNumber;
+import se.vgregion.kivtools.util.StringUtil;
+import se.vgregion.kivtools.util.time.TimeUtil;
+
+/**
+ * The unit attributes that are compared when detecting changes in the organization. Each field formats its value as a
+ * string so that values can be hashed, compared and reported the same way regardless of type. Missing values are
+ * formatted as an empty string.
+ */
+public enum UnitChangeField {
+    NAME("name") {
+        @Override
+        String format(Unit unit) {
+            return unit.getName();
+        }
+    },
+    DESCRIPTION("description") {
+        @Override
+        String format(Unit unit) {
+            return StringUtil.concatenate(unit.getDescription(), "$");
+        }
+    },
+    MUNICIPALITY_CODE("hsaMunicipalityCode") {
+        @Override
+        String format(Unit unit) {
+            return unit.getHsaMunicipalityCode();
+        }
+    },
+    STREET_ADDRESS("hsaStreetAddress") {
+        @Override
+        String format(Unit unit) {
+            return formatAddress(unit.getHsaStreetAddress());
+        }
+    },
+    POSTAL_ADDRESS("hsaPostalAddress") {
+        @Override
+        String format(Unit unit) {
+            return formatAddress(unit.getHsaPostalAddress());
+        }
+    },
+    PUBLIC_TELEPHONE_NUMBER("hsaPublicTelephoneNumber") {
+        @Override
+        String format(Unit unit) {
+            return formatPhoneNumbers(unit.getHsaPublicTelephoneNumber());
+        }
+    },
+    MAIL("mail") {
+        @Override
+        String format(Unit unit) {
+            return unit.getMail();
+        }
+    },
+    LABELED_URI("labeledURI") {
+        @Override
+        String format(Unit unit) {
+            return unit.getLabeledURI();
+        }
+    },
+    BUSINESS_CLASSIFICATION_CODE("hsaBusinessClassificationCode") {
+        @Override
+        String format(Unit unit) {
+            return StringUtil.concatenate(unit.getHsaBusinessClassificationCode(), "$");
+        }
+    },
+    CARE_TYPE("careType") {
+        @Override
+        String format(Unit unit) {
+            return unit.getCareType();
+        }
+    },
+    RESPONSIBILITY_NUMBER("vgrAnsvarsnummer") {
+        @Override
+        String format(Unit unit) {
+            return StringUtil.concatenate(unit.getVgrAnsvarsnummer(), "$");
+        }
+    },
+    END_DATE("hsaEndDate") {
+        @Override
+        String format(Unit unit) {
+            Date endDate = unit.getHsaEndDate();
+            return endDate != null ? TimeUtil.formatDateW3C(endDate) : null;
+        }
+    };
+
+    private final String attributeName;
+
+    private UnitChangeField(String attributeName) {
+        this.attributeName = attributeName;
+    }
+
+    /**
+     * Getter for the name of the directory attribute this field corresponds to.
+     * 
+     * @return The attribute name.
+     */
+    public String getAttributeName() {
+        return attributeName;
+    }
+
+    /**
+     * Gets the value of this field for the provided unit.
+     * 
+     * @param unit The unit to get the value for.
+     * @return The formatted value, never null.
+     */
+    public String getValue(Unit unit) {
+        return StringUtil.emptyStringIfNull(format(unit));
+    }
+
+    abstract String format(Unit unit);
+
+    private static String formatAddress(Address address) {
+        String result = null;
+        if (address != null) {
+            List<String> parts = new ArrayList<String>();
+            parts.add(address.getStreet());
+            if (address.getZipCode() != null) {
+                parts.add(address.getZipCode().getZipCode());
+            }
+            parts.add(address.getCity());
+            if (address.getAdditionalInfo() != null) {
+                parts.addAll(address.getAdditionalInfo());
+            }
+            result = StringUtil.concatenate(parts, "$");
+        }
+        return result;
+    }
+
+    private static String formatPhoneNumbers(List<PhoneNumber> phoneNumbers) {
+        List<String> parts = new ArrayList<String>();
+        if (phoneNumbers != null) {
+            for (PhoneNumber phoneNumber : phoneNumbers) {
+                parts.add(phoneNumber.getPhoneNumber());
+            }
+        }
+        return StringUtil.concatenate(parts, "$");
+    }
+}
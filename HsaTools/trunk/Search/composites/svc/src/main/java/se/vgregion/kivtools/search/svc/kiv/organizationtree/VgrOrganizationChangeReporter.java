@@ -20,8 +20,6 @@
 package se.vgregion.kivtools.search.svc.kiv.organizationtree;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,119 +30,60 @@ import se.vgregion.kivtools.search.interfaces.UnitComposition;
 
 public class VgrOrganizationChangeReporter implements OrganizationChangeReporter<Unit> {
 
-    private List<UnitComposition<Unit>> listSortedByDn;
+    private final OrganizationChangeDetector organizationChangeDetector = new OrganizationChangeDetector();
 
     @Override
     public OrganizationChangeReport<Unit> createOrganizationChangeReport(
             List<UnitComposition<Unit>> oldFlatOrganization, List<UnitComposition<Unit>> newFlatOrganization) {
 
-        List<UnitComposition<Unit>> removedUnits = new ArrayList<UnitComposition<Unit>>();
-        Map<String, List<UnitComposition<Unit>>> movedUnits = new HashMap<String, List<UnitComposition<Unit>>>();
-        List<UnitComposition<Unit>> changedUnits = new ArrayList<UnitComposition<Unit>>();
-        Map<String, List<UnitComposition<Unit>>> addedUnits = new HashMap<String, List<UnitComposition<Unit>>>();
+        ReportingOrganizationChangeListener listener = new ReportingOrganizationChangeListener();
+        organizationChangeDetector.detectChanges(oldFlatOrganization, newFlatOrganization, listener);
 
-        // Ensure list sorted
-        Collections.sort(oldFlatOrganization);
-        // Ensure list sorted
-        Collections.sort(newFlatOrganization);
-
-        List<UnitComposition<Unit>> unitCompositionsSortedByDn = getSortedListByDn(newFlatOrganization);
-
-        for (UnitComposition<Unit> oldUnitComposition : oldFlatOrganization) {
-            // Search for unit in list
-            int index = Collections.binarySearch(newFlatOrganization, oldUnitComposition);
-            if (index < 0) {
-                removedUnits.add(oldUnitComposition);
-            } else {
-                UnitComposition<Unit> newUnitComposition = newFlatOrganization.get(index);
-                if (!newUnitComposition.getDn().equals(oldUnitComposition.getDn())) {
-
-                    UnitComposition<Unit> parentUnitComposition = findParentUnitCompositionInList(
-                            unitCompositionsSortedByDn, newUnitComposition);
-                    // Put the current moved unitcomposition in map with the parent unitcompositions's hsaIdentity
-                    // as key.
-                    putUnitCompositionInMap(movedUnits, newUnitComposition, parentUnitComposition);
-                }
-                if (isUnitChanged(newUnitComposition, oldUnitComposition)) {
-                    changedUnits.add(newUnitComposition);
-                }
-            }
-        }
-
-        for (UnitComposition<Unit> newUnitComposition : newFlatOrganization) {
-            // Search for unit in list
-            int index = Collections.binarySearch(oldFlatOrganization, newUnitComposition);
-            if (index < 0) {
-                UnitComposition<Unit> parentUnitComposition = findParentUnitCompositionInList(
-                        unitCompositionsSortedByDn, newUnitComposition);
-
-                putUnitCompositionInMap(addedUnits, newUnitComposition, parentUnitComposition);
-            }
-        }
-        OrganizationChangeReport<Unit> organizationChangeReport = new OrganizationChangeReport<Unit>(addedUnits,
-                removedUnits, movedUnits, changedUnits);
+        OrganizationChangeReport<Unit> organizationChangeReport = new OrganizationChangeReport<Unit>(
+                listener.addedUnits, listener.removedUnits, listener.movedUnits, listener.changedUnits);
         return organizationChangeReport;
     }
 
-    private void putUnitCompositionInMap(Map<String, List<UnitComposition<Unit>>> movedUnits,
-            UnitComposition<Unit> newUnitComposition, UnitComposition<Unit> parentUnitComposition) {
-        String parentUnitHsaId = "";
-        if (parentUnitComposition != null) {
-            parentUnitHsaId = parentUnitComposition.getUnit().getHsaIdentity();
-        }
-        List<UnitComposition<Unit>> list = movedUnits.get(parentUnitHsaId);
-        if (list == null) {
-            list = new ArrayList<UnitComposition<Unit>>();
-            movedUnits.put(parentUnitHsaId, list);
-        }
-        list.add(newUnitComposition);
-    }
+    // Collects the reported changes in the structures used by OrganizationChangeReport.
+    private static class ReportingOrganizationChangeListener implements OrganizationChangeListener {
+        private final List<UnitComposition<Unit>> removedUnits = new ArrayList<UnitComposition<Unit>>();
+        private final Map<String, List<UnitComposition<Unit>>> movedUnits = new HashMap<String, List<UnitComposition<Unit>>>();
+        private final List<UnitComposition<Unit>> changedUnits = new ArrayList<UnitComposition<Unit>>();
+        private final Map<String, List<UnitComposition<Unit>>> addedUnits = new HashMap<String, List<UnitComposition<Unit>>>();
 
-    private UnitComposition<Unit> findParentUnitCompositionInList(List<UnitComposition<Unit>> listSorted,
-            UnitComposition<Unit> unitComposition) {
-        UnitComposition<Unit> parentUnitComposition = null;
-        // Lookup index of parent unitcomposition for the current unit.
-        int binarySearchParentIndex = Collections.binarySearch(listSorted, unitComposition,
-                new ComarableDnToLookupParentUnit());
-        if (binarySearchParentIndex > -1) {
-            parentUnitComposition = listSorted.get(binarySearchParentIndex);
+        @Override
+        public void unitAdded(UnitComposition<Unit> unit, String parentHsaIdentity) {
+            putUnitCompositionInMap(addedUnits, unit, parentHsaIdentity);
         }
-        return parentUnitComposition;
-    }
-
-    private boolean isUnitChanged(UnitComposition<Unit> newUnitComposition,
-            UnitComposition<Unit> oldUnitComposition) {
-        boolean isChanged = true;
-        isChanged = !newUnitComposition.getUnit().getName().equals(oldUnitComposition.getUnit().getName());
-        return isChanged;
-    }
 
-    private List<UnitComposition<Unit>> getSortedListByDn(List<UnitComposition<Unit>> unitCompositions) {
-        // Only do this once
-        if (listSortedByDn == null) {
-            listSortedByDn = new ArrayList<UnitComposition<Unit>>(unitCompositions);
-            ComarableDn comarableDn = new ComarableDn();
-            Collections.sort(listSortedByDn, comarableDn);
+        @Override
+        public void unitRemoved(UnitComposition<Unit> unit) {
+            removedUnits.add(unit);
         }
-        return listSortedByDn;
-    }
-
-    // Used for sort unitComposition list in DN string order
-    class ComarableDn implements Comparator<UnitComposition<Unit>> {
 
         @Override
-        public int compare(UnitComposition<Unit> o1, UnitComposition<Unit> o2) {
-            return o1.getDn().compareTo(o2.getDn());
+        public void unitMoved(UnitComposition<Unit> oldUnit, UnitComposition<Unit> newUnit, String parentHsaIdentity) {
+            // Put the current moved unitcomposition in map with the parent unitcompositions's hsaIdentity as key.
+            putUnitCompositionInMap(movedUnits, newUnit, parentHsaIdentity);
         }
 
-    }
-
-    // Used for lookup parent Unitcomposition in list.
-    class ComarableDnToLookupParentUnit implements Comparator<UnitComposition<Unit>> {
-
         @Override
-        public int compare(UnitComposition<Unit> o1, UnitComposition<Unit> o2) {
-            return o1.getDn().compareTo(o2.getParentDn());
+        public void unitChanged(UnitComposition<Unit> oldUnit, UnitComposition<Unit> newUnit, UnitChangeField field,
+                String oldValue, String newValue) {
+            // All changed fields of a unit are reported in sequence, only add the unit for the first one.
+            if (changedUnits.isEmpty() || changedUnits.get(changedUnits.size() - 1) != newUnit) {
+                changedUnits.add(newUnit);
+            }
+        }
+
+        private void putUnitCompositionInMap(Map<String, List<UnitComposition<Unit>>> units,
+                UnitComposition<Unit> unitComposition, String parentUnitHsaId) {
+            List<UnitComposition<Unit>> list = units.get(parentUnitHsaId);
+            if (list == null) {
+                list = new ArrayList<UnitComposition<Unit>>();
+                units.put(parentUnitHsaId, list);
+            }
+            list.add(unitComposition);
         }
     }
 }
@@ -38,6 +38,7 @@ public class VgrUnitComposition implements UnitComposition<Unit> {
     private static final long serialVersionUID = 1452523370194015103L;
     private String unitDn;
     private Unit unit;
+    private transient String parentDn;
     private List<UnitComposition<Unit>> childUnits = new ArrayList<UnitComposition<Unit>>();
 
     /**
@@ -59,11 +60,16 @@ public class VgrUnitComposition implements UnitComposition<Unit> {
 
     @Override
     public String getParentDn() {
-        String value = "";
-        if (!StringUtil.isEmpty(unitDn)) {
-            DistinguishedName distinguishedName = new DistinguishedName(unitDn);
-            distinguishedName.removeLast();
-            value = distinguishedName.toString();
+        // The parent dn is used by comparators during sorting so it is only parsed once.
+        String value = parentDn;
+        if (value == null) {
+            value = "";
+            if (!StringUtil.isEmpty(unitDn)) {
+                DistinguishedName distinguishedName = new DistinguishedName(unitDn);
+                distinguishedName.removeLast();
+                value = distinguishedName.toString();
+            }
+            parentDn = value;
         }
         return value;
     }
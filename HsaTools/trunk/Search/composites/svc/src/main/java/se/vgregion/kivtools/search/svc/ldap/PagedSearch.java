@@ -0,0 +1,106 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.svc.ldap;
+
+import java.util.List;
+
+import javax.naming.Name;
+import javax.naming.directory.SearchControls;
+
+import org.springframework.ldap.control.PagedResultsCookie;
+import org.springframework.ldap.control.PagedResultsDirContextProcessor;
+import org.springframework.ldap.core.ContextMapper;
+import org.springframework.ldap.core.LdapTemplate;
+
+import se.vgregion.kivtools.search.exceptions.KivException;
+import se.vgregion.kivtools.search.svc.PageConsumer;
+import se.vgregion.kivtools.util.Arguments;
+
+/**
+ * Performs a search using the LDAP paged results control and hands the mapped entries to a {@link PageConsumer} one
+ * page at a time. Only one page of entries is held in memory at a time and the directory server is never asked for more
+ * entries than the page size in a single request.
+ * 
+ * @param <T> The type of objects the ContextMapper maps entries to.
+ */
+public class PagedSearch<T> {
+  private final LdapTemplate ldapTemplate;
+  private final ContextMapper contextMapper;
+  private final int pageSize;
+
+  /**
+   * Constructs a new PagedSearch.
+   * 
+   * @param ldapTemplate The LdapTemplate to use for the search.
+   * @param contextMapper The ContextMapper to use to map each entry. Must return objects of type T.
+   * @param pageSize The maximum number of entries to fetch in each request.
+   */
+  public PagedSearch(LdapTemplate ldapTemplate, ContextMapper contextMapper, int pageSize) {
+    Arguments.notNull("ldapTemplate", ldapTemplate);
+    Arguments.notNull("contextMapper", contextMapper);
+    if (pageSize < 1) {
+      throw new IllegalArgumentException("pageSize must be at least 1");
+    }
+    this.ldapTemplate = ldapTemplate;
+    this.contextMapper = contextMapper;
+    this.pageSize = pageSize;
+  }
+
+  /**
+   * Performs the search and hands each page to the provided consumer.
+   * 
+   * @param base The base to search from.
+   * @param filter The search filter.
+   * @param searchScope The search scope to use.
+   * @param attributes The attributes to return for each entry.
+   * @param consumer The consumer to hand each page to.
+   * @return The number of entries that were handed to the consumer.
+   * @throws KivException If the consumer throws a KivException.
+   * @throws org.springframework.ldap.NamingException If the search fails.
+   */
+  public int search(Name base, String filter, int searchScope, String[] attributes, PageConsumer<T> consumer) throws KivException {
+    SearchControls searchControls = new SearchControls();
+    searchControls.setSearchScope(searchScope);
+    searchControls.setReturningAttributes(attributes);
+
+    PagedResultsDirContextProcessor control = new PagedResultsDirContextProcessor(this.pageSize);
+    int count = 0;
+    boolean proceed = true;
+
+    do {
+      // The ContextMapper is documented to return objects of type T.
+      @SuppressWarnings("unchecked")
+      List<T> page = this.ldapTemplate.search(base, filter, searchControls, this.contextMapper, control);
+      count += page.size();
+      proceed = consumer.consume(page);
+    } while (proceed && hasMorePages(control.getCookie()));
+
+    if (!proceed && hasMorePages(control.getCookie())) {
+      // A page size of zero tells the server to release the resources held for the abandoned search.
+      this.ldapTemplate.search(base, filter, searchControls, this.contextMapper, new PagedResultsDirContextProcessor(0, control.getCookie()));
+    }
+
+    return count;
+  }
+
+  private static boolean hasMorePages(PagedResultsCookie cookie) {
+    return cookie != null && cookie.getCookie() != null;
+  }
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.svc.ldap;
+
+import org.springframework.ldap.core.ContextMapper;
+
+import se.vgregion.kivtools.search.util.TopKSelector;
+import se.vgregion.kivtools.util.Arguments;
+
+/**
+ * ContextMapper which hands each mapped entry to a {@link TopKSelector} instead of returning it. Since null is returned
+ * for every entry the list collected by the LdapTemplate does not keep any mapped objects, only the entries selected so
+ * far are held in memory regardless of how many entries the search matches.
+ * 
+ * @param <T> The type of objects the wrapped ContextMapper maps entries to.
+ */
+public class SelectingContextMapper<T> implements ContextMapper {
+  private final ContextMapper contextMapper;
+  private final TopKSelector<T> selector;
+
+  /**
+   * Constructs a new SelectingContextMapper.
+   * 
+   * @param contextMapper The ContextMapper to use to map each entry. Must return objects of type T.
+   * @param selector The selector to hand the mapped objects to.
+   */
+  public SelectingContextMapper(ContextMapper contextMapper, TopKSelector<T> selector) {
+    Arguments.notNull("contextMapper", contextMapper);
+    Arguments.notNull("selector", selector);
+    this.contextMapper = contextMapper;
+    this.selector = selector;
+  }
+
+  @Override
+  public Object mapFromContext(Object ctx) {
+    // The ContextMapper is documented to return objects of type T.
+    @SuppressWarnings("unchecked")
+    T mapped = (T) this.contextMapper.mapFromContext(ctx);
+    if (mapped != null) {
+      this.selector.add(mapped);
+    }
+    return null;
+  }
+}
@@ -0,0 +1,264 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import se.vgregion.kivtools.util.time.TimeUtil;
+
+/**
+ * Enriches units with their MVK case types. Case types are fetched through a {@link MvkClient} and cached per
+ * hsaIdentity for a limited time. Units without case types are cached as well, usually for a shorter time. Responses
+ * that could not be read are never cached.
+ * 
+ * Case types for many units are fetched concurrently on a bounded pool and concurrent requests for the same unit share a
+ * single fetch.
+ */
+public class MvkCaseTypeService {
+  private static final int DEFAULT_MAX_CONCURRENT_FETCHES = 8;
+  private static final long DEFAULT_TIME_TO_LIVE = 60L * 60L * 1000L;
+  private static final long DEFAULT_NEGATIVE_TIME_TO_LIVE = 15L * 60L * 1000L;
+
+  private final Log log = LogFactory.getLog(this.getClass());
+  private final MvkClient mvkClient;
+  private final ThreadPoolExecutor executor;
+  private final ConcurrentMap<String, CachedCaseTypes> cache = new ConcurrentHashMap<String, CachedCaseTypes>();
+  private final ConcurrentMap<String, FutureTask<List<String>>> fetchesInFlight = new ConcurrentHashMap<String, FutureTask<List<String>>>();
+  private volatile long timeToLive = DEFAULT_TIME_TO_LIVE;
+  private volatile long negativeTimeToLive = DEFAULT_NEGATIVE_TIME_TO_LIVE;
+
+  /**
+   * Constructs a new MvkCaseTypeService.
+   * 
+   * @param mvkClient The MvkClient to use to fetch case types.
+   */
+  public MvkCaseTypeService(MvkClient mvkClient) {
+    this.mvkClient = mvkClient;
+    this.executor = new ThreadPoolExecutor(DEFAULT_MAX_CONCURRENT_FETCHES, DEFAULT_MAX_CONCURRENT_FETCHES, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new FetchThreadFactory());
+    this.executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Sets the maximum number of units to fetch case types for at the same time. Defaults to 8.
+   * 
+   * @param maxConcurrentFetches The maximum number of concurrent fetches.
+   */
+  public void setMaxConcurrentFetches(int maxConcurrentFetches) {
+    if (maxConcurrentFetches < 1) {
+      throw new IllegalArgumentException("maxConcurrentFetches must be at least 1");
+    }
+    if (maxConcurrentFetches > this.executor.getMaximumPoolSize()) {
+      this.executor.setMaximumPoolSize(maxConcurrentFetches);
+      this.executor.setCorePoolSize(maxConcurrentFetches);
+    } else {
+      this.executor.setCorePoolSize(maxConcurrentFetches);
+      this.executor.setMaximumPoolSize(maxConcurrentFetches);
+    }
+  }
+
+  /**
+   * Sets the number of milliseconds the case types of a unit are cached. Defaults to one hour.
+   * 
+   * @param timeToLive The time to live in milliseconds.
+   */
+  public void setTimeToLive(long timeToLive) {
+    this.timeToLive = timeToLive;
+  }
+
+  /**
+   * Sets the number of milliseconds it is remembered that a unit has no case types. Defaults to 15 minutes.
+   * 
+   * @param negativeTimeToLive The time to live in milliseconds.
+   */
+  public void setNegativeTimeToLive(long negativeTimeToLive) {
+    this.negativeTimeToLive = negativeTimeToLive;
+  }
+
+  /**
+   * Stops the threads used for concurrent fetches. Fetches in progress are interrupted.
+   */
+  public void shutdown() {
+    this.executor.shutdownNow();
+  }
+
+  /**
+   * Removes all cached case types.
+   */
+  public void clearCache() {
+    this.cache.clear();
+  }
+
+  /**
+   * Gets the case types of the unit with the provided hsaIdentity. Case types that are not cached are fetched in the
+   * calling thread.
+   * 
+   * @param hsaIdentity The hsaIdentity of the unit.
+   * @return An unmodifiable list of the case types of the unit. Empty if the unit has no case types or if they could not
+   *         be fetched.
+   */
+  public List<String> getCaseTypesForUnit(String hsaIdentity) {
+    List<String> caseTypes = this.getCachedCaseTypes(hsaIdentity);
+    if (caseTypes == null) {
+      caseTypes = this.await(hsaIdentity, this.fetch(hsaIdentity, true));
+    }
+    return caseTypes;
+  }
+
+  /**
+   * Gets the case types of the units with the provided hsaIdentities. Case types that are not cached are fetched
+   * concurrently.
+   * 
+   * @param hsaIdentities The hsaIdentities of the units.
+   * @return A map with an unmodifiable list of case types for each hsaIdentity, iterated in the same order as the
+   *         provided hsaIdentities.
+   */
+  public Map<String, List<String>> getCaseTypesForUnits(Collection<String> hsaIdentities) {
+    Map<String, List<String>> result = new LinkedHashMap<String, List<String>>();
+    Map<String, Future<List<String>>> fetches = new LinkedHashMap<String, Future<List<String>>>();
+    for (String hsaIdentity : new LinkedHashSet<String>(hsaIdentities)) {
+      List<String> caseTypes = this.getCachedCaseTypes(hsaIdentity);
+      // Reserve the position of the unit in the result.
+      result.put(hsaIdentity, caseTypes);
+      if (caseTypes == null) {
+        fetches.put(hsaIdentity, this.fetch(hsaIdentity, false));
+      }
+    }
+
+    for (Map.Entry<String, Future<List<String>>> fetch : fetches.entrySet()) {
+      result.put(fetch.getKey(), this.await(fetch.getKey(), fetch.getValue()));
+    }
+    return result;
+  }
+
+  private List<String> getCachedCaseTypes(String hsaIdentity) {
+    if (hsaIdentity == null) {
+      return Collections.emptyList();
+    }
+
+    List<String> caseTypes = null;
+    CachedCaseTypes cached = this.cache.get(hsaIdentity);
+    if (cached != null) {
+      if (cached.expires > TimeUtil.asMillis()) {
+        caseTypes = cached.caseTypes;
+      } else {
+        this.cache.remove(hsaIdentity, cached);
+      }
+    }
+    return caseTypes;
+  }
+
+  private Future<List<String>> fetch(final String hsaIdentity, boolean runInCallingThread) {
+    final FutureTask<List<String>> fetch = new FutureTask<List<String>>(new Callable<List<String>>() {
+      @Override
+      public List<String> call() {
+        try {
+          return fetchAndCache(hsaIdentity);
+        } finally {
+          fetchesInFlight.remove(hsaIdentity);
+        }
+      }
+    });
+
+    FutureTask<List<String>> inFlight = this.fetchesInFlight.putIfAbsent(hsaIdentity, fetch);
+    if (inFlight == null) {
+      inFlight = fetch;
+      if (runInCallingThread) {
+        fetch.run();
+      } else {
+        try {
+          this.executor.execute(fetch);
+        } catch (RejectedExecutionException e) {
+          // The service has been shut down.
+          fetch.run();
+        }
+      }
+    }
+    return inFlight;
+  }
+
+  private List<String> fetchAndCache(String hsaIdentity) {
+    List<String> caseTypes = this.mvkClient.fetchCaseTypesForUnit(hsaIdentity);
+    if (caseTypes == null) {
+      // The response could not be read, try again next time.
+      caseTypes = Collections.emptyList();
+    } else {
+      caseTypes = Collections.unmodifiableList(new ArrayList<String>(caseTypes));
+      long ttl = caseTypes.isEmpty() ? this.negativeTimeToLive : this.timeToLive;
+      if (ttl > 0) {
+        this.cache.put(hsaIdentity, new CachedCaseTypes(caseTypes, TimeUtil.asMillis() + ttl));
+      }
+    }
+    return caseTypes;
+  }
+
+  private List<String> await(String hsaIdentity, Future<List<String>> fetch) {
+    List<String> caseTypes = Collections.emptyList();
+    try {
+      caseTypes = fetch.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      this.log.error("Unable to fetch MVK case types for unit " + hsaIdentity, e.getCause());
+    }
+    return caseTypes;
+  }
+
+  private static final class CachedCaseTypes {
+    private final List<String> caseTypes;
+    private final long expires;
+
+    private CachedCaseTypes(List<String> caseTypes, long expires) {
+      this.caseTypes = caseTypes;
+      this.expires = expires;
+    }
+  }
+
+  private static final class FetchThreadFactory implements ThreadFactory {
+    private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "mvk-fetch-" + this.threadNumber.getAndIncrement());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
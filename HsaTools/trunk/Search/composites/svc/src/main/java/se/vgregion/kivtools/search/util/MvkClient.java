@@ -19,13 +19,18 @@
 
 package se.vgregion.kivtools.search.util;
 
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.NodeList;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
-import se.vgregion.kivtools.util.dom.DocumentHelper;
 import se.vgregion.kivtools.util.http.HttpFetcher;
 
 /**
@@ -34,6 +39,9 @@ import se.vgregion.kivtools.util.http.HttpFetcher;
  * @author Jonas Liljenfeldt, Know IT
  */
 public class MvkClient {
+  private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+  private final Log log = LogFactory.getLog(this.getClass());
   private final HttpFetcher httpFetcher;
   private final String mvkGuid;
   private final String mvkUrl;
@@ -45,25 +53,71 @@ public class MvkClient {
   }
 
   /**
-   * Fetches case types from MVK and assigns them to the provided unit.
+   * Fetches case types from MVK for the unit with the provided hsaIdentity.
    * 
-   * @param unit The unit to assign case types to.
+   * @param hsaIdentity The hsaIdentity of the unit to fetch case types for.
+   * @return The case types of the unit. Empty if the unit has no case types or if the response from MVK could not be
+   *         read.
    */
   public List<String> getCaseTypesForUnit(String hsaIdentity) {
+    List<String> result = this.fetchCaseTypesForUnit(hsaIdentity);
+    if (result == null) {
+      result = new ArrayList<String>();
+    }
+    return result;
+  }
+
+  /**
+   * Fetches case types from MVK for the unit with the provided hsaIdentity.
+   * 
+   * @param hsaIdentity The hsaIdentity of the unit to fetch case types for.
+   * @return The case types of the unit or null if the response from MVK could not be read.
+   */
+  public List<String> fetchCaseTypesForUnit(String hsaIdentity) {
     // Get accessibility info
     String mvkUrlString = this.mvkUrl + "&hsaid=" + hsaIdentity + "&guid=" + this.mvkGuid;
 
     String content = this.httpFetcher.fetchUrl(mvkUrlString);
 
-    // Now read the buffered stream and get mvk info
-    Document doc = DocumentHelper.getDocumentFromString(content);
+    return this.parseCaseTypes(content);
+  }
+
+  /**
+   * Reads the text of every casetype-element in the provided MVK response. The response is streamed through a StAX
+   * reader so no document is built.
+   * 
+   * @param content The response from MVK.
+   * @return The case types in the response or null if the response is empty or not well formed XML.
+   */
+  List<String> parseCaseTypes(String content) {
+    if (content == null || content.length() == 0) {
+      return null;
+    }
 
-    // Get and assign case types
-    NodeList caseTypesNodeList = doc.getElementsByTagName("casetype");
     List<String> result = new ArrayList<String>();
-    for (int i = 0; i < caseTypesNodeList.getLength(); i++) {
-      result.add(caseTypesNodeList.item(i).getTextContent());
+    try {
+      XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(new StringReader(content));
+      try {
+        while (reader.hasNext()) {
+          if (reader.next() == XMLStreamConstants.START_ELEMENT && "casetype".equals(reader.getLocalName())) {
+            result.add(reader.getElementText());
+          }
+        }
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException e) {
+      this.log.error("Error parsing MVK response", e);
+      result = null;
     }
     return result;
   }
+
+  private static XMLInputFactory createInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+    return factory;
+  }
 }
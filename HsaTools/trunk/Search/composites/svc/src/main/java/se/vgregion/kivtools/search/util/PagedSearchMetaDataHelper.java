@@ -38,30 +38,42 @@ public class PagedSearchMetaDataHelper {
    * @return A list of PagedSearchMetaData objects.
    */
   public static List<PagedSearchMetaData> buildPagedSearchMetaData(List<?> data, int pageSize) {
+    int size = 0;
+    if (data != null) {
+      size = data.size();
+    }
+    return buildPagedSearchMetaData(size, pageSize);
+  }
+
+  /**
+   * Builds a list of PagedSearchMetaData objects for the provided number of items and the provided pageSize. Use this
+   * with {@link se.vgregion.kivtools.search.svc.SikSearchResultList#getTotalNumberOfFoundItems()} to page through a
+   * search result that has been cut off at a maximum number of results without holding every item in memory.
+   * 
+   * @param size The total number of items.
+   * @param pageSize The number of elements to show per page. Must be greater than zero.
+   * @return A list of PagedSearchMetaData objects.
+   */
+  public static List<PagedSearchMetaData> buildPagedSearchMetaData(int size, int pageSize) {
     if (pageSize <= 0) {
       throw new IllegalArgumentException("pageSize must be greater than zero");
     }
     List<PagedSearchMetaData> result = new ArrayList<PagedSearchMetaData>();
-    if (data != null) {
-      PagedSearchMetaData metaData;
-      int size = data.size();
-      int index = 0;
-      if (size > 0) {
-        while (index < size) {
-          metaData = new PagedSearchMetaData();
-          // 0 the first time
-          metaData.setStartIndex(index);
-          int endIndex = index + pageSize - 1;
-          if (endIndex >= size) {
-            endIndex = size - 1;
-          }
-          // e.g. 274 the first time
-          metaData.setEndIndex(endIndex);
-          result.add(metaData);
-          // e.g. 275 the first time
-          index = index + pageSize;
-        }
+    PagedSearchMetaData metaData;
+    int index = 0;
+    while (index < size) {
+      metaData = new PagedSearchMetaData();
+      // 0 the first time
+      metaData.setStartIndex(index);
+      int endIndex = index + pageSize - 1;
+      if (endIndex >= size) {
+        endIndex = size - 1;
       }
+      // e.g. 274 the first time
+      metaData.setEndIndex(endIndex);
+      result.add(metaData);
+      // e.g. 275 the first time
+      index = index + pageSize;
     }
     return result;
   }
@@ -0,0 +1,145 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import se.vgregion.kivtools.util.Arguments;
+
+/**
+ * Selects the first elements of a sequence according to a sort order without sorting, or even keeping, the whole
+ * sequence. Only the currently selected elements are held in a bounded heap, so memory use depends on the limit rather
+ * than on the number of elements offered. Elements that are equal according to the sort order keep the order in which
+ * they were offered.
+ * 
+ * @param <T> The type of elements to select.
+ */
+public class TopKSelector<T> {
+  private final Comparator<Ranked<T>> order;
+  private final PriorityQueue<Ranked<T>> selected;
+  private final int limit;
+  private int count;
+
+  /**
+   * Constructs a new TopKSelector.
+   * 
+   * @param sortOrder The sort order to select elements by.
+   * @param limit The maximum number of elements to select. Zero selects no elements but still counts them.
+   */
+  public TopKSelector(final Comparator<? super T> sortOrder, int limit) {
+    Arguments.notNull("sortOrder", sortOrder);
+    if (limit < 0) {
+      throw new IllegalArgumentException("limit must not be negative");
+    }
+    this.limit = limit;
+    this.order = new Comparator<Ranked<T>>() {
+      @Override
+      public int compare(Ranked<T> o1, Ranked<T> o2) {
+        int result = sortOrder.compare(o1.element, o2.element);
+        if (result == 0) {
+          result = o1.position < o2.position ? -1 : (o1.position == o2.position ? 0 : 1);
+        }
+        return result;
+      }
+    };
+    // The queue is ordered with the last of the selected elements at its head.
+    this.selected = new PriorityQueue<Ranked<T>>(Math.min(limit, 64) + 1, Collections.reverseOrder(this.order));
+  }
+
+  /**
+   * Offers an element to the selector.
+   * 
+   * @param element The element to offer.
+   */
+  public void add(T element) {
+    Ranked<T> ranked = new Ranked<T>(element, this.count++);
+    if (this.selected.size() < this.limit) {
+      this.selected.add(ranked);
+    } else if (this.limit > 0 && this.order.compare(ranked, this.selected.peek()) < 0) {
+      this.selected.poll();
+      this.selected.add(ranked);
+    }
+  }
+
+  /**
+   * Offers all elements of a collection to the selector in iteration order.
+   * 
+   * @param elements The elements to offer.
+   */
+  public void addAll(Collection<? extends T> elements) {
+    for (T element : elements) {
+      this.add(element);
+    }
+  }
+
+  /**
+   * Getter for the number of elements that have been offered to the selector.
+   * 
+   * @return The number of elements that have been offered, selected or not.
+   */
+  public int getCount() {
+    return this.count;
+  }
+
+  /**
+   * Gets the selected elements.
+   * 
+   * @return A new list with the selected elements in sort order.
+   */
+  public List<T> getSelected() {
+    List<Ranked<T>> sorted = new ArrayList<Ranked<T>>(this.selected);
+    Collections.sort(sorted, this.order);
+    List<T> result = new ArrayList<T>(sorted.size());
+    for (Ranked<T> ranked : sorted) {
+      result.add(ranked.element);
+    }
+    return result;
+  }
+
+  /**
+   * Selects the first elements of a collection according to a sort order.
+   * 
+   * @param <T> The type of elements to select.
+   * @param elements The elements to select from.
+   * @param limit The maximum number of elements to select.
+   * @param sortOrder The sort order to select elements by.
+   * @return A new list with at most limit elements in sort order.
+   */
+  public static <T> List<T> first(Collection<? extends T> elements, int limit, Comparator<? super T> sortOrder) {
+    TopKSelector<T> selector = new TopKSelector<T>(sortOrder, Math.max(limit, 0));
+    selector.addAll(elements);
+    return selector.getSelected();
+  }
+
+  private static final class Ranked<T> {
+    private final T element;
+    private final int position;
+
+    private Ranked(T element, int position) {
+      this.element = element;
+      this.position = position;
+    }
+  }
+}
@@ -73,4 +73,14 @@ public class SikSearchResultListTest {
     sikSearchResultList.setTotalNumberOfFoundItems(1234);
     assertEquals(1234, sikSearchResultList.getTotalNumberOfFoundItems());
   }
+
+  @Test
+  public void moreResultsAreAvailableWhenMoreItemsWereFoundThanTheListHolds() {
+    SikSearchResultList<String> sikSearchResultList = new SikSearchResultList<String>(Arrays.asList("abc", "def"));
+    sikSearchResultList.setTotalNumberOfFoundItems(2);
+    assertFalse(sikSearchResultList.isMoreResultsAvailable());
+
+    sikSearchResultList.setTotalNumberOfFoundItems(3);
+    assertTrue(sikSearchResultList.isMoreResultsAvailable());
+  }
 }
@@ -0,0 +1,95 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ */
+
+package se.vgregion.kivtools.search.svc;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SitemapDocumentTest {
+  private static final String CONTENT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><urlset></urlset>";
+  private SitemapDocument document;
+
+  @Before
+  public void setUp() throws IOException {
+    ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+    GZIPOutputStream gzip = new GZIPOutputStream(gzipped);
+    gzip.write(CONTENT.getBytes("UTF-8"));
+    gzip.close();
+    document = new SitemapDocument(gzipped.toByteArray(), CONTENT.length(), "abc123", 1300000000123L, "UTF-8");
+  }
+
+  @Test
+  public void lastModifiedIsTruncatedToSeconds() {
+    assertEquals(1300000000000L, document.getLastModified());
+  }
+
+  @Test
+  public void gzippedAndPlainRepresentationsHaveDifferentETags() {
+    assertEquals("\"abc123\"", document.getETag(false));
+    assertEquals("\"abc123-gz\"", document.getETag(true));
+  }
+
+  @Test
+  public void contentIsInflatedForClientsNotAcceptingGzip() throws IOException {
+    ByteArrayOutputStream plain = new ByteArrayOutputStream();
+    document.writeTo(plain, false);
+    assertEquals(CONTENT, plain.toString("UTF-8"));
+    assertEquals(CONTENT.length(), document.getContentLength(false));
+
+    ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+    document.writeTo(gzipped, true);
+    assertEquals(document.getContentLength(true), gzipped.size());
+  }
+
+  @Test
+  public void ifNoneMatchIsComparedWithTheETagOfTheRepresentation() {
+    assertTrue(document.isNotModified("\"abc123-gz\"", -1, true));
+    assertFalse(document.isNotModified("\"abc123-gz\"", -1, false));
+    assertTrue(document.isNotModified("\"other\", W/\"abc123\"", -1, false));
+    assertTrue(document.isNotModified("*", -1, false));
+    assertFalse(document.isNotModified("\"other\"", -1, false));
+  }
+
+  @Test
+  public void ifNoneMatchTakesPrecedenceOverIfModifiedSince() {
+    assertFalse(document.isNotModified("\"other\"", 1300000000000L, false));
+  }
+
+  @Test
+  public void ifModifiedSinceIsComparedWithLastModified() {
+    assertTrue(document.isNotModified(null, 1300000000000L, false));
+    assertFalse(document.isNotModified(null, 1299999999000L, false));
+    assertFalse(document.isNotModified(null, -1, false));
+  }
+
+  @Test
+  public void gzipIsAcceptedUnlessExcluded() {
+    assertTrue(SitemapDocument.isGzipAccepted("gzip, deflate"));
+    assertTrue(SitemapDocument.isGzipAccepted("deflate, x-gzip;q=0.5"));
+    assertFalse(SitemapDocument.isGzipAccepted("gzip;q=0"));
+    assertFalse(SitemapDocument.isGzipAccepted("deflate"));
+    assertFalse(SitemapDocument.isGzipAccepted(null));
+  }
+}
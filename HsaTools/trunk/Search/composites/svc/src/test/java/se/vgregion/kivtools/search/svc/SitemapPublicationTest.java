@@ -0,0 +1,149 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ */
+
+package se.vgregion.kivtools.search.svc;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import se.vgregion.kivtools.search.svc.cache.SitemapCache;
+import se.vgregion.kivtools.search.svc.cache.SitemapCache.EntryType;
+import se.vgregion.kivtools.util.time.TimeSource;
+import se.vgregion.kivtools.util.time.TimeUtil;
+
+public class SitemapPublicationTest {
+  private static final String SITEMAP_URL = "http://external.com/sitemap";
+  private final SitemapCache cache = new SitemapCache();
+
+  @Before
+  public void setUp() {
+    TimeUtil.setTimeSource(new TimeSource() {
+      @Override
+      public long millis() {
+        return 1300000000000L;
+      }
+    });
+    for (int i = 1; i <= 5; i++) {
+      cache.add(new SitemapEntry("http://external.com/visaenhet?hsaidentity=unit-" + i, "2010-02-01T01:00:00+01:00", "daily"), EntryType.UNIT);
+    }
+    cache.add(new SitemapEntry("http://external.com/visaperson?vgrid=person-1", "2010-02-01T01:00:00+01:00", "daily"), EntryType.PERSON);
+  }
+
+  @After
+  public void tearDown() {
+    TimeUtil.reset();
+  }
+
+  @Test
+  public void entriesThatFitInOneSitemapAreServedWithoutIndex() throws IOException {
+    SitemapPublication publication = new SitemapPublication(cache, new ExternalSitemapGenerator(), 10, SitemapPublication.MAX_SITEMAP_BYTES);
+
+    SitemapDocument document = publication.getDocument(null, SITEMAP_URL, 0);
+    String sitemap = getContent(document);
+    assertTrue(sitemap.contains("<urlset"));
+    assertEquals(6, count(sitemap, "<url>"));
+    assertSame(document, publication.getDocument(null, SITEMAP_URL, 1));
+    assertNull(publication.getDocument(null, SITEMAP_URL, 2));
+  }
+
+  @Test
+  public void entriesAreSplitIntoSitemapsReferredToFromAnIndex() throws IOException {
+    SitemapPublication publication = new SitemapPublication(cache, new ExternalSitemapGenerator(), 2, SitemapPublication.MAX_SITEMAP_BYTES);
+
+    String index = getContent(publication.getDocument(EntryType.UNIT, SITEMAP_URL, 0));
+    assertTrue(index.contains("<sitemapindex xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">"));
+    assertEquals(3, count(index, "<sitemap>"));
+    assertTrue(index.contains("<loc>http://external.com/sitemap?persons=false&amp;units=true&amp;part=3</loc>"));
+    assertTrue(index.contains("<lastmod>" + TimeUtil.formatDateW3C(TimeUtil.asDate()) + "</lastmod>"));
+
+    assertEquals(2, count(getContent(publication.getDocument(EntryType.UNIT, SITEMAP_URL, 1)), "<url>"));
+    assertEquals(2, count(getContent(publication.getDocument(EntryType.UNIT, SITEMAP_URL, 2)), "<url>"));
+    String lastSitemap = getContent(publication.getDocument(EntryType.UNIT, SITEMAP_URL, 3));
+    assertEquals(1, count(lastSitemap, "<url>"));
+    assertTrue(lastSitemap.contains("unit-5"));
+    assertNull(publication.getDocument(EntryType.UNIT, SITEMAP_URL, 4));
+  }
+
+  @Test
+  public void sitemapsAreSplitWhenTheyExceedTheSizeLimit() throws IOException {
+    int singleEntrySize = new SitemapPublication(cache, new ExternalSitemapGenerator(), 1, SitemapPublication.MAX_SITEMAP_BYTES).getDocument(EntryType.UNIT, SITEMAP_URL, 1).getContentLength(false);
+    SitemapPublication publication = new SitemapPublication(cache, new ExternalSitemapGenerator(), 10, singleEntrySize + 250);
+
+    String index = getContent(publication.getDocument(EntryType.UNIT, SITEMAP_URL, 0));
+    int sitemaps = count(index, "<sitemap>");
+    assertTrue("sitemaps: " + sitemaps, sitemaps > 1);
+    int entries = 0;
+    for (int part = 1; part <= sitemaps; part++) {
+      SitemapDocument sitemap = publication.getDocument(EntryType.UNIT, SITEMAP_URL, part);
+      assertTrue(sitemap.getContentLength(false) <= singleEntrySize + 250);
+      entries += count(getContent(sitemap), "<url>");
+    }
+    assertEquals(5, entries);
+  }
+
+  @Test
+  public void documentsAreRenderedOnce() {
+    SitemapPublication publication = new SitemapPublication(cache, new ExternalSitemapGenerator(), 2, SitemapPublication.MAX_SITEMAP_BYTES);
+
+    assertSame(publication.getDocument(EntryType.UNIT, SITEMAP_URL, 0), publication.getDocument(EntryType.UNIT, SITEMAP_URL, 0));
+    assertSame(publication.getDocument(EntryType.UNIT, SITEMAP_URL, 2), publication.getDocument(EntryType.UNIT, SITEMAP_URL, 2));
+    assertNotSame(publication.getDocument(EntryType.UNIT, SITEMAP_URL, 0), publication.getDocument(EntryType.UNIT, "http://other.com/sitemap", 0));
+  }
+
+  @Test
+  public void equalContentHasEqualETags() {
+    SitemapDocument first = new SitemapPublication(cache, new ExternalSitemapGenerator(), 10, SitemapPublication.MAX_SITEMAP_BYTES).getDocument(EntryType.PERSON, SITEMAP_URL, 0);
+    SitemapDocument second = new SitemapPublication(cache, new ExternalSitemapGenerator(), 10, SitemapPublication.MAX_SITEMAP_BYTES).getDocument(EntryType.PERSON, SITEMAP_URL, 0);
+    SitemapDocument units = new SitemapPublication(cache, new ExternalSitemapGenerator(), 10, SitemapPublication.MAX_SITEMAP_BYTES).getDocument(EntryType.UNIT, SITEMAP_URL, 0);
+
+    assertEquals(first.getETag(true), second.getETag(true));
+    assertFalse(first.getETag(true).equals(units.getETag(true)));
+  }
+
+  @Test
+  public void contentIsWrittenInTheEncodingOfTheGenerator() throws IOException {
+    SitemapCache cache = new SitemapCache();
+    cache.add(new SitemapEntry("http://external.com/visaenhet?hsaidentity=Vårdcentral", null, null), EntryType.UNIT);
+    SitemapDocument sitemap = new SitemapPublication(cache, new InternalSitemapGenerator(), 10, SitemapPublication.MAX_SITEMAP_BYTES).getDocument(null, SITEMAP_URL, 0);
+
+    assertEquals("iso-8859-1", sitemap.getCharacterEncoding());
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    sitemap.writeTo(content, false);
+    assertTrue(content.toString("iso-8859-1").contains("Vårdcentral"));
+  }
+
+  private String getContent(SitemapDocument document) throws IOException {
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    document.writeTo(content, false);
+    return content.toString(document.getCharacterEncoding());
+  }
+
+  private int count(String content, String tag) {
+    int count = 0;
+    for (int index = content.indexOf(tag); index != -1; index = content.indexOf(tag, index + 1)) {
+      count++;
+    }
+    return count;
+  }
+}
@@ -21,7 +21,10 @@ package se.vgregion.kivtools.search.svc;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.util.Collections;
 
 import org.junit.Test;
 
@@ -32,6 +35,7 @@ import se.vgregion.kivtools.search.svc.impl.cache.SitemapCacheServiceImpl;
 import se.vgregion.kivtools.svc.sitemap.Unit;
 
 public class SitemapSupportBeanTest {
+  private static final String SITEMAP_URL = "http://external.com/sitemap";
   private SitemapCacheLoaderMock sitemapCacheLoader = new SitemapCacheLoaderMock();
   private SitemapCacheServiceImpl sitemapCacheService = new SitemapCacheServiceImpl(sitemapCacheLoader);
   private SitemapGenerator internalSitemapGenerator = new InternalSitemapGenerator();
@@ -40,15 +44,15 @@ public class SitemapSupportBeanTest {
   private SitemapSupportBean externalSitemapSupportBean = new SitemapSupportBean(sitemapCacheService, externalSitemapGenerator);
 
   @Test
-  public void cacheIsReloadedIfEmpty() {
-    internalSitemapSupportBean.getSitemapContent("true", "true");
+  public void cacheIsReloadedIfEmpty() throws IOException {
+    getSitemapContent(internalSitemapSupportBean, "true", "true");
     sitemapCacheLoader.assertCacheLoaded();
   }
 
   @Test
-  public void locAndLastmodUsesLocationAndLastModified() {
+  public void locAndLastmodUsesLocationAndLastModified() throws IOException {
     sitemapCacheLoader.setSitemapCache(new SitemapCacheBuilder().withUnit("abc-123", "2010-02-01T01:00:00+01:00").buildSitemapCache());
-    String sitemapContent = internalSitemapSupportBean.getSitemapContent("true", "true");
+    String sitemapContent = getSitemapContent(internalSitemapSupportBean, "true", "true");
     String loc = getTagContent(sitemapContent, "loc");
     assertEquals("http://external.com/visaenhet?hsaidentity=abc-123", loc);
     String lastmod = getTagContent(sitemapContent, "lastmod");
@@ -56,63 +60,130 @@ public class SitemapSupportBeanTest {
   }
 
   @Test
-  public void changeFrequencyIsUsedForChangefreqTag() {
+  public void changeFrequencyIsUsedForChangefreqTag() throws IOException {
     sitemapCacheLoader.setSitemapCache(new SitemapCacheBuilder().withUnit("abc-123", "2010-02-01T01:00:00+01:00").buildSitemapCache());
-    String sitemapContent = internalSitemapSupportBean.getSitemapContent("true", "true");
+    String sitemapContent = getSitemapContent(internalSitemapSupportBean, "true", "true");
     String changefreq = getTagContent(sitemapContent, "changefreq");
     assertEquals("daily", changefreq);
   }
 
   @Test
-  public void extraInformationIsAddedIfAvailable() {
+  public void changeFrequencyNotDefinedBySitemapsOrgIsWrittenAsConfigured() {
+    SitemapEntry entry = new SitemapEntry("http://external.com/visaenhet?hsaidentity=abc-123", "2010-02-01T01:00:00+01:00", "every other week");
+    String sitemapContent = externalSitemapGenerator.generate(Collections.singletonList(entry));
+    assertEquals("every other week", getTagContent(sitemapContent, "changefreq"));
+  }
+
+  @Test
+  public void extraInformationIsAddedIfAvailable() throws IOException {
     Unit extraInformation = new Unit();
     extraInformation.setHsaIdentity("abc-123");
     sitemapCacheLoader.setSitemapCache(new SitemapCacheBuilder().withUnit("abc-123", "2010-02-01T01:00:00+01:00", extraInformation).buildSitemapCache());
-    String sitemapContent = internalSitemapSupportBean.getSitemapContent("true", "true");
+    String sitemapContent = getSitemapContent(internalSitemapSupportBean, "true", "true");
 
     String hsaIdentity = getTagContent(sitemapContent, "ns2:hsaIdentity");
     assertEquals("abc-123", hsaIdentity);
   }
 
   @Test
-  public void noExtraInformationIsAddedForExternalSitemap() {
+  public void noExtraInformationIsAddedForExternalSitemap() throws IOException {
     sitemapCacheLoader.setSitemapCache(new SitemapCacheBuilder().withUnit("abc-123", "2010-02-01T01:00:00+01:00", "hsaIdentity", "abc-123").buildSitemapCache());
-    String sitemapContent = externalSitemapSupportBean.getSitemapContent("true", "true");
+    String sitemapContent = getSitemapContent(externalSitemapSupportBean, "true", "true");
 
     assertEquals("hsa namespace found in sitemap content", -1, sitemapContent.indexOf("hsa:"));
   }
 
   @Test
-  public void onlyPersonsArePresentInFileIfOnlyPersonsAreRequested() {
+  public void onlyPersonsArePresentInFileIfOnlyPersonsAreRequested() throws IOException {
     sitemapCacheLoader.setSitemapCache(new SitemapCacheBuilder().withUnit("abc-123", "2010-02-01T01:00:00+01:00").withPerson("def-456", "2010-04-24T05:11:23+01:00").buildSitemapCache());
-    String sitemapContent = externalSitemapSupportBean.getSitemapContent("true", "false");
+    String sitemapContent = getSitemapContent(externalSitemapSupportBean, "true", "false");
 
     assertFalse("units present", sitemapContent.contains("visaenhet"));
     assertTrue("persons not present", sitemapContent.contains("visaperson"));
   }
 
   @Test
-  public void onlyUnitsArePresentInFileIfOnlyUnitsAreRequested() {
+  public void onlyUnitsArePresentInFileIfOnlyUnitsAreRequested() throws IOException {
     sitemapCacheLoader.setSitemapCache(new SitemapCacheBuilder().withUnit("abc-123", "2010-02-01T01:00:00+01:00").withPerson("def-456", "2010-04-24T05:11:23+01:00").buildSitemapCache());
-    String sitemapContent = externalSitemapSupportBean.getSitemapContent("false", "true");
+    String sitemapContent = getSitemapContent(externalSitemapSupportBean, "false", "true");
 
     assertTrue("units not present", sitemapContent.contains("visaenhet"));
     assertFalse("persons present", sitemapContent.contains("visaperson"));
   }
 
   @Test
-  public void bothUnitsAndPersonsArePresentInFileIfNoSpecificTypeIsRequested() {
+  public void bothUnitsAndPersonsArePresentInFileIfNoSpecificTypeIsRequested() throws IOException {
     sitemapCacheLoader.setSitemapCache(new SitemapCacheBuilder().withUnit("abc-123", "2010-02-01T01:00:00+01:00").withPerson("def-456", "2010-04-24T05:11:23+01:00").buildSitemapCache());
-    String sitemapContent = externalSitemapSupportBean.getSitemapContent("", "");
+    String sitemapContent = getSitemapContent(externalSitemapSupportBean, "", "");
 
     assertTrue("units not present", sitemapContent.contains("visaenhet"));
     assertTrue("persons not present", sitemapContent.contains("visaperson"));
   }
 
+  @Test
+  public void characterEncodingIsTheEncodingOfTheGenerator() throws IOException {
+    sitemapCacheLoader.setSitemapCache(new SitemapCacheBuilder().withUnit("abc-123", "2010-02-01T01:00:00+01:00").buildSitemapCache());
+    assertEquals("iso-8859-1", internalSitemapSupportBean.getSitemapDocument(SITEMAP_URL, "", "", null).getCharacterEncoding());
+    assertEquals("UTF-8", externalSitemapSupportBean.getSitemapDocument(SITEMAP_URL, "", "", null).getCharacterEncoding());
+    assertTrue(getSitemapContent(externalSitemapSupportBean, "", "").startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"));
+  }
+
+  @Test
+  public void locationIsEscaped() throws IOException {
+    sitemapCacheLoader.setSitemapCache(new SitemapCacheBuilder().withUnit("abc&123", "2010-02-01T01:00:00+01:00").buildSitemapCache());
+    String sitemapContent = getSitemapContent(externalSitemapSupportBean, "true", "true");
+
+    assertEquals("http://external.com/visaenhet?hsaidentity=abc&amp;123", getTagContent(sitemapContent, "loc"));
+  }
+
+  @Test
+  public void sitemapDocumentIsPublishedOnceForEachSnapshot() {
+    sitemapCacheLoader.setSitemapCache(new SitemapCacheBuilder().withUnit("abc-123", "2010-02-01T01:00:00+01:00").buildSitemapCache());
+    SitemapDocument document = externalSitemapSupportBean.getSitemapDocument(SITEMAP_URL, "", "", null);
+    sitemapCacheLoader.assertCacheLoaded();
+    assertSame(document, externalSitemapSupportBean.getSitemapDocument(SITEMAP_URL, "", "", null));
+
+    sitemapCacheLoader.setSitemapCache(new SitemapCacheBuilder().withUnit("abc-123", "2010-02-01T01:00:00+01:00").buildSitemapCache());
+    sitemapCacheService.reloadCache();
+    SitemapDocument republished = externalSitemapSupportBean.getSitemapDocument(SITEMAP_URL, "", "", null);
+    assertNotSame(document, republished);
+    assertEquals(document.getETag(true), republished.getETag(true));
+  }
+
+  @Test
+  public void sitemapIndexIsServedWhenEntriesDoNotFitInOneSitemap() throws IOException {
+    sitemapCacheLoader.setSitemapCache(new SitemapCacheBuilder().withUnit("abc-123", "2010-02-01T01:00:00+01:00").withUnit("def-456", "2010-02-01T01:00:00+01:00").withPerson("ghi-789", "2010-04-24T05:11:23+01:00").buildSitemapCache());
+    externalSitemapSupportBean.setMaxEntriesPerSitemap(1);
+
+    ByteArrayOutputStream index = new ByteArrayOutputStream();
+    externalSitemapSupportBean.getSitemapDocument(SITEMAP_URL, "false", "true", "").writeTo(index, false);
+    assertTrue(index.toString("UTF-8").contains("<loc>http://external.com/sitemap?persons=false&amp;units=true&amp;part=2</loc>"));
+
+    ByteArrayOutputStream part = new ByteArrayOutputStream();
+    externalSitemapSupportBean.getSitemapDocument(SITEMAP_URL, "false", "true", "2").writeTo(part, false);
+    assertTrue(part.toString("UTF-8").contains("def-456"));
+
+    assertNull(externalSitemapSupportBean.getSitemapDocument(SITEMAP_URL, "false", "true", "3"));
+    assertNull(externalSitemapSupportBean.getSitemapDocument(SITEMAP_URL, "false", "true", "0"));
+    assertNull(externalSitemapSupportBean.getSitemapDocument(SITEMAP_URL, "false", "true", "abc"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void maxEntriesPerSitemapIsLimitedByTheProtocol() {
+    externalSitemapSupportBean.setMaxEntriesPerSitemap(50001);
+  }
+
   @Test(expected = RuntimeException.class)
-  public void exceptionIsThrownOnInvalidExtraInformation() {
+  public void exceptionIsThrownOnInvalidExtraInformation() throws IOException {
     sitemapCacheLoader.setSitemapCache(new SitemapCacheBuilder().withUnit("abc-123", "2010-02-01T01:00:00+01:00", "invalid extra content").buildSitemapCache());
-    internalSitemapSupportBean.getSitemapContent("true", "true");
+    getSitemapContent(internalSitemapSupportBean, "true", "true");
+  }
+
+  private String getSitemapContent(SitemapSupportBean sitemapSupportBean, String persons, String units) throws IOException {
+    SitemapDocument document = sitemapSupportBean.getSitemapDocument(SITEMAP_URL, persons, units, null);
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    document.writeTo(content, false);
+    return content.toString(document.getCharacterEncoding());
   }
 
   private String getTagContent(String content, String tag) {
@@ -0,0 +1,100 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ */
+
+package se.vgregion.kivtools.search.svc.cache;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import se.vgregion.kivtools.search.domain.Unit;
+import se.vgregion.kivtools.search.domain.values.DN;
+
+public class OrganisationTreeIndexTest {
+  private final Unit region = createUnit("ou=Region,ou=Org,o=vgr");
+  private final Unit hospital = createUnit("ou=Sjukhus,ou=Region,ou=Org,o=vgr");
+  private final Unit ward = createUnit("ou=Avdelning,ou=Sjukhus,ou=Region,ou=Org,o=vgr");
+  private final Unit clinic = createUnit("ou=Mottagning,ou=Område,ou=Sjukhus,ou=Region,ou=Org,o=vgr");
+  private final Unit other = createUnit("ou=Kommun,ou=Org,o=vgr");
+  private final OrganisationTreeIndex index = new OrganisationTreeIndex(Arrays.asList(clinic, ward, other, hospital, region, createUnit(null)));
+
+  @Test
+  public void unitsAreNumberedInPreOrder() {
+    assertEquals(5, index.size());
+    int regionId = index.getId(region.getDn());
+    int hospitalId = index.getId(hospital.getDn());
+    assertEquals(hospitalId, regionId + 1);
+    assertEquals(-1, index.getParent(regionId));
+    assertEquals(regionId, index.getParent(hospitalId));
+    assertEquals(0, index.getDepth(regionId));
+    assertEquals(2, index.getDepth(index.getId(ward.getDn())));
+    assertSame(hospital, index.getUnit(hospitalId));
+    assertEquals(-1, index.getId(DN.createDNFromString("ou=Okänd,ou=Org,o=vgr")));
+  }
+
+  @Test
+  public void closestIndexedAncestorIsParent() {
+    int clinicId = index.getId(clinic.getDn());
+    assertEquals(index.getId(hospital.getDn()), index.getParent(clinicId));
+    assertEquals(2, index.getDepth(clinicId));
+  }
+
+  @Test
+  public void descendantsAreRangeOfIds() {
+    int regionId = index.getId(region.getDn());
+    int hospitalId = index.getId(hospital.getDn());
+    int otherId = index.getId(other.getDn());
+
+    assertEquals(3, index.getDescendants(regionId).size());
+    assertTrue(index.getDescendants(regionId).containsAll(Arrays.asList(hospital, ward, clinic)));
+    assertTrue(index.getDescendants(hospitalId).containsAll(Arrays.asList(ward, clinic)));
+    assertEquals(Collections.emptyList(), index.getDescendants(otherId));
+
+    assertTrue(index.isDescendant(regionId, index.getId(clinic.getDn())));
+    assertFalse(index.isDescendant(regionId, regionId));
+    assertFalse(index.isDescendant(hospitalId, otherId));
+    assertFalse(index.isDescendant(otherId, regionId));
+  }
+
+  @Test
+  public void postOrderNumbersEndTheDescendantRange() {
+    int regionId = index.getId(region.getDn());
+    assertEquals(regionId + 3, index.getPostOrder(regionId) + index.getDepth(regionId));
+    int wardId = index.getId(ward.getDn());
+    assertEquals(wardId, index.getPostOrder(wardId) + index.getDepth(wardId));
+  }
+
+  @Test
+  public void childrenAreLookedUpById() {
+    assertEquals(Arrays.asList(hospital), index.getChildren(index.getId(region.getDn())));
+    assertEquals(Arrays.asList(clinic, ward), index.getChildren(index.getId(hospital.getDn())));
+    assertEquals(Collections.emptyList(), index.getChildren(index.getId(ward.getDn())));
+  }
+
+  private static Unit createUnit(String dn) {
+    Unit unit = new Unit();
+    unit.setHsaIdentity(dn);
+    if (dn != null) {
+      unit.setDn(DN.createDNFromString(dn));
+    }
+    return unit;
+  }
+}
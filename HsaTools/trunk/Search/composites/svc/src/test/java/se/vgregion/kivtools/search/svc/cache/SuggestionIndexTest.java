@@ -0,0 +1,70 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ */
+
+package se.vgregion.kivtools.search.svc.cache;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SuggestionIndexTest {
+  private final SuggestionIndex index = new SuggestionIndex(Arrays.asList("Östra sjukhuset", "Angered", "Ängelholm", "Åsa", "Zeta", "angered", "Angered"));
+
+  @Test
+  public void duplicatesAreOnlyIndexedOnce() {
+    assertEquals(6, index.size());
+  }
+
+  @Test
+  public void valuesAreInSwedishCollationOrder() {
+    List<String> values = index.getMatchingValues("", Integer.MAX_VALUE);
+    assertEquals(Arrays.asList("angered", "Angered", "Zeta", "Åsa", "Ängelholm", "Östra sjukhuset"), values);
+  }
+
+  @Test
+  public void shortQueryMatchesAnywhereInValue() {
+    assertEquals(Arrays.asList("angered", "Angered", "Ängelholm"), index.getMatchingValues("ge", Integer.MAX_VALUE));
+  }
+
+  @Test
+  public void longQueryMatchesAnywhereInValue() {
+    assertEquals(Arrays.asList("Östra sjukhuset"), index.getMatchingValues("sjukhus", Integer.MAX_VALUE));
+    assertEquals(Arrays.asList("angered", "Angered"), index.getMatchingValues("gered", Integer.MAX_VALUE));
+  }
+
+  @Test
+  public void queryIsNormalized() {
+    assertEquals(Arrays.asList("Östra sjukhuset"), index.getMatchingValues(SuggestionIndex.normalize(" ÖSTRA "), Integer.MAX_VALUE));
+  }
+
+  @Test
+  public void queryWithUnknownGramDoesNotMatch() {
+    assertEquals(0, index.getMatchingValues("angerex", Integer.MAX_VALUE).size());
+    assertEquals(0, index.getMatchingValues("xyz", Integer.MAX_VALUE).size());
+  }
+
+  @Test
+  public void maxResultsLimitsTheMatchesInCollationOrder() {
+    assertEquals(Arrays.asList("angered", "Angered"), index.getMatchingValues("e", 2));
+    assertEquals(Arrays.asList("angered"), index.getMatchingValues("angered", 1));
+    assertArrayEquals(new int[] { 0, 1 }, index.getMatchingRanks("", 2));
+  }
+}
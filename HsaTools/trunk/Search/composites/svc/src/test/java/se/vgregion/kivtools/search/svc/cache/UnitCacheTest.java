@@ -31,29 +31,35 @@ import se.vgregion.kivtools.search.domain.values.DN;
 import se.vgregion.kivtools.search.svc.cache.UnitCache;
 
 public class UnitCacheTest {
-  private UnitCache unitCache = new UnitCache();
+  private UnitCache unitCache;
 
   @Before
   public void setUp() throws Exception {
-    unitCache.add(createUnit("abc-123"));
-    unitCache.add(createUnit("def-456"));
+    UnitCache.Builder builder = new UnitCache.Builder();
+    builder.add(createUnit("abc-123"));
+    builder.add(createUnit("def-456"));
     // Add same hsaIdentity again to make sure that duplicates are removed.
-    unitCache.add(createUnit("def-456"));
+    builder.add(createUnit("def-456"));
     Unit unit = createUnit("unit with dn");
     unit.setDn(DN.createDNFromString("ou=Tandreglering Halmstad,ou=lthalland.se,o=lth"));
-    unitCache.add(unit);
+    builder.add(unit);
+    Unit parent = createUnit("parent unit");
+    parent.setDn(DN.createDNFromString("ou=lthalland.se,o=lth"));
+    builder.add(parent);
+    unitCache = builder.build();
   }
 
   @Test
   public void testInstantiation() {
     UnitCache unitCache = new UnitCache();
     assertNotNull(unitCache);
+    assertTrue(unitCache.isEmpty());
   }
 
   @Test
   public void testGetUnits() {
     List<Unit> units = unitCache.getUnits();
-    assertEquals(3, units.size());
+    assertEquals(4, units.size());
   }
 
   @Test
@@ -69,6 +75,47 @@ public class UnitCacheTest {
     assertEquals("unit dn", DN.createDNFromString("ou=Tandreglering Halmstad,ou=lthalland.se,o=lth"), unit.getDn());
   }
 
+  @Test(expected = UnsupportedOperationException.class)
+  public void getUnitsReturnsUnmodifiableList() {
+    unitCache.getUnits().add(createUnit("ghi-789"));
+  }
+
+  @Test
+  public void builderDoesNotAffectAlreadyBuiltCache() {
+    UnitCache.Builder builder = new UnitCache.Builder();
+    builder.add(createUnit("abc-123"));
+    UnitCache cache = builder.build();
+    builder.add(createUnit("def-456"));
+    assertEquals(1, cache.getUnits().size());
+    assertNull(cache.getUnitByHsaIdentity("def-456"));
+  }
+
+  @Test
+  public void getUnitByHsaIdentityReturnNullForMissingUnit() {
+    assertNull("unit", unitCache.getUnitByHsaIdentity("xyz-999"));
+  }
+
+  @Test
+  public void getUnitByHsaIdentityReturnMatchingUnit() {
+    Unit unit = unitCache.getUnitByHsaIdentity("def-456");
+    assertNotNull("unit", unit);
+    assertEquals("hsaIdentity", "def-456", unit.getHsaIdentity());
+  }
+
+  @Test
+  public void getChildUnitsReturnUnitsDirectlyBelowParent() {
+    List<Unit> children = unitCache.getChildUnits("ou=lthalland.se,o=lth");
+    assertEquals(1, children.size());
+    assertEquals("unit with dn", children.get(0).getHsaIdentity());
+  }
+
+  @Test
+  public void getChildUnitsReturnEmptyListForLeafUnit() {
+    List<Unit> children = unitCache.getChildUnits("ou=Tandreglering Halmstad,ou=lthalland.se,o=lth");
+    assertNotNull(children);
+    assertTrue(children.isEmpty());
+  }
+
   private Unit createUnit(String hsaIdentity) {
     Unit unit = new Unit();
     unit.setHsaIdentity(hsaIdentity);
@@ -90,4 +90,21 @@ public class UnitNameCacheTest {
     assertEquals("IT-Avdelningen", matchingUnitNames.get(1));
     assertEquals("Vårdcentralen Hylte", matchingUnitNames.get(2));
   }
+
+  @Test
+  public void testGetMatchingUnitNamesMaxResults() {
+    List<String> matchingUnitNames = unitNameCache.getMatchingUnitNames("e", 2);
+    assertEquals(2, matchingUnitNames.size());
+    assertEquals("Akutmottagning Varberg", matchingUnitNames.get(0));
+    assertEquals("IT-Avdelningen", matchingUnitNames.get(1));
+  }
+
+  @Test
+  public void testUnitNameAddedAfterLookupIsFound() {
+    assertEquals(0, unitNameCache.getMatchingUnitNames("Öckerö").size());
+    unitNameCache.add("Vårdcentralen Öckerö");
+    List<String> matchingUnitNames = unitNameCache.getMatchingUnitNames("Öckerö");
+    assertEquals(1, matchingUnitNames.size());
+    assertTrue(matchingUnitNames.contains("Vårdcentralen Öckerö"));
+  }
 }
@@ -0,0 +1,131 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ */
+
+package se.vgregion.kivtools.search.svc.cache;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import se.vgregion.kivtools.search.domain.Unit;
+
+public class UnitProximityIndexTest {
+  private final Unit center = createUnit("center", 6400000, 1270000);
+  private final Unit north = createUnit("north", 6400500, 1270000);
+  private final Unit east = createUnit("east", 6400000, 1271000);
+  private final Unit farAway = createUnit("farAway", 6500000, 1370000);
+  private final Unit noCoordinates = createUnit("noCoordinates", 0, 0);
+  private final UnitProximityIndex index = new UnitProximityIndex(Arrays.asList(farAway, east, noCoordinates, north, center));
+
+  @Test
+  public void unitsWithoutCoordinatesAreNotIndexed() {
+    assertEquals(4, index.size());
+  }
+
+  @Test
+  public void nearestUnitsAreReturnedClosestFirst() {
+    assertEquals(Arrays.asList(center, north, east), index.getNearestUnits(6400010, 1270000, 3));
+  }
+
+  @Test
+  public void unitsWithinDistanceAreReturnedClosestFirst() {
+    assertEquals(Arrays.asList(north, center), index.getUnitsWithinDistance(6400400, 1270000, 500));
+    assertEquals(Arrays.asList(center, north, east), index.getUnitsWithinDistance(6400000, 1270000, 1000));
+  }
+
+  @Test
+  public void nearestUnitsAreLimitedByDistance() {
+    assertEquals(Arrays.asList(center), index.getNearestUnits(6400000, 1270000, 10, 100));
+    assertEquals(Arrays.asList(center, north), index.getNearestUnits(6400000, 1270000, 2, 100000));
+  }
+
+  @Test
+  public void emptyIndexReturnsNoUnits() {
+    UnitProximityIndex emptyIndex = new UnitProximityIndex(new ArrayList<Unit>());
+    assertEquals(0, emptyIndex.size());
+    assertTrue(emptyIndex.getNearestUnits(6400000, 1270000, 10).isEmpty());
+  }
+
+  @Test
+  public void unitsWithOnlyWgs84CoordinatesAreIndexed() {
+    Unit unit = new Unit();
+    unit.setHsaIdentity("wgs84");
+    unit.setWgs84Lat(57.7);
+    unit.setWgs84Long(11.97);
+    UnitProximityIndex wgs84Index = new UnitProximityIndex(Arrays.asList(unit));
+    assertEquals(1, wgs84Index.size());
+    assertEquals(Arrays.asList(unit), wgs84Index.getNearestUnits(6400000, 1270000, 1));
+  }
+
+  @Test
+  public void resultMatchesLinearScan() {
+    Random random = new Random(42);
+    List<Unit> units = new ArrayList<Unit>();
+    for (int i = 0; i < 2000; i++) {
+      units.add(createUnit("unit" + i, 6300000 + random.nextInt(300000), 1200000 + random.nextInt(200000)));
+    }
+    UnitProximityIndex randomIndex = new UnitProximityIndex(units);
+
+    for (int i = 0; i < 50; i++) {
+      final int x = 6300000 + random.nextInt(300000);
+      final int y = 1200000 + random.nextInt(200000);
+      List<Unit> sorted = new ArrayList<Unit>(units);
+      Collections.sort(sorted, new Comparator<Unit>() {
+        @Override
+        public int compare(Unit o1, Unit o2) {
+          return Long.valueOf(distance(o1, x, y)).compareTo(Long.valueOf(distance(o2, x, y)));
+        }
+      });
+
+      List<Unit> nearest = randomIndex.getNearestUnits(x, y, 10);
+      assertEquals(10, nearest.size());
+      for (int j = 0; j < nearest.size(); j++) {
+        assertEquals(distance(sorted.get(j), x, y), distance(nearest.get(j), x, y));
+      }
+
+      int withinCount = 0;
+      for (Unit unit : units) {
+        if (distance(unit, x, y) <= 10000L * 10000L) {
+          withinCount++;
+        }
+      }
+      assertEquals(withinCount, randomIndex.getUnitsWithinDistance(x, y, 10000).size());
+    }
+  }
+
+  private static long distance(Unit unit, int x, int y) {
+    long dx = unit.getRt90X() - x;
+    long dy = unit.getRt90Y() - y;
+    return dx * dx + dy * dy;
+  }
+
+  private static Unit createUnit(String hsaIdentity, int rt90X, int rt90Y) {
+    Unit unit = new Unit();
+    unit.setHsaIdentity(hsaIdentity);
+    unit.setRt90X(rt90X);
+    unit.setRt90Y(rt90Y);
+    return unit;
+  }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ */
+
+package se.vgregion.kivtools.search.svc.cache;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Test;
+
+import se.vgregion.kivtools.search.domain.Unit;
+import se.vgregion.kivtools.search.domain.values.Address;
+import se.vgregion.kivtools.search.domain.values.HealthcareType;
+import se.vgregion.kivtools.search.domain.values.ZipCode;
+
+public class UnitSearchIndexTest {
+  private final Unit angered = createUnit("ABC-123", "Angereds vårdcentral", "Göteborg", "1480");
+  private final Unit molndal = createUnit("ABC-456", "Mölndals sjukhus", "Mölndal", "1481");
+  private final Unit slottsskogen = createUnit("XYZ-789", "Slottsskogens vårdcentral", "Göteborg", "1480");
+  private final UnitSearchIndex index = new UnitSearchIndex(Arrays.asList(angered, molndal, slottsskogen));
+
+  @Test
+  public void nameMatchesAnywhereIgnoringCase() {
+    assertArrayEquals(new int[] { 0, 2 }, index.matchingName("VÅRDCENTRAL"));
+    assertArrayEquals(new int[] { 1 }, index.matchingName("sjuk"));
+    assertArrayEquals(new int[] {}, index.matchingName("tandvård"));
+  }
+
+  @Test
+  public void spacesAndHyphensAreWildcards() {
+    assertArrayEquals(new int[] { 0 }, index.matchingName("angered vård"));
+    assertArrayEquals(new int[] { 2 }, index.matchingName("slott-central"));
+    assertArrayEquals(new int[] {}, index.matchingName("central-slott"));
+  }
+
+  @Test
+  public void quotedValueMatchesWholeAttribute() {
+    assertArrayEquals(new int[] { 1 }, index.matchingName("\"mölndals sjukhus\""));
+    assertArrayEquals(new int[] {}, index.matchingName("\"mölndals\""));
+  }
+
+  @Test
+  public void shortValuesAreMatchedWithoutTheIndex() {
+    assertArrayEquals(new int[] { 0, 1, 2 }, index.matchingName("n"));
+    assertArrayEquals(new int[] { 1 }, index.matchingMunicipalityName("mö"));
+  }
+
+  @Test
+  public void emptyValueMatchesNothing() {
+    assertArrayEquals(new int[] {}, index.matchingName(""));
+    assertArrayEquals(new int[] {}, index.matchingName(null));
+  }
+
+  @Test
+  public void addressLinesAreMatched() {
+    Address address = new Address("Storgatan 1", new ZipCode("41234"), "Borås", Arrays.asList("Hus 3"));
+    angered.setHsaPostalAddress(address);
+    UnitSearchIndex addressIndex = new UnitSearchIndex(Arrays.asList(angered, molndal));
+    assertArrayEquals(new int[] { 0 }, addressIndex.matchingPostalAddress("borås"));
+    assertArrayEquals(new int[] { 0 }, addressIndex.matchingPostalAddress("hus 3"));
+    assertArrayEquals(new int[] {}, addressIndex.matchingStreetAddress("borås"));
+  }
+
+  @Test
+  public void codesAreLookedUpExactly() {
+    assertArrayEquals(new int[] { 0, 2 }, index.withBusinessClassificationCodes(Arrays.asList("1480")));
+    assertArrayEquals(new int[] { 0, 1, 2 }, index.withBusinessClassificationCodes(Arrays.asList("1481", "1480")));
+    assertArrayEquals(new int[] {}, index.withBusinessClassificationCodes(Arrays.asList("148")));
+    assertArrayEquals(new int[] { 1 }, index.withCareTypes(Arrays.asList("03")));
+    assertArrayEquals(new int[] { 0, 2 }, index.withAdministrations(Arrays.asList("AO3")));
+    assertArrayEquals(new int[] {}, index.withCareTypes(new ArrayList<String>()));
+  }
+
+  @Test
+  public void publicUnitsAndHealthcareTypesAreIndexed() {
+    assertArrayEquals(new int[] { 0, 2 }, index.publicUnits());
+    assertArrayEquals(new int[] { 1 }, index.withHealthcareType(4));
+    assertArrayEquals(new int[] {}, index.withHealthcareType(5));
+  }
+
+  @Test
+  public void sortedIdsAreIntersectedAndMerged() {
+    assertArrayEquals(new int[] { 3, 7 }, UnitSearchIndex.intersect(new int[] { 1, 3, 5, 7 }, new int[] { 2, 3, 7, 9 }));
+    assertArrayEquals(new int[] { 1, 2, 3, 5, 7, 9 }, UnitSearchIndex.union(new int[] { 1, 3, 5, 7 }, new int[] { 2, 3, 7, 9 }));
+    assertArrayEquals(new int[] {}, UnitSearchIndex.intersect(new int[] {}, new int[] { 1 }));
+    assertArrayEquals(new int[] { 1 }, UnitSearchIndex.union(new int[] {}, new int[] { 1 }));
+  }
+
+  @Test
+  public void firstUnitsAreSelectedInSortOrder() {
+    Comparator<Unit> byName = new Comparator<Unit>() {
+      @Override
+      public int compare(Unit o1, Unit o2) {
+        return o1.getName().compareTo(o2.getName());
+      }
+    };
+    List<Unit> units = index.getUnits(index.all());
+    assertEquals(Arrays.asList(angered, molndal), UnitSearchIndex.first(units, 2, byName));
+    assertEquals(Arrays.asList(angered, molndal, slottsskogen), UnitSearchIndex.first(units, 10, byName));
+    assertEquals(Collections.emptyList(), UnitSearchIndex.first(units, 0, byName));
+  }
+
+  @Test
+  public void firstUnitsKeepOrderOfEqualUnits() {
+    Comparator<Unit> none = new Comparator<Unit>() {
+      @Override
+      public int compare(Unit o1, Unit o2) {
+        return 0;
+      }
+    };
+    assertEquals(Arrays.asList(molndal, slottsskogen), UnitSearchIndex.first(Arrays.asList(molndal, slottsskogen, angered), 2, none));
+  }
+
+  private static Unit createUnit(String hsaIdentity, String name, String municipalityName, String businessClassificationCode) {
+    Unit unit = new Unit();
+    unit.setHsaIdentity(hsaIdentity);
+    unit.setName(name);
+    unit.setHsaMunicipalityName(municipalityName);
+    unit.setHsaBusinessClassificationCode(Arrays.asList(businessClassificationCode));
+    if ("Göteborg".equals(municipalityName)) {
+      unit.setVgrAO3kod("AO3");
+      unit.setCareType("01");
+      unit.addHsaDestinationIndicator("03");
+    } else {
+      unit.setCareType("03");
+      unit.addHealthcareType(new HealthcareType(4));
+    }
+    return unit;
+  }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ */
+
+package se.vgregion.kivtools.search.svc.codetables;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CodeTableTest {
+  private CodeTable codeTable;
+
+  @Before
+  public void setUp() {
+    Map<String, String> content = new LinkedHashMap<String, String>();
+    content.put("1", "Landsting/Region");
+    content.put("2", "Kommun");
+    content.put("3", "Statlig");
+    content.put("4", "Privat, vårdavtal");
+    content.put("5", "Privat, enl lag om läkarvårdsersättning");
+    this.codeTable = new CodeTable(content, 1234L);
+  }
+
+  @Test
+  public void getValueReturnDescriptionForCode() {
+    assertEquals("Kommun", this.codeTable.getValue("2"));
+    assertNull(this.codeTable.getValue("6"));
+  }
+
+  @Test
+  public void matchingIgnoresCaseAndFindsInfixes() {
+    assertEquals("[4, 5]", this.codeTable.getCodesMatching("VÅRD").toString());
+    assertEquals("[Landsting/Region]", this.codeTable.getValuesMatching("ting/reg").toString());
+  }
+
+  @Test
+  public void shortTextsAreMatchedAgainstAllDescriptions() {
+    assertEquals("[1, 3]", this.codeTable.getCodesMatching("st").toString());
+    assertEquals(5, this.codeTable.getCodesMatching("").size());
+  }
+
+  @Test
+  public void textWithAllGramsPresentButNotContiguousIsNotMatched() {
+    // "lag" and "ags" are both present in the descriptions, "lags" is not.
+    assertTrue(this.codeTable.getCodesMatching("lags").isEmpty());
+  }
+
+  @Test
+  public void unknownTextReturnEmptyList() {
+    assertTrue(this.codeTable.getCodesMatching("Test123Test").isEmpty());
+  }
+
+  @Test
+  public void repeatedLookupsReturnIndependentLists() {
+    List<String> first = this.codeTable.getCodesMatching("privat");
+    first.clear();
+    assertEquals("[4, 5]", this.codeTable.getCodesMatching("privat").toString());
+  }
+
+  @Test
+  public void contentIsCopiedOnConstruction() {
+    Map<String, String> content = new LinkedHashMap<String, String>();
+    content.put("1", "Doctor");
+    CodeTable copy = new CodeTable(content, 0L);
+    content.put("2", "Nurse");
+    assertEquals(1, copy.size());
+    assertEquals(0L, copy.getLoadedAt());
+    assertEquals(1234L, this.codeTable.getLoadedAt());
+  }
+}
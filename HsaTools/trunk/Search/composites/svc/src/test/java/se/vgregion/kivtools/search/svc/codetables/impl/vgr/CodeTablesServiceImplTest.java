@@ -31,6 +31,7 @@ import java.util.Map;
 
 import javax.naming.Name;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.ldap.CommunicationException;
@@ -42,6 +43,8 @@ import org.springframework.ldap.core.LdapTemplate;
 import se.vgregion.kivtools.mocks.ldap.DirContextOperationsMock;
 import se.vgregion.kivtools.search.domain.values.CodeTableName;
 import se.vgregion.kivtools.search.exceptions.LDAPRuntimeExcepton;
+import se.vgregion.kivtools.util.time.TimeSource;
+import se.vgregion.kivtools.util.time.TimeUtil;
 
 public class CodeTablesServiceImplTest {
   private static String[] managementCodeAttributes = { "1;Landsting/Region", "2;Kommun", "3;Statlig", "4;Privat, vårdavtal", "5;Privat, enl lag om läkarvårdsersättning" };
@@ -53,8 +56,16 @@ public class CodeTablesServiceImplTest {
 
   private final CodeTablesServiceImpl codeTablesService = new CodeTablesServiceImpl(this.ldapTemplate);
 
+  private long now = 1000L;
+
   @Before
   public void setup() {
+    TimeUtil.setTimeSource(new TimeSource() {
+      @Override
+      public long millis() {
+        return CodeTablesServiceImplTest.this.now;
+      }
+    });
 
     for (CodeTableName codeTableName : CodeTableName.values()) {
       DirContextOperationsMock dirContextOperations = new DirContextOperationsMock();
@@ -74,6 +85,11 @@ public class CodeTablesServiceImplTest {
     this.codeTablesService.init();
   }
 
+  @After
+  public void tearDown() {
+    TimeUtil.reset();
+  }
+
   @Test(expected = LDAPRuntimeExcepton.class)
   public void initThrowsExceptionOnNamingException() {
     this.ldapTemplate.setExceptionToThrow(new CommunicationException(null));
@@ -153,6 +169,39 @@ public class CodeTablesServiceImplTest {
     assertTrue("values is not empty", allValuesItemsFromCodeTable.isEmpty());
   }
 
+  @Test
+  public void refreshReplacesCodeTableContent() {
+    DirContextOperationsMock dirContextOperations = new DirContextOperationsMock();
+    dirContextOperations.addAttributeValue("description", new String[] { "1;Läkare" });
+    this.ldapTemplate.addSearchResult("(cn=" + CodeTableName.HSA_TITLE.toString() + ")", dirContextOperations);
+    this.now = 2000L;
+
+    List<String> codesBeforeRefresh = this.codeTablesService.getCodeFromTextValue(CodeTableName.HSA_TITLE, "läkare");
+    this.codeTablesService.refresh();
+
+    assertTrue(codesBeforeRefresh.isEmpty());
+    assertEquals("Läkare", this.codeTablesService.getValueFromCode(CodeTableName.HSA_TITLE, "1"));
+    assertEquals("[1]", this.codeTablesService.getCodeFromTextValue(CodeTableName.HSA_TITLE, "läkare").toString());
+    assertEquals(2000L, this.codeTablesService.getLoadedAt(CodeTableName.HSA_TITLE));
+  }
+
+  @Test
+  public void failedRefreshKeepsPreviousContent() {
+    this.ldapTemplate.setExceptionToThrow(new CommunicationException(null));
+    this.now = 2000L;
+
+    this.codeTablesService.refresh();
+
+    assertEquals("Doctor", this.codeTablesService.getValueFromCode(CodeTableName.HSA_TITLE, "1"));
+    assertEquals(1000L, this.codeTablesService.getLoadedAt(CodeTableName.HSA_TITLE));
+  }
+
+  @Test
+  public void getLoadedAtForNeverLoadedCodeTableReturnMinusOne() {
+    CodeTablesServiceImpl uninitializedService = new CodeTablesServiceImpl(this.ldapTemplate);
+    assertEquals(-1L, uninitializedService.getLoadedAt(CodeTableName.HSA_TITLE));
+  }
+
   @Test
   public void testTopTenFiltered() {
     List<String> valuesItemsFromCodeTable = this.codeTablesService.getAllValuesItemsFromCodeTable(CodeTableName.HSA_LANGUAGE_KNOWLEDGE_CODE.name());
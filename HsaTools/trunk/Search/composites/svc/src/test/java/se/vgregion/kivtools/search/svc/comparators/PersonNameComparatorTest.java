@@ -38,6 +38,18 @@ public class PersonNameComparatorTest {
     assertEquals(0, comparator.compare(person1, person2));
   }
 
+  @Test
+  public void personsWithoutNameAreSortedAsEmptyNames() {
+    assertEquals(0, comparator.compare(new Person(), null));
+    assertTrue(comparator.compare(new Person(), createPerson("Andersson", "Anna")) < 0);
+  }
+
+  @Test
+  public void compareUsesTheSwedishAlphabet() {
+    assertTrue(comparator.compare(createPerson("Åberg", "Anna"), createPerson("Ähman", "Anna")) < 0);
+    assertTrue(comparator.compare(createPerson("Öberg", "Anna"), createPerson("Zetterberg", "Anna")) > 0);
+  }
+
   private Person createPerson(String surname, String givenName) {
     Person person = new Person();
     person.setSn(surname);
@@ -38,6 +38,21 @@ public class UnitNameComparatorTest {
     assertEquals(0, comparator.compare(unit1, unit2));
   }
 
+  @Test
+  public void unitsWithoutNameAreSortedFirstAndNotModified() {
+    Unit unit1 = new Unit();
+    Unit unit2 = createUnit("Angered");
+    assertTrue(comparator.compare(unit1, unit2) < 0);
+    assertTrue(comparator.compare(unit2, null) > 0);
+    assertNull(unit1.getName());
+  }
+
+  @Test
+  public void compareUsesTheSwedishAlphabet() {
+    assertTrue(comparator.compare(createUnit("Östra sjukhuset"), createUnit("Ängabo")) > 0);
+    assertTrue(comparator.compare(createUnit("Åsa"), createUnit("Zeta")) > 0);
+  }
+
   private Unit createUnit(String unitName) {
     Unit unit = new Unit();
     unit.setName(unitName);
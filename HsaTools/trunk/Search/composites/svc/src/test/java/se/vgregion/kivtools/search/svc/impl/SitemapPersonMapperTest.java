@@ -46,14 +46,14 @@ import se.vgregion.kivtools.svc.sitemap.TelephoneType;
 public class SitemapPersonMapperTest {
   private final PersonBuilder personBuilder = new PersonBuilder();
   private final EmploymentBuilder employmentBuilder = new EmploymentBuilder();
-  private final UnitCache unitCache = new UnitCache();
+  private UnitCache unitCache;
 
   @Before
   public void setUp() {
     Unit unit = new Unit();
     unit.setHsaIdentity("abc-123");
     unit.setDn(DN.createDNFromString("ou=Tandreglering Halmstad,ou=lthalland.se,o=lth"));
-    this.unitCache.add(unit);
+    this.unitCache = new UnitCache.Builder().add(unit).build();
   }
 
   @Test
@@ -0,0 +1,211 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ */
+package se.vgregion.kivtools.search.svc.impl.cache;
+
+import static org.easymock.EasyMock.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import se.vgregion.kivtools.search.domain.Unit;
+import se.vgregion.kivtools.search.exceptions.KivException;
+import se.vgregion.kivtools.search.svc.PageConsumer;
+import se.vgregion.kivtools.search.svc.SearchService;
+import se.vgregion.kivtools.search.svc.cache.CacheLoader;
+import se.vgregion.kivtools.search.svc.cache.UnitCache;
+
+public class CacheReloadSchedulerTest {
+  private List<String> reloadOrder;
+  private CacheReloadScheduler scheduler;
+
+  @Before
+  public void setUp() {
+    reloadOrder = Collections.synchronizedList(new ArrayList<String>());
+    scheduler = new CacheReloadScheduler(2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructorRequiresAtLeastOneConcurrentReload() {
+    new CacheReloadScheduler(0);
+  }
+
+  @Test
+  public void dependentCachesAreReloadedAfterTheirPrerequisites() {
+    CacheServiceImpl<String> unit = createCacheService("unit");
+    CacheServiceImpl<String> person = createCacheService("person");
+    CacheServiceImpl<String> deliveryPoint = createCacheService("deliveryPoint");
+    CacheServiceImpl<String> sitemap = createCacheService("sitemap");
+
+    scheduler.setCacheServices(Arrays.<CacheServiceImpl<?>> asList(sitemap, deliveryPoint, person, unit));
+    Map<CacheServiceImpl<?>, List<CacheServiceImpl<?>>> dependencies = new HashMap<CacheServiceImpl<?>, List<CacheServiceImpl<?>>>();
+    dependencies.put(deliveryPoint, Arrays.<CacheServiceImpl<?>> asList(unit));
+    dependencies.put(sitemap, Arrays.<CacheServiceImpl<?>> asList(deliveryPoint, person));
+    scheduler.setDependencies(dependencies);
+
+    scheduler.reloadCaches();
+
+    assertEquals(4, reloadOrder.size());
+    assertTrue(reloadOrder.indexOf("unit") < reloadOrder.indexOf("deliveryPoint"));
+    assertTrue(reloadOrder.indexOf("deliveryPoint") < reloadOrder.indexOf("sitemap"));
+    assertTrue(reloadOrder.indexOf("person") < reloadOrder.indexOf("sitemap"));
+    assertEquals("sitemap-loaded", sitemap.getCache());
+  }
+
+  @Test
+  public void independentCachesAreReloadedConcurrently() {
+    final CountDownLatch bothStarted = new CountDownLatch(2);
+    final AtomicInteger timedOut = new AtomicInteger();
+    CacheLoader<String> awaitingLoader = new CacheLoader<String>() {
+      @Override
+      public String loadCache() {
+        bothStarted.countDown();
+        try {
+          if (!bothStarted.await(5, TimeUnit.SECONDS)) {
+            timedOut.incrementAndGet();
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return "loaded";
+      }
+
+      @Override
+      public String createEmptyCache() {
+        return "";
+      }
+    };
+
+    scheduler.setCacheServices(Arrays.<CacheServiceImpl<?>> asList(new CacheServiceImpl<String>(awaitingLoader), new CacheServiceImpl<String>(awaitingLoader)));
+    scheduler.reloadCaches();
+
+    assertEquals(0, timedOut.get());
+  }
+
+  @Test
+  public void dependentsOfFailedReloadAreSkipped() {
+    CacheServiceImpl<String> unit = new CacheServiceImpl<String>(new CacheLoader<String>() {
+      @Override
+      public String loadCache() {
+        throw new RuntimeException("LDAP unavailable");
+      }
+
+      @Override
+      public String createEmptyCache() {
+        return "unit-empty";
+      }
+    });
+    CacheServiceImpl<String> deliveryPoint = createCacheService("deliveryPoint");
+    CacheServiceImpl<String> sitemap = createCacheService("sitemap");
+    CacheServiceImpl<String> person = createCacheService("person");
+
+    scheduler.setCacheServices(Arrays.<CacheServiceImpl<?>> asList(unit, deliveryPoint, sitemap, person));
+    Map<CacheServiceImpl<?>, List<CacheServiceImpl<?>>> dependencies = new HashMap<CacheServiceImpl<?>, List<CacheServiceImpl<?>>>();
+    dependencies.put(deliveryPoint, Arrays.<CacheServiceImpl<?>> asList(unit));
+    dependencies.put(sitemap, Arrays.<CacheServiceImpl<?>> asList(deliveryPoint));
+    scheduler.setDependencies(dependencies);
+
+    scheduler.reloadCaches();
+
+    assertEquals(Arrays.asList("person"), reloadOrder);
+    assertEquals("unit-empty", unit.getCache());
+    assertEquals("deliveryPoint-empty", deliveryPoint.getCache());
+    assertEquals("sitemap-empty", sitemap.getCache());
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void dependentsAreSkippedAndUnitCacheIsKeptWhenUnitsCouldNotBeRetrieved() throws KivException {
+    SearchService searchService = createMock(SearchService.class);
+    searchService.getAllUnits(eq(true), (PageConsumer<Unit>) anyObject());
+    expectLastCall().andThrow(new KivException("LDAP unavailable"));
+    replay(searchService);
+
+    UnitCacheServiceImpl unit = new UnitCacheServiceImpl(new UnitCacheLoaderImpl(searchService, true));
+    UnitCache currentUnitCache = unit.getCache();
+    CacheServiceImpl<String> deliveryPoint = createCacheService("deliveryPoint");
+    CacheServiceImpl<String> unitName = createCacheService("unitName");
+    CacheServiceImpl<String> person = createCacheService("person");
+
+    scheduler.setCacheServices(Arrays.<CacheServiceImpl<?>> asList(unit, deliveryPoint, unitName, person));
+    Map<CacheServiceImpl<?>, List<CacheServiceImpl<?>>> dependencies = new HashMap<CacheServiceImpl<?>, List<CacheServiceImpl<?>>>();
+    dependencies.put(deliveryPoint, Arrays.<CacheServiceImpl<?>> asList(unit));
+    dependencies.put(unitName, Arrays.<CacheServiceImpl<?>> asList(unit));
+    scheduler.setDependencies(dependencies);
+
+    scheduler.reloadCaches();
+
+    verify(searchService);
+    assertEquals(Arrays.asList("person"), reloadOrder);
+    assertSame(currentUnitCache, unit.getCache());
+    assertEquals("deliveryPoint-empty", deliveryPoint.getCache());
+    assertEquals("unitName-empty", unitName.getCache());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void cyclicDependenciesAreRejected() {
+    CacheServiceImpl<String> first = createCacheService("first");
+    CacheServiceImpl<String> second = createCacheService("second");
+
+    scheduler.setCacheServices(Arrays.<CacheServiceImpl<?>> asList(first, second));
+    Map<CacheServiceImpl<?>, List<CacheServiceImpl<?>>> dependencies = new HashMap<CacheServiceImpl<?>, List<CacheServiceImpl<?>>>();
+    dependencies.put(first, Arrays.<CacheServiceImpl<?>> asList(second));
+    dependencies.put(second, Arrays.<CacheServiceImpl<?>> asList(first));
+    scheduler.setDependencies(dependencies);
+
+    scheduler.reloadCaches();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void dependencyOnUnknownCacheServiceIsRejected() {
+    CacheServiceImpl<String> first = createCacheService("first");
+    CacheServiceImpl<String> unknown = createCacheService("unknown");
+
+    scheduler.setCacheServices(Arrays.<CacheServiceImpl<?>> asList(first));
+    Map<CacheServiceImpl<?>, List<CacheServiceImpl<?>>> dependencies = new HashMap<CacheServiceImpl<?>, List<CacheServiceImpl<?>>>();
+    dependencies.put(first, Arrays.<CacheServiceImpl<?>> asList(unknown));
+    scheduler.setDependencies(dependencies);
+
+    scheduler.reloadCaches();
+  }
+
+  private CacheServiceImpl<String> createCacheService(final String name) {
+    return new CacheServiceImpl<String>(new CacheLoader<String>() {
+      @Override
+      public String loadCache() {
+        reloadOrder.add(name);
+        return name + "-loaded";
+      }
+
+      @Override
+      public String createEmptyCache() {
+        return name + "-empty";
+      }
+    });
+  }
+}
@@ -5,6 +5,7 @@ import static org.junit.Assert.*;
 import org.junit.Before;
 import org.junit.Test;
 
+import se.vgregion.kivtools.search.svc.PageConsumer;
 import se.vgregion.kivtools.search.svc.SearchService;
 import se.vgregion.kivtools.search.svc.impl.kiv.ldap.SearchServiceLdapImpl;
 
@@ -15,6 +16,10 @@ import static org.junit.Assert.assertNotSame;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Test;
 
@@ -99,9 +104,12 @@ public class DeliverypointCacheLoaderImplTest {
 
 	@Test 
 	public void unitAreMappedFromDeliverypoint(){
-		UnitCache uc = this.unitCacheService.getCache();
+		UnitCache original = this.unitCacheService.getCache();
 		DeliveryPointCache dpc = this.deliverypointCache.loadCache(); 
+		UnitCache uc = this.unitCacheService.getCache();
 		
+		assertNotSame(original, uc);
+		assertTrue(original.getUnitByDnString("ou=test1,ou=org,o=vgr").getDeliverypointDeliveryAddress().isEmpty());
 		Unit u = uc.getUnitByDnString("ou=test1,ou=org,o=vgr");
 		
 		assertNotNull(u);
@@ -114,6 +122,86 @@ public class DeliverypointCacheLoaderImplTest {
 	}
 	
 	
+	@Test
+	public void enrichedUnitCacheIsCompleteIfTheOriginalIs() {
+		this.deliverypointCache.loadCache();
+		assertFalse(this.unitCacheService.getCache().isComplete());
+
+		this.unitCacheService.setCache(new UnitCache.Builder().addAll(this.unitCacheService.getCache().getUnits()).setComplete(true).build());
+		this.deliverypointCache.loadCache();
+		assertTrue(this.unitCacheService.getCache().isComplete());
+	}
+
+	@Test
+	public void reloadingDeliverypointsDoesNotAddAddressesTwice() {
+		this.deliverypointCache.loadCache();
+		this.deliverypointCache.loadCache();
+
+		Unit u = this.unitCacheService.getCache().getUnitByHsaIdentity("ABC-123");
+		assertEquals(2, u.getDeliverypointDeliveryAddress().size());
+		assertEquals(2, u.getDeliverypointConsigneeAddress().size());
+	}
+
+	@Test
+	public void deliverypointsAreStillFoundByHsaIdentityAfterUnitMatching() {
+		DeliveryPointCache dpc = this.deliverypointCache.loadCache();
+
+		assertNotNull(dpc.getDeliverypointByHsaidenity("SE2321000131-S000000012908"));
+		assertEquals(2, dpc.getDeliverypointsByUnitHsaId("ABC-123").size());
+	}
+
+	@Test
+	public void readersNeverSeePartiallyEnrichedUnits() throws Exception {
+		final AtomicBoolean running = new AtomicBoolean(true);
+		final AtomicReference<String> failure = new AtomicReference<String>();
+		final CountDownLatch readersStarted = new CountDownLatch(4);
+		List<Thread> readers = new ArrayList<Thread>();
+		for (int i = 0; i < 4; i++) {
+			Thread reader = new Thread() {
+				@Override
+				public void run() {
+					readersStarted.countDown();
+					try {
+						while (running.get()) {
+							for (Unit unit : unitCacheService.getCache().getUnits()) {
+								int size = 0;
+								for (Address address : unit.getDeliverypointDeliveryAddress()) {
+									assertNotNull(address);
+									size++;
+								}
+								// All units with delivery points in the mock have two of them.
+								if (size != 0 && size != 2) {
+									failure.compareAndSet(null, unit.getHsaIdentity() + " had " + size + " delivery addresses");
+								}
+							}
+						}
+					} catch (Throwable e) {
+						failure.compareAndSet(null, e.toString());
+					}
+				}
+			};
+			reader.start();
+			readers.add(reader);
+		}
+
+		readersStarted.await();
+		try {
+			for (int i = 0; i < 200 && failure.get() == null; i++) {
+				this.unitCacheService.reloadCache();
+				this.deliverypointCache.loadCache();
+				this.deliverypointCache.loadCache();
+			}
+		} finally {
+			running.set(false);
+			for (Thread reader : readers) {
+				reader.join(5000);
+			}
+		}
+
+		assertNull(failure.get(), failure.get());
+		assertEquals(2, this.unitCacheService.getCache().getUnitByHsaIdentity("ABC-123").getDeliverypointDeliveryAddress().size());
+	}
+
 	private Deliverypoint createDeliverypoint(String hsaIdentity) {
 		Deliverypoint dp = new Deliverypoint();
 		dp.setHsaIdentity(hsaIdentity);
@@ -192,6 +280,12 @@ public class DeliverypointCacheLoaderImplTest {
 			return null;
 		}
 
+		@Override
+		public Map<String, List<Employment>> getEmploymentsByPersonDn(
+				List<String> personDns) throws KivException {
+			return null;
+		}
+
 		@Override
 		public List<Deliverypoint> getAllDeliverypoints() throws KivException {
 			List<Deliverypoint> dpl = new ArrayList<Deliverypoint>();
@@ -230,6 +324,11 @@ public class DeliverypointCacheLoaderImplTest {
 			return null;
 		}
 
+		@Override
+		public void getAllUnits(boolean onlyPublicUnits,
+				PageConsumer<Unit> consumer) throws KivException {
+		}
+
 		@Override
 		public List<String> getAllPersonsId() throws KivException {
 			// TODO Auto-generated method stub
@@ -242,6 +341,11 @@ public class DeliverypointCacheLoaderImplTest {
 			return null;
 		}
 
+		@Override
+		public void getAllPersons(PageConsumer<Person> consumer)
+				throws KivException {
+		}
+
 		@Override
 		public List<Employment> getEmploymentsForPerson(Person person)
 				throws KivException {
@@ -23,6 +23,10 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.junit.Test;
 
 import se.vgregion.kivtools.search.svc.cache.SitemapCache;
@@ -30,6 +34,7 @@ import se.vgregion.kivtools.search.svc.impl.cache.InternalSitemapCacheLoaderImpl
 import se.vgregion.kivtools.search.svc.impl.cache.PersonCacheServiceImpl;
 import se.vgregion.kivtools.search.svc.impl.cache.UnitCacheServiceImpl;
 import se.vgregion.kivtools.search.svc.impl.cache.*;
+import se.vgregion.kivtools.search.util.MvkCaseTypeService;
 import se.vgregion.kivtools.search.util.MvkClient;
 import se.vgregion.kivtools.util.http.HttpFetcher;
 
@@ -38,7 +43,7 @@ public class InternalSitemapCacheLoaderImplTest {
   private final PersonCacheServiceImpl personCacheService = new PersonCacheServiceImpl(new PersonCacheLoaderMock());
   private final HttpFetcherStaticMock httpFetcher = new HttpFetcherStaticMock();
   private final MvkClient mvkClient = new MvkClient(this.httpFetcher, "uid123", "http://localhost?mvk=1");
-  private final InternalSitemapCacheLoaderImpl loader = new InternalSitemapCacheLoaderImpl(this.unitCacheService, this.personCacheService, this.mvkClient, "http://internal.com", "weekly");
+  private final InternalSitemapCacheLoaderImpl loader = new InternalSitemapCacheLoaderImpl(this.unitCacheService, this.personCacheService, new MvkCaseTypeService(this.mvkClient), "http://internal.com", "weekly");
 
   @Test
   public void createEmptyCacheReturnEmptyCache() {
@@ -109,13 +114,29 @@ public class InternalSitemapCacheLoaderImplTest {
     assertEquals("calls to MVK", 3, this.httpFetcher.callCount);
   }
 
+  @Test
+  public void mvkCaseTypesAreReusedWhenTheCacheIsReloaded() {
+    this.loader.loadCache();
+    this.loader.loadCache();
+    assertEquals("calls to MVK", 3, this.httpFetcher.callCount);
+  }
+
   private static class HttpFetcherStaticMock implements HttpFetcher {
     private int callCount;
 
     @Override
-    public String fetchUrl(String urlToFetch) {
+    public synchronized String fetchUrl(String urlToFetch) {
       this.callCount++;
       return "<xml></xml>";
     }
+
+    @Override
+    public Map<String, String> fetchUrls(Collection<String> urlsToFetch) {
+      Map<String, String> result = new LinkedHashMap<String, String>();
+      for (String url : urlsToFetch) {
+        result.put(url, this.fetchUrl(url));
+      }
+      return result;
+    }
   }
 }
@@ -22,10 +22,14 @@ package se.vgregion.kivtools.search.svc.impl.cache;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.Test;
 
@@ -34,8 +38,10 @@ import se.vgregion.kivtools.search.domain.Employment;
 import se.vgregion.kivtools.search.domain.Person;
 import se.vgregion.kivtools.search.domain.Unit;
 import se.vgregion.kivtools.search.exceptions.KivException;
+import se.vgregion.kivtools.search.svc.PageConsumer;
 import se.vgregion.kivtools.search.svc.SearchService;
 import se.vgregion.kivtools.search.svc.SikSearchResultList;
+import se.vgregion.kivtools.search.svc.cache.CacheLoadingException;
 import se.vgregion.kivtools.search.svc.cache.PersonCache;
 import se.vgregion.kivtools.search.svc.impl.cache.PersonCacheLoaderImpl;
 import se.vgregion.kivtools.search.svc.ldap.criterions.SearchPersonCriterions;
@@ -61,13 +67,12 @@ public class PersonCacheLoaderImplTest {
     assertNotSame(emptyCache1, emptyCache2);
   }
 
-  @Test
-  public void processingEndsOnKivException() {
+  @Test(expected = CacheLoadingException.class)
+  public void loadingFailsOnKivException() {
     this.searchService.setExceptionToThrow(new KivException("test"));
     this.searchService.addPerson(this.createPerson("abc123", "Anna", "Andersson"));
 
-    PersonCache personCache = this.personCacheLoader.loadCache();
-    assertEquals(0, personCache.getPersons().size());
+    this.personCacheLoader.loadCache();
   }
 
   @Test
@@ -79,8 +84,27 @@ public class PersonCacheLoaderImplTest {
     assertEquals(2, personCache.getPersons().size());
   }
 
+  @Test
+  public void employmentsAreFetchedForAllPersonsInOneCall() {
+    Person anna = this.createPerson("abc123", "Anna", "Andersson");
+    Person berit = this.createPerson("def456", "Berit", "Bengtsson");
+    List<Employment> beritsEmployments = new ArrayList<Employment>();
+    berit.setEmployments(beritsEmployments);
+    this.searchService.addPerson(anna);
+    this.searchService.addPerson(berit);
+    Employment employment = new Employment();
+    this.searchService.addEmployment(anna.getDn(), employment);
+
+    this.personCacheLoader.loadCache();
+    assertEquals(1, this.searchService.getEmploymentsByPersonDnCallCount);
+    assertEquals(Collections.singletonList(anna.getDn()), this.searchService.requestedPersonDns);
+    assertEquals(Collections.singletonList(employment), anna.getEmployments());
+    assertSame(beritsEmployments, berit.getEmployments());
+  }
+
   private Person createPerson(String vgrId, String givenName, String surname) {
     Person person = new Person();
+    person.setDn("cn=" + vgrId + ",ou=Personal,o=vgr");
     person.setVgrId(vgrId);
     person.setGivenName(givenName);
     person.setSn(surname);
@@ -89,12 +113,24 @@ public class PersonCacheLoaderImplTest {
 
   private static class SearchServiceMock implements SearchService {
     private final List<Person> persons = new ArrayList<Person>();
+    private final Map<String, List<Employment>> employments = new HashMap<String, List<Employment>>();
     private KivException exceptionToThrow;
+    private int getEmploymentsByPersonDnCallCount;
+    private List<String> requestedPersonDns;
 
     public void addPerson(Person person) {
       this.persons.add(person);
     }
 
+    public void addEmployment(String personDn, Employment employment) {
+      List<Employment> personEmployments = this.employments.get(personDn);
+      if (personEmployments == null) {
+        personEmployments = new ArrayList<Employment>();
+        this.employments.put(personDn, personEmployments);
+      }
+      personEmployments.add(employment);
+    }
+
     public void setExceptionToThrow(KivException exceptionToThrow) {
       this.exceptionToThrow = exceptionToThrow;
     }
@@ -107,12 +143,29 @@ public class PersonCacheLoaderImplTest {
       return this.persons;
     }
 
+    @Override
+    public void getAllPersons(PageConsumer<Person> consumer) throws KivException {
+      if (this.exceptionToThrow != null) {
+        throw this.exceptionToThrow;
+      }
+      // Hand each person over as a page of its own to simulate a paged search.
+      for (Person person : this.persons) {
+        if (!consumer.consume(Collections.singletonList(person))) {
+          break;
+        }
+      }
+    }
+
     // Not implemented
     @Override
     public List<Unit> getAllUnits(boolean onlyPublicUnits) throws KivException {
       return null;
     }
 
+    @Override
+    public void getAllUnits(boolean onlyPublicUnits, PageConsumer<Unit> consumer) throws KivException {
+    }
+
     @Override
     public Unit getUnitByHsaId(String hsaId) throws KivException {
       return null;
@@ -138,6 +191,21 @@ public class PersonCacheLoaderImplTest {
       return null;
     }
 
+    @Override
+    public Map<String, List<Employment>> getEmploymentsByPersonDn(List<String> personDns) throws KivException {
+      this.getEmploymentsByPersonDnCallCount++;
+      this.requestedPersonDns = personDns;
+      Map<String, List<Employment>> result = new HashMap<String, List<Employment>>();
+      for (String personDn : personDns) {
+        List<Employment> personEmployments = this.employments.get(personDn);
+        if (personEmployments == null) {
+          personEmployments = new ArrayList<Employment>();
+        }
+        result.put(personDn, personEmployments);
+      }
+      return result;
+    }
+
     @Override
     public List<Employment> getEmploymentsForPerson(Person person) throws KivException {
       return null;
@@ -24,8 +24,10 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.Test;
 
@@ -34,8 +36,10 @@ import se.vgregion.kivtools.search.domain.Employment;
 import se.vgregion.kivtools.search.domain.Person;
 import se.vgregion.kivtools.search.domain.Unit;
 import se.vgregion.kivtools.search.exceptions.KivException;
+import se.vgregion.kivtools.search.svc.PageConsumer;
 import se.vgregion.kivtools.search.svc.SearchService;
 import se.vgregion.kivtools.search.svc.SikSearchResultList;
+import se.vgregion.kivtools.search.svc.cache.CacheLoadingException;
 import se.vgregion.kivtools.search.svc.cache.UnitCache;
 import se.vgregion.kivtools.search.svc.impl.cache.UnitCacheLoaderImpl;
 import se.vgregion.kivtools.search.svc.ldap.criterions.SearchPersonCriterions;
@@ -61,13 +65,12 @@ public class UnitCacheLoaderImplTest {
     assertNotSame(emptyCache1, emptyCache2);
   }
 
-  @Test
-  public void processingEndsOnKivException() {
+  @Test(expected = CacheLoadingException.class)
+  public void loadingFailsOnKivException() {
     searchService.setExceptionToThrow(new KivException("test"));
     searchService.addUnit(createUnit("abc-123"));
 
-    UnitCache unitCache = unitCacheLoader.loadCache();
-    assertEquals(0, unitCache.getUnits().size());
+    unitCacheLoader.loadCache();
   }
 
   @Test
@@ -105,6 +108,19 @@ public class UnitCacheLoaderImplTest {
       return this.units;
     }
 
+    @Override
+    public void getAllUnits(boolean onlyPublicUnits, PageConsumer<Unit> consumer) throws KivException {
+      if (this.exceptionToThrow != null) {
+        throw this.exceptionToThrow;
+      }
+      // Hand each unit over as a page of its own to simulate a paged search.
+      for (Unit unit : this.units) {
+        if (!consumer.consume(Collections.singletonList(unit))) {
+          break;
+        }
+      }
+    }
+
     // Not implemented
 
     @Override
@@ -132,6 +148,11 @@ public class UnitCacheLoaderImplTest {
       return null;
     }
 
+    @Override
+    public Map<String, List<Employment>> getEmploymentsByPersonDn(List<String> personDns) throws KivException {
+      return null;
+    }
+
     @Override
     public List<Employment> getEmploymentsForPerson(Person person) throws KivException {
       return null;
@@ -197,6 +218,10 @@ public class UnitCacheLoaderImplTest {
       return null;
     }
 
+    @Override
+    public void getAllPersons(PageConsumer<Person> consumer) throws KivException {
+    }
+
     @Override
     public SikSearchResultList<Unit> getFirstLevelSubUnits(Unit parentUnit) throws KivException {
       return null;
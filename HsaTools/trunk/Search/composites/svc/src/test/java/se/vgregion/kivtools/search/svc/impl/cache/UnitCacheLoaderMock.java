@@ -34,13 +34,13 @@ public class UnitCacheLoaderMock implements CacheLoader<UnitCache> {
 
   @Override
   public UnitCache loadCache() {
-    UnitCache unitCache = new UnitCache();
+    UnitCache.Builder builder = new UnitCache.Builder();
 
-    unitCache.add(this.createUnit("ou=test1,ou=org,o=vgr","ABC-123", "Mölndals Sjukhus", TimePoint.atMidnightGMT(2010, 2, 10), null));
-    unitCache.add(this.createUnit("ou=test2,ou=org,o=vgr","XYZ-987", "Angereds vårdcentral", TimePoint.atMidnightGMT(2010, 2, 10), TimePoint.atMidnightGMT(2010, 2, 16)));
-    unitCache.add(this.createUnit("ou=test3,ou=org,o=vgr","JKL-654", "Slottsskogens vårdcentral", TimePoint.atMidnightGMT(2010, 2, 16), TimePoint.atMidnightGMT(2010, 2, 16)));
+    builder.add(this.createUnit("ou=test1,ou=org,o=vgr","ABC-123", "Mölndals Sjukhus", TimePoint.atMidnightGMT(2010, 2, 10), null));
+    builder.add(this.createUnit("ou=test2,ou=org,o=vgr","XYZ-987", "Angereds vårdcentral", TimePoint.atMidnightGMT(2010, 2, 10), TimePoint.atMidnightGMT(2010, 2, 16)));
+    builder.add(this.createUnit("ou=test3,ou=org,o=vgr","JKL-654", "Slottsskogens vårdcentral", TimePoint.atMidnightGMT(2010, 2, 16), TimePoint.atMidnightGMT(2010, 2, 16)));
 
-    return unitCache;
+    return builder.build();
   }
 
   private Unit createUnit(String dn, String hsaIdentity, String name, TimePoint createTimestamp, TimePoint modifyTimestamp) {
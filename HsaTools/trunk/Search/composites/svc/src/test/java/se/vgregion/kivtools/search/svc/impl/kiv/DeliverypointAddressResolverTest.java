@@ -0,0 +1,134 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ */
+
+package se.vgregion.kivtools.search.svc.impl.kiv;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import se.vgregion.kivtools.search.domain.Deliverypoint;
+import se.vgregion.kivtools.search.domain.Unit;
+import se.vgregion.kivtools.search.domain.values.AddressHelper;
+import se.vgregion.kivtools.search.exceptions.KivException;
+
+public class DeliverypointAddressResolverTest {
+  private DeliverypointServiceMock deliverypointService;
+  private DeliverypointAddressResolver resolver;
+
+  @Before
+  public void setUp() {
+    this.deliverypointService = new DeliverypointServiceMock();
+    this.resolver = new DeliverypointAddressResolver(this.deliverypointService);
+  }
+
+  @Test
+  public void deliverypointsOfAllUnitsAreFetchedInOneCall() throws KivException {
+    Deliverypoint shared = this.createDeliverypoint("Godsmottagningen$Östra Sjukhuset$Smörslottsgatan 1$ $416 85$Göteborg", "unit-1", "unit-2");
+    this.deliverypointService.deliverypoints.put("unit-1", Arrays.asList(shared));
+    this.deliverypointService.deliverypoints.put("unit-2", Arrays.asList(shared));
+    List<Unit> units = Arrays.asList(this.createUnit("unit-1"), this.createUnit("unit-2"), this.createUnit("unit-3"), this.createUnit("unit-1"));
+
+    this.resolver.resolve(units);
+
+    assertEquals(1, this.deliverypointService.calls);
+    assertEquals(Arrays.asList("unit-1", "unit-2", "unit-3"), this.deliverypointService.requestedHsaIds);
+    assertEquals(1, units.get(0).getDeliverypointDeliveryAddress().size());
+    assertEquals(1, units.get(1).getDeliverypointDeliveryAddress().size());
+    assertTrue(units.get(2).getDeliverypointDeliveryAddress().isEmpty());
+  }
+
+  @Test
+  public void noCallIsMadeForUnitsWithoutHsaIdentity() throws KivException {
+    this.resolver.resolve(Arrays.asList(new Unit()));
+
+    assertEquals(0, this.deliverypointService.calls);
+  }
+
+  @Test
+  public void emptyAddressesAreNotAdded() {
+    Unit unit = this.createUnit("unit-1");
+    Deliverypoint deliverypoint = new Deliverypoint();
+    deliverypoint.setHsaConsigneeAddress(AddressHelper.convertToAddress("Sjukhuset$Göteborg"));
+
+    DeliverypointAddressResolver.addAddresses(unit, Arrays.asList(deliverypoint));
+
+    assertTrue(unit.getDeliverypointDeliveryAddress().isEmpty());
+    assertEquals(1, unit.getDeliverypointConsigneeAddress().size());
+  }
+
+  private Unit createUnit(String hsaIdentity) {
+    Unit unit = new Unit();
+    unit.setHsaIdentity(hsaIdentity);
+    return unit;
+  }
+
+  private Deliverypoint createDeliverypoint(String address, String... vgrOrgRel) {
+    Deliverypoint deliverypoint = new Deliverypoint();
+    deliverypoint.setHsaSedfDeliveryAddress(AddressHelper.convertToAddress(address));
+    deliverypoint.setVgrOrgRel(Arrays.asList(vgrOrgRel));
+    return deliverypoint;
+  }
+
+  private static class DeliverypointServiceMock implements DeliverypointService {
+    private final Map<String, List<Deliverypoint>> deliverypoints = new HashMap<String, List<Deliverypoint>>();
+    private final List<String> requestedHsaIds = new ArrayList<String>();
+    private int calls;
+
+    @Override
+    public Map<String, List<Deliverypoint>> searchDeliveryPointsForUnits(Collection<String> unitHsaids) throws KivException {
+      this.calls++;
+      this.requestedHsaIds.addAll(unitHsaids);
+      Map<String, List<Deliverypoint>> result = new HashMap<String, List<Deliverypoint>>();
+      for (String hsaId : unitHsaids) {
+        if (this.deliverypoints.containsKey(hsaId)) {
+          result.put(hsaId, this.deliverypoints.get(hsaId));
+        }
+      }
+      return result;
+    }
+
+    @Override
+    public List<Deliverypoint> searchDeliveryPointsForUnit(Unit unit) throws KivException {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Deliverypoint> searchDeliveryPointsForUnit(String unitHsaid) throws KivException {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Deliverypoint findDeliveryPointById(String hsaId) throws KivException {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Deliverypoint> getAllDeliverypoints() throws KivException {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
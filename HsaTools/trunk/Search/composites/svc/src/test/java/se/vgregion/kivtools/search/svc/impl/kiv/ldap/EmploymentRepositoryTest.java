@@ -22,11 +22,15 @@ package se.vgregion.kivtools.search.svc.impl.kiv.ldap;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.ldap.core.DistinguishedName;
 
 import se.vgregion.kivtools.mocks.ldap.DirContextOperationsMock;
 import se.vgregion.kivtools.mocks.ldap.LdapTemplateMock;
@@ -95,4 +99,40 @@ public class EmploymentRepositoryTest {
     assertNotNull(employments);
     assertEquals(1, employments.size());
   }
+
+  @Test
+  public void getEmploymentsForSeveralPersonsSearchesEachPersonBelowBulkSearchThreshold() throws KivException {
+    this.ldapTemplateMock.addDirContextOperationForSearch(this.createEmployment("cn=nipet10,ou=Personal,o=VGR"));
+
+    Map<String, List<Employment>> employments = this.employmentRepository.getEmployments(Arrays.asList("cn=nipet10,ou=Personal,o=VGR", "cn=anan1,ou=Personal,o=VGR"));
+    this.ldapTemplateMock.assertSearchFilter(this.expectedFilter);
+    assertEquals(2, employments.size());
+    assertEquals(1, employments.get("cn=nipet10,ou=Personal,o=VGR").size());
+    assertEquals(1, employments.get("cn=anan1,ou=Personal,o=VGR").size());
+    assertEquals(0, this.ldapTemplateMock.getPagedSearchCount());
+  }
+
+  @Test
+  public void getEmploymentsForSeveralPersonsUsesPagedSubtreeSearchAtBulkSearchThreshold() throws KivException {
+    this.employmentRepository.setBulkSearchThreshold(2);
+    this.ldapTemplateMock.addPageForSearch(this.createEmployment("cn=nipet10,ou=Personal,o=VGR"), this.createEmployment("cn=other1,ou=Personal,o=VGR"));
+    this.ldapTemplateMock.addPageForSearch(this.createEmployment("cn=nipet10,ou=Personal,o=VGR"));
+
+    Map<String, List<Employment>> employments = this.employmentRepository.getEmployments(Arrays.asList("cn=nipet10,ou=Personal,o=VGR", "cn=anan1,ou=Personal,o=VGR"));
+    this.ldapTemplateMock.assertSearchFilter(this.expectedFilter);
+    assertEquals("ou=Personal,o=VGR", this.ldapTemplateMock.getBase());
+    assertEquals(2, this.ldapTemplateMock.getPagedSearchCount());
+    assertEquals(2, employments.size());
+    assertEquals(2, employments.get("cn=nipet10,ou=Personal,o=VGR").size());
+    assertEquals(0, employments.get("cn=anan1,ou=Personal,o=VGR").size());
+  }
+
+  private DirContextOperationsMock createEmployment(String personDn) {
+    DirContextOperationsMock employment = new DirContextOperationsMock();
+    DistinguishedName dn = new DistinguishedName(personDn);
+    dn.add("cn", "1");
+    employment.setDn(dn);
+    employment.addAttributeValue("hsaIdentity", "SE2321000131-E000000000001");
+    return employment;
+  }
 }
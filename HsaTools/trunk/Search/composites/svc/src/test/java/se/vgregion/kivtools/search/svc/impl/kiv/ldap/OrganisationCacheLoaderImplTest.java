@@ -0,0 +1,96 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ */
+
+package se.vgregion.kivtools.search.svc.impl.kiv.ldap;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import se.vgregion.kivtools.search.domain.Unit;
+import se.vgregion.kivtools.search.exceptions.KivException;
+import se.vgregion.kivtools.search.svc.PageConsumer;
+import se.vgregion.kivtools.search.svc.cache.CacheLoadingException;
+import se.vgregion.kivtools.search.svc.cache.UnitCache;
+
+public class OrganisationCacheLoaderImplTest {
+  private final UnitRepositoryMock unitRepository = new UnitRepositoryMock();
+  private final OrganisationCacheLoaderImpl organisationCacheLoader = new OrganisationCacheLoaderImpl(unitRepository);
+
+  @Test
+  public void allUnitsOfTheOrganisationAreAddedToACompleteCache() {
+    Unit unit = createUnit("abc-123", true);
+    Unit function = createUnit("def-456", false);
+    unitRepository.setUnits(unit, function);
+
+    UnitCache unitCache = organisationCacheLoader.loadCache();
+    assertEquals(Arrays.asList(unit, function), unitCache.getUnits());
+    assertTrue(unitCache.isComplete());
+  }
+
+  @Test
+  public void emptyCacheIsNotComplete() {
+    UnitCache unitCache = organisationCacheLoader.createEmptyCache();
+    assertTrue(unitCache.isEmpty());
+    assertFalse(unitCache.isComplete());
+  }
+
+  @Test(expected = CacheLoadingException.class)
+  public void loadingFailsOnKivException() {
+    unitRepository.setUnits(createUnit("abc-123", true));
+    unitRepository.setExceptionToThrow(new KivException("test"));
+
+    organisationCacheLoader.loadCache();
+  }
+
+  private static Unit createUnit(String hsaIdentity, boolean isUnit) {
+    Unit unit = new Unit();
+    unit.setHsaIdentity(hsaIdentity);
+    unit.setIsUnit(isUnit);
+    return unit;
+  }
+
+  private static class UnitRepositoryMock extends UnitRepositoryHRIA {
+    private Unit[] units = new Unit[0];
+    private KivException exceptionToThrow;
+
+    public void setUnits(Unit... units) {
+      this.units = units;
+    }
+
+    public void setExceptionToThrow(KivException exceptionToThrow) {
+      this.exceptionToThrow = exceptionToThrow;
+    }
+
+    @Override
+    public void getOrganisation(PageConsumer<Unit> consumer) throws KivException {
+      if (this.exceptionToThrow != null) {
+        throw this.exceptionToThrow;
+      }
+      // Hand each unit over as a page of its own to simulate a paged search.
+      for (Unit unit : this.units) {
+        if (!consumer.consume(Collections.singletonList(unit))) {
+          break;
+        }
+      }
+    }
+  }
+}
@@ -22,6 +22,7 @@ package se.vgregion.kivtools.search.svc.impl.kiv.ldap;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -49,6 +50,7 @@ import se.vgregion.kivtools.search.domain.Unit;
 import se.vgregion.kivtools.search.domain.values.CodeTableName;
 import se.vgregion.kivtools.search.exceptions.KivException;
 import se.vgregion.kivtools.search.exceptions.KivNoDataFoundException;
+import se.vgregion.kivtools.search.svc.PageConsumer;
 import se.vgregion.kivtools.search.svc.SikSearchResultList;
 import se.vgregion.kivtools.search.svc.codetables.CodeTablesService;
 import se.vgregion.kivtools.search.svc.impl.mock.CodeTableServiceMock;
@@ -102,7 +104,7 @@ public class PersonRepositoryTest {
 
   @Test
   public void testEmploymentTitleSearch() throws KivException {
-    this.mockLdapTemplate.result.put("(&(objectclass=vgrUser)(vgr-id=anama))", Arrays.asList((Object) new Unit()));
+    this.mockLdapTemplate.result.put("(&(objectclass=vgrUser)(vgr-id=anama))", Arrays.asList((Object) new Person()));
     String expectedLdapQuestion1 = "(&(objectclass=vgrAnstallning)(hsaStartDate<=20090919162348Z)(|(!(hsaEndDate=*))(hsaEndDate>=20090919162348Z))(title=*employmentTitle*))";
     String expectedLdapQuestion2 = "(&(&(objectclass=vgrUser)(!(vgrSecrMark=J)))(vgr-id=anama))";
     this.mockLdapTemplate.result.put(expectedLdapQuestion1, Arrays.asList((Object) "anama"));
@@ -139,7 +141,7 @@ public class PersonRepositoryTest {
     String expectedResult2 = "(&(&(objectclass=vgrUser)(|(givenName=*Kalle*)(hsaNickName=*Kalle*))(|(sn=*Svensson*)(hsaMiddleName=*Svensson*))(vgr-id=*vgr-id*)(vgrStrukturPerson=*unitName*)(hsaSpecialityCode=specialityCode)(hsaTitle=profGroup)(mail=*email*)(hsaLanguageKnowledgeCode=languageCode)(|(vgrAO3kod=administration1)(vgrAO3kod=administration2))(!(vgrSecrMark=J)))(vgr-id=anama))";
 
     List<Object> units = new ArrayList<Object>();
-    units.add(new Unit());
+    units.add(new Person());
 
     this.mockLdapTemplate.result.put("(&(objectclass=vgrUser)(|(givenName=*Kalle*)(hsaNickName=*Kalle*))(|(sn=*Svensson*)(hsaMiddleName=*Svensson*)))", units);
     this.mockLdapTemplate.result.put(expectedResult2, units);
@@ -198,6 +200,41 @@ public class PersonRepositoryTest {
     assertEquals("b001", searchPersons.get(10).getSn());
   }
 
+  @Test
+  public void searchPersonsWithEmploymentSearchLimitsEachSearchToTheNumberOfVgrids() throws KivException {
+    List<Person> persons1 = this.createPersons("b", 1, 100);
+    List<Person> persons2 = this.createPersons("a", 101, 110);
+
+    String expectedEmploymentQuery = "(&(objectclass=vgrAnstallning)(hsaStartDate<=20090919162348Z)(|(!(hsaEndDate=*))(hsaEndDate>=20090919162348Z))(title=*employmentTitle*))";
+    List<Person> allPersons = new ArrayList<Person>();
+    allPersons.addAll(persons1);
+    allPersons.addAll(persons2);
+    this.mockLdapTemplate.result.put(expectedEmploymentQuery, this.createVgrIds(allPersons));
+
+    SearchPersonCriterions searchPersonCriterion = new SearchPersonCriterions();
+    searchPersonCriterion.setEmploymentTitle("employmentTitle");
+
+    this.personRepository.searchPersons(searchPersonCriterion, 11);
+    assertEquals(Arrays.asList(100L, 10L), this.mockLdapTemplate.countLimits);
+  }
+
+  @Test
+  public void searchPersonsSignalsMoreResultsWhenResultIsCutOff() throws KivException {
+    String expectedFilter = "(&(objectclass=vgrUser)(vgr-id=*a*))";
+    this.mockLdapTemplate.result.put(expectedFilter, this.createPersons("a", 1, 5));
+
+    SikSearchResultList<Person> searchPersons = this.personRepository.searchPersons("a", 3);
+    assertEquals(expectedFilter, this.mockLdapTemplate.filter.get(0));
+    assertEquals(3, searchPersons.size());
+    assertEquals(5, searchPersons.getTotalNumberOfFoundItems());
+    assertTrue(searchPersons.isMoreResultsAvailable());
+    assertEquals(Long.valueOf(0), this.mockLdapTemplate.countLimits.get(0));
+
+    searchPersons = this.personRepository.searchPersons("a", 5);
+    assertEquals(5, searchPersons.size());
+    assertFalse(searchPersons.isMoreResultsAvailable());
+  }
+
   private List<Person> createPersons(String basename, int firstIndex, int lastIndex) {
     List<Person> result = new ArrayList<Person>();
     for (int i = firstIndex; i <= lastIndex; i++) {
@@ -229,8 +266,8 @@ public class PersonRepositoryTest {
 
   @Test
   public void testSearchPersonsWithvgrId() throws KivException {
-    this.mockLdapTemplate.result.put("(&(objectclass=vgrUser)(vgr-id=*1*))", Arrays.asList((Object) new Unit()));
-    this.mockLdapTemplate.result.put("(&(objectclass=vgrUser)(vgr-id=1))", Arrays.asList((Object) new Unit()));
+    this.mockLdapTemplate.result.put("(&(objectclass=vgrUser)(vgr-id=*1*))", Arrays.asList((Object) new Person()));
+    this.mockLdapTemplate.result.put("(&(objectclass=vgrUser)(vgr-id=1))", Arrays.asList((Object) new Person()));
     this.personRepository.searchPersons("", 1);
     assertEquals("(&(objectclass=vgrUser))", this.mockLdapTemplate.filter.get(0));
     this.personRepository.searchPersons("1", 1);
@@ -241,7 +278,7 @@ public class PersonRepositoryTest {
 
   @Test
   public void testGetPersonsForUnits() throws Exception {
-    this.mockLdapTemplate.result.put("(&(!(objectClass=vgrAnstallning))(|(vgrOrgRel=unit0)(vgrOrgRel=unit1)(vgrOrgRel=unit2)(vgrOrgRel=unit3)(vgrOrgRel=unit4)))", Arrays.asList((Object) new Unit()));
+    this.mockLdapTemplate.result.put("(&(!(objectClass=vgrAnstallning))(|(vgrOrgRel=unit0)(vgrOrgRel=unit1)(vgrOrgRel=unit2)(vgrOrgRel=unit3)(vgrOrgRel=unit4)))", Arrays.asList((Object) new Person()));
     List<Unit> units = this.generateTestUnitList();
     List<Person> persons = this.personRepository.getPersonsForUnits(units, 5);
     assertFalse(persons.isEmpty());
@@ -265,6 +302,34 @@ public class PersonRepositoryTest {
     assertEquals(2, allPersons.size());
   }
 
+  @Test
+  public void getAllPersonsHandsEachPageToConsumer() throws KivException {
+    LdapTemplateMock ldapTemplate = new LdapTemplateMock();
+    this.personRepository.setLdapTemplate(ldapTemplate);
+    this.personRepository.setPageSize(2);
+
+    DirContextOperationsMock person1 = new DirContextOperationsMock();
+    person1.addAttributeValue("vgr-id", "kal456");
+    DirContextOperationsMock person2 = new DirContextOperationsMock();
+    person2.addAttributeValue("vgr-id", "abc123");
+    DirContextOperationsMock person3 = new DirContextOperationsMock();
+    person3.addAttributeValue("vgr-id", "xyz789");
+    ldapTemplate.addPageForSearch(person1, person2);
+    ldapTemplate.addPageForSearch(person3);
+
+    final List<Integer> pageSizes = new ArrayList<Integer>();
+    this.personRepository.getAllPersons(new PageConsumer<Person>() {
+      @Override
+      public boolean consume(List<Person> page) {
+        pageSizes.add(page.size());
+        return true;
+      }
+    });
+
+    ldapTemplate.assertSearchFilter("(vgr-id=*)");
+    assertEquals(Arrays.asList(2, 1), pageSizes);
+  }
+
   @Test(expected = KivException.class)
   public void getAllPersonsThrowsKivExceptionOnNamingException() throws KivException {
     LdapTemplateMock ldapTemplate = new LdapTemplateMock();
@@ -341,6 +406,7 @@ public class PersonRepositoryTest {
     String base;
     Map<String, List<? extends Object>> result = new HashMap<String, List<? extends Object>>();
     List<String> filter = new ArrayList<String>();
+    List<Long> countLimits = new ArrayList<Long>();
     DistinguishedName dn;
     ContextMapper contextMapper;
 
@@ -359,6 +425,7 @@ public class PersonRepositoryTest {
     public List search(Name base, String filter, SearchControls controls, ContextMapper mapper) {
       assertEquals("SearchControls not subtree", SearchControls.SUBTREE_SCOPE, controls.getSearchScope());
       this.filter.add(filter);
+      this.countLimits.add(controls.getCountLimit());
       this.base = base.toString();
       this.contextMapper = mapper;
       return this.result.get(filter);
@@ -21,9 +21,21 @@ package se.vgregion.kivtools.search.svc.impl.kiv.ldap;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.Before;
 import org.junit.Test;
 
+import se.vgregion.kivtools.search.domain.Unit;
+import se.vgregion.kivtools.search.domain.values.CodeTableName;
+import se.vgregion.kivtools.search.svc.SikSearchResultList;
+import se.vgregion.kivtools.search.svc.cache.UnitCache;
+import se.vgregion.kivtools.search.svc.impl.cache.CacheServiceImpl;
+import se.vgregion.kivtools.search.svc.impl.cache.UnitCacheLoaderMock;
+import se.vgregion.kivtools.search.svc.impl.mock.CodeTableServiceMock;
+import se.vgregion.kivtools.search.svc.ldap.criterions.SearchUnitCriterions;
+
 public class UnitRepositoryFTVTest {
   private UnitRepositoryFTV unitRepository;
 
@@ -42,4 +54,29 @@ public class UnitRepositoryFTVTest {
   public void testGetSearchBase() {
     assertEquals("ou=Folktandvården Västra Götaland,ou=Org,o=vgr", unitRepository.getSearchBase().toString());
   }
+
+  @Test
+  public void searchUnitsUsesLoadedUnitCache() throws Exception {
+    CodeTableServiceMock codeTablesService = new CodeTableServiceMock();
+    codeTablesService.addListToMap(CodeTableName.VGR_CARE_TYPE, Arrays.asList("01"));
+    unitRepository.setCodeTablesService(codeTablesService);
+    CacheServiceImpl<UnitCache> unitCacheService = new CacheServiceImpl<UnitCache>(new UnitCacheLoaderMock());
+    List<Unit> cachedUnits = new UnitCacheLoaderMock().loadCache().getUnits();
+    for (Unit unit : cachedUnits) {
+      unit.setCareType(unit.getName().contains("vårdcentral") ? "01" : "02");
+    }
+    unitCacheService.setCache(new UnitCache.Builder().addAll(cachedUnits).setComplete(true).build());
+    unitRepository.setUnitCacheService(unitCacheService);
+
+    SearchUnitCriterions criterions = new SearchUnitCriterions();
+    criterions.setUnitName("vård");
+    criterions.setCareTypeName("Öppenvård");
+    SikSearchResultList<Unit> units = unitRepository.searchUnits(criterions, 0);
+    assertEquals(2, units.getTotalNumberOfFoundItems());
+    assertEquals("Angereds vårdcentral", units.get(0).getName());
+    assertEquals("Slottsskogens vårdcentral", units.get(1).getName());
+
+    codeTablesService.addListToMap(CodeTableName.VGR_CARE_TYPE, Arrays.<String> asList());
+    assertEquals(0, unitRepository.searchUnits(criterions, 0).size());
+  }
 }
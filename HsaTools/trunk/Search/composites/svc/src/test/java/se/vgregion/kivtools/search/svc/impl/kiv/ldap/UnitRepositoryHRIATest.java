@@ -28,11 +28,15 @@ import org.junit.Before;
 import org.junit.Test;
 
 import se.vgregion.kivtools.search.domain.Unit;
+import se.vgregion.kivtools.search.domain.values.DN;
 import se.vgregion.kivtools.search.domain.values.HealthcareType;
 import se.vgregion.kivtools.search.domain.values.HealthcareTypeConditionHelper;
 import se.vgregion.kivtools.search.exceptions.KivException;
 import se.vgregion.kivtools.search.svc.SikSearchResultList;
+import se.vgregion.kivtools.search.svc.cache.CacheLoader;
+import se.vgregion.kivtools.search.svc.cache.UnitCache;
 import se.vgregion.kivtools.search.svc.comparators.UnitNameComparator;
+import se.vgregion.kivtools.search.svc.impl.cache.CacheServiceImpl;
 
 public class UnitRepositoryHRIATest {
   private UnitRepositoryHRIA unitRepository;
@@ -94,4 +98,117 @@ public class UnitRepositoryHRIATest {
     assertNotNull(units);
     assertEquals(1, units.size());
   }
+
+  @Test
+  public void searchAdvancedUnitsUsesLoadedUnitCache() throws Exception {
+    final UnitCache unitCache = new UnitCache.Builder().addAll(Arrays.asList(createUnit("cache-1", "Vårdcentralen Lunden", "Göteborg"),
+        createUnit("cache-2", "Vårdcentralen Angered", "Göteborg"), createUnit("cache-3", "Vårdcentralen Borås", "Borås"), createUnit("cache-4", "Tandvården", "Göteborg")))
+        .setComplete(true).build();
+    CacheServiceImpl<UnitCache> unitCacheService = new CacheServiceImpl<UnitCache>(new CacheLoader<UnitCache>() {
+      @Override
+      public UnitCache loadCache() {
+        return unitCache;
+      }
+
+      @Override
+      public UnitCache createEmptyCache() {
+        return new UnitCache();
+      }
+    });
+    unitRepository.setUnitCacheService(unitCacheService);
+
+    Unit searchUnit = new Unit();
+    searchUnit.setName("vårdcentral");
+    searchUnit.setHsaMunicipalityName("göteborg");
+
+    // The cache is not loaded yet so the directory is searched.
+    SikSearchResultList<Unit> units = unitRepository.searchAdvancedUnits(searchUnit, 10, new UnitNameComparator(), false);
+    assertFalse(units.get(0).getHsaIdentity().startsWith("cache-"));
+
+    unitCacheService.reloadCache();
+    units = unitRepository.searchAdvancedUnits(searchUnit, 1, new UnitNameComparator(), false);
+    assertEquals(2, units.getTotalNumberOfFoundItems());
+    assertEquals(1, units.size());
+    assertEquals("cache-2", units.get(0).getHsaIdentity());
+  }
+
+  @Test
+  public void searchAdvancedUnitsIgnoresIncompleteUnitCache() throws Exception {
+    CacheServiceImpl<UnitCache> unitCacheService = new CacheServiceImpl<UnitCache>(new CacheLoader<UnitCache>() {
+      @Override
+      public UnitCache loadCache() {
+        return new UnitCache.Builder().add(createUnit("cache-1", "Vårdcentralen Lunden", "Göteborg")).build();
+      }
+
+      @Override
+      public UnitCache createEmptyCache() {
+        return new UnitCache();
+      }
+    });
+    unitCacheService.reloadCache();
+    unitRepository.setUnitCacheService(unitCacheService);
+
+    Unit searchUnit = new Unit();
+    searchUnit.setName("vårdcentral");
+
+    SikSearchResultList<Unit> units = unitRepository.searchAdvancedUnits(searchUnit, 10, new UnitNameComparator(), false);
+    assertFalse(units.isEmpty());
+    for (Unit unit : units) {
+      assertFalse(unit.getHsaIdentity().startsWith("cache-"));
+    }
+  }
+
+  @Test
+  public void subUnitsAreTakenFromLoadedOrganisationCache() throws Exception {
+    final Unit parent = createUnit("cache-1", "Sjukhuset", "Göteborg");
+    parent.setDn(DN.createDNFromString("ou=Sjukhuset,ou=Org,o=vgr"));
+    final Unit child = createUnit("cache-2", "Medicin", "Göteborg");
+    child.setDn(DN.createDNFromString("ou=Medicin,ou=Sjukhuset,ou=Org,o=vgr"));
+    final Unit grandChild = createUnit("cache-3", "Avdelning 1", "Göteborg");
+    grandChild.setDn(DN.createDNFromString("ou=Avdelning 1,ou=Medicin,ou=Sjukhuset,ou=Org,o=vgr"));
+    final Unit indirectChild = createUnit("cache-4", "Akuten", "Göteborg");
+    indirectChild.setDn(DN.createDNFromString("ou=Akuten,ou=Område,ou=Sjukhuset,ou=Org,o=vgr"));
+    final Unit function = createUnit("cache-5", "Jouren", "Göteborg");
+    function.setDn(DN.createDNFromString("cn=Jouren,ou=Sjukhuset,ou=Org,o=vgr"));
+    function.setIsUnit(false);
+    CacheServiceImpl<UnitCache> organisationCacheService = new CacheServiceImpl<UnitCache>(new CacheLoader<UnitCache>() {
+      @Override
+      public UnitCache loadCache() {
+        return new UnitCache.Builder().addAll(Arrays.asList(grandChild, parent, function, indirectChild, child)).setComplete(true).build();
+      }
+
+      @Override
+      public UnitCache createEmptyCache() {
+        return new UnitCache();
+      }
+    });
+    organisationCacheService.reloadCache();
+    unitRepository.setOrganisationCacheService(organisationCacheService);
+
+    SikSearchResultList<Unit> subUnits = unitRepository.getSubUnits(parent, 2);
+    assertEquals(3, subUnits.getTotalNumberOfFoundItems());
+    assertEquals(Arrays.asList(indirectChild, grandChild), subUnits);
+
+    subUnits = unitRepository.getFirstLevelSubUnits(parent);
+    assertEquals(Arrays.asList(child), subUnits);
+
+    // Unit searches are still performed in the directory.
+    Unit searchUnit = new Unit();
+    searchUnit.setName("medicin");
+    SikSearchResultList<Unit> units = unitRepository.searchAdvancedUnits(searchUnit, 10, new UnitNameComparator(), false);
+    assertFalse(units.isEmpty());
+    for (Unit unit : units) {
+      assertFalse(unit.getHsaIdentity().startsWith("cache-"));
+    }
+  }
+
+  private static Unit createUnit(String hsaIdentity, String name, String municipalityName) {
+    Unit unit = new Unit();
+    unit.setHsaIdentity(hsaIdentity);
+    unit.setName(name);
+    unit.setHsaMunicipalityName(municipalityName);
+    unit.setHsaBusinessClassificationCode(Arrays.asList("abc"));
+    unit.setIsUnit(true);
+    return unit;
+  }
 }
@@ -0,0 +1,60 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ */
+
+package se.vgregion.kivtools.search.svc.impl.kiv.ws;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class KivwsAttributeProfileTest {
+
+  @Test
+  public void attributesAreSharedBetweenCalls() {
+    assertSame(KivwsAttributeProfile.UNIT.getArrayOfString(), KivwsAttributeProfile.UNIT.getArrayOfString());
+    assertEquals(KivwsAttributeProfile.UNIT.getNames(), KivwsAttributeProfile.UNIT.getArrayOfString().getString());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void namesCanNotBeModified() {
+    KivwsAttributeProfile.UNIT_NAME.getNames().add("mail");
+  }
+
+  @Test
+  public void unitProfileContainsMappedAttributes() {
+    assertTrue(KivwsAttributeProfile.UNIT.getNames().containsAll(
+        Arrays.asList(KivwsAttributes.HSA_IDENTITY, KivwsAttributes.OU, KivwsAttributes.CN, KivwsAttributes.VGR_CARE_TYPE,
+            KivwsAttributes.HSA_GEOGRAPHICAL_COORDINATES, KivwsAttributes.HSA_HEALTH_CARE_UNIT_MEMBER)));
+    assertFalse(KivwsAttributeProfile.UNIT.getNames().contains(KivwsAttributes.HSA_COUNTY_NAME));
+  }
+
+  @Test
+  public void nameProfilesOnlyContainsReferenceAttributes() {
+    assertEquals(Arrays.asList("hsaidentity", "ou"), KivwsAttributeProfile.UNIT_NAME.getNames());
+    assertEquals(Arrays.asList("hsaidentity"), KivwsAttributeProfile.HSA_IDENTITY.getNames());
+  }
+
+  @Test
+  public void personAndDeliveryPointProfilesUseMappedAttributes() {
+    assertTrue(KivwsAttributeProfile.PERSON.getNames().contains("vgr-id"));
+    assertEquals(Arrays.asList("cn", "hsaidentity", "hsasedfdeliveryaddress", "hsaconsigneeaddress", "vgreancode", "vgrorgrel"),
+        KivwsAttributeProfile.DELIVERY_POINT.getNames());
+  }
+}
@@ -21,12 +21,21 @@ package se.vgregion.kivtools.search.svc.impl.kiv.ws;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.After;
 import org.junit.Before;
@@ -100,6 +109,7 @@ public class UnitRepositoryKivwsTest {
 
   @After
   public void tearDown() {
+    this.unitRepository.shutdown();
     LogFactoryMock.resetInstance();
 
     new HealthcareTypeConditionHelper() {
@@ -143,6 +153,7 @@ public class UnitRepositoryKivwsTest {
     this.unitRepository.searchUnits(searchUnitCriterions, 0);
     assertEquals(expectedFilterOU, this.portType.filterOU);
     assertEquals(expectedFilterCN, this.portType.filterCN);
+    assertSame(KivwsAttributeProfile.UNIT.getArrayOfString(), this.portType.attrs);
   }
 
   @Test
@@ -397,10 +408,80 @@ public class UnitRepositoryKivwsTest {
     String expectedFilterOU = "(hsaHealthCareUnitMember=abc-123)";
     String expectedFilterCN = "(hsaIdentity=abc-123)";
     this.unitRepository.getUnitByHsaId("abc-123");
-    assertEquals(expectedFilterOU, this.portType.filterOU);
+    assertTrue(this.portType.unitFilters.contains(expectedFilterOU));
+    assertTrue(this.portType.unitFilters.contains(expectedFilterCN));
     assertEquals(expectedFilterCN , this.portType.filterCN);
   }
 
+  @Test
+  public void unitAndMemberOfAreSearchedConcurrently() throws KivException {
+    // The unit search, the function search and the member of search must all be in progress at the same time.
+    this.portType.searchBarrier = new CountDownLatch(3);
+
+    this.unitRepository.getUnitByHsaId("abc-123");
+
+    assertTrue(this.portType.searchesOverlapped);
+  }
+
+  @Test
+  public void concurrentLookupsOfSameUnitShareOneLookup() throws Exception {
+    this.portType.functionSearchStarted = new CountDownLatch(1);
+    this.portType.releaseFunctionSearch = new CountDownLatch(1);
+    final AtomicReference<Unit> firstResult = new AtomicReference<Unit>();
+    final AtomicReference<Unit> secondResult = new AtomicReference<Unit>();
+
+    Thread first = this.startLookup("abc-123", firstResult);
+    assertTrue(this.portType.functionSearchStarted.await(5, TimeUnit.SECONDS));
+    Thread second = this.startLookup("abc-123", secondResult);
+    // The second lookup waits without timeout only when it has joined the lookup in progress.
+    while (second.getState() != Thread.State.WAITING) {
+      assertTrue(second.isAlive());
+      Thread.sleep(5);
+    }
+    this.portType.releaseFunctionSearch.countDown();
+    first.join(5000);
+    second.join(5000);
+
+    assertEquals(1, this.portType.functionSearches.get());
+    assertNotNull(firstResult.get());
+    assertSame(firstResult.get(), secondResult.get());
+  }
+
+  @Test
+  public void lookupFailsWhenCallTimesOut() {
+    this.portType.functionSearchStarted = new CountDownLatch(1);
+    this.portType.releaseFunctionSearch = new CountDownLatch(1);
+    this.unitRepository.setCallTimeout(50);
+    try {
+      this.unitRepository.getUnitByHsaId("abc-123");
+      fail("KivException expected");
+    } catch (KivException e) {
+      assertTrue(e.getMessage().startsWith("Timed out after 50 ms"));
+    } finally {
+      this.portType.releaseFunctionSearch.countDown();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void maxConcurrentCallsMustBePositive() {
+    this.unitRepository.setMaxConcurrentCalls(0);
+  }
+
+  private Thread startLookup(final String hsaId, final AtomicReference<Unit> result) {
+    Thread thread = new Thread() {
+      @Override
+      public void run() {
+        try {
+          result.set(UnitRepositoryKivwsTest.this.unitRepository.getUnitByHsaId(hsaId));
+        } catch (KivException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+    thread.start();
+    return thread;
+  }
+
   @Test
   public void testGetAllUnitsHsaIdentity() throws KivException {
     String expectedOU = "(&(!(hsaIdentity=*X)))";
@@ -408,6 +489,7 @@ public class UnitRepositoryKivwsTest {
     this.unitRepository.getAllUnitsHsaIdentity();
     assertEquals(expectedOU, this.portType.filterOU);
     assertEquals(expectedCN, this.portType.filterCN);
+    assertEquals(Arrays.asList("hsaIdentity"), this.portType.attrs.getString());
   }
 
   @Test
@@ -475,7 +557,8 @@ public class UnitRepositoryKivwsTest {
     this.codeTablesService.addListToMap(KivwsCodeTableName.VGR_CARE_TYPE, Arrays.asList("01"));
     this.unitRepository.getUnitByHsaIdAndHasNotCareTypeInpatient("abc-123");
 
-    assertEquals(expectedOU, this.portType.filterOU);
+    assertTrue(this.portType.unitFilters.contains(expectedOU));
+    assertTrue(this.portType.unitFilters.contains(expectedCN));
     assertEquals(expectedCN, this.portType.filterCN);
   }
 
@@ -506,9 +589,40 @@ public class UnitRepositoryKivwsTest {
     private String baseOU;
     private String baseCN;
     private String searchScope;
-    private String filterCN;
-    private String filterOU;
+    private volatile String filterCN;
+    private volatile String filterOU;
     private ArrayOfUnit units;
+    private final List<String> unitFilters = Collections.synchronizedList(new ArrayList<String>());
+    private final AtomicInteger functionSearches = new AtomicInteger();
+    private volatile CountDownLatch searchBarrier;
+    private volatile boolean searchesOverlapped = true;
+    private volatile CountDownLatch functionSearchStarted;
+    private volatile CountDownLatch releaseFunctionSearch;
+
+    private void awaitOtherSearches() {
+      CountDownLatch barrier = this.searchBarrier;
+      if (barrier != null) {
+        barrier.countDown();
+        try {
+          if (!barrier.await(5, TimeUnit.SECONDS)) {
+            this.searchesOverlapped = false;
+          }
+        } catch (InterruptedException e) {
+          this.searchesOverlapped = false;
+        }
+      }
+    }
+
+    private void awaitRelease() {
+      if (this.releaseFunctionSearch != null) {
+        this.functionSearchStarted.countDown();
+        try {
+          this.releaseFunctionSearch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
 
     private void addUnit(se.vgregion.kivtools.search.svc.ws.domain.kivws.Unit unit) {
       if (this.units == null) {
@@ -635,6 +749,9 @@ public class UnitRepositoryKivwsTest {
     @Override
     public ArrayOfFunction searchFunction(String arg0, ArrayOfString arg1, VGRegionDirectory arg2, String arg3, String arg4) throws VGRException_Exception {
       this.throwExceptionIfApplicable("Exception searchFunction");
+      this.functionSearches.incrementAndGet();
+      this.awaitOtherSearches();
+      this.awaitRelease();
       this.baseCN = arg3;
       this.filterCN = arg0;
       this.attrs = arg1;
@@ -685,6 +802,8 @@ public class UnitRepositoryKivwsTest {
     @Override
     public ArrayOfUnit searchUnit(String filter, ArrayOfString attrs, VGRegionDirectory directory, String base, String searchScope) throws VGRException_Exception {
       this.throwExceptionIfApplicable("Exception searchUnit");
+      this.unitFilters.add(filter);
+      this.awaitOtherSearches();
       this.filterOU = filter;
       this.vgRegionDirectory = directory;
       this.attrs = attrs;
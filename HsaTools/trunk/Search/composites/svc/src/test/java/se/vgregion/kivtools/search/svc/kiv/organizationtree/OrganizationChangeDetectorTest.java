@@ -0,0 +1,151 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ */
+
+package se.vgregion.kivtools.search.svc.kiv.organizationtree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import se.vgregion.kivtools.search.domain.Unit;
+import se.vgregion.kivtools.search.interfaces.UnitComposition;
+
+public class OrganizationChangeDetectorTest {
+    private final OrganizationChangeDetector organizationChangeDetector = new OrganizationChangeDetector();
+    private final RecordingOrganizationChangeListener listener = new RecordingOrganizationChangeListener();
+    private List<UnitComposition<Unit>> oldOrganization;
+    private List<UnitComposition<Unit>> newOrganization;
+
+    @Before
+    public void setUp() {
+        oldOrganization = new ArrayList<UnitComposition<Unit>>();
+        oldOrganization.add(createUnitComposition("ou=root", "root", "Root"));
+        oldOrganization.add(createUnitComposition("ou=child1,ou=root", "child1", "Child 1"));
+        oldOrganization.add(createUnitComposition("ou=child2,ou=root", "child2", "Child 2"));
+
+        newOrganization = new ArrayList<UnitComposition<Unit>>();
+        newOrganization.add(createUnitComposition("ou=root", "root", "Root"));
+        newOrganization.add(createUnitComposition("ou=child1,ou=root", "child1", "Child 1"));
+        newOrganization.add(createUnitComposition("ou=child2,ou=root", "child2", "Child 2"));
+    }
+
+    @Test
+    public void noChangesAreReportedForEqualOrganizations() {
+        organizationChangeDetector.detectChanges(oldOrganization, newOrganization, listener);
+
+        assertEquals(0, listener.events.size());
+    }
+
+    @Test
+    public void changedFieldsAreReportedWithOldAndNewValue() {
+        newOrganization.get(1).getUnit().setName("Child One");
+        newOrganization.get(1).getUnit().setMail("child1@example.com");
+
+        organizationChangeDetector.detectChanges(oldOrganization, newOrganization, listener);
+
+        assertEquals(Arrays.asList("changed:child1:NAME:Child 1:Child One", "changed:child1:MAIL::child1@example.com"), listener.events);
+    }
+
+    @Test
+    public void addedUnitIsReportedWithParentHsaIdentity() {
+        newOrganization.add(createUnitComposition("ou=child3,ou=child2,ou=root", "child3", "Child 3"));
+        newOrganization.add(createUnitComposition("ou=orphan,ou=other", "orphan", "Orphan"));
+
+        organizationChangeDetector.detectChanges(oldOrganization, newOrganization, listener);
+
+        assertEquals(Arrays.asList("added:child3:child2", "added:orphan:"), listener.events);
+    }
+
+    @Test
+    public void removedUnitsAreReportedLast() {
+        newOrganization.remove(2);
+        newOrganization.add(createUnitComposition("ou=child3,ou=root", "child3", "Child 3"));
+
+        organizationChangeDetector.detectChanges(oldOrganization, newOrganization, listener);
+
+        assertEquals(Arrays.asList("added:child3:root", "removed:child2"), listener.events);
+    }
+
+    @Test
+    public void movedUnitIsReportedWithNewParentHsaIdentity() {
+        newOrganization.set(2, createUnitComposition("ou=child2,ou=child1,ou=root", "child2", "Child 2"));
+
+        organizationChangeDetector.detectChanges(oldOrganization, newOrganization, listener);
+
+        assertEquals(Arrays.asList("moved:child2:child1"), listener.events);
+        assertSame(oldOrganization.get(2), listener.lastOldUnit);
+        assertSame(newOrganization.get(2), listener.lastNewUnit);
+    }
+
+    @Test
+    public void organizationsAreNotModified() {
+        List<UnitComposition<Unit>> reversed = new ArrayList<UnitComposition<Unit>>(newOrganization);
+        Collections.reverse(reversed);
+        List<UnitComposition<Unit>> expected = new ArrayList<UnitComposition<Unit>>(reversed);
+
+        organizationChangeDetector.detectChanges(oldOrganization, reversed, listener);
+
+        assertEquals(0, listener.events.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), reversed.get(i));
+        }
+    }
+
+    private UnitComposition<Unit> createUnitComposition(String dn, String hsaIdentity, String name) {
+        Unit unit = new Unit();
+        unit.setHsaIdentity(hsaIdentity);
+        unit.setName(name);
+        return new VgrUnitComposition(dn, unit);
+    }
+
+    private static class RecordingOrganizationChangeListener implements OrganizationChangeListener {
+        private final List<String> events = new ArrayList<String>();
+        private UnitComposition<Unit> lastOldUnit;
+        private UnitComposition<Unit> lastNewUnit;
+
+        @Override
+        public void unitAdded(UnitComposition<Unit> unit, String parentHsaIdentity) {
+            events.add("added:" + unit.getUnit().getHsaIdentity() + ":" + parentHsaIdentity);
+        }
+
+        @Override
+        public void unitRemoved(UnitComposition<Unit> unit) {
+            events.add("removed:" + unit.getUnit().getHsaIdentity());
+        }
+
+        @Override
+        public void unitMoved(UnitComposition<Unit> oldUnit, UnitComposition<Unit> newUnit, String parentHsaIdentity) {
+            events.add("moved:" + newUnit.getUnit().getHsaIdentity() + ":" + parentHsaIdentity);
+            lastOldUnit = oldUnit;
+            lastNewUnit = newUnit;
+        }
+
+        @Override
+        public void unitChanged(UnitComposition<Unit> oldUnit, UnitComposition<Unit> newUnit, UnitChangeField field, String oldValue,
+                String newValue) {
+            events.add("changed:" + newUnit.getUnit().getHsaIdentity() + ":" + field + ":" + oldValue + ":" + newValue);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ */
+package se.vgregion.kivtools.search.svc.ldap;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.naming.directory.SearchControls;
+
+import org.junit.Test;
+import org.springframework.ldap.core.ContextMapper;
+import org.springframework.ldap.core.DirContextOperations;
+import org.springframework.ldap.core.DistinguishedName;
+
+import se.vgregion.kivtools.mocks.ldap.DirContextOperationsMock;
+import se.vgregion.kivtools.mocks.ldap.LdapTemplateMock;
+import se.vgregion.kivtools.search.exceptions.KivException;
+import se.vgregion.kivtools.search.svc.PageConsumer;
+
+public class PagedSearchTest {
+  private static final DistinguishedName BASE = DistinguishedName.immutableDistinguishedName("ou=Org,o=vgr");
+
+  private final LdapTemplateMock ldapTemplate = new LdapTemplateMock();
+  private final PagedSearch<String> pagedSearch = new PagedSearch<String>(ldapTemplate, new NameMapper(), 2);
+  private final PageRecorder recorder = new PageRecorder();
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructorThrowsExceptionIfPageSizeIsLessThanOne() {
+    new PagedSearch<String>(ldapTemplate, new NameMapper(), 0);
+  }
+
+  @Test
+  public void allPagesAreHandedToTheConsumerInOrder() throws KivException {
+    ldapTemplate.addPageForSearch(createEntry("a"), createEntry("b"));
+    ldapTemplate.addPageForSearch(createEntry("c"), createEntry("d"));
+    ldapTemplate.addPageForSearch(createEntry("e"));
+
+    int count = pagedSearch.search(BASE, "(cn=*)", SearchControls.SUBTREE_SCOPE, new String[] { "cn" }, recorder);
+
+    assertEquals(5, count);
+    assertEquals(3, recorder.pages.size());
+    assertEquals("[a, b]", recorder.pages.get(0).toString());
+    assertEquals("[c, d]", recorder.pages.get(1).toString());
+    assertEquals("[e]", recorder.pages.get(2).toString());
+    assertEquals(3, ldapTemplate.getPagedSearchCount());
+    ldapTemplate.assertSearchFilter("(cn=*)");
+    assertEquals("ou=Org,o=vgr", ldapTemplate.getBase());
+  }
+
+  @Test
+  public void singlePageIsHandedToTheConsumerWhenServerReturnsNoCookie() throws KivException {
+    ldapTemplate.addDirContextOperationForSearch(createEntry("a"));
+
+    int count = pagedSearch.search(BASE, "(cn=*)", SearchControls.SUBTREE_SCOPE, new String[] { "cn" }, recorder);
+
+    assertEquals(1, count);
+    assertEquals(1, recorder.pages.size());
+  }
+
+  @Test
+  public void searchIsAbandonedWhenConsumerReturnsFalse() throws KivException {
+    ldapTemplate.addPageForSearch(createEntry("a"), createEntry("b"));
+    ldapTemplate.addPageForSearch(createEntry("c"), createEntry("d"));
+    ldapTemplate.addPageForSearch(createEntry("e"));
+    recorder.maxPages = 1;
+
+    int count = pagedSearch.search(BASE, "(cn=*)", SearchControls.SUBTREE_SCOPE, new String[] { "cn" }, recorder);
+
+    assertEquals(2, count);
+    assertEquals(1, recorder.pages.size());
+    // One request for the first page and one to release the search on the server.
+    assertEquals(2, ldapTemplate.getPagedSearchCount());
+  }
+
+  @Test(expected = KivException.class)
+  public void searchIsAbortedWhenConsumerThrowsKivException() throws KivException {
+    ldapTemplate.addPageForSearch(createEntry("a"));
+    ldapTemplate.addPageForSearch(createEntry("b"));
+
+    pagedSearch.search(BASE, "(cn=*)", SearchControls.SUBTREE_SCOPE, new String[] { "cn" }, new PageConsumer<String>() {
+      @Override
+      public boolean consume(List<String> page) throws KivException {
+        throw new KivException("test");
+      }
+    });
+  }
+
+  private DirContextOperations createEntry(String cn) {
+    DirContextOperationsMock entry = new DirContextOperationsMock();
+    entry.addAttributeValue("cn", cn);
+    return entry;
+  }
+
+  private static class NameMapper implements ContextMapper {
+    @Override
+    public Object mapFromContext(Object ctx) {
+      return ((DirContextOperations) ctx).getStringAttribute("cn");
+    }
+  }
+
+  private static class PageRecorder implements PageConsumer<String> {
+    private final List<List<String>> pages = new ArrayList<List<String>>();
+    private int maxPages = Integer.MAX_VALUE;
+
+    @Override
+    public boolean consume(List<String> page) {
+      this.pages.add(page);
+      return this.pages.size() < this.maxPages;
+    }
+  }
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ */
+
+package se.vgregion.kivtools.search.svc.ldap;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.springframework.ldap.core.ContextMapper;
+
+import se.vgregion.kivtools.search.util.TopKSelector;
+
+public class SelectingContextMapperTest {
+  private final TopKSelector<String> selector = new TopKSelector<String>(String.CASE_INSENSITIVE_ORDER, 2);
+  private final SelectingContextMapper<String> mapper = new SelectingContextMapper<String>(new UpperCaseMapper(), selector);
+
+  @Test
+  public void mappedEntriesAreHandedToTheSelectorInsteadOfBeingReturned() {
+    assertNull(mapper.mapFromContext("c"));
+    assertNull(mapper.mapFromContext("a"));
+    assertNull(mapper.mapFromContext("b"));
+
+    assertEquals(Arrays.asList("A", "B"), selector.getSelected());
+    assertEquals(3, selector.getCount());
+  }
+
+  @Test
+  public void entriesMappedToNullAreNotCounted() {
+    assertNull(mapper.mapFromContext(null));
+
+    assertEquals(0, selector.getCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void constructorThrowsExceptionIfSelectorIsNull() {
+    new SelectingContextMapper<String>(new UpperCaseMapper(), null);
+  }
+
+  private static class UpperCaseMapper implements ContextMapper {
+    @Override
+    public Object mapFromContext(Object ctx) {
+      return ctx != null ? ((String) ctx).toUpperCase() : null;
+    }
+  }
+}
@@ -0,0 +1,195 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ */
+
+package se.vgregion.kivtools.search.util;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import se.vgregion.kivtools.util.http.HttpFetcherImpl;
+import se.vgregion.kivtools.util.time.TimeSource;
+import se.vgregion.kivtools.util.time.TimeUtil;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class MvkCaseTypeServiceTest {
+  private final ConcurrentMap<String, String> responses = new ConcurrentHashMap<String, String>();
+  private final ConcurrentMap<String, AtomicInteger> requestCounts = new ConcurrentHashMap<String, AtomicInteger>();
+  private final AtomicInteger concurrentRequests = new AtomicInteger();
+  private final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+  private volatile long responseDelay;
+  private long now = 1000000L;
+  private HttpServer server;
+  private MvkCaseTypeService service;
+
+  @Before
+  public void setUp() throws IOException {
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    this.server.setExecutor(Executors.newCachedThreadPool());
+    this.server.createContext("/mvk", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        int concurrent = concurrentRequests.incrementAndGet();
+        synchronized (maxConcurrentRequests) {
+          maxConcurrentRequests.set(Math.max(maxConcurrentRequests.get(), concurrent));
+        }
+        try {
+          Thread.sleep(responseDelay);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        String hsaIdentity = getParameter(exchange.getRequestURI().getQuery(), "hsaid");
+        requestCounts.putIfAbsent(hsaIdentity, new AtomicInteger());
+        requestCounts.get(hsaIdentity).incrementAndGet();
+        String response = responses.get(hsaIdentity);
+        concurrentRequests.decrementAndGet();
+        byte[] content = (response == null ? "<casetypes></casetypes>" : response).getBytes("UTF-8");
+        exchange.getResponseHeaders().add("Content-Type", "text/xml; charset=UTF-8");
+        exchange.sendResponseHeaders(200, content.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(content);
+        out.close();
+      }
+    });
+    this.server.start();
+
+    TimeUtil.setTimeSource(new TimeSource() {
+      @Override
+      public long millis() {
+        return now;
+      }
+    });
+
+    String url = "http://127.0.0.1:" + this.server.getAddress().getPort() + "/mvk?readform";
+    this.service = new MvkCaseTypeService(new MvkClient(new HttpFetcherImpl(), "uid123", url));
+    this.responses.put("unit-1", "<?xml version=\"1.0\"?><casetypes><casetype>abc</casetype><casetype>def</casetype></casetypes>");
+  }
+
+  @After
+  public void tearDown() {
+    this.service.shutdown();
+    this.server.stop(0);
+    TimeUtil.reset();
+  }
+
+  @Test
+  public void caseTypesAreCachedUntilTheyExpire() {
+    this.service.setTimeToLive(1000L);
+
+    assertEquals(Arrays.asList("abc", "def"), this.service.getCaseTypesForUnit("unit-1"));
+    this.now += 999L;
+    assertEquals(Arrays.asList("abc", "def"), this.service.getCaseTypesForUnit("unit-1"));
+    assertEquals(1, this.getRequestCount("unit-1"));
+
+    this.now += 1L;
+    this.responses.put("unit-1", "<casetypes><casetype>ghi</casetype></casetypes>");
+    assertEquals(Arrays.asList("ghi"), this.service.getCaseTypesForUnit("unit-1"));
+    assertEquals(2, this.getRequestCount("unit-1"));
+  }
+
+  @Test
+  public void unitsWithoutCaseTypesAreCachedForTheNegativeTimeToLive() {
+    this.service.setTimeToLive(10000L);
+    this.service.setNegativeTimeToLive(100L);
+
+    assertEquals(0, this.service.getCaseTypesForUnit("unit-2").size());
+    this.now += 99L;
+    assertEquals(0, this.service.getCaseTypesForUnit("unit-2").size());
+    assertEquals(1, this.getRequestCount("unit-2"));
+
+    this.now += 1L;
+    assertEquals(0, this.service.getCaseTypesForUnit("unit-2").size());
+    assertEquals(2, this.getRequestCount("unit-2"));
+  }
+
+  @Test
+  public void unreadableResponsesAreNotCached() {
+    this.responses.put("unit-3", "<casetypes><casetype>abc</casetypes>");
+
+    assertEquals(0, this.service.getCaseTypesForUnit("unit-3").size());
+    this.responses.put("unit-3", "<casetypes><casetype>abc</casetype></casetypes>");
+    assertEquals(Arrays.asList("abc"), this.service.getCaseTypesForUnit("unit-3"));
+    assertEquals(2, this.getRequestCount("unit-3"));
+  }
+
+  @Test
+  public void caseTypesForManyUnitsAreFetchedConcurrentlyWithinTheBound() {
+    this.service.setMaxConcurrentFetches(3);
+    this.responseDelay = 100L;
+    this.service.getCaseTypesForUnit("unit-1");
+
+    List<String> hsaIdentities = new ArrayList<String>();
+    for (int i = 10; i > 0; i--) {
+      hsaIdentities.add("unit-" + i);
+    }
+    hsaIdentities.add("unit-5");
+    Map<String, List<String>> caseTypes = this.service.getCaseTypesForUnits(hsaIdentities);
+
+    assertEquals(new ArrayList<String>(hsaIdentities.subList(0, 10)), new ArrayList<String>(caseTypes.keySet()));
+    assertEquals(Arrays.asList("abc", "def"), caseTypes.get("unit-1"));
+    assertEquals(0, caseTypes.get("unit-7").size());
+    assertEquals(1, this.getRequestCount("unit-1"));
+    assertEquals(1, this.getRequestCount("unit-5"));
+    assertTrue("fetches were made concurrently", this.maxConcurrentRequests.get() > 1);
+    assertTrue("at most 3 concurrent fetches", this.maxConcurrentRequests.get() <= 3);
+  }
+
+  @Test
+  public void unitsWithoutHsaIdentityHaveNoCaseTypes() {
+    assertEquals(0, this.service.getCaseTypesForUnit(null).size());
+    assertEquals(0, this.service.getCaseTypesForUnits(Arrays.asList((String) null)).get(null).size());
+    assertEquals(0, this.requestCounts.size());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void cachedCaseTypesCanNotBeModified() {
+    this.service.getCaseTypesForUnit("unit-1").add("ghi");
+  }
+
+  private int getRequestCount(String hsaIdentity) {
+    AtomicInteger count = this.requestCounts.get(hsaIdentity);
+    return count == null ? 0 : count.get();
+  }
+
+  private static String getParameter(String query, String name) {
+    String value = null;
+    for (String parameter : query.split("&")) {
+      if (parameter.startsWith(name + "=")) {
+        value = parameter.substring(name.length() + 1);
+      }
+    }
+    return value;
+  }
+}
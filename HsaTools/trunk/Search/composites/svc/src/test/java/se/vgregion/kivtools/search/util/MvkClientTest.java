@@ -21,6 +21,7 @@ package se.vgregion.kivtools.search.util;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 import java.util.List;
 
@@ -51,4 +52,20 @@ public class MvkClientTest {
     List<String> caseTypes = this.mvkClient.getCaseTypesForUnit(unit.getHsaIdentity());
     assertEquals(2, caseTypes.size());
   }
+
+  @Test
+  public void caseTypesAreReadFromNestedElements() {
+    List<String> caseTypes = this.mvkClient.parseCaseTypes("<?xml version=\"1.0\"?><mvk><unit><casetypes><casetype>abc</casetype></casetypes></unit><casetype>d&amp;f</casetype></mvk>");
+    assertEquals("[abc, d&f]", caseTypes.toString());
+  }
+
+  @Test
+  public void unreadableResponseGivesNoCaseTypes() {
+    this.httpFetcher.addContent("http://localhost?mvk=1&hsaid=ABC-123&guid=uid123", "<casetypes><casetype>abc</casetypes>");
+    assertNull(this.mvkClient.fetchCaseTypesForUnit("ABC-123"));
+    assertEquals(0, this.mvkClient.getCaseTypesForUnit("ABC-123").size());
+
+    this.httpFetcher.addContent("http://localhost?mvk=1&hsaid=ABC-123&guid=uid123", "");
+    assertNull(this.mvkClient.fetchCaseTypesForUnit("ABC-123"));
+  }
 }
@@ -57,6 +57,17 @@ public class PageSearchMetaDataHelperTest {
     assertEquals(4, result.get(2).getEndIndex());
   }
   
+  @Test
+  public void testBuildPagedSearchMetaDataForNumberOfItems() {
+    List<PagedSearchMetaData> result = PagedSearchMetaDataHelper.buildPagedSearchMetaData(5, 2);
+    assertEquals(3, result.size());
+    assertEquals(4, result.get(2).getStartIndex());
+    assertEquals(4, result.get(2).getEndIndex());
+
+    assertEquals(0, PagedSearchMetaDataHelper.buildPagedSearchMetaData(0, 2).size());
+    assertEquals(0, PagedSearchMetaDataHelper.buildPagedSearchMetaData(null, 2).size());
+  }
+
   @Test
   public void testErrorhandlingForPageSize(){
     // Test pageSize -1 and 0
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ */
+
+package se.vgregion.kivtools.search.util;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TopKSelectorTest {
+  private Comparator<String> byFirstCharacter;
+
+  @Before
+  public void setUp() {
+    byFirstCharacter = new Comparator<String>() {
+      @Override
+      public int compare(String o1, String o2) {
+        return o1.charAt(0) - o2.charAt(0);
+      }
+    };
+  }
+
+  @Test
+  public void firstElementsAreSelectedInSortOrder() {
+    TopKSelector<String> selector = new TopKSelector<String>(byFirstCharacter, 3);
+    selector.addAll(Arrays.asList("e", "b", "d", "a", "f", "c"));
+
+    assertEquals(Arrays.asList("a", "b", "c"), selector.getSelected());
+    assertEquals(6, selector.getCount());
+  }
+
+  @Test
+  public void equalElementsKeepTheOrderTheyWereOfferedIn() {
+    TopKSelector<String> selector = new TopKSelector<String>(byFirstCharacter, 3);
+    selector.addAll(Arrays.asList("b1", "a1", "b2", "a2", "b3"));
+
+    assertEquals(Arrays.asList("a1", "a2", "b1"), selector.getSelected());
+  }
+
+  @Test
+  public void allElementsAreSelectedWhenLimitIsNotReached() {
+    TopKSelector<String> selector = new TopKSelector<String>(byFirstCharacter, 3);
+    selector.addAll(Arrays.asList("c", "a", "b"));
+
+    assertEquals(Arrays.asList("a", "b", "c"), selector.getSelected());
+    assertEquals(3, selector.getCount());
+  }
+
+  @Test
+  public void zeroLimitOnlyCountsElements() {
+    TopKSelector<String> selector = new TopKSelector<String>(byFirstCharacter, 0);
+    selector.addAll(Arrays.asList("a", "b"));
+
+    assertEquals(Collections.emptyList(), selector.getSelected());
+    assertEquals(2, selector.getCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeLimitThrowsIllegalArgumentException() {
+    new TopKSelector<String>(byFirstCharacter, -1);
+  }
+
+  @Test
+  public void firstSelectsFromCollection() {
+    assertEquals(Arrays.asList("a", "b"), TopKSelector.first(Arrays.asList("c", "b", "a"), 2, byFirstCharacter));
+    assertEquals(Collections.emptyList(), TopKSelector.first(Arrays.asList("c", "b", "a"), -1, byFirstCharacter));
+  }
+}
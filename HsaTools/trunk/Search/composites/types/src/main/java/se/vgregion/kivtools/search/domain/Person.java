@@ -20,8 +20,12 @@
 package se.vgregion.kivtools.search.domain;
 
 import java.io.Serializable;
+import java.text.CollationKey;
 import java.util.List;
 
+import se.vgregion.kivtools.search.domain.util.SortKeys;
+import se.vgregion.kivtools.util.StringUtil;
+
 import com.domainlanguage.time.TimeInterval;
 import com.domainlanguage.time.TimePoint;
 
@@ -46,6 +50,9 @@ public class Person implements Serializable {
   private String givenName;
   // efternamn (e.g. Svensson)
   private String sn;
+  private transient volatile CollationKey givenNameSortKey;
+  private transient volatile CollationKey snSortKey;
+  private transient volatile CollationKey nameSortKey;
   // Mellannamn (e.g. Anna)
   private String hsaMiddleName;
   // Initialer (e.g. K R)
@@ -136,6 +143,23 @@ public class Person implements Serializable {
 
   public void setGivenName(String givenName) {
     this.givenName = givenName;
+    this.givenNameSortKey = null;
+    this.nameSortKey = null;
+  }
+
+  /**
+   * Gets the key used to sort persons on given name. The key is created the first time it is requested and kept until the
+   * given name is changed.
+   * 
+   * @return The sort key of the given name, a missing given name is sorted as an empty text.
+   */
+  public CollationKey getGivenNameSortKey() {
+    CollationKey key = this.givenNameSortKey;
+    if (key == null) {
+      key = SortKeys.forText(StringUtil.emptyStringIfNull(this.givenName));
+      this.givenNameSortKey = key;
+    }
+    return key;
   }
 
   public String getSn() {
@@ -144,6 +168,38 @@ public class Person implements Serializable {
 
   public void setSn(String sn) {
     this.sn = sn;
+    this.snSortKey = null;
+    this.nameSortKey = null;
+  }
+
+  /**
+   * Gets the key used to sort persons on surname. The key is created the first time it is requested and kept until the
+   * surname is changed.
+   * 
+   * @return The sort key of the surname, a missing surname is sorted as an empty text.
+   */
+  public CollationKey getSnSortKey() {
+    CollationKey key = this.snSortKey;
+    if (key == null) {
+      key = SortKeys.forText(StringUtil.emptyStringIfNull(this.sn));
+      this.snSortKey = key;
+    }
+    return key;
+  }
+
+  /**
+   * Gets the key used to sort persons on their surname directly followed by their given name. The key is created the first
+   * time it is requested and kept until the surname or given name is changed.
+   * 
+   * @return The sort key of the full name.
+   */
+  public CollationKey getNameSortKey() {
+    CollationKey key = this.nameSortKey;
+    if (key == null) {
+      key = SortKeys.forText(StringUtil.emptyStringIfNull(this.sn) + StringUtil.emptyStringIfNull(this.givenName));
+      this.nameSortKey = key;
+    }
+    return key;
   }
 
   public String getHsaMiddleName() {
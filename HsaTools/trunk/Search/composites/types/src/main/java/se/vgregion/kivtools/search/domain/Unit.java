@@ -20,9 +20,11 @@
 package se.vgregion.kivtools.search.domain;
 
 import java.io.Serializable;
+import java.text.CollationKey;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
@@ -34,6 +36,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import se.vgregion.kivtools.search.domain.util.Evaluator;
+import se.vgregion.kivtools.search.domain.util.SortKeys;
 import se.vgregion.kivtools.search.domain.values.Address;
 import se.vgregion.kivtools.search.domain.values.DN;
 import se.vgregion.kivtools.search.domain.values.HealthcareType;
@@ -53,7 +56,7 @@ import com.domainlanguage.time.TimePoint;
  * @author Jonas Liljenfeldt, Know IT
  * 
  */
-public class Unit implements Serializable, Comparable<Unit> {
+public class Unit implements Serializable, Comparable<Unit>, Cloneable {
 
   private static final long serialVersionUID = 1L;
   private static final String HSA_BUSINESS_CLASSIFICATION_NAME_UNKNOWN = "Ok\u00E4nd v\u00E5rdtyp";
@@ -67,6 +70,7 @@ public class Unit implements Serializable, Comparable<Unit> {
   private String managerDN;
   // Enhetens namn
   private String name;
+  private transient volatile CollationKey nameSortKey;
   // Enhetens kort namn
   private String organizationalUnitNameShort;
   // Var i organisationen enheten
@@ -121,6 +125,8 @@ public class Unit implements Serializable, Comparable<Unit> {
   // HSA identitet
   private String hsaIdentity;
   private final List<HealthcareType> healthcareTypes = new ArrayList<HealthcareType>();
+  // The indexes of the healthcare types
+  private final BitSet healthcareTypeIndexes = new BitSet();
   // Ansvarsnr
   private List<String> vgrAnsvarsnummer;
   // Arbetsplatskod
@@ -140,9 +146,9 @@ public class Unit implements Serializable, Comparable<Unit> {
   // Godsadress
   private Address hsaConsigneeAddress;
   // Fakturaadress som hämtas från en vgrDeliveryPoint-objekt
-  private final List<Address> deliverypointDeliveryAddress = new ArrayList<Address>();
+  private List<Address> deliverypointDeliveryAddress = new ArrayList<Address>();
   // GodsAdress som hämtas från en vgrDeliveryPoint-objekt
-  private final List<Address> deliverypointConsigneeAddress = new ArrayList<Address>();
+  private List<Address> deliverypointConsigneeAddress = new ArrayList<Address>();
 
   // Phone numbers
   // Växeltelefon
@@ -408,6 +414,22 @@ public class Unit implements Serializable, Comparable<Unit> {
 
   public void setName(String name) {
     this.name = name;
+    this.nameSortKey = null;
+  }
+
+  /**
+   * Gets the key used to sort units on name. The key is created the first time it is requested and kept until the name
+   * is changed.
+   * 
+   * @return The sort key of the unit name or null if the unit has no name.
+   */
+  public CollationKey getNameSortKey() {
+    CollationKey key = this.nameSortKey;
+    if (key == null && this.name != null) {
+      key = SortKeys.forText(this.name);
+      this.nameSortKey = key;
+    }
+    return key;
   }
 
   public String getOrganizationalUnitNameShort() {
@@ -734,6 +756,27 @@ public class Unit implements Serializable, Comparable<Unit> {
     }
   }
 
+  /**
+   * Creates a copy of this unit where the delivery point addresses are replaced by the provided addresses. All other
+   * values are shared with this unit which is left unchanged.
+   * 
+   * @param deliveryAddresses The delivery addresses of the copy.
+   * @param consigneeAddresses The consignee addresses of the copy.
+   * @return A new unit with the provided delivery point addresses.
+   */
+  public Unit copyWithDeliverypointAddresses(List<Address> deliveryAddresses, List<Address> consigneeAddresses) {
+    Unit copy;
+    try {
+      copy = (Unit) super.clone();
+    } catch (CloneNotSupportedException e) {
+      // Unit is Cloneable so this never happens.
+      throw new IllegalStateException(e);
+    }
+    copy.deliverypointDeliveryAddress = new ArrayList<Address>(deliveryAddresses);
+    copy.deliverypointConsigneeAddress = new ArrayList<Address>(consigneeAddresses);
+    return copy;
+  }
+
   public List<String> getVgrAnsvarsnummer() {
     return this.vgrAnsvarsnummer;
   }
@@ -1334,6 +1377,7 @@ public class Unit implements Serializable, Comparable<Unit> {
    */
   public void addHealthcareType(HealthcareType healthcareType) {
     this.healthcareTypes.add(healthcareType);
+    this.addHealthcareTypeIndex(healthcareType);
   }
 
   /**
@@ -1344,9 +1388,38 @@ public class Unit implements Serializable, Comparable<Unit> {
   public void addHealthcareTypes(List<HealthcareType> addedHealthcareTypes) {
     if (addedHealthcareTypes != null) {
       this.healthcareTypes.addAll(addedHealthcareTypes);
+      for (HealthcareType healthcareType : addedHealthcareTypes) {
+        this.addHealthcareTypeIndex(healthcareType);
+      }
     }
   }
 
+  private void addHealthcareTypeIndex(HealthcareType healthcareType) {
+    if (healthcareType != null && healthcareType.getIndex() != null) {
+      this.healthcareTypeIndexes.set(healthcareType.getIndex());
+    }
+  }
+
+  /**
+   * Retrieves the indexes of the healthcare types added to the unit.
+   * 
+   * @return A copy of the set of healthcare type indexes.
+   */
+  public BitSet getHealthcareTypeIndexes() {
+    return (BitSet) this.healthcareTypeIndexes.clone();
+  }
+
+  /**
+   * Checks if any of the healthcare types with the provided indexes has been added to the unit without copying the
+   * indexes of the unit.
+   * 
+   * @param indexes The indexes of the healthcare types to check.
+   * @return True if the unit has at least one of the healthcare types, otherwise false.
+   */
+  public boolean intersectsHealthcareTypes(BitSet indexes) {
+    return this.healthcareTypeIndexes.intersects(indexes);
+  }
+
   /**
    * Returns comma separated list of assigned health care types.
    * 
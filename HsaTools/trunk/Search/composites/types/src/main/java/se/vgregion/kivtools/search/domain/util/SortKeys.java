@@ -0,0 +1,62 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.domain.util;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Locale;
+
+/**
+ * Creates keys for sorting texts in Swedish alphabetical order, ignoring case. A key is created once per text and can then
+ * be compared any number of times without allocating anything, which makes it suitable to keep together with the object
+ * it is created for. Keys are only comparable with other keys created by this class.
+ */
+public final class SortKeys {
+  /** The locale used for collation and case conversion. */
+  public static final Locale SWEDISH = new Locale("sv", "SE");
+
+  private static final Collator COLLATOR = Collator.getInstance(SWEDISH);
+  private static final CollationKey EMPTY = COLLATOR.getCollationKey("");
+
+  private SortKeys() {
+    // Utility class, no instantiation.
+  }
+
+  /**
+   * Creates a sort key for a text.
+   * 
+   * @param text The text to create a sort key for.
+   * @return The sort key of the text.
+   */
+  public static CollationKey forText(String text) {
+    return COLLATOR.getCollationKey(text.toLowerCase(SWEDISH));
+  }
+
+  /**
+   * Compares two sort keys where a missing key is sorted as an empty text.
+   * 
+   * @param key1 The first key, may be null.
+   * @param key2 The second key, may be null.
+   * @return A value less than 0 if key1 < key2, 0 if key1 == key2 and a value greater than 0 if key1 > key2.
+   */
+  public static int compare(CollationKey key1, CollationKey key2) {
+    return Integer.signum((key1 != null ? key1 : EMPTY).compareTo(key2 != null ? key2 : EMPTY));
+  }
+}
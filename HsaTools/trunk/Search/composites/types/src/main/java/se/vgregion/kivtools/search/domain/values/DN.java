@@ -23,19 +23,30 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import se.vgregion.kivtools.util.StringUtil;
 
 /**
  * A Distinguished Name implementation.
  * 
+ * DN's created using {@link #createDNFromString(String)} are canonicalised through a bounded pool so that equal DN's
+ * share one instance, and the parent of a canonical DN is resolved once and kept. Walking the ancestors of a DN is
+ * therefore mostly a matter of following references.
+ * 
  * @author Anders Asplund - KnowIT
  */
 public final class DN implements Serializable, Iterable<DN> {
 
   private static final int ADMINISTRATION = -3;
   private static final long serialVersionUID = 1L;
+  // Large enough for the units and employment DN's of the whole directory.
+  private static final int MAX_POOL_SIZE = 100000;
+  private static final Object POOL_LOCK = new Object();
+  private static final Map<String, DN> DNS_BY_STRING = createPool();
+  private static final Map<DN, DN> DNS = createPool();
   private final List<String> cn;
   private final List<String> ou;
   private final List<String> dc;
@@ -43,6 +54,11 @@ public final class DN implements Serializable, Iterable<DN> {
   // Position of administration
   // Used for formatting ancestors in web gui
   private final int position;
+  private transient int hash;
+  private transient volatile DN parent;
+  private transient volatile boolean parentResolved;
+  private transient volatile DN escaped;
+  private transient volatile String string;
 
   /**
    * Constructs a new DN instance using the provided fields.
@@ -67,20 +83,65 @@ public final class DN implements Serializable, Iterable<DN> {
    * @param position The new value for position for this DN.
    */
   private DN(DN originalDn, int position) {
-    this.cn = this.defensiveCopy(originalDn.cn);
-    this.ou = this.defensiveCopy(originalDn.ou);
-    this.dc = this.defensiveCopy(originalDn.dc);
+    // The lists of the original DN are unmodifiable so they can be shared.
+    this.cn = originalDn.cn;
+    this.ou = originalDn.ou;
+    this.dc = originalDn.dc;
     this.o = originalDn.o;
     this.position = position;
+    this.hash = originalDn.hash;
+  }
+
+  private static <K> Map<K, DN> createPool() {
+    return new LinkedHashMap<K, DN>(1024, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, DN> eldest) {
+        return this.size() > MAX_POOL_SIZE;
+      }
+    };
+  }
+
+  /**
+   * Returns the canonical instance of the provided DN. The pool is bounded, the least recently used DN's are dropped
+   * from it when it is full.
+   * 
+   * @param dn The DN to canonicalise.
+   * @return The pooled DN equal to the provided DN, or the provided DN if it was added to the pool.
+   */
+  private static DN intern(DN dn) {
+    synchronized (POOL_LOCK) {
+      DN canonical = DNS.get(dn);
+      if (canonical == null) {
+        DNS.put(dn, dn);
+        canonical = dn;
+      }
+      return canonical;
+    }
   }
 
   /**
-   * Creates a DN instance using the provided string.
+   * Creates a DN instance using the provided string. Equal DN's share one instance as long as they are kept in the pool.
    * 
    * @param dnString The DN-string to base the DN instance on.
-   * @return Returns a new DN object.
+   * @return Returns the canonical DN object for the string.
    */
   public static DN createDNFromString(String dnString) {
+    DN dn;
+    synchronized (POOL_LOCK) {
+      dn = DNS_BY_STRING.get(dnString);
+    }
+    if (dn == null) {
+      dn = intern(parse(dnString));
+      synchronized (POOL_LOCK) {
+        DNS_BY_STRING.put(dnString, dn);
+      }
+    }
+    return dn;
+  }
+
+  private static DN parse(String dnString) {
 
     List<String> cn = new ArrayList<String>();
     List<String> ou = new ArrayList<String>();
@@ -116,9 +177,18 @@ public final class DN implements Serializable, Iterable<DN> {
   /**
    * Escapes any comma and plus in the DN's common names, organizational units and domain components.
    * 
-   * @return A new DN with commas and pluses escaped.
+   * @return A DN with commas and pluses escaped. The same instance is returned on each call.
    */
   public DN escape() {
+    DN result = this.escaped;
+    if (result == null) {
+      result = intern(this.createEscaped());
+      this.escaped = result;
+    }
+    return result;
+  }
+
+  private DN createEscaped() {
     List<String> newCn = new ArrayList<String>();
     List<String> newOu = new ArrayList<String>();
     List<String> newDc = new ArrayList<String>();
@@ -231,26 +301,37 @@ public final class DN implements Serializable, Iterable<DN> {
    * @return The DN's parent DN or null if no common names or organizational units exists.
    */
   public DN getParentDN(int rootLevel) {
+    if (this.cn.isEmpty() && this.ou.size() <= rootLevel) {
+      return null;
+    }
+    return this.getParentDN();
+  }
+
+  /**
+   * Gets this DN's parent DN. The parent is resolved on the first call and the same instance is returned after that.
+   * 
+   * @return The DN's parent DN or null if no common names or organizational units exists.
+   */
+  public DN getParentDN() {
+    if (!this.parentResolved) {
+      this.parent = this.createParentDN();
+      this.parentResolved = true;
+    }
+    return this.parent;
+  }
+
+  private DN createParentDN() {
     List<String> theCN = this.cn;
     List<String> theOU = this.ou;
-    List<String> theDC = this.dc;
 
     if (theCN.size() > 0) {
-      if (theCN.size() < 2) {
-        theCN = new ArrayList<String>();
-      } else {
-        theCN = theCN.subList(1, theCN.size());
-      }
-    } else if (theOU.size() > rootLevel) {
-      theOU = this.getOuWithoutUnit();
+      theCN = theCN.subList(1, theCN.size());
+    } else if (theOU.size() > 0) {
+      theOU = theOU.subList(1, theOU.size());
     } else {
       return null;
     }
-    return new DN(theCN, theOU, theDC, this.o);
-  }
-
-  public DN getParentDN() {
-    return this.getParentDN(0);
+    return intern(new DN(theCN, theOU, this.dc, this.o));
   }
 
   /**
@@ -304,22 +385,26 @@ public final class DN implements Serializable, Iterable<DN> {
     if (generation == 0) {
       return this;
     }
-    List<DN> ancestors = new ArrayList<DN>();
-    DN parent = this.getParentDN();
-
-    while (parent != null) {
-      ancestors.add(parent);
-      parent = parent.getParentDN();
-    }
-
     int generationToGet = generation;
     if (generationToGet < 0) {
-      generationToGet += ancestors.size();
-    } else {
-      generationToGet--;
+      int generations = 0;
+      for (DN ancestor = this.getParentDN(); ancestor != null; ancestor = ancestor.getParentDN()) {
+        generations++;
+      }
+      generationToGet += generations + 1;
+    }
+    if (generationToGet < 1) {
+      throw new IndexOutOfBoundsException("No ancestor at generation " + generation);
     }
-    return ancestors.get(generationToGet);
 
+    DN ancestor = this;
+    for (int i = 0; i < generationToGet; i++) {
+      ancestor = ancestor.getParentDN();
+      if (ancestor == null) {
+        throw new IndexOutOfBoundsException("No ancestor at generation " + generation);
+      }
+    }
+    return ancestor;
   }
 
   /**
@@ -334,6 +419,15 @@ public final class DN implements Serializable, Iterable<DN> {
 
   @Override
   public String toString() {
+    String result = this.string;
+    if (result == null) {
+      result = this.createString();
+      this.string = result;
+    }
+    return result;
+  }
+
+  private String createString() {
     StringBuilder str = new StringBuilder();
 
     for (String aCN : this.cn) {
@@ -362,13 +456,6 @@ public final class DN implements Serializable, Iterable<DN> {
     return tempStr;
   }
 
-  private List<String> getOuWithoutUnit() {
-    if (this.ou.size() < 2) {
-      return new ArrayList<String>();
-    }
-    return this.ou.subList(1, this.ou.size());
-  }
-
   @Override
   public Iterator<DN> iterator() {
     return new DNIterator();
@@ -421,6 +508,15 @@ public final class DN implements Serializable, Iterable<DN> {
 
   @Override
   public int hashCode() {
+    int result = this.hash;
+    if (result == 0) {
+      result = this.computeHashCode();
+      this.hash = result;
+    }
+    return result;
+  }
+
+  private int computeHashCode() {
     final int prime = 31;
     int result = 1;
     result = prime * result + this.cn.hashCode();
@@ -445,6 +541,7 @@ public final class DN implements Serializable, Iterable<DN> {
         } else {
           DN other = (DN) obj;
 
+          equal &= this.hashCode() == other.hashCode();
           equal &= this.cn.equals(other.cn);
           equal &= this.dc.equals(other.dc);
           equal &= this.o.equals(other.o);
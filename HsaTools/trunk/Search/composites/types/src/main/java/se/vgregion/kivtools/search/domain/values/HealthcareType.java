@@ -20,9 +20,11 @@
 package se.vgregion.kivtools.search.domain.values;
 
 import java.io.Serializable;
+import java.text.CollationKey;
 import java.util.HashMap;
 import java.util.Map;
 
+import se.vgregion.kivtools.search.domain.util.SortKeys;
 import se.vgregion.kivtools.search.interfaces.IsEmptyMarker;
 import se.vgregion.kivtools.util.StringUtil;
 
@@ -37,6 +39,7 @@ public class HealthcareType implements IsEmptyMarker, Serializable, Comparable<H
 
   private Map<String, String> conditions = new HashMap<String, String>();
   private String displayName;
+  private transient volatile CollationKey displayNameSortKey;
   private Integer index;
   // Should this care type care about hsaBusinessClassificationCode filters?
   private boolean filtered;
@@ -94,6 +97,22 @@ public class HealthcareType implements IsEmptyMarker, Serializable, Comparable<H
 
   public void setDisplayName(String displayName) {
     this.displayName = displayName;
+    this.displayNameSortKey = null;
+  }
+
+  /**
+   * Gets the key used to sort health care types on display name. The key is created the first time it is requested and
+   * kept until the display name is changed.
+   * 
+   * @return The sort key of the display name or null if the health care type has no display name.
+   */
+  public CollationKey getDisplayNameSortKey() {
+    CollationKey key = this.displayNameSortKey;
+    if (key == null && this.displayName != null) {
+      key = SortKeys.forText(this.displayName);
+      this.displayNameSortKey = key;
+    }
+    return key;
   }
 
   public boolean isEmpty() {
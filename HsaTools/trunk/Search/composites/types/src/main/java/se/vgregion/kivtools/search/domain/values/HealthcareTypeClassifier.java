@@ -0,0 +1,195 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.domain.values;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import se.vgregion.kivtools.search.domain.Unit;
+
+/**
+ * The healthcare type conditions compiled against the getters of {@link Unit}. The getter for each condition is looked
+ * up once when the classifier is created so that classifying a unit is a single pass over the conditions without any
+ * lookups by name.
+ */
+final class HealthcareTypeClassifier {
+  private static final String[] PROPERTY_PREFIXES = { "get", "is", "has" };
+
+  private final HealthcareType[] healthcareTypes;
+  private final UnitCondition[][] conditionsByHealthcareType;
+  private final UnitCondition[] unfilteredConditions;
+  private final BitSet unfilteredIndexes = new BitSet();
+
+  /**
+   * Constructs a new HealthcareTypeClassifier.
+   * 
+   * @param allHealthcareTypes The healthcare types to compile the conditions for.
+   */
+  HealthcareTypeClassifier(Collection<HealthcareType> allHealthcareTypes) {
+    this.healthcareTypes = allHealthcareTypes.toArray(new HealthcareType[allHealthcareTypes.size()]);
+    this.conditionsByHealthcareType = new UnitCondition[this.healthcareTypes.length][];
+    List<UnitCondition> allUnfilteredConditions = new ArrayList<UnitCondition>();
+
+    for (int i = 0; i < this.healthcareTypes.length; i++) {
+      HealthcareType healthcareType = this.healthcareTypes[i];
+      List<UnitCondition> conditions = new ArrayList<UnitCondition>();
+      for (Entry<String, String> condition : healthcareType.getConditions().entrySet()) {
+        String[] conditionValues = condition.getValue().split(",");
+        // Conditions on attributes that the unit does not have are not part of the classification.
+        Method getter = findMethod(condition.getKey(), "get");
+        if (getter != null) {
+          conditions.add(new UnitCondition(getter, conditionValues));
+        }
+        Method property = findProperty(condition.getKey());
+        if (!healthcareType.isFiltered() && property != null) {
+          allUnfilteredConditions.add(new UnitCondition(property, conditionValues));
+        }
+      }
+      this.conditionsByHealthcareType[i] = conditions.toArray(new UnitCondition[conditions.size()]);
+
+      // A unit classified as a healthcare type with at least one condition fulfills one of its conditions.
+      if (!healthcareType.isFiltered() && !conditions.isEmpty()) {
+        this.unfilteredIndexes.set(healthcareType.getIndex());
+      }
+    }
+    this.unfilteredConditions = allUnfilteredConditions.toArray(new UnitCondition[allUnfilteredConditions.size()]);
+  }
+
+  /**
+   * Classifies the provided unit.
+   * 
+   * @param unit The unit to classify.
+   * @return The indexes of the healthcare types whose conditions are all fulfilled by the unit.
+   */
+  BitSet classify(Unit unit) {
+    BitSet indexes = new BitSet();
+    for (int i = 0; i < this.healthcareTypes.length; i++) {
+      boolean conditionsFulfilled = true;
+      for (UnitCondition condition : this.conditionsByHealthcareType[i]) {
+        conditionsFulfilled &= condition.isFulfilledBy(unit);
+      }
+      if (conditionsFulfilled) {
+        indexes.set(this.healthcareTypes[i].getIndex());
+      }
+    }
+    return indexes;
+  }
+
+  /**
+   * Retrieves the healthcare types with the provided indexes.
+   * 
+   * @param indexes The indexes of the healthcare types to retrieve.
+   * @return A list of the healthcare types in index order.
+   */
+  List<HealthcareType> getHealthcareTypes(BitSet indexes) {
+    List<HealthcareType> result = new ArrayList<HealthcareType>(indexes.cardinality());
+    for (HealthcareType healthcareType : this.healthcareTypes) {
+      if (indexes.get(healthcareType.getIndex())) {
+        result.add(healthcareType);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Checks if the provided unit fulfills any of the conditions of the unfiltered healthcare types.
+   * 
+   * @param unit The unit to check.
+   * @return True if at least one condition of an unfiltered healthcare type is fulfilled by the unit.
+   */
+  boolean matchesUnfilteredCondition(Unit unit) {
+    boolean found = unit.intersectsHealthcareTypes(this.unfilteredIndexes);
+    for (int i = 0; i < this.unfilteredConditions.length && !found; i++) {
+      found = this.unfilteredConditions[i].isFulfilledBy(unit);
+    }
+    return found;
+  }
+
+  private static Method findProperty(String propertyName) {
+    Method method = null;
+    for (int i = 0; i < PROPERTY_PREFIXES.length && method == null; i++) {
+      method = findMethod(propertyName, PROPERTY_PREFIXES[i]);
+    }
+    return method;
+  }
+
+  private static Method findMethod(String propertyName, String prefix) {
+    String methodName = prefix + propertyName;
+    Method method = null;
+    for (Method candidate : Unit.class.getDeclaredMethods()) {
+      if (candidate.getParameterTypes().length == 0 && candidate.getName().equalsIgnoreCase(methodName)) {
+        method = candidate;
+        break;
+      }
+    }
+    return method;
+  }
+
+  /**
+   * A single condition bound to the getter of the attribute it applies to.
+   */
+  private static final class UnitCondition {
+    private final Method getter;
+    private final Set<String> values;
+
+    private UnitCondition(Method getter, String[] values) {
+      this.getter = getter;
+      this.values = new HashSet<String>(Arrays.asList(values));
+    }
+
+    private boolean isFulfilledBy(Unit unit) {
+      Object value = this.getValue(unit);
+      boolean fulfilled = false;
+      if (value instanceof String) {
+        fulfilled = this.values.contains(value);
+      } else if (value instanceof List<?>) {
+        for (Object element : (List<?>) value) {
+          if (this.values.contains(element)) {
+            fulfilled = true;
+            break;
+          }
+        }
+      }
+      return fulfilled;
+    }
+
+    private Object getValue(Unit unit) {
+      Object value;
+      try {
+        value = this.getter.invoke(unit);
+      } catch (IllegalAccessException e) {
+        // Treat an inaccessible getter as if the attribute does not exist.
+        value = null;
+      } catch (InvocationTargetException e) {
+        // The getter throwed an exception.
+        value = null;
+      }
+      return value;
+    }
+  }
+}
@@ -20,6 +20,7 @@
 package se.vgregion.kivtools.search.domain.values;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -34,10 +35,10 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import se.vgregion.kivtools.search.domain.Unit;
-import se.vgregion.kivtools.util.reflection.ReflectionUtil;
 
 /**
- * Health care type operations.
+ * Health care type operations. The conditions are read from the configured resource bundle once and compiled into a
+ * {@link HealthcareTypeClassifier} which is used to classify units.
  * 
  * @author Jonas Liljenfeldt, Know IT
  * 
@@ -50,6 +51,7 @@ public class HealthcareTypeConditionHelper {
 
   private static final List<HealthcareType> ALL_HEALTHCARE_TYPES = new ArrayList<HealthcareType>();
   private static boolean initialized;
+  private static volatile HealthcareTypeClassifier classifier = new HealthcareTypeClassifier(Collections.<HealthcareType> emptyList());
 
   private static final Log LOGGER = LogFactory.getLog(HealthcareTypeConditionHelper.class);
 
@@ -69,98 +71,32 @@ public class HealthcareTypeConditionHelper {
    * @return the health care types matching the unit.
    */
   public List<HealthcareType> getHealthcareTypesForUnit(Unit unit) {
-
-    long startTimeMillis = System.currentTimeMillis();
-
-    // For every health care type, check if this unit belongs to it.
-    List<HealthcareType> healthcareTypesToBeAdded = new ArrayList<HealthcareType>();
-    for (HealthcareType ht : ALL_HEALTHCARE_TYPES) {
-      boolean conditionsFulfilled = true;
-      for (Entry<String, String> condition : ht.getConditions().entrySet()) {
-
-        // Does the unit have a corresponding field? If the condition
-        // key is hsaBusinessClassificationId the unit needs to have
-        // this field.
-        String key = condition.getKey();
-        key = key.substring(0, 1).toUpperCase() + key.substring(1);
-        if (ReflectionUtil.hasMethod(unit, "get" + key, true)) {
-          // Field exists, does it have correct value?
-
-          Object value = ReflectionUtil.callMethod(unit, "get" + key, true);
-          String conditionValue = condition.getValue();
-          conditionsFulfilled &= checkConditionFulfilled(value, conditionValue);
-        }
-      }
-      if (conditionsFulfilled) {
-        healthcareTypesToBeAdded.add(ht);
-      }
-    }
-
-    long endTimeMillis = System.currentTimeMillis();
-    LOGGER.debug("Assigning health care type for " + unit.getHsaIdentity() + " took: " + (endTimeMillis - startTimeMillis) + " milliseconds.");
-
-    return healthcareTypesToBeAdded;
-  }
-
-  /**
-   * Helper-method to check if the condition is fulfilled.
-   * 
-   * @param value The value to check against the condition value.
-   * @param conditionValue The condition value to check against.
-   * @return True if the condition is fulfilled, otherwise false.
-   */
-  @SuppressWarnings("unchecked")
-  private boolean checkConditionFulfilled(Object value, String conditionValue) {
-    boolean conditionFulfilled = false;
-    // The health care type value may be multiple comma separated values
-    String[] conditionValues = conditionValue.split(",");
-    if (value instanceof String) {
-      conditionFulfilled = checkConditionFulfilled((String) value, conditionValues);
-    } else if (value instanceof List) {
-      conditionFulfilled = checkConditionFulfilled((List) value, conditionValues);
+    if (unit == null) {
+      throw new NullPointerException("unit");
     }
-    return conditionFulfilled;
+    HealthcareTypeClassifier currentClassifier = classifier;
+    return currentClassifier.getHealthcareTypes(currentClassifier.classify(unit));
   }
 
   /**
-   * Checks a List of string-values against the conditionValues to see if the condition is fulfilled.
+   * Retrieve the indexes of the health care types matching the unit.
    * 
-   * @param value The List of string-values to check.
-   * @param conditionValues The conditionValues to check against.
-   * @return True if the condition is fulfilled.
+   * @param unit The unit to retrieve matching health care types for.
+   * @return the indexes of the health care types matching the unit.
    */
-  @SuppressWarnings("unchecked")
-  private boolean checkConditionFulfilled(List<?> value, String[] conditionValues) {
-    boolean conditionFulfilled = false;
-
-    for (String v : conditionValues) {
-      if (((List<String>) value).contains(v)) {
-        conditionFulfilled = true;
-      }
-    }
-
-    return conditionFulfilled;
+  public BitSet getHealthcareTypeIndexesForUnit(Unit unit) {
+    return classifier.classify(unit);
   }
 
   /**
-   * Checks a string-value against the conditionValues to see if the condition is fulfilled.
+   * Checks if the unit fulfills at least one of the conditions of the unfiltered health care types. Units that already
+   * have an unfiltered health care type are matched without evaluating any conditions.
    * 
-   * @param value The string-value to check.
-   * @param conditionValues The conditionValues to check against.
-   * @return True if the condition is fulfilled.
+   * @param unit The unit to check.
+   * @return True if the unit matches an unfiltered health care type condition, otherwise false.
    */
-  private boolean checkConditionFulfilled(String value, String[] conditionValues) {
-    boolean conditionFulfilled = false;
-
-    if (value != null) {
-      for (String v : conditionValues) {
-        if (v.equals(value)) {
-          conditionFulfilled = true;
-        }
-      }
-    }
-
-    return conditionFulfilled;
+  public boolean matchesUnfilteredHealthcareType(Unit unit) {
+    return classifier.matchesUnfilteredCondition(unit);
   }
 
   private static Enumeration<String> getAllHealthcareConditionConfigurationKeys(String implResourcePath) {
@@ -201,6 +137,8 @@ public class HealthcareTypeConditionHelper {
       // Iterate through all condition keys and condition values, build health
       // care types and corresponding conditions
       buildInternalCache(resourcePath, indexesAndsubIndexes);
+      classifier = new HealthcareTypeClassifier(ALL_HEALTHCARE_TYPES);
+      LOGGER.debug("Compiled the conditions for " + ALL_HEALTHCARE_TYPES.size() + " health care types.");
 
       initialized = true;
     }
@@ -208,6 +146,7 @@ public class HealthcareTypeConditionHelper {
 
   protected static synchronized void resetInternalCache() {
     ALL_HEALTHCARE_TYPES.clear();
+    classifier = new HealthcareTypeClassifier(ALL_HEALTHCARE_TYPES);
     HealthcareTypeConditionHelper.initialized = false;
   }
 
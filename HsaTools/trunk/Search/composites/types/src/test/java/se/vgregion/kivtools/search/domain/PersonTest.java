@@ -118,4 +118,19 @@ public class PersonTest {
     employment.setMobileTelephoneNumber(phoneNumber);
     assertEquals("070-123456", this.person.getMobileNumberOfFirstEmployment());
   }
+
+  @Test
+  public void nameSortKeysAreRecreatedWhenTheNameIsChanged() {
+    assertEquals("", this.person.getNameSortKey().getSourceString());
+
+    this.person.setSn("Svensson");
+    this.person.setGivenName("Anna");
+    assertEquals("svenssonanna", this.person.getNameSortKey().getSourceString());
+    assertEquals("svensson", this.person.getSnSortKey().getSourceString());
+    assertEquals("anna", this.person.getGivenNameSortKey().getSourceString());
+
+    this.person.setGivenName("Eva");
+    assertEquals("svenssoneva", this.person.getNameSortKey().getSourceString());
+    assertEquals("eva", this.person.getGivenNameSortKey().getSourceString());
+  }
 }
@@ -22,6 +22,7 @@ package se.vgregion.kivtools.search.domain;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -467,4 +468,33 @@ public class UnitTest {
     this.unit.setHsaBusinessClassificationCode(Arrays.asList("1012", "1401"));
     assertEquals("business classification codes", "1012, 1401", this.unit.getBusinessClassificationCodes());
   }
+
+  @Test
+  public void copyWithDeliverypointAddressesReplacesAddressesOfTheCopyOnly() {
+    Address oldAddress = new Address(TEST, null, TEST, null);
+    Address deliveryAddress = new Address(TEST2, null, TEST2, null);
+    Address consigneeAddress = new Address(TEST2, null, TEST, null);
+    this.unit.setHsaIdentity(TEST);
+    this.unit.addDeliverypointDeliveryAddress(oldAddress);
+
+    Unit copy = this.unit.copyWithDeliverypointAddresses(Arrays.asList(deliveryAddress), Arrays.asList(consigneeAddress));
+
+    assertEquals("hsaIdentity", TEST, copy.getHsaIdentity());
+    assertEquals("copy delivery addresses", Arrays.asList(deliveryAddress), copy.getDeliverypointDeliveryAddress());
+    assertEquals("copy consignee addresses", Arrays.asList(consigneeAddress), copy.getDeliverypointConsigneeAddress());
+    assertEquals("original delivery addresses", Arrays.asList(oldAddress), this.unit.getDeliverypointDeliveryAddress());
+    assertTrue("original consignee addresses", this.unit.getDeliverypointConsigneeAddress().isEmpty());
+  }
+
+  @Test
+  public void nameSortKeyIsKeptUntilTheNameIsChanged() {
+    assertNull("no name", this.unit.getNameSortKey());
+
+    this.unit.setName(TEST);
+    assertSame("kept key", this.unit.getNameSortKey(), this.unit.getNameSortKey());
+    assertEquals("key source", TEST.toLowerCase(), this.unit.getNameSortKey().getSourceString());
+
+    this.unit.setName(TEST2);
+    assertEquals("new key source", TEST2.toLowerCase(), this.unit.getNameSortKey().getSourceString());
+  }
 }
@@ -0,0 +1,46 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ */
+
+package se.vgregion.kivtools.search.domain.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class SortKeysTest {
+
+  @Test
+  public void keysIgnoreCase() {
+    assertEquals(0, SortKeys.compare(SortKeys.forText("UnItNaMe"), SortKeys.forText("unitNAME")));
+  }
+
+  @Test
+  public void keysFollowTheSwedishAlphabet() {
+    assertTrue(SortKeys.compare(SortKeys.forText("Zeta"), SortKeys.forText("Åsa")) < 0);
+    assertTrue(SortKeys.compare(SortKeys.forText("Åsa"), SortKeys.forText("Ärla")) < 0);
+    assertTrue(SortKeys.compare(SortKeys.forText("Ärla"), SortKeys.forText("Örn")) < 0);
+  }
+
+  @Test
+  public void missingKeysAreSortedAsEmptyText() {
+    assertEquals(0, SortKeys.compare(null, null));
+    assertEquals(0, SortKeys.compare(null, SortKeys.forText("")));
+    assertEquals(-1, SortKeys.compare(null, SortKeys.forText("a")));
+    assertEquals(1, SortKeys.compare(SortKeys.forText("a"), null));
+  }
+}
@@ -23,6 +23,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -205,4 +206,34 @@ public class DNTest {
     int hashCode = dn.hashCode();
     assertEquals(954274, hashCode);
   }
+
+  @Test
+  public void equalDNsShareOneInstance() {
+    DN dn = DN.createDNFromString("ou=a,ou=b,o=a");
+    assertSame(dn, DN.createDNFromString("ou=a,ou=b,o=a"));
+    assertSame(dn, DN.createDNFromString("OU=a,OU=b,O=a"));
+    assertSame(dn, DN.createDNFromString("cn=a,ou=a,ou=b,o=a").getParentDN());
+  }
+
+  @Test
+  public void parentIsOnlyResolvedOnce() {
+    DN dn = DN.createDNFromString("cn=a,ou=a,ou=b,o=a");
+    DN parentDn = dn.getParentDN();
+    assertSame(parentDn, dn.getParentDN());
+    assertSame(parentDn.getParentDN(), dn.getAncestor(2));
+    assertSame(parentDn.getParentDN(), dn.getParentDN(1).getParentDN(1));
+    assertNull(parentDn.getParentDN().getParentDN(1));
+  }
+
+  @Test
+  public void escapedDNIsOnlyCreatedOnce() {
+    DN dn = DN.createDNFromString("cn=a,ou=a\\,b,o=a");
+    assertSame(dn.escape(), dn.escape());
+    assertEquals("cn=a,ou=a\\,b,o=a", dn.escape().toString());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void getAncestorThrowsExceptionForMissingGeneration() {
+    DN.createDNFromString("ou=a,o=a").getAncestor(3);
+  }
 }
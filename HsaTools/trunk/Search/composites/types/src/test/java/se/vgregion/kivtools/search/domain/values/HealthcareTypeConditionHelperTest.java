@@ -22,6 +22,8 @@ package se.vgregion.kivtools.search.domain.values;
 import static org.junit.Assert.*;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
 import java.util.MissingResourceException;
 
@@ -151,4 +153,61 @@ public class HealthcareTypeConditionHelperTest {
     healthcareTypes = helper.getHealthcareTypesForUnit(unit);
     assertEquals(1, healthcareTypes.size());
   }
+
+  @Test
+  public void healthcareTypeIndexesForUnitContainsIndexesOfMatchingHealthcareTypes() {
+    helper.setImplResourcePath("testproperties.healthcaretypeconditionhelper.two_properties");
+
+    unit.setHsaIdentity("SE2321000131-F000000000203");
+    List<String> classificationCodes = new ArrayList<String>();
+    classificationCodes.add("1600");
+    unit.setHsaBusinessClassificationCode(classificationCodes);
+
+    BitSet indexes = helper.getHealthcareTypeIndexesForUnit(unit);
+    assertEquals("{1, 9}", indexes.toString());
+
+    unit.addHealthcareTypes(helper.getHealthcareTypesForUnit(unit));
+    assertTrue(unit.intersectsHealthcareTypes(indexes));
+    BitSet otherIndexes = new BitSet();
+    otherIndexes.set(2);
+    assertFalse(unit.intersectsHealthcareTypes(otherIndexes));
+  }
+
+  @Test
+  public void conditionsOnAttributesMissingOnUnitAreIgnored() {
+    HealthcareType healthcareType = new HealthcareType(3);
+    healthcareType.addCondition("careType", "01");
+    healthcareType.addCondition("noSuchAttribute", "1");
+    HealthcareTypeClassifier classifier = new HealthcareTypeClassifier(Collections.singletonList(healthcareType));
+
+    unit.setCareType("01");
+    assertEquals("{3}", classifier.classify(unit).toString());
+    unit.setCareType("02");
+    assertTrue(classifier.classify(unit).isEmpty());
+  }
+
+  @Test
+  public void unitMatchesUnfilteredHealthcareTypeIfAnyConditionIsFulfilled() {
+    helper.setImplResourcePath("testproperties.healthcaretypeconditionhelper.two_properties");
+
+    unit.setHsaIdentity("SE2321000131-E000000000110");
+    assertTrue(helper.matchesUnfilteredHealthcareType(unit));
+
+    // Only the filtered healthcare type matches this unit.
+    Unit otherUnit = new Unit();
+    otherUnit.setHsaIdentity("SE2321000131-E000000000000");
+    List<String> classificationCodes = new ArrayList<String>();
+    classificationCodes.add("1000");
+    otherUnit.setHsaBusinessClassificationCode(classificationCodes);
+    assertFalse(helper.matchesUnfilteredHealthcareType(otherUnit));
+  }
+
+  @Test
+  public void unitWithUnfilteredHealthcareTypeMatchesWithoutEvaluatingConditions() {
+    helper.setImplResourcePath("testproperties.healthcaretypeconditionhelper.two_properties");
+
+    unit.setHsaIdentity("SE2321000131-E000000000000");
+    unit.addHealthcareType(helper.getHealthcareTypeByName("Sjukhus"));
+    assertTrue(helper.matchesUnfilteredHealthcareType(unit));
+  }
 }
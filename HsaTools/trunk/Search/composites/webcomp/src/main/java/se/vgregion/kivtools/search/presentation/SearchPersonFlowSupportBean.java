@@ -26,6 +26,7 @@ import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
@@ -125,16 +126,7 @@ public class SearchPersonFlowSupportBean implements Serializable {
 
         // fetch all employments
         // Not done this way in HAK implementation. Employment info is on person entry.
-        SikSearchResultList<Employment> empList = null;
-        for (Person pers : list) {
-          empList = this.getSearchService().getEmployments(pers.getDn());
-          if (!empList.isEmpty()) {
-            pers.setEmployments(empList);
-            // add the datasource time for fetching employments
-            list.addDataSourceSearchTime(new TimeMeasurement(empList.getTotalDataSourceSearchTimeInMilliSeconds()));
-          }
-          this.sortEmploymentsOnVgrPrimaryEmplValue(pers);
-        }
+        this.fetchEmployments(list, true);
         
         
         list = this.searchService.setUnitOnEmployments(list);
@@ -218,13 +210,7 @@ public class SearchPersonFlowSupportBean implements Serializable {
         persons = this.getPersonsForUnitsRecursive(hsaIdentity);
 
         // fetch all employments
-        SikSearchResultList<Employment> empList = null;
-        for (Person pers : persons) {
-          empList = this.getSearchService().getEmployments(pers.getDn());
-          pers.setEmployments(empList);
-          this.sortEmploymentsOnVgrPrimaryEmplValue(pers);
-        }
-        
+        this.fetchEmployments(persons, false);
       }
 
       // stop measurement
@@ -306,7 +292,7 @@ public class SearchPersonFlowSupportBean implements Serializable {
           this.pageSize = temp;
         }
       }
-      result = PagedSearchMetaDataHelper.buildPagedSearchMetaData(personVgrIdList, this.pageSize);
+      result = PagedSearchMetaDataHelper.buildPagedSearchMetaData(personVgrIdList.size(), this.pageSize);
     } catch (KivNoDataFoundException e) {
       throw e;
     } catch (KivException e) {
@@ -366,12 +352,7 @@ public class SearchPersonFlowSupportBean implements Serializable {
         persons = this.getSearchService().getPersonsForUnits(units, this.maxSearchResult);
 
         // fetch all employments
-        SikSearchResultList<Employment> empList = null;
-        for (Person pers : persons) {
-          empList = this.getSearchService().getEmployments(pers.getDn());
-          pers.setEmployments(empList);
-          this.sortEmploymentsOnVgrPrimaryEmplValue(pers);
-        }
+        this.fetchEmployments(persons, false);
       }
       persons = this.searchService.setUnitOnEmployments(persons);
       // stop measurement
@@ -607,6 +588,40 @@ public class SearchPersonFlowSupportBean implements Serializable {
 
     return ancestors;
   }
+
+  /**
+   * Fetches the employments for all the provided persons using a single call to the search service. The time spent in the search service
+   * is added to the data source search time of the provided list.
+   * 
+   * @param persons The persons to fetch employments for.
+   * @param keepExistingIfNoneFound True if a person should keep its current employments if no employments are found.
+   * @throws KivException If something goes wrong when fetching the employments.
+   */
+  private void fetchEmployments(SikSearchResultList<Person> persons, boolean keepExistingIfNoneFound) throws KivException {
+    if (persons.isEmpty()) {
+      return;
+    }
+
+    List<String> personDns = new ArrayList<String>(persons.size());
+    for (Person pers : persons) {
+      personDns.add(pers.getDn());
+    }
+
+    TimeMeasurement employmentTime = new TimeMeasurement();
+    employmentTime.start();
+    Map<String, List<Employment>> employments = this.getSearchService().getEmploymentsByPersonDn(personDns);
+    employmentTime.stop();
+    persons.addDataSourceSearchTime(employmentTime);
+
+    for (Person pers : persons) {
+      List<Employment> empList = employments.get(pers.getDn());
+      if (!keepExistingIfNoneFound || (empList != null && !empList.isEmpty())) {
+        pers.setEmployments(empList);
+      }
+      this.sortEmploymentsOnVgrPrimaryEmplValue(pers);
+    }
+  }
+
   /**
    *
    * Sort employments, order by has vgrPrimaryEmpl first followed by the rest. 
@@ -215,7 +215,7 @@ public class SearchUnitFlowSupportBean implements Serializable {
           this.pageSize = temp;
         }
       }
-      result = PagedSearchMetaDataHelper.buildPagedSearchMetaData(unitHsaIdList, this.pageSize);
+      result = PagedSearchMetaDataHelper.buildPagedSearchMetaData(unitHsaIdList.size(), this.pageSize);
     } catch (KivNoDataFoundException e) {
       throw e;
     } catch (KivException e) {
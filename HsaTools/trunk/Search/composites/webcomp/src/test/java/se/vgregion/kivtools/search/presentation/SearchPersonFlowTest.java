@@ -0,0 +1,75 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.search.presentation;
+
+import org.springframework.webflow.config.FlowDefinitionResource;
+import org.springframework.webflow.config.FlowDefinitionResourceFactory;
+import org.springframework.webflow.core.collection.LocalAttributeMap;
+import org.springframework.webflow.core.collection.MutableAttributeMap;
+import org.springframework.webflow.test.MockExternalContext;
+import org.springframework.webflow.test.MockFlowBuilderContext;
+import org.springframework.webflow.test.execution.AbstractXmlFlowExecutionTests;
+
+import se.vgregion.kivtools.search.domain.Person;
+import se.vgregion.kivtools.search.exceptions.KivNoDataFoundException;
+import se.vgregion.kivtools.search.presentation.forms.PersonSearchSimpleForm;
+import se.vgregion.kivtools.search.svc.SikSearchResultList;
+import se.vgregion.kivtools.search.validation.PersonSearchSimpleFormValidator;
+
+public class SearchPersonFlowTest extends AbstractXmlFlowExecutionTests {
+  @Override
+  protected FlowDefinitionResource getResource(FlowDefinitionResourceFactory resourceFactory) {
+    return resourceFactory.createClassPathResource("/flows/Search.searchperson-flow.xml", getClass());
+  }
+
+  @Override
+  protected void configureFlowBuilderContext(MockFlowBuilderContext builderContext) {
+    builderContext.registerBean("Search_PersonSearchSimpleFormValidator", new PersonSearchSimpleFormValidator());
+    builderContext.registerBean("Search_SearchPersonFlowSupportBean", new SearchPersonFlowSupportBean() {
+      @Override
+      public SikSearchResultList<Person> doSearch(PersonSearchSimpleForm theForm) throws KivNoDataFoundException {
+        throw new KivNoDataFoundException();
+      }
+    });
+  }
+
+  public void testEmptyFormShowsSearchResultWithoutMoreResults() {
+    startFlow(new MockExternalContext());
+
+    assertCurrentStateEquals("Search.displayPersonSearchResult");
+    assertNoMoreResultsAvailable();
+  }
+
+  public void testNoHitShowsSearchResultWithoutMoreResults() {
+    MutableAttributeMap input = new LocalAttributeMap();
+    input.put("surname", "Andersson");
+    startFlow(input, new MockExternalContext());
+
+    assertCurrentStateEquals("Search.displayPersonSearchResult");
+    assertNoMoreResultsAvailable();
+  }
+
+  // The result view asks the list if the search was cut off, which only a SikSearchResultList can answer.
+  private void assertNoMoreResultsAvailable() {
+    SikSearchResultList<?> persons = (SikSearchResultList<?>) getRequiredFlowAttribute("persons", SikSearchResultList.class);
+    assertTrue(persons.isEmpty());
+    assertFalse(persons.isMoreResultsAvailable());
+  }
+}
@@ -34,6 +34,7 @@ import se.vgregion.kivtools.search.domain.Person;
 import se.vgregion.kivtools.search.domain.Unit;
 import se.vgregion.kivtools.search.domain.values.DN;
 import se.vgregion.kivtools.search.exceptions.KivException;
+import se.vgregion.kivtools.search.svc.PageConsumer;
 import se.vgregion.kivtools.search.svc.SearchService;
 import se.vgregion.kivtools.search.svc.SikSearchResultList;
 import se.vgregion.kivtools.search.svc.ldap.criterions.SearchPersonCriterions;
@@ -125,6 +126,20 @@ public class SearchServiceMock implements SearchService {
     return result;
   }
 
+  @Override
+  public Map<String, List<Employment>> getEmploymentsByPersonDn(List<String> personDns) throws KivException {
+    throwExceptionIfApplicable();
+    Map<String, List<Employment>> result = new HashMap<String, List<Employment>>();
+    for (String personDn : personDns) {
+      if (employments.containsKey(personDn)) {
+        result.put(personDn, employments.get(personDn));
+      } else {
+        result.put(personDn, new SikSearchResultList<Employment>());
+      }
+    }
+    return result;
+  }
+
   @Override
   public Unit getUnitByHsaId(String hsaId) throws KivException {
     throwExceptionIfApplicable();
@@ -250,6 +265,14 @@ public class SearchServiceMock implements SearchService {
     return null;
   }
 
+  @Override
+  public void getAllUnits(boolean onlyPublicUnits, PageConsumer<Unit> consumer) throws KivException {
+  }
+
+  @Override
+  public void getAllPersons(PageConsumer<Person> consumer) throws KivException {
+  }
+
   @Override
   public SikSearchResultList<Unit> getFirstLevelSubUnits(Unit parentUnit) throws KivException {
     return new SikSearchResultList<Unit>();
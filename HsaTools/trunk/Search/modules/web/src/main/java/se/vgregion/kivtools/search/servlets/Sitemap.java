@@ -20,7 +20,7 @@
 package se.vgregion.kivtools.search.servlets;
 
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -32,6 +32,7 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.web.context.WebApplicationContext;
 import org.springframework.web.context.support.WebApplicationContextUtils;
 
+import se.vgregion.kivtools.search.svc.SitemapDocument;
 import se.vgregion.kivtools.search.svc.SitemapSupportBean;
 
 /**
@@ -62,23 +63,51 @@ public class Sitemap extends HttpServlet {
   }
 
   /**
+   * Serves the pre-rendered sitemap, or the sitemap index if the sitemap is split in several parts. Conditional requests
+   * for an unchanged sitemap are answered with 304 Not Modified.
+   * 
    * @see HttpServlet#doGet(HttpServletRequest request, HttpServletResponse response)
    */
   @Override
   protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
     LOGGER.debug(CLASS_NAME + ".doGet()");
-    LOGGER.debug("Starting to put together the sitemap.");
 
-    long startTimeMillis = System.currentTimeMillis();
+    SitemapDocument sitemap = sitemapSupportBean.getSitemapDocument(request.getRequestURL().toString(), request.getParameter("persons"), request.getParameter("units"), request.getParameter("part"));
+    if (sitemap == null) {
+      response.sendError(HttpServletResponse.SC_NOT_FOUND);
+      return;
+    }
+
+    boolean gzipped = SitemapDocument.isGzipAccepted(request.getHeader("Accept-Encoding"));
+    response.setHeader("ETag", sitemap.getETag(gzipped));
+    response.setDateHeader("Last-Modified", sitemap.getLastModified());
+    response.setHeader("Vary", "Accept-Encoding");
 
-    String sitemapContent = sitemapSupportBean.getSitemapContent(request.getParameter("persons"), request.getParameter("units"));
+    if (sitemap.isNotModified(request.getHeader("If-None-Match"), getDateHeader(request, "If-Modified-Since"), gzipped)) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
 
-    long endTimeMillis = System.currentTimeMillis();
+    response.setCharacterEncoding(sitemap.getCharacterEncoding());
+    response.setContentType("text/xml");
+    if (gzipped) {
+      response.setHeader("Content-Encoding", "gzip");
+    }
+    response.setContentLength(sitemap.getContentLength(gzipped));
+    OutputStream out = response.getOutputStream();
+    sitemap.writeTo(out, gzipped);
+    out.flush();
+    out.close();
+  }
 
-    LOGGER.debug("Sitemap generation finished. It took: " + (endTimeMillis - startTimeMillis) / 1000 + " seconds.");
-    PrintWriter pw = response.getWriter();
-    pw.write(sitemapContent);
-    pw.flush();
-    pw.close();
+  private long getDateHeader(HttpServletRequest request, String name) {
+    long date;
+    try {
+      date = request.getDateHeader(name);
+    } catch (IllegalArgumentException e) {
+      // A malformed date is ignored.
+      date = -1;
+    }
+    return date;
   }
 }
@@ -19,6 +19,9 @@
 
 package se.vgregion.kivtools.util.http;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * Fetches content from a HTTP-server.
  * 
@@ -32,4 +35,12 @@ public interface HttpFetcher {
    * @return The content of the provided URL.
    */
   public String fetchUrl(String urlToFetch);
+
+  /**
+   * Fetches the content of each of the provided URL's as Strings.
+   * 
+   * @param urlsToFetch The URL's to fetch.
+   * @return A map with the content of each URL, iterated in the same order as the provided URL's.
+   */
+  public Map<String, String> fetchUrls(Collection<String> urlsToFetch);
 }
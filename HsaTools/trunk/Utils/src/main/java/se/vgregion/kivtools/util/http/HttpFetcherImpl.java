@@ -26,6 +26,9 @@ import java.io.StringWriter;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.HttpsURLConnection;
@@ -93,6 +96,23 @@ public class HttpFetcherImpl implements HttpFetcher {
     return result;
   }
 
+  /**
+   * Fetches the provided URL's one at a time.
+   * 
+   * @param urlsToFetch The URL's to fetch.
+   * @return A map with the content of each URL, iterated in the same order as the provided URL's.
+   */
+  @Override
+  public Map<String, String> fetchUrls(Collection<String> urlsToFetch) {
+    Map<String, String> result = new LinkedHashMap<String, String>();
+    for (String url : urlsToFetch) {
+      if (!result.containsKey(url)) {
+        result.put(url, this.fetchUrl(url));
+      }
+    }
+    return result;
+  }
+
   /**
    * Extracts the name of the charset to use from a content type string.
    * 
@@ -0,0 +1,351 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ *
+ */
+
+package se.vgregion.kivtools.util.http;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.conn.scheme.PlainSocketFactory;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * Implementation of HttpFetcher that reuses connections from a bounded keep-alive pool. Each request is bounded by a
+ * connect and read timeout that can be configured per host. Responses carrying an ETag or Last-Modified header are kept
+ * in a small cache and are revalidated using a conditional GET the next time the same URL is fetched.
+ */
+public class PooledHttpFetcher implements HttpFetcher {
+  private static final String DEFAULT_CHARSET = "UTF-8";
+
+  private final Log logger = LogFactory.getLog(this.getClass());
+  private final Map<String, Integer> hostTimeouts = new HashMap<String, Integer>();
+  private final Map<String, CachedResponse> validatorCache = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+      return this.size() > PooledHttpFetcher.this.validatorCacheSize;
+    }
+  };
+
+  private int maxConnections = 20;
+  private int maxConnectionsPerHost = 5;
+  private int connectTimeout = 5000;
+  private int readTimeout = 10000;
+  private int validatorCacheSize = 100;
+  private int maxConcurrentFetches = 4;
+
+  private ThreadSafeClientConnManager connectionManager;
+  private DefaultHttpClient httpClient;
+
+  /**
+   * Sets the maximum number of pooled connections in total. Defaults to 20.
+   * 
+   * @param maxConnections The maximum number of pooled connections.
+   */
+  public void setMaxConnections(int maxConnections) {
+    this.maxConnections = maxConnections;
+  }
+
+  /**
+   * Sets the maximum number of pooled connections to a single host. Defaults to 5.
+   * 
+   * @param maxConnectionsPerHost The maximum number of pooled connections to a single host.
+   */
+  public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+    this.maxConnectionsPerHost = maxConnectionsPerHost;
+  }
+
+  /**
+   * Sets the number of milliseconds to wait for a connection to be established. Defaults to 5000.
+   * 
+   * @param connectTimeout The connect timeout in milliseconds.
+   */
+  public void setConnectTimeout(int connectTimeout) {
+    this.connectTimeout = connectTimeout;
+  }
+
+  /**
+   * Sets the number of milliseconds to wait for data from the server. Defaults to 10000.
+   * 
+   * @param readTimeout The read timeout in milliseconds.
+   */
+  public void setReadTimeout(int readTimeout) {
+    this.readTimeout = readTimeout;
+  }
+
+  /**
+   * Sets timeouts in milliseconds for specific hosts. The timeout of a host is used both as connect and read timeout
+   * instead of the default timeouts.
+   * 
+   * @param hostTimeouts A map of host names and their timeouts in milliseconds.
+   */
+  public void setHostTimeouts(Map<String, Integer> hostTimeouts) {
+    this.hostTimeouts.clear();
+    for (Map.Entry<String, Integer> entry : hostTimeouts.entrySet()) {
+      this.hostTimeouts.put(entry.getKey().toLowerCase(), entry.getValue());
+    }
+  }
+
+  /**
+   * Sets the maximum number of URL's for which validators are kept. Defaults to 100.
+   * 
+   * @param validatorCacheSize The maximum number of cached responses.
+   */
+  public void setValidatorCacheSize(int validatorCacheSize) {
+    this.validatorCacheSize = validatorCacheSize;
+  }
+
+  /**
+   * Sets the maximum number of URL's to fetch at the same time in {@link #fetchUrls(Collection)}. Defaults to 4.
+   * 
+   * @param maxConcurrentFetches The maximum number of concurrent fetches.
+   */
+  public void setMaxConcurrentFetches(int maxConcurrentFetches) {
+    if (maxConcurrentFetches < 1) {
+      throw new IllegalArgumentException("maxConcurrentFetches must be at least 1");
+    }
+    this.maxConcurrentFetches = maxConcurrentFetches;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String fetchUrl(String urlToFetch) {
+    HttpGet request;
+    try {
+      request = new HttpGet(urlToFetch);
+    } catch (IllegalArgumentException e) {
+      this.logger.error("URL no good: " + urlToFetch);
+      return "";
+    }
+    if (request.getURI().getHost() == null) {
+      this.logger.error("URL no good: " + urlToFetch);
+      return "";
+    }
+
+    int timeout = this.getTimeout(request.getURI().getHost());
+    HttpParams params = request.getParams();
+    HttpConnectionParams.setConnectionTimeout(params, timeout < 0 ? this.connectTimeout : timeout);
+    HttpConnectionParams.setSoTimeout(params, timeout < 0 ? this.readTimeout : timeout);
+
+    CachedResponse cachedResponse = this.getCachedResponse(urlToFetch);
+    if (cachedResponse != null) {
+      if (cachedResponse.etag != null) {
+        request.addHeader("If-None-Match", cachedResponse.etag);
+      }
+      if (cachedResponse.lastModified != null) {
+        request.addHeader("If-Modified-Since", cachedResponse.lastModified);
+      }
+    }
+
+    String result = "";
+    try {
+      HttpResponse response = this.getHttpClient().execute(request);
+      HttpEntity entity = response.getEntity();
+      int statusCode = response.getStatusLine().getStatusCode();
+      if (statusCode == HttpStatus.SC_NOT_MODIFIED && cachedResponse != null) {
+        EntityUtils.consume(entity);
+        result = cachedResponse.content;
+      } else {
+        if (entity != null) {
+          result = EntityUtils.toString(entity, DEFAULT_CHARSET);
+        }
+        if (statusCode == HttpStatus.SC_OK) {
+          this.cacheResponse(urlToFetch, response, result);
+        }
+      }
+    } catch (IOException e) {
+      request.abort();
+      this.logger.error("Error when retrieving response", e);
+    } catch (RuntimeException e) {
+      request.abort();
+      this.logger.error("Error when retrieving response", e);
+    }
+
+    return result;
+  }
+
+  /**
+   * Fetches the provided URL's concurrently using at most the configured number of concurrent fetches.
+   * 
+   * @param urlsToFetch The URL's to fetch.
+   * @return A map with the content of each URL, iterated in the same order as the provided URL's.
+   */
+  @Override
+  public Map<String, String> fetchUrls(Collection<String> urlsToFetch) {
+    Map<String, String> result = new LinkedHashMap<String, String>();
+    if (urlsToFetch.isEmpty()) {
+      return result;
+    }
+
+    Collection<String> urls = new LinkedHashSet<String>(urlsToFetch);
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.maxConcurrentFetches, urls.size()));
+    try {
+      List<Future<String>> contents = new ArrayList<Future<String>>();
+      for (final String url : urls) {
+        contents.add(executor.submit(new Callable<String>() {
+          @Override
+          public String call() {
+            return fetchUrl(url);
+          }
+        }));
+      }
+
+      int index = 0;
+      for (String url : urls) {
+        String content;
+        try {
+          content = contents.get(index++).get();
+        } catch (ExecutionException e) {
+          this.logger.error("Error when retrieving response", e.getCause());
+          content = "";
+        }
+        result.put(url, content);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      executor.shutdownNow();
+    }
+    return result;
+  }
+
+  /**
+   * Closes all pooled connections. The fetcher can still be used after it has been shut down, a new pool is created by
+   * the next fetch.
+   */
+  public synchronized void shutdown() {
+    if (this.connectionManager != null) {
+      this.connectionManager.shutdown();
+      this.connectionManager = null;
+      this.httpClient = null;
+    }
+  }
+
+  private int getTimeout(String host) {
+    Integer timeout = this.hostTimeouts.get(host.toLowerCase());
+    return timeout == null ? -1 : timeout.intValue();
+  }
+
+  private CachedResponse getCachedResponse(String url) {
+    synchronized (this.validatorCache) {
+      return this.validatorCache.get(url);
+    }
+  }
+
+  private void cacheResponse(String url, HttpResponse response, String content) {
+    Header etag = response.getFirstHeader("ETag");
+    Header lastModified = response.getFirstHeader("Last-Modified");
+    synchronized (this.validatorCache) {
+      if (etag == null && lastModified == null) {
+        this.validatorCache.remove(url);
+      } else {
+        this.validatorCache.put(url, new CachedResponse(etag == null ? null : etag.getValue(), lastModified == null ? null : lastModified.getValue(), content));
+      }
+    }
+  }
+
+  private synchronized DefaultHttpClient getHttpClient() {
+    if (this.httpClient == null) {
+      SchemeRegistry schemeRegistry = new SchemeRegistry();
+      schemeRegistry.register(new Scheme("http", 80, PlainSocketFactory.getSocketFactory()));
+      schemeRegistry.register(new Scheme("https", 443, this.createSslSocketFactory()));
+
+      this.connectionManager = new ThreadSafeClientConnManager(schemeRegistry);
+      this.connectionManager.setMaxTotal(this.maxConnections);
+      this.connectionManager.setDefaultMaxPerRoute(this.maxConnectionsPerHost);
+
+      HttpParams params = new BasicHttpParams();
+      HttpConnectionParams.setConnectionTimeout(params, this.connectTimeout);
+      HttpConnectionParams.setSoTimeout(params, this.readTimeout);
+      HttpConnectionParams.setStaleCheckingEnabled(params, true);
+      // Wait no longer for a pooled connection than for a new connection to be established.
+      setConnectionManagerTimeout(params, this.connectTimeout);
+
+      this.httpClient = new DefaultHttpClient(this.connectionManager, params);
+    }
+    this.connectionManager.closeIdleConnections(60, TimeUnit.SECONDS);
+    return this.httpClient;
+  }
+
+  /**
+   * Sets the time to wait for a connection from the pool. HttpClient 4.1 only reads the deprecated
+   * ConnManagerPNames.TIMEOUT parameter, its replacement ClientPNames.CONN_MANAGER_TIMEOUT was added in 4.2.
+   */
+  @SuppressWarnings("deprecation")
+  private static void setConnectionManagerTimeout(HttpParams params, long timeout) {
+    params.setLongParameter(org.apache.http.conn.params.ConnManagerPNames.TIMEOUT, timeout);
+  }
+
+  private SSLSocketFactory createSslSocketFactory() {
+    try {
+      // Trust all host names, just like HttpFetcherImpl.
+      return new SSLSocketFactory(SSLContext.getDefault(), SSLSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("No SSL context available", e);
+    }
+  }
+
+  /**
+   * The content and validators of a previously fetched URL.
+   */
+  private static final class CachedResponse {
+    private final String etag;
+    private final String lastModified;
+    private final String content;
+
+    private CachedResponse(String etag, String lastModified, String content) {
+      this.etag = etag;
+      this.lastModified = lastModified;
+      this.content = content;
+    }
+  }
+}
@@ -22,15 +22,27 @@ package se.vgregion.kivtools.util.reflection;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import se.vgregion.kivtools.util.Arguments;
 
 /**
- * Utility class for working with reflection.
+ * Utility class for working with reflection. The methods found for a class are cached so that each method is only
+ * looked up once per class.
  * 
  * @author Joakim Olsson
  */
 public final class ReflectionUtil {
+  private static final ConcurrentMap<Class<?>, ClassMethods> CLASS_METHODS = new ConcurrentHashMap<Class<?>, ClassMethods>();
 
   /**
    * Checks if the class of the provided object has a method with the provided methodName.
@@ -45,26 +57,7 @@ public final class ReflectionUtil {
     boolean result = false;
 
     if (object != null) {
-      if (ignoreCasesensitive) {
-        Method[] declaredMethods = object.getClass().getDeclaredMethods();
-        for (Method method : declaredMethods) {
-          if (method.getName().equalsIgnoreCase(methodName)) {
-            result = true;
-            break;
-          }
-        }
-      } else {
-        try {
-          object.getClass().getMethod(methodName, parameters);
-          result = true;
-        } catch (SecurityException e) {
-          // Just treat a SecurityException as if the method does not exist.
-          result = false;
-        } catch (NoSuchMethodException e) {
-          // The method does not exist.
-          result = false;
-        }
-      }
+      result = findMethod(object, methodName, ignoreCasesensitive, parameters) != null;
     }
 
     return result;
@@ -95,48 +88,145 @@ public final class ReflectionUtil {
   public static Object callMethod(Object object, String methodName, boolean ignoreCasesensitive, Class<?>[] types, Object[] values) {
     Object result = null;
 
-    if (object != null && hasMethod(object, methodName, ignoreCasesensitive, types)) {
-      try {
-        Method method = null;
-        if (ignoreCasesensitive) {
-          method = callMethodIgnoreCasesensitive(object, methodName);
-        } else {
-          method = object.getClass().getMethod(methodName, types);
-        }
-        result = method.invoke(object, values);
-      } catch (SecurityException e) {
-        // Just treat a SecurityException as if the method does not exist.
-        result = null;
-      } catch (NoSuchMethodException e) {
-        // The method does not exist.
-        result = null;
-      } catch (IllegalArgumentException e) {
-        // Illegal arguments provided.
-        result = null;
-      } catch (IllegalAccessException e) {
-        // Illegal access. Are we trying to call a private method?
-        result = null;
-      } catch (InvocationTargetException e) {
-        // The invoked method throwed an exception.
-        result = null;
-      }
+    Method method = null;
+    if (object != null) {
+      method = findMethod(object, methodName, ignoreCasesensitive, types);
+    }
+
+    if (method != null) {
+      result = invoke(object, method, values);
     }
 
     return result;
   }
 
-  private static Method callMethodIgnoreCasesensitive(Object object, String methodName) {
-    Method method = null;
-    Method[] declaredMethods = object.getClass().getDeclaredMethods();
-    for (Method methodTmp : declaredMethods) {
-      if (methodTmp.getName().equalsIgnoreCase(methodName)) {
-        method = methodTmp;
-        break;
+  private static Object invoke(Object object, Method method, Object[] values) {
+    Object result;
+    try {
+      result = method.invoke(object, values);
+    } catch (IllegalArgumentException e) {
+      // Illegal arguments provided.
+      result = null;
+    } catch (IllegalAccessException e) {
+      // Illegal access. Are we trying to call a private method?
+      result = null;
+    } catch (InvocationTargetException e) {
+      // The invoked method throwed an exception.
+      result = null;
+    }
+    return result;
+  }
+
+  private static ClassMethods getClassMethods(Class<?> type) {
+    ClassMethods classMethods = CLASS_METHODS.get(type);
+    if (classMethods == null) {
+      ClassMethods newClassMethods = new ClassMethods(type);
+      classMethods = CLASS_METHODS.putIfAbsent(type, newClassMethods);
+      if (classMethods == null) {
+        classMethods = newClassMethods;
       }
     }
+    return classMethods;
+  }
+
+  private static Method findMethod(Object object, String methodName, boolean ignoreCasesensitive, Class<?>[] parameters) {
+    ClassMethods classMethods = getClassMethods(object.getClass());
+    Method method;
+    if (ignoreCasesensitive) {
+      method = classMethods.getDeclaredMethodIgnoreCase(methodName);
+    } else {
+      method = classMethods.getPublicMethod(methodName, parameters);
+    }
     return method;
   }
 
+  private static void makeAccessible(Method method) {
+    if (Modifier.isPublic(method.getModifiers())) {
+      try {
+        // Public methods of classes that are not public themselves can only be invoked when made accessible.
+        method.setAccessible(true);
+      } catch (SecurityException e) {
+        // Invoke the method without making it accessible.
+      }
+    }
+  }
+
+  /**
+   * The methods of a single class. The declared methods are indexed by their lower case name when the instance is
+   * created, public methods and property getters are looked up when first asked for.
+   */
+  private static final class ClassMethods {
+    private static final Object NO_METHOD = new Object();
+    private static final String[] GETTER_PREFIXES = { "get", "is", "has" };
+
+    private final Class<?> type;
+    private final Map<String, Method> declaredMethodsByLowerCaseName;
+    private final ConcurrentMap<List<Object>, Object> publicMethods = new ConcurrentHashMap<List<Object>, Object>();
+    private final ConcurrentMap<String, Object> gettersIgnoreCase = new ConcurrentHashMap<String, Object>();
+    private final ConcurrentMap<String, Object> getters = new ConcurrentHashMap<String, Object>();
+
+    private ClassMethods(Class<?> type) {
+      this.type = type;
+      Map<String, Method> declaredMethods = new HashMap<String, Method>();
+      for (Method method : type.getDeclaredMethods()) {
+        String lowerCaseName = method.getName().toLowerCase(Locale.ENGLISH);
+        // Keep the first method for overloaded names.
+        if (!declaredMethods.containsKey(lowerCaseName)) {
+          makeAccessible(method);
+          declaredMethods.put(lowerCaseName, method);
+        }
+      }
+      this.declaredMethodsByLowerCaseName = Collections.unmodifiableMap(declaredMethods);
+    }
+
+    private Method getDeclaredMethodIgnoreCase(String methodName) {
+      return this.declaredMethodsByLowerCaseName.get(methodName.toLowerCase(Locale.ENGLISH));
+    }
+
+    private Method getPublicMethod(String methodName, Class<?>[] parameters) {
+      List<Object> key = new ArrayList<Object>();
+      key.add(methodName);
+      if (parameters != null) {
+        key.addAll(Arrays.asList(parameters));
+      }
+
+      Object method = this.publicMethods.get(key);
+      if (method == null) {
+        try {
+          Method publicMethod = this.type.getMethod(methodName, parameters);
+          makeAccessible(publicMethod);
+          method = publicMethod;
+        } catch (SecurityException e) {
+          // Just treat a SecurityException as if the method does not exist.
+          method = NO_METHOD;
+        } catch (NoSuchMethodException e) {
+          // The method does not exist.
+          method = NO_METHOD;
+        }
+        this.publicMethods.putIfAbsent(key, method);
+      }
+      return method == NO_METHOD ? null : (Method) method;
+    }
+
+    private Method getGetter(String propertyName, boolean ignoreCasesensitive) {
+      ConcurrentMap<String, Object> cachedGetters = ignoreCasesensitive ? this.gettersIgnoreCase : this.getters;
+      Object getter = cachedGetters.get(propertyName);
+      if (getter == null) {
+        Method method = null;
+        for (int i = 0; i < GETTER_PREFIXES.length && method == null; i++) {
+          if (ignoreCasesensitive) {
+            method = this.getDeclaredMethodIgnoreCase(GETTER_PREFIXES[i] + propertyName);
+          } else {
+            method = this.getPublicMethod(GETTER_PREFIXES[i] + propertyName, null);
+          }
+        }
+        getter = method != null ? method : NO_METHOD;
+        cachedGetters.putIfAbsent(propertyName, getter);
+      }
+      return getter == NO_METHOD ? null : (Method) getter;
+    }
+  }
+
   /**
    * Gets the value of the property with the provided name from the provided object by using the get/is/has-method for the property.
    * 
@@ -155,12 +245,9 @@ public final class ReflectionUtil {
 
     T result = null;
 
-    if (hasMethod(object, "get" + name, ignoreCasesensitive)) {
-      result = (T) callMethod(object, "get" + name, ignoreCasesensitive);
-    } else if (hasMethod(object, "is" + name, ignoreCasesensitive)) {
-      result = (T) callMethod(object, "is" + name, ignoreCasesensitive);
-    } else if (hasMethod(object, "has" + name, ignoreCasesensitive)) {
-      result = (T) callMethod(object, "has" + name, ignoreCasesensitive);
+    Method getter = getClassMethods(object.getClass()).getGetter(name, ignoreCasesensitive);
+    if (getter != null) {
+      result = (T) invoke(object, getter, null);
     }
 
     return result;
@@ -0,0 +1,196 @@
+/**
+ * Copyright 2010 Västra Götalandsregionen
+ *
+ *   This library is free software; you can redistribute it and/or modify
+ *   it under the terms of version 2.1 of the GNU Lesser General Public
+ *   License as published by the Free Software Foundation.
+ *
+ *   This library is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU Lesser General Public License for more details.
+ *
+ *   You should have received a copy of the GNU Lesser General Public
+ *   License along with this library; if not, write to the
+ *   Free Software Foundation, Inc., 59 Temple Place, Suite 330,
+ *   Boston, MA 02111-1307  USA
+ */
+
+package se.vgregion.kivtools.util.http;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class PooledHttpFetcherTest {
+  private final PooledHttpFetcher fetcher = new PooledHttpFetcher();
+  private final List<String> conditionalHeaders = Collections.synchronizedList(new ArrayList<String>());
+  private final List<Integer> remotePorts = Collections.synchronizedList(new ArrayList<Integer>());
+  private HttpServer server;
+  private String baseUrl;
+
+  @Before
+  public void setUp() throws IOException {
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    this.server.setExecutor(Executors.newCachedThreadPool());
+    this.server.createContext("/plain", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        remotePorts.add(Integer.valueOf(exchange.getRemoteAddress().getPort()));
+        exchange.getResponseHeaders().add("Content-Type", "text/html; charset=ISO-8859-1");
+        respond(exchange, 200, "Vårdcentral".getBytes("ISO-8859-1"));
+      }
+    });
+    this.server.createContext("/etag", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        conditionalHeaders.add(String.valueOf(ifNoneMatch));
+        exchange.getResponseHeaders().add("ETag", "\"v1\"");
+        if ("\"v1\"".equals(ifNoneMatch)) {
+          exchange.sendResponseHeaders(304, -1);
+          exchange.close();
+        } else {
+          respond(exchange, 200, "etag content".getBytes("UTF-8"));
+        }
+      }
+    });
+    this.server.createContext("/lastmodified", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+        conditionalHeaders.add(String.valueOf(ifModifiedSince));
+        exchange.getResponseHeaders().add("Last-Modified", "Tue, 19 Apr 2011 22:20:06 GMT");
+        if (ifModifiedSince != null) {
+          exchange.sendResponseHeaders(304, -1);
+          exchange.close();
+        } else {
+          respond(exchange, 200, "last modified content".getBytes("UTF-8"));
+        }
+      }
+    });
+    this.server.createContext("/slow", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        try {
+          Thread.sleep(3000);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        respond(exchange, 200, "slow".getBytes("UTF-8"));
+      }
+    });
+    final CountDownLatch batchLatch = new CountDownLatch(3);
+    this.server.createContext("/batch", new HttpHandler() {
+      @Override
+      public void handle(HttpExchange exchange) throws IOException {
+        batchLatch.countDown();
+        boolean concurrent = false;
+        try {
+          concurrent = batchLatch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        respond(exchange, 200, (exchange.getRequestURI().getQuery() + (concurrent ? " concurrent" : " sequential")).getBytes("UTF-8"));
+      }
+    });
+    this.server.start();
+    this.baseUrl = "http://127.0.0.1:" + this.server.getAddress().getPort();
+  }
+
+  @After
+  public void tearDown() {
+    this.fetcher.shutdown();
+    this.server.stop(0);
+  }
+
+  @Test
+  public void contentIsDecodedUsingCharsetOfResponse() {
+    assertEquals("Vårdcentral", this.fetcher.fetchUrl(this.baseUrl + "/plain"));
+  }
+
+  @Test
+  public void connectionsAreReused() {
+    this.fetcher.fetchUrl(this.baseUrl + "/plain");
+    this.fetcher.fetchUrl(this.baseUrl + "/plain");
+    assertEquals(2, this.remotePorts.size());
+    assertEquals(this.remotePorts.get(0), this.remotePorts.get(1));
+  }
+
+  @Test
+  public void contentIsRevalidatedUsingEtag() {
+    assertEquals("etag content", this.fetcher.fetchUrl(this.baseUrl + "/etag"));
+    assertEquals("etag content", this.fetcher.fetchUrl(this.baseUrl + "/etag"));
+    assertEquals(Arrays.asList("null", "\"v1\""), this.conditionalHeaders);
+  }
+
+  @Test
+  public void contentIsRevalidatedUsingLastModified() {
+    assertEquals("last modified content", this.fetcher.fetchUrl(this.baseUrl + "/lastmodified"));
+    assertEquals("last modified content", this.fetcher.fetchUrl(this.baseUrl + "/lastmodified"));
+    assertEquals(Arrays.asList("null", "Tue, 19 Apr 2011 22:20:06 GMT"), this.conditionalHeaders);
+  }
+
+  @Test
+  public void validatorsAreNotKeptWhenCacheSizeIsZero() {
+    this.fetcher.setValidatorCacheSize(0);
+    this.fetcher.fetchUrl(this.baseUrl + "/etag");
+    this.fetcher.fetchUrl(this.baseUrl + "/etag");
+    assertEquals(Arrays.asList("null", "null"), this.conditionalHeaders);
+  }
+
+  @Test
+  public void hostTimeoutIsUsedForSlowHost() {
+    this.fetcher.setHostTimeouts(Collections.singletonMap("127.0.0.1", Integer.valueOf(200)));
+    long start = System.currentTimeMillis();
+    assertEquals("", this.fetcher.fetchUrl(this.baseUrl + "/slow"));
+    assertTrue("fetch was not aborted by timeout", System.currentTimeMillis() - start < 2000);
+  }
+
+  @Test
+  public void urlsAreFetchedConcurrently() {
+    this.fetcher.setMaxConcurrentFetches(3);
+    List<String> urls = Arrays.asList(this.baseUrl + "/batch?a", this.baseUrl + "/batch?b", this.baseUrl + "/batch?c");
+    Map<String, String> contents = this.fetcher.fetchUrls(urls);
+    assertEquals(urls, new ArrayList<String>(contents.keySet()));
+    assertEquals("a concurrent", contents.get(urls.get(0)));
+    assertEquals("b concurrent", contents.get(urls.get(1)));
+    assertEquals("c concurrent", contents.get(urls.get(2)));
+  }
+
+  @Test
+  public void malformedUrlReturnsEmptyString() {
+    assertEquals("", this.fetcher.fetchUrl("abc.defxxx"));
+    assertEquals("", this.fetcher.fetchUrl("http://"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void maxConcurrentFetchesMustBePositive() {
+    this.fetcher.setMaxConcurrentFetches(0);
+  }
+
+  private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+    exchange.sendResponseHeaders(status, body.length);
+    OutputStream outputStream = exchange.getResponseBody();
+    outputStream.write(body);
+    outputStream.close();
+  }
+}
@@ -100,6 +100,31 @@ public class ReflectionUtilTest {
 
   }
 
+  @Test
+  public void testCallMethodIgnoreCasesensitive() {
+    assertTrue(ReflectionUtil.hasMethod(testClass, "GETSTRING", true));
+    assertEquals("test", ReflectionUtil.callMethod(testClass, "GETSTRING", true));
+    assertFalse(ReflectionUtil.hasMethod(testClass, "GETSTRING", false));
+    assertNull(ReflectionUtil.callMethod(testClass, "GETSTRING", false));
+  }
+
+  @Test
+  public void testHasMethodWithParameters() {
+    assertTrue(ReflectionUtil.hasMethod(testClass, "setTestProperty", false, String.class));
+    assertFalse(ReflectionUtil.hasMethod(testClass, "setTestProperty", false, Integer.class));
+    assertTrue(ReflectionUtil.hasMethod(testClass, "setTestProperty", false, String.class));
+  }
+
+  @Test
+  public void repeatedCallsUseTheCurrentStateOfTheObject() {
+    testClass.setTestProperty("first");
+    assertEquals("first", ReflectionUtil.getProperty(testClass, "testProperty", true));
+    TestClass otherTestClass = new TestClass();
+    otherTestClass.setTestProperty("second");
+    assertEquals("second", ReflectionUtil.getProperty(otherTestClass, "testProperty", true));
+    assertEquals("first", ReflectionUtil.getProperty(testClass, "testProperty", true));
+  }
+
   class TestClass {
     private String testProperty;
     private boolean valid;